@@ -136,6 +136,15 @@ public interface Result {
         @NotUsedByScanPlugin("used to report incrementality to TAPI progress listeners")
         boolean isIncremental();
 
+        /**
+         * How long it took to check whether the task is up-to-date, in milliseconds.
+         * Null if execution did not get so far as to test “up-to-date-ness”.
+         *
+         * @since 8.4
+         */
+        @Nullable
+        Long getUpToDateCheckDurationMillis();
+
     }
 
     private ExecuteTaskBuildOperationType() {
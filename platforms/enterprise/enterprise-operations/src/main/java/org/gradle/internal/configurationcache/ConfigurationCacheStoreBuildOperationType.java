@@ -18,6 +18,8 @@
 
 import org.gradle.internal.operations.BuildOperationType;
 
+import java.util.List;
+
 /**
  * Details about a configuration cache store build operation.
  *
@@ -29,6 +31,40 @@ public interface Details {
     }
 
     public interface Result {
+        /**
+         * The segments of the entry which were written separately from the work graph, one per project with scheduled tasks.
+         * Empty when the entry is not split into segments.
+         *
+         * @since 8.4
+         */
+        List<Segment> getSegments();
+    }
+
+    /**
+     * A segment of the entry which holds the state of the tasks of a single project.
+     *
+     * @since 8.4
+     */
+    public interface Segment {
+        /**
+         * The identity path of the project the segment belongs to.
+         */
+        String getProjectPath();
+
+        /**
+         * The number of tasks whose state was written to the segment.
+         */
+        int getTaskCount();
+
+        /**
+         * The size of the segment file in bytes.
+         */
+        long getSize();
+
+        /**
+         * The time it took to write the segment in milliseconds.
+         */
+        long getDurationMillis();
     }
 
 }
@@ -124,5 +124,12 @@ public interface Result {
          * Empty if tested, but work was considered up to date.
          */
         List<String> getExecutionReasons();
+
+        /**
+         * How long it took to check whether the work is up-to-date, in milliseconds.
+         * Null if execution did not get so far as to test “up-to-date-ness”.
+         */
+        @Nullable
+        Long getUpToDateCheckDurationMillis();
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares streamed and memory mapped hashing of files via {@link DefaultFileHasher}.
+ *
+ * Run with {@code -prof gc} to see the allocation rate per hashed file.
+ */
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FileHashingBenchmark {
+
+    @Param({"4096", "1048576", "67108864"})
+    int fileSize;
+
+    @Param({"streamed", "mapped"})
+    String mode;
+
+    File file;
+    FileHasher hasher;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("file-hashing", ".bin");
+        byte[] chunk = new byte[Math.min(fileSize, 1024 * 1024)];
+        new Random(1234L).nextBytes(chunk);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            for (int written = 0; written < fileSize; written += chunk.length) {
+                outputStream.write(chunk, 0, Math.min(chunk.length, fileSize - written));
+            }
+        } finally {
+            outputStream.close();
+        }
+        long threshold = mode.equals("mapped") ? 0 : Long.MAX_VALUE;
+        hasher = new DefaultFileHasher(new DefaultStreamHasher(), threshold, hashedFile -> true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!file.delete()) {
+            throw new IllegalStateException("Could not delete " + file);
+        }
+    }
+
+    @Benchmark
+    public void hash(Blackhole blackhole) {
+        blackhole.consume(hasher.hash(file, fileSize, 0));
+    }
+}
@@ -26,47 +26,71 @@
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService, Closeable {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final StateChangeSignal stateChangeSignal;
     private final Set<Action<ResourceLock>> releaseHandlers = new LinkedHashSet<Action<ResourceLock>>();
     private Thread currentOwner;
     private DefaultResourceLockState currentState;
 
+    public DefaultResourceLockCoordinationService() {
+        this(false);
+    }
+
+    /**
+     * @param targetedWakeups when true, the threads waiting for a state change are woken up one at a time, each one after the previous one has retried its action,
+     * instead of all at once. This avoids many threads contending for the state lock when only few of them can make progress.
+     */
+    public DefaultResourceLockCoordinationService(boolean targetedWakeups) {
+        this.stateChangeSignal = targetedWakeups ? new SequentialStateChangeSignal(lock) : new BroadcastStateChangeSignal(lock);
+    }
+
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (!releaseHandlers.isEmpty()) {
                 throw new IllegalStateException("Some lock release listeners have not been removed.");
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void assertHasStateLock() {
-        synchronized (lock) {
-            if (getCurrent() == null) {
-                throw new IllegalStateException();
-            }
+        if (getCurrent() == null) {
+            throw new IllegalStateException();
         }
     }
 
     @Override
     public void addLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.add(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void removeLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.remove(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -96,13 +120,18 @@ public ResourceLockState.Disposition transform(ResourceLockState resourceLockSta
 
     @Override
     public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition, ResourceLockState> stateLockAction) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             DefaultResourceLockState previous = startOperation(resourceLockState);
             try {
                 while (true) {
                     ResourceLockState.Disposition disposition;
-                    disposition = stateLockAction.transform(resourceLockState);
+                    try {
+                        disposition = stateLockAction.transform(resourceLockState);
+                    } finally {
+                        stateChangeSignal.attemptFinished();
+                    }
                     switch (disposition) {
                         case RETRY:
                             resourceLockState.releaseLocks();
@@ -110,7 +139,7 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
                             resourceLockState.reset();
                             finishOperation(previous);
                             try {
-                                lock.wait();
+                                stateChangeSignal.await();
                             } catch (InterruptedException e) {
                                 throw UncheckedException.throwAsUncheckedException(e);
                             }
@@ -132,6 +161,8 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
             } finally {
                 finishOperation(previous);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -158,12 +189,15 @@ private void finishOperation(@Nullable DefaultResourceLockState previous) {
 
     @Override
     public ResourceLockState getCurrent() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (currentOwner != Thread.currentThread()) {
                 return null;
             } else {
                 return currentState;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -181,8 +215,122 @@ private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState)
 
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            stateChangeSignal.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up the threads waiting for a state change. All methods are called while holding the state lock.
+     */
+    private interface StateChangeSignal {
+        /**
+         * Waits until the state has changed.
+         */
+        void await() throws InterruptedException;
+
+        /**
+         * Notifies the waiting threads that the state has changed.
+         */
+        void signal();
+
+        /**
+         * Called whenever a thread has run its state lock action.
+         */
+        void attemptFinished();
+    }
+
+    private static class BroadcastStateChangeSignal implements StateChangeSignal {
+        private final Condition stateChanged;
+
+        BroadcastStateChangeSignal(ReentrantLock lock) {
+            this.stateChanged = lock.newCondition();
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            stateChanged.await();
+        }
+
+        @Override
+        public void signal() {
+            stateChanged.signalAll();
+        }
+
+        @Override
+        public void attemptFinished() {
+        }
+    }
+
+    /**
+     * Wakes up the threads waiting at the time of a state change one at a time.
+     * The next thread is woken up once the previous thread has retried its action, so at most one woken thread contends for the state lock.
+     * Every waiting thread still retries its action after the state change, so no state change is lost.
+     */
+    private static class SequentialStateChangeSignal implements StateChangeSignal {
+        private final ReentrantLock lock;
+        private final Deque<Waiter> waiting = new ArrayDeque<Waiter>();
+        private final Deque<Waiter> toWake = new ArrayDeque<Waiter>();
+        @Nullable
+        private Waiter woken;
+
+        SequentialStateChangeSignal(ReentrantLock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            Waiter waiter = new Waiter(lock.newCondition());
+            waiting.add(waiter);
+            try {
+                while (!waiter.signalled) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(waiter);
+                toWake.remove(waiter);
+                if (woken == waiter) {
+                    wakeNext();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void signal() {
+            toWake.addAll(waiting);
+            waiting.clear();
+            if (woken == null) {
+                wakeNext();
+            }
+        }
+
+        @Override
+        public void attemptFinished() {
+            if (woken != null && woken.thread == Thread.currentThread()) {
+                wakeNext();
+            }
+        }
+
+        private void wakeNext() {
+            woken = toWake.poll();
+            if (woken != null) {
+                woken.signalled = true;
+                woken.condition.signal();
+            }
+        }
+
+        private static class Waiter {
+            final Thread thread = Thread.currentThread();
+            final Condition condition;
+            boolean signalled;
+
+            Waiter(Condition condition) {
+                this.condition = condition;
+            }
         }
     }
 
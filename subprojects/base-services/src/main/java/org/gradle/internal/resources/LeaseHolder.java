@@ -17,7 +17,7 @@
 package org.gradle.internal.resources;
 
 public class LeaseHolder {
-    private final int maxWorkerCount;
+    private int maxWorkerCount;
     private int leasesInUse;
 
     public LeaseHolder(int maxWorkerCount) {
@@ -35,4 +35,15 @@ public boolean grantLease() {
     public void releaseLease() {
         leasesInUse--;
     }
+
+    public int getMaxWorkerCount() {
+        return maxWorkerCount;
+    }
+
+    /**
+     * Changes the number of leases which can be granted. Leases which are already granted are not revoked when the number is lowered.
+     */
+    public void setMaxWorkerCount(int maxWorkerCount) {
+        this.maxWorkerCount = maxWorkerCount;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+/**
+ * Limits the total cost of the units of work running at the same time. Must only be used while holding the state lock.
+ *
+ * <p>
+ * A capacity of 0 means that the resource class is not limited.
+ * A unit of work which costs more than the capacity of a resource class can still run, but only while no other unit of work uses that resource class.
+ * </p>
+ */
+public class ResourceBudget {
+    private final ResourceCost capacity;
+    private final UsageListener listener;
+    private int cpuInUse;
+    private long memoryInUse;
+    private int ioInUse;
+
+    public ResourceBudget(ResourceCost capacity, UsageListener listener) {
+        this.capacity = capacity;
+        this.listener = listener;
+    }
+
+    public ResourceCost getCapacity() {
+        return capacity;
+    }
+
+    public ResourceCost getInUse() {
+        return ResourceCost.of(cpuInUse, memoryInUse, ioInUse);
+    }
+
+    /**
+     * Returns true when any resource class is limited.
+     */
+    public boolean isLimited() {
+        return !capacity.isNone();
+    }
+
+    public boolean tryAcquire(ResourceCost cost) {
+        if (!fits(cost.getCpu(), cpuInUse, capacity.getCpu())
+            || !fits(cost.getMemoryMegabytes(), memoryInUse, capacity.getMemoryMegabytes())
+            || !fits(cost.getIo(), ioInUse, capacity.getIo())) {
+            return false;
+        }
+        cpuInUse += cost.getCpu();
+        memoryInUse += cost.getMemoryMegabytes();
+        ioInUse += cost.getIo();
+        listener.usageChanged(this);
+        return true;
+    }
+
+    public void release(ResourceCost cost) {
+        cpuInUse -= cost.getCpu();
+        memoryInUse -= cost.getMemoryMegabytes();
+        ioInUse -= cost.getIo();
+        listener.usageChanged(this);
+    }
+
+    private static boolean fits(long cost, long inUse, long capacity) {
+        return capacity == 0 || cost == 0 || inUse == 0 || inUse + cost <= capacity;
+    }
+
+    public interface UsageListener {
+        UsageListener NO_OP = budget -> {
+        };
+
+        /**
+         * Called while holding the state lock whenever the resources in use change.
+         */
+        void usageChanged(ResourceBudget budget);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+/**
+ * Hands out leases on a {@link ResourceBudget}, so that the cost of a unit of work can be acquired together with its other resource locks.
+ */
+public class ResourceBudgetLeaseRegistry extends AbstractResourceLockRegistry<String, ResourceLock> {
+    private final ResourceBudget budget;
+    private final ResourceLockCoordinationService coordinationService;
+
+    public ResourceBudgetLeaseRegistry(ResourceLockCoordinationService coordinationService, ResourceBudget budget) {
+        super(coordinationService);
+        this.coordinationService = coordinationService;
+        this.budget = budget;
+    }
+
+    /**
+     * Returns true when the given cost needs to be admitted against the budget.
+     */
+    public boolean isLimited(ResourceCost cost) {
+        return budget.isLimited() && !cost.isNone();
+    }
+
+    public ResourceLock getResourceLock(String displayName, ResourceCost cost) {
+        return new ResourceBudgetLease("resources for " + displayName, coordinationService, this, budget, cost);
+    }
+
+    private static class ResourceBudgetLease extends AbstractTrackedResourceLock {
+        private final ResourceBudget budget;
+        private final ResourceCost cost;
+        private Thread ownerThread;
+
+        public ResourceBudgetLease(String displayName, ResourceLockCoordinationService coordinationService, ResourceLockContainer owner, ResourceBudget budget, ResourceCost cost) {
+            super(displayName, coordinationService, owner);
+            this.budget = budget;
+            this.cost = cost;
+        }
+
+        @Override
+        protected boolean doIsLocked() {
+            return ownerThread != null;
+        }
+
+        @Override
+        protected boolean doIsLockedByCurrentThread() {
+            return Thread.currentThread() == ownerThread;
+        }
+
+        @Override
+        protected boolean acquireLock() {
+            if (budget.tryAcquire(cost)) {
+                ownerThread = Thread.currentThread();
+            }
+            return ownerThread != null;
+        }
+
+        @Override
+        protected void releaseLock() {
+            if (Thread.currentThread() != ownerThread) {
+                // Not implemented - not yet required. Please implement if required
+                throw new UnsupportedOperationException("Must complete operation from owner thread.");
+            }
+            budget.release(cost);
+            ownerThread = null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import java.util.Objects;
+
+/**
+ * The estimated cost of running a unit of work, for each of the resource classes limited by a {@link ResourceBudget}.
+ */
+public final class ResourceCost {
+    public static final ResourceCost NONE = new ResourceCost(0, 0, 0);
+
+    private final int cpu;
+    private final long memoryMegabytes;
+    private final int io;
+
+    private ResourceCost(int cpu, long memoryMegabytes, int io) {
+        this.cpu = cpu;
+        this.memoryMegabytes = memoryMegabytes;
+        this.io = io;
+    }
+
+    /**
+     * @param cpu the number of cores the work keeps busy
+     * @param memoryMegabytes the memory used by the work, including the memory used by any processes it starts
+     * @param io the number of concurrent I/O heavy operations the work performs
+     */
+    public static ResourceCost of(int cpu, long memoryMegabytes, int io) {
+        if (cpu < 0 || memoryMegabytes < 0 || io < 0) {
+            throw new IllegalArgumentException("Resource costs must not be negative: cpu " + cpu + ", memory " + memoryMegabytes + "MB, io " + io);
+        }
+        if (cpu == 0 && memoryMegabytes == 0 && io == 0) {
+            return NONE;
+        }
+        return new ResourceCost(cpu, memoryMegabytes, io);
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public long getMemoryMegabytes() {
+        return memoryMegabytes;
+    }
+
+    public int getIo() {
+        return io;
+    }
+
+    public boolean isNone() {
+        return this == NONE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ResourceCost that = (ResourceCost) o;
+        return cpu == that.cpu && memoryMegabytes == that.memoryMegabytes && io == that.io;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cpu, memoryMegabytes, io);
+    }
+
+    @Override
+    public String toString() {
+        return "cpu " + cpu + ", memory " + memoryMegabytes + "MB, io " + io;
+    }
+}
@@ -96,6 +96,36 @@ public int getMaxWorkerCount() {
         return maxWorkerCount;
     }
 
+    /**
+     * Returns the number of worker leases which can currently be held at the same time.
+     */
+    public int getWorkerLeaseLimit() {
+        return coordinationService.withStateLock(new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+                return workerLeaseLockRegistry.root.getMaxWorkerCount();
+            }
+        });
+    }
+
+    /**
+     * Changes the number of worker leases which can be held at the same time, which is initially the max worker count.
+     * Leases which are already held are not revoked when the limit is lowered, so it can take a while until the number of held leases drops below the new limit.
+     */
+    public void setWorkerLeaseLimit(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Not a valid worker lease limit: " + limit);
+        }
+        coordinationService.withStateLock(new Runnable() {
+            @Override
+            public void run() {
+                workerLeaseLockRegistry.root.setMaxWorkerCount(limit);
+                // Threads waiting for a lease may be able to get one now
+                coordinationService.notifyStateChange();
+            }
+        });
+    }
+
     @Override
     public WorkerLease getCurrentWorkerLease() {
         List<? extends WorkerLease> operations = workerLeaseLockRegistry.getResourceLocksByCurrentThread();
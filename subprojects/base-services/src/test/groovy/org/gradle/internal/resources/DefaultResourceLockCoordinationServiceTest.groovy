@@ -21,6 +21,9 @@ import org.gradle.internal.InternalTransformer
 import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.atomic.AtomicInteger
+
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
@@ -29,7 +32,11 @@ import static org.gradle.internal.resources.ResourceLockState.Disposition.FINISH
 import static org.gradle.internal.resources.ResourceLockState.Disposition.RETRY
 
 class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
-    def coordinationService = new DefaultResourceLockCoordinationService()
+    def coordinationService = createCoordinationService()
+
+    DefaultResourceLockCoordinationService createCoordinationService() {
+        return new DefaultResourceLockCoordinationService()
+    }
 
     def "can acquire locks atomically using withStateLock"() {
         def lock1 = resourceLock("lock1", lock1Locked)
@@ -112,6 +119,38 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         lock2.lockedState
     }
 
+    def "retries the actions of all waiting threads when the state changes"() {
+        def waiting = new CopyOnWriteArraySet<Thread>()
+        def finished = new AtomicInteger()
+        def released = false
+
+        when:
+        async {
+            4.times {
+                start {
+                    coordinationService.withStateLock { state ->
+                        if (released) {
+                            return FINISHED
+                        }
+                        waiting.add(Thread.currentThread())
+                        return RETRY
+                    }
+                    finished.incrementAndGet()
+                }
+            }
+            ConcurrentTestUtil.poll {
+                assert waiting.size() == 4
+            }
+            coordinationService.withStateLock({
+                released = true
+                coordinationService.notifyStateChange()
+            } as Runnable)
+        }
+
+        then:
+        finished.get() == 4
+    }
+
     def "can nest multiple calls to withStateLock"() {
         def lock = [
             resourceLock("lock1"),
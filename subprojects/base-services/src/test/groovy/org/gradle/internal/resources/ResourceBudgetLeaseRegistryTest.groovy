@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resources
+
+import spock.lang.Specification
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
+
+class ResourceBudgetLeaseRegistryTest extends Specification {
+    def coordinationService = new DefaultResourceLockCoordinationService()
+    def listener = Mock(ResourceBudget.UsageListener)
+    def budget = new ResourceBudget(ResourceCost.of(4, 1000, 0), listener)
+    def registry = new ResourceBudgetLeaseRegistry(coordinationService, budget)
+
+    def "admits work while its cost fits the budget"() {
+        def first = registry.getResourceLock("first", ResourceCost.of(2, 600, 0))
+        def second = registry.getResourceLock("second", ResourceCost.of(2, 300, 5))
+        def third = registry.getResourceLock("third", ResourceCost.of(1, 0, 0))
+
+        expect:
+        coordinationService.withStateLock(tryLock(first))
+        coordinationService.withStateLock(tryLock(second))
+        !coordinationService.withStateLock(tryLock(third))
+        budget.inUse == ResourceCost.of(4, 900, 5)
+
+        when:
+        coordinationService.withStateLock(unlock(first))
+
+        then:
+        coordinationService.withStateLock(tryLock(third))
+        budget.inUse == ResourceCost.of(3, 300, 5)
+    }
+
+    def "admits work which costs more than the capacity when nothing else uses the resource"() {
+        def large = registry.getResourceLock("large", ResourceCost.of(0, 2000, 0))
+        def small = registry.getResourceLock("small", ResourceCost.of(0, 100, 0))
+        def cpuOnly = registry.getResourceLock("cpu only", ResourceCost.of(1, 0, 0))
+
+        expect:
+        coordinationService.withStateLock(tryLock(large))
+        !coordinationService.withStateLock(tryLock(small))
+        coordinationService.withStateLock(tryLock(cpuOnly))
+    }
+
+    def "notifies listener when the resources in use change"() {
+        def lock = registry.getResourceLock("work", ResourceCost.of(1, 100, 0))
+
+        when:
+        coordinationService.withStateLock(tryLock(lock))
+
+        then:
+        1 * listener.usageChanged(budget) >> { ResourceBudget b -> assert b.inUse == ResourceCost.of(1, 100, 0) }
+
+        when:
+        coordinationService.withStateLock(unlock(lock))
+
+        then:
+        1 * listener.usageChanged(budget) >> { ResourceBudget b -> assert b.inUse.none }
+    }
+
+    def "only limits costs when a capacity is configured"() {
+        def unlimited = new ResourceBudgetLeaseRegistry(coordinationService, new ResourceBudget(ResourceCost.NONE, ResourceBudget.UsageListener.NO_OP))
+
+        expect:
+        registry.isLimited(ResourceCost.of(1, 0, 0))
+        !registry.isLimited(ResourceCost.NONE)
+        !unlimited.isLimited(ResourceCost.of(1, 0, 0))
+    }
+}
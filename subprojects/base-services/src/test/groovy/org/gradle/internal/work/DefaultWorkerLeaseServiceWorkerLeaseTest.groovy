@@ -73,6 +73,37 @@ class DefaultWorkerLeaseServiceWorkerLeaseTest extends AbstractWorkerLeaseServic
         registry?.stop()
     }
 
+    def "worker start blocks when the worker lease limit is lowered and continues when it is raised"() {
+        def registry = workerLeaseService(2)
+        registry.workerLeaseLimit = 1
+
+        when:
+        async {
+            start {
+                def cl = registry.startWorker()
+                instant.worker1
+                thread.block()
+                instant.limitRaised
+                registry.workerLeaseLimit = 2
+                thread.blockUntil.worker2
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.worker1
+                def cl = registry.startWorker()
+                instant.worker2
+                cl.leaseFinish()
+            }
+        }
+
+        then:
+        registry.workerLeaseLimit == 2
+        instant.worker2 > instant.limitRaised
+
+        cleanup:
+        registry?.stop()
+    }
+
     def "can run as worker thread"() {
         def registry = workerLeaseService(1)
 
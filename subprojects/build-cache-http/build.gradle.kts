@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.api-java")
+    id("gradlebuild.jmh")
 }
 
 description = "Implementation for interacting with HTTP build caches"
@@ -22,6 +23,8 @@ dependencies {
     testImplementation(testFixtures(project(":core")))
     testImplementation(libs.servletApi)
 
+    jmhImplementation(platform(project(":distributions-dependencies")))
+
     integTestImplementation(project(":enterprise-operations"))
     integTestImplementation(libs.jetty)
 
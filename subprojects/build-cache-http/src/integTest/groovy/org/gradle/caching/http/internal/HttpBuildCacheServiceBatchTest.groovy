@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.caching.BuildCacheException
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.BuildCacheServiceFactory
+import org.gradle.caching.http.HttpBuildCache
+import org.gradle.caching.internal.DefaultBuildCacheKey
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
+import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpBuildCacheServer
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class HttpBuildCacheServiceBatchTest extends Specification {
+    private static final int ENTRY_COUNT = 20
+
+    @Rule
+    TestNameTestDirectoryProvider tempDir = new TestNameTestDirectoryProvider(getClass())
+    @Rule
+    HttpBuildCacheServer server = new HttpBuildCacheServer(tempDir)
+
+    def requestCount = new AtomicInteger()
+    def keys = (0..<ENTRY_COUNT).collect { new DefaultBuildCacheKey(Hashing.hashString("entry $it")) } as LinkedHashSet<BuildCacheKey>
+    def storedKeys = keys.findAll { keys.toList().indexOf(it) % 2 == 0 } as Set<BuildCacheKey>
+
+    HttpBuildCacheService cache
+
+    def setup() {
+        server.addResponder { req, res ->
+            requestCount.incrementAndGet()
+            true
+        }
+        server.withLatency(20)
+    }
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "checks and loads multiple entries with a single request each when the server supports batch requests"() {
+        server.withBatchRequests()
+        startWithStoredEntries()
+
+        when:
+        def found = cache.contains(keys)
+
+        then:
+        cache.supportsBatchRequests()
+        found == storedKeys
+        requestCount.get() == 1
+
+        when:
+        requestCount.set(0)
+        def loaded = [:]
+        def loadedKeys = cache.load(keys) { key, input -> loaded[key] = input.text }
+
+        then:
+        loadedKeys == storedKeys
+        loaded == storedKeys.collectEntries { [it, "content of ${it.hashCode}".toString()] }
+        requestCount.get() == 1
+    }
+
+    def "falls back to individual requests when the server does not support batch requests"() {
+        startWithStoredEntries()
+
+        when:
+        def found = cache.contains(keys)
+
+        then:
+        found == storedKeys
+        !cache.supportsBatchRequests()
+        requestCount.get() == 1 + ENTRY_COUNT
+
+        when:
+        requestCount.set(0)
+        def loaded = [:]
+        def loadedKeys = cache.load(keys) { key, input -> loaded[key] = input.text }
+
+        then:
+        loadedKeys == storedKeys
+        loaded == storedKeys.collectEntries { [it, "content of ${it.hashCode}".toString()] }
+        requestCount.get() == ENTRY_COUNT
+    }
+
+    def "fails batch requests answered with an error and keeps using batch requests"() {
+        server.addResponder { req, res ->
+            if (req.method == "POST") {
+                res.sendError(500)
+                return false
+            }
+            true
+        }
+        startWithStoredEntries()
+
+        when:
+        cache.contains(keys)
+
+        then:
+        def e = thrown(BuildCacheException)
+        e.message.contains("response status 500")
+        cache.supportsBatchRequests()
+        requestCount.get() == 1
+    }
+
+    private void startWithStoredEntries() {
+        server.start()
+        storedKeys.each { key ->
+            server.cacheDir.file(key.hashCode).text = "content of ${key.hashCode}"
+        }
+        def config = TestUtil.newInstance(HttpBuildCache.class)
+        config.url = server.uri
+        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), {}, HttpClientHelper.Factory.createFactory(new DocumentationRegistry()))
+            .createBuildCacheService(config, Stub(BuildCacheServiceFactory.Describer)) as HttpBuildCacheService
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.DefaultBuildCacheKey;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
+import org.gradle.internal.resource.transport.http.HttpClientHelper;
+import org.gradle.internal.verifier.HttpRedirectVerifierFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many entries per second can be loaded from a local HTTP build cache with 256 concurrent lookups.
+ *
+ * The client and the server either keep connections alive, or close them after each request,
+ * which shows the cost of opening a new connection per request.
+ * When the client keeps connections alive, idle connections are kept for reuse for up to a minute.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(256)
+public class HttpBuildCacheServiceBenchmark {
+    private static final byte[] ENTRY = new byte[16 * 1024];
+
+    @Param({"20", "256"})
+    int maxConnections;
+
+    @Param({"true", "false"})
+    boolean serverKeepAlive;
+
+    @Param({"true", "false"})
+    boolean clientKeepAlive;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpBuildCacheService service;
+    private final BuildCacheKey key = new DefaultBuildCacheKey(Hashing.hashString("entry"));
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(512);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(serverExecutor);
+        server.createContext("/cache/", exchange -> {
+            ByteStreams.exhaust(exchange.getRequestBody());
+            if (!serverKeepAlive) {
+                exchange.getResponseHeaders().add("Connection", "close");
+            }
+            exchange.sendResponseHeaders(200, ENTRY.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(ENTRY);
+            }
+        });
+        server.start();
+
+        URI root = URI.create("http://localhost:" + server.getAddress().getPort() + "/cache/");
+        HttpClientHelper httpClientHelper = HttpClientHelper.Factory.createFactory(new DocumentationRegistry()).create(DefaultHttpSettings.builder()
+            .withAuthenticationSettings(Collections.emptyList())
+            .allowUntrustedConnections()
+            .withRedirectVerifier(HttpRedirectVerifierFactory.create(root, true, () -> {}, redirect -> {}))
+            .maxConnTotal(maxConnections)
+            .maxConnPerRoute(maxConnections)
+            .idleConnectionKeepAlive(clientKeepAlive ? TimeUnit.MINUTES.toMillis(1) : -1)
+            .build());
+        service = new HttpBuildCacheService(httpClientHelper, root, request -> {
+            if (!clientKeepAlive) {
+                request.addHeader("Connection", "close");
+            }
+        }, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long load() {
+        long[] size = new long[1];
+        service.load(key, input -> size[0] = ByteStreams.exhaust(input));
+        return size[0];
+    }
+}
@@ -46,6 +46,14 @@
 public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFactory<HttpBuildCache> {
 
     private static final int MAX_REDIRECTS = Integer.getInteger("org.gradle.cache.http.max-redirects", 10);
+    /**
+     * The maximum number of concurrent connections to the HTTP build cache, and so the number of concurrent requests.
+     */
+    private static final int MAX_CONNECTIONS = Integer.getInteger("org.gradle.cache.http.max-connections", 0);
+    /**
+     * The time in milliseconds idle connections to the HTTP build cache are kept open for reuse.
+     */
+    private static final long KEEP_ALIVE_MS = Long.getLong("org.gradle.cache.http.keep-alive", 0);
 
     private final SslContextFactory sslContextFactory;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
@@ -98,11 +106,15 @@ public BuildCacheService createBuildCacheService(HttpBuildCache configuration, D
             builder.withSslContextFactory(sslContextFactory);
         }
 
-        if (NextGenBuildCacheController.isNextGenCachingEnabled()) {
+        if (MAX_CONNECTIONS > 0) {
+            builder.maxConnTotal(MAX_CONNECTIONS);
+            builder.maxConnPerRoute(MAX_CONNECTIONS);
+        } else if (NextGenBuildCacheController.isNextGenCachingEnabled()) {
             // Allow next-gen build cache to use all threads to access the cache backend
             builder.maxConnTotal(DefaultNextGenBuildCacheAccess.THREAD_POOL_SIZE);
             builder.maxConnPerRoute(DefaultNextGenBuildCacheAccess.THREAD_POOL_SIZE);
         }
+        builder.idleConnectionKeepAlive(KEEP_ALIVE_MS);
 
         HttpClientHelper httpClientHelper = httpClientHelperFactory.create(builder.build());
 
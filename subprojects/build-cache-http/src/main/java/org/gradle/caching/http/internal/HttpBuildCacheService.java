@@ -17,15 +17,19 @@
 package org.gradle.caching.http.internal;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HTTP;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.caching.BuildCacheEntryReader;
@@ -38,19 +42,54 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
+ *
+ * <p>Multiple entries can be checked and loaded with a single request if the server supports it.
+ * Both batch requests are {@code POST} requests with the keys of the entries as the body, one per line:</p>
+ *
+ * <ul>
+ *     <li>{@code POST <root>/batch-exists} responds with the keys of the entries that exist, one per line,
+ *     with the content type {@value #BATCH_EXISTS_CONTENT_TYPE}.</li>
+ *     <li>{@code POST <root>/batch-load} responds with the content type {@value #BATCH_LOAD_CONTENT_TYPE}.
+ *     The response contains each entry that exists, encoded as the key written by {@link java.io.DataOutputStream#writeUTF(String)},
+ *     the length of the entry written by {@link java.io.DataOutputStream#writeLong(long)}, and the data of the entry.
+ *     The response ends with an empty key.</li>
+ * </ul>
+ *
+ * <p>If the server answers a batch request with status 404, 405 or 501, or with a successful response of another content type,
+ * it doesn't know about batch requests, and entries are checked and loaded one by one from then on.
+ * Any other error status fails the batch request, just like it fails a request for a single entry.</p>
  */
 public class HttpBuildCacheService implements NextGenBuildCacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v1";
+    static final String BATCH_EXISTS_CONTENT_TYPE = "application/vnd.gradle.build-cache-batch-exists.v1";
+    static final String BATCH_LOAD_CONTENT_TYPE = "application/vnd.gradle.build-cache-batch-load.v1";
+    static final String BATCH_EXISTS_PATH = "batch-exists";
+    static final String BATCH_LOAD_PATH = "batch-load";
+
+    private static final Set<Integer> BATCH_UNSUPPORTED_HTTP_STATUS_CODES = ImmutableSet.of(
+        HttpStatus.SC_NOT_FOUND,
+        HttpStatus.SC_METHOD_NOT_ALLOWED,
+        HttpStatus.SC_NOT_IMPLEMENTED
+    );
 
     private static final Set<Integer> FATAL_HTTP_ERROR_CODES = ImmutableSet.of(
         HttpStatus.SC_USE_PROXY,
@@ -67,6 +106,7 @@ public class HttpBuildCacheService implements NextGenBuildCacheService {
     private final HttpClientHelper httpClientHelper;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final boolean useExpectContinue;
+    private volatile boolean batchRequestsSupported = true;
 
     public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue) {
         this.requestCustomizer = requestCustomizer;
@@ -100,6 +140,120 @@ public boolean contains(BuildCacheKey key) {
         }
     }
 
+    @Override
+    public boolean supportsBatchRequests() {
+        return batchRequestsSupported;
+    }
+
+    @Override
+    public Set<BuildCacheKey> contains(Set<BuildCacheKey> keys) {
+        if (!batchRequestsSupported || keys.size() <= 1) {
+            return NextGenBuildCacheService.super.contains(keys);
+        }
+        Map<String, BuildCacheKey> keysByHash = keysByHash(keys);
+        HttpPost httpPost = batchRequest(BATCH_EXISTS_PATH, keys, BATCH_EXISTS_CONTENT_TYPE);
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpPost)) {
+            if (!isBatchResponse(httpPost, response, BATCH_EXISTS_CONTENT_TYPE)) {
+                return NextGenBuildCacheService.super.contains(keys);
+            }
+            Set<BuildCacheKey> found = new LinkedHashSet<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.getContent(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                BuildCacheKey key = keysByHash.get(line.trim());
+                if (key != null) {
+                    found.add(key);
+                }
+            }
+            return found;
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public Set<BuildCacheKey> load(Set<BuildCacheKey> keys, BatchReader reader) throws BuildCacheException {
+        if (!batchRequestsSupported || keys.size() <= 1) {
+            return NextGenBuildCacheService.super.load(keys, reader);
+        }
+        Map<String, BuildCacheKey> keysByHash = keysByHash(keys);
+        HttpPost httpPost = batchRequest(BATCH_LOAD_PATH, keys, BATCH_LOAD_CONTENT_TYPE);
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpPost)) {
+            if (!isBatchResponse(httpPost, response, BATCH_LOAD_CONTENT_TYPE)) {
+                return NextGenBuildCacheService.super.load(keys, reader);
+            }
+            Set<BuildCacheKey> found = new LinkedHashSet<>();
+            DataInputStream input = new DataInputStream(response.getContent());
+            String hashCode;
+            while (!(hashCode = input.readUTF()).isEmpty()) {
+                BuildCacheKey key = keysByHash.get(hashCode);
+                long length = input.readLong();
+                if (key == null) {
+                    throw new BuildCacheException(String.format("Loading entries from '%s' returned unexpected entry %s", safeUri(httpPost.getURI()), hashCode));
+                }
+                InputStream entryInput = ByteStreams.limit(nonClosing(input), length);
+                reader.readFrom(key, entryInput);
+                ByteStreams.exhaust(entryInput);
+                found.add(key);
+            }
+            return found;
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    private HttpPost batchRequest(String path, Set<BuildCacheKey> keys, String acceptedContentType) {
+        HttpPost httpPost = new HttpPost(root.resolve(path));
+        httpPost.addHeader(HttpHeaders.ACCEPT, acceptedContentType);
+        httpPost.setEntity(new StringEntity(
+            keys.stream().map(BuildCacheKey::getHashCode).collect(Collectors.joining("\n")),
+            ContentType.create("text/plain", StandardCharsets.UTF_8)
+        ));
+        requestCustomizer.customize(httpPost);
+        return httpPost;
+    }
+
+    /**
+     * Checks whether the server handled the batch request, and switches to handling entries one by one if the server does not support batch requests.
+     * Fails for any other error response.
+     */
+    private boolean isBatchResponse(HttpPost httpPost, HttpClientResponse response, String expectedContentType) {
+        StatusLine statusLine = response.getStatusLine();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Response for POST {}: {}", safeUri(httpPost.getURI()), statusLine);
+        }
+        int statusCode = statusLine.getStatusCode();
+        if (isHttpSuccess(statusCode)) {
+            String contentType = response.getHeader(HttpHeaders.CONTENT_TYPE);
+            if (contentType != null && contentType.startsWith(expectedContentType)) {
+                return true;
+            }
+        } else if (!BATCH_UNSUPPORTED_HTTP_STATUS_CODES.contains(statusCode)) {
+            String defaultMessage = String.format("Batch request to '%s' response status %d: %s", safeUri(httpPost.getURI()), statusCode, statusLine.getReasonPhrase());
+            return throwHttpStatusCodeException(statusCode, defaultMessage);
+        }
+        LOGGER.info("Build cache at '{}' does not support batch requests (response status {}), using individual requests instead", safeUri(root), statusCode);
+        batchRequestsSupported = false;
+        return false;
+    }
+
+    private static InputStream nonClosing(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public void close() {
+                // The remaining entries are still to be read
+            }
+        };
+    }
+
+    private static Map<String, BuildCacheKey> keysByHash(Set<BuildCacheKey> keys) {
+        Map<String, BuildCacheKey> keysByHash = new HashMap<>(keys.size() * 2);
+        for (BuildCacheKey key : keys) {
+            keysByHash.put(key.getHashCode(), key);
+        }
+        return keysByHash;
+    }
+
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
         final URI uri = root.resolve("./" + key.getHashCode());
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression codecs used for build cache entries.
+ *
+ * Gzip compressed entries are stored without a header, so they stay readable by older Gradle versions.
+ * Entries compressed with any other codec start with a header identifying the codec.
+ * The two cannot be confused, as gzip data always starts with the gzip magic number.
+ * When decompressing, the codec is detected from the data, regardless of which codec is used for storing.
+ */
+public enum BuildCacheEntryCompression {
+    GZIP(0) {
+        @Override
+        protected OutputStream compressPayload(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+
+        @Override
+        protected InputStream decompressPayload(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    },
+    LZ4(1) {
+        private final FramedLZ4CompressorOutputStream.Parameters parameters = new FramedLZ4CompressorOutputStream.Parameters(
+            FramedLZ4CompressorOutputStream.BlockSize.M4,
+            true,
+            false,
+            false,
+            BlockLZ4CompressorOutputStream.createParameterBuilder().tunedForSpeed().build()
+        );
+
+        @Override
+        protected OutputStream compressPayload(OutputStream output) throws IOException {
+            return new FramedLZ4CompressorOutputStream(output, parameters);
+        }
+
+        @Override
+        protected InputStream decompressPayload(InputStream input) throws IOException {
+            return new FramedLZ4CompressorInputStream(input);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+    private static final int HEADER_MAGIC_FIRST_BYTE = 'G';
+    private static final int HEADER_MAGIC_SECOND_BYTE = 'C';
+
+    private final int id;
+
+    BuildCacheEntryCompression(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the value to mix into the cache keys of entries stored with this codec, or {@code null} for gzip.
+     *
+     * Older Gradle versions fail to read entries with a header, so these entries must not be found under the keys such versions use.
+     * Gzip entries stay readable everywhere, so their keys stay the same.
+     */
+    @Nullable
+    public String getCacheKeySalt() {
+        return this == GZIP
+            ? null
+            : "compression-" + name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns a stream that compresses the data written to it into the given output.
+     * Closing the returned stream closes the given output.
+     */
+    public OutputStream compress(OutputStream output) throws IOException {
+        if (this != GZIP) {
+            output.write(HEADER_MAGIC_FIRST_BYTE);
+            output.write(HEADER_MAGIC_SECOND_BYTE);
+            output.write(id);
+        }
+        return compressPayload(output);
+    }
+
+    /**
+     * Returns a stream that decompresses the given input, detecting the codec it was compressed with.
+     * Closing the returned stream closes the given input.
+     */
+    public static InputStream decompress(InputStream input) throws IOException {
+        PushbackInputStream pushbackInput = new PushbackInputStream(input, 1);
+        int first = pushbackInput.read();
+        if (first == GZIP_MAGIC_FIRST_BYTE) {
+            pushbackInput.unread(first);
+            return GZIP.decompressPayload(pushbackInput);
+        }
+        if (first != HEADER_MAGIC_FIRST_BYTE || pushbackInput.read() != HEADER_MAGIC_SECOND_BYTE) {
+            throw new IOException("Build cache entry is not compressed with a known codec");
+        }
+        int id = pushbackInput.read();
+        for (BuildCacheEntryCompression compression : values()) {
+            if (compression.id == id) {
+                return compression.decompressPayload(pushbackInput);
+            }
+        }
+        throw new IOException("Build cache entry is compressed with an unknown codec: " + id);
+    }
+
+    protected abstract OutputStream compressPayload(OutputStream output) throws IOException;
+
+    protected abstract InputStream decompressPayload(InputStream input) throws IOException;
+}
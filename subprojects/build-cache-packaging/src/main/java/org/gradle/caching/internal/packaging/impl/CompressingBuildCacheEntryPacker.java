@@ -19,6 +19,7 @@
 import org.gradle.caching.internal.CacheableEntity;
 import org.gradle.caching.internal.origin.OriginReader;
 import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
@@ -26,27 +27,30 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
-public class GZipBuildCacheEntryPacker implements BuildCacheEntryPacker {
+/**
+ * Compresses packed entries with the given compression, and decompresses entries stored with any compression.
+ */
+public class CompressingBuildCacheEntryPacker implements BuildCacheEntryPacker {
     private final BuildCacheEntryPacker delegate;
+    private final BuildCacheEntryCompression compression;
 
-    public GZipBuildCacheEntryPacker(BuildCacheEntryPacker delegate) {
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryPacker delegate, BuildCacheEntryCompression compression) {
         this.delegate = delegate;
+        this.compression = compression;
     }
 
     @Override
     public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
-        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
-            return delegate.pack(entity, snapshots, gzipOutput, writeOrigin);
+        try (OutputStream compressedOutput = compression.compress(output)) {
+            return delegate.pack(entity, snapshots, compressedOutput, writeOrigin);
         }
     }
 
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
-        try (GZIPInputStream gzipInput = new GZIPInputStream(input)) {
-            return delegate.unpack(entity, gzipInput, readOrigin);
+        try (InputStream compressedInput = BuildCacheEntryCompression.decompress(input)) {
+            return delegate.unpack(entity, compressedInput, readOrigin);
         }
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging
+
+import spock.lang.Specification
+
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+class BuildCacheEntryCompressionTest extends Specification {
+    def data = ("Hello world\n" * 1000).bytes
+
+    def "can compress and decompress with #compression"() {
+        when:
+        def compressed = compress(compression, data)
+
+        then:
+        compressed.length < data.length
+        decompress(compressed) == data
+
+        where:
+        compression << BuildCacheEntryCompression.values()
+    }
+
+    def "gzip compressed entries have no header and are readable by plain gzip"() {
+        when:
+        def compressed = compress(BuildCacheEntryCompression.GZIP, data)
+
+        then:
+        new GZIPInputStream(new ByteArrayInputStream(compressed)).bytes == data
+    }
+
+    def "can decompress plain gzip entries"() {
+        def compressed = new ByteArrayOutputStream()
+        new GZIPOutputStream(compressed).withStream { it.write(data) }
+
+        expect:
+        decompress(compressed.toByteArray()) == data
+    }
+
+    def "only entries with a header get a cache key salt"() {
+        expect:
+        BuildCacheEntryCompression.GZIP.cacheKeySalt == null
+        BuildCacheEntryCompression.LZ4.cacheKeySalt == "compression-lz4"
+    }
+
+    def "fails for entries with unknown compression"() {
+        when:
+        decompress(bytes as byte[])
+
+        then:
+        thrown(IOException)
+
+        where:
+        bytes << [[], [1, 2, 3], ['G', 'C', 99]]
+    }
+
+    private static byte[] compress(BuildCacheEntryCompression compression, byte[] bytes) {
+        def output = new ByteArrayOutputStream()
+        compression.compress(output).withStream { it.write(bytes) }
+        return output.toByteArray()
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        return BuildCacheEntryCompression.decompress(new ByteArrayInputStream(bytes)).bytes
+    }
+}
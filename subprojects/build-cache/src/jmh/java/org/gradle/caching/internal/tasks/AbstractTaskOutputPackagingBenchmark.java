@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
@@ -55,6 +56,8 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new CommonsTarPacker(2))
         .put("tar.large", new CommonsTarPacker(64))
         .put("tar.gz", new GzipPacker(new CommonsTarPacker(4)))
+        .put("tar.gz.entry", new CompressionPacker(new CommonsTarPacker(4), BuildCacheEntryCompression.GZIP))
+        .put("tar.lz4.entry", new CompressionPacker(new CommonsTarPacker(4), BuildCacheEntryCompression.LZ4))
         .put("zip", new ZipPacker(4))
         .build();
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interners;
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterPool;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares sequential and parallel snapshotting of a wide and deep directory hierarchy.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DirectorySnapshotterBenchmark {
+    private static final int DIRECTORIES_PER_LEVEL = 8;
+
+    Path tempDirPath;
+    DirectorySnapshotterPool pool;
+    DirectorySnapshotter snapshotter;
+
+    @Param({"1", "4", "16"})
+    int parallelism;
+
+    @Param({"3"})
+    int depth;
+
+    @Param({"50"})
+    int filesPerDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDirPath = Files.createTempDirectory("directory-snapshotter");
+        createHierarchy(tempDirPath, depth);
+        pool = new DirectorySnapshotterPool(parallelism);
+        snapshotter = new DirectorySnapshotter(
+            new DefaultFileHasher(new DefaultStreamHasher()),
+            Interners.newWeakInterner(),
+            ImmutableList.of(),
+            new DirectorySnapshotterStatistics.Collector(),
+            pool
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        FileUtils.forceDelete(tempDirPath.toFile());
+    }
+
+    private void createHierarchy(Path dir, int remainingDepth) throws IOException {
+        for (int file = 0; file < filesPerDirectory; file++) {
+            Files.write(dir.resolve("file" + file + ".txt"), (dir + "/" + file).getBytes(StandardCharsets.UTF_8));
+        }
+        if (remainingDepth == 0) {
+            return;
+        }
+        for (int subDir = 0; subDir < DIRECTORIES_PER_LEVEL; subDir++) {
+            Path subDirPath = Files.createDirectory(dir.resolve("dir" + subDir));
+            createHierarchy(subDirPath, remainingDepth - 1);
+        }
+    }
+
+    @Benchmark
+    public void snapshot(Blackhole blackhole) {
+        blackhole.consume(snapshotter.snapshot(tempDirPath.toString(), null, snapshot -> {}));
+    }
+}
@@ -18,6 +18,7 @@
 
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.gradle.api.Incubating;
+import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
@@ -26,6 +27,8 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Build cache service with additional features for next-generation build cache implementation.
@@ -40,6 +43,47 @@ public interface NextGenBuildCacheService extends BuildCacheService  {
      */
     boolean contains(BuildCacheKey key);
 
+    /**
+     * Returns whether {@link #contains(Set)} and {@link #load(Set, BatchReader)} handle multiple entries
+     * more efficiently than checking or loading them one by one.
+     */
+    default boolean supportsBatchRequests() {
+        return false;
+    }
+
+    /**
+     * Returns which of the given entries exist in the cache.
+     *
+     * @param keys the cache keys.
+     * @return the keys of the entries that exist in the cache.
+     */
+    default Set<BuildCacheKey> contains(Set<BuildCacheKey> keys) {
+        Set<BuildCacheKey> found = new LinkedHashSet<>();
+        for (BuildCacheKey key : keys) {
+            if (contains(key)) {
+                found.add(key);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Loads the given entries, calling the reader for each entry found in the cache.
+     *
+     * @param keys the cache keys.
+     * @param reader the reader to read the data of the found entries.
+     * @return the keys of the entries found in the cache.
+     */
+    default Set<BuildCacheKey> load(Set<BuildCacheKey> keys, BatchReader reader) throws BuildCacheException {
+        Set<BuildCacheKey> found = new LinkedHashSet<>();
+        for (BuildCacheKey key : keys) {
+            if (load(key, input -> reader.readFrom(key, input))) {
+                found.add(key);
+            }
+        }
+        return found;
+    }
+
     @Override
     default void store(BuildCacheKey key, BuildCacheEntryWriter legacyWriter) throws BuildCacheException {
         NextGenWriter writer;
@@ -78,4 +122,11 @@ public long getSize() {
     interface NextGenWriter extends BuildCacheEntryWriter {
         InputStream openStream() throws IOException;
     }
+
+    /**
+     * A {@link BuildCacheEntryReader} for loading multiple entries at once.
+     */
+    interface BatchReader {
+        void readFrom(BuildCacheKey key, InputStream input) throws IOException;
+    }
 }
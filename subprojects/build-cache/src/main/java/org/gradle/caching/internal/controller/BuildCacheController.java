@@ -21,6 +21,7 @@
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.time.Duration;
 import java.util.Map;
@@ -35,6 +36,19 @@ public interface BuildCacheController extends Closeable {
 
     boolean isEmitDebugLogging();
 
+    /**
+     * Returns the value to mix into the cache keys of entries stored by this controller, or {@code null} when entries are stored in the default format.
+     */
+    @Nullable
+    String getCacheKeySalt();
+
+    /**
+     * Hints that the entry with the given key is likely to be loaded soon.
+     *
+     * Implementations may start fetching the entry in the background, so that a subsequent {@link #load(BuildCacheKey, CacheableEntity)} finds it locally.
+     */
+    void prefetch(BuildCacheKey cacheKey);
+
     Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity);
 
     void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime);
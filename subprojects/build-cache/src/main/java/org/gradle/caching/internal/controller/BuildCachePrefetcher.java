@@ -0,0 +1,374 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.caching.local.internal.BuildCacheTempFileStore;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.BuildOperationType;
+import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Speculatively downloads entries from the remote cache into the local cache, so that they are found locally when they are loaded.
+ *
+ * <p>
+ * The number of concurrent downloads is limited by the size of the given executor,
+ * and no new downloads are started once the total size of the prefetched entries exceeds the given budget.
+ * When an entry is loaded while its prefetch is still queued, the prefetch is cancelled;
+ * if the prefetch is already running, the load waits for it to finish instead of downloading the entry a second time.
+ * </p>
+ *
+ * <p>
+ * Prefetches run as children of a single background build operation, as the work that requested them may already have completed when they start.
+ * When closed, an {@link Operation} is emitted reporting how many of the prefetched entries were used,
+ * and how much was downloaded for entries that were never loaded during the build.
+ * </p>
+ */
+public class BuildCachePrefetcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildCachePrefetcher.class);
+
+    private final LocalBuildCacheServiceHandle local;
+    private final RemoteBuildCacheServiceHandle remote;
+    private final BuildCacheTempFileStore tmp;
+    private final BuildOperationExecutor buildOperationExecutor;
+    @Nullable
+    private final ManagedExecutor executor;
+    private final long maxPrefetchedSize;
+
+    private final ConcurrentMap<BuildCacheKey, Prefetch> prefetches = new ConcurrentHashMap<>();
+    private final AtomicInteger requestedCount = new AtomicInteger();
+    private final AtomicInteger prefetchedCount = new AtomicInteger();
+    private final AtomicLong prefetchedSize = new AtomicLong();
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicLong hitSize = new AtomicLong();
+    @Nullable
+    private BuildOperationContext prefetchesOperationContext;
+    @Nullable
+    private BuildOperationRef prefetchesOperation;
+
+    public BuildCachePrefetcher(
+        LocalBuildCacheServiceHandle local,
+        RemoteBuildCacheServiceHandle remote,
+        BuildCacheTempFileStore tmp,
+        BuildOperationExecutor buildOperationExecutor,
+        @Nullable ManagedExecutor executor,
+        long maxPrefetchedSize
+    ) {
+        this.local = local;
+        this.remote = remote;
+        this.tmp = tmp;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.executor = executor;
+        this.maxPrefetchedSize = maxPrefetchedSize;
+    }
+
+    /**
+     * Schedules downloading the given entry from the remote cache, unless prefetching is disabled or the size budget is used up.
+     */
+    public void prefetch(BuildCacheKey key) {
+        if (executor == null || !local.canStore() || !remote.canLoad() || isBudgetExhausted()) {
+            return;
+        }
+        Prefetch prefetch = new Prefetch(key);
+        if (prefetches.putIfAbsent(key, prefetch) == null) {
+            requestedCount.incrementAndGet();
+            BuildOperationRef parent = startPrefetchesOperation();
+            executor.execute(() -> CurrentBuildOperationRef.instance().with(parent, prefetch));
+        }
+    }
+
+    private synchronized BuildOperationRef startPrefetchesOperation() {
+        if (prefetchesOperationContext == null) {
+            // Start the operation without a parent, as it outlives the operation of the work requesting the first prefetch
+            CurrentBuildOperationRef.instance().with(null, () -> {
+                prefetchesOperationContext = buildOperationExecutor.start(BuildOperationDescriptor.displayName("Prefetch entries from the remote build cache"));
+                prefetchesOperation = CurrentBuildOperationRef.instance().get();
+            });
+        }
+        return prefetchesOperation;
+    }
+
+    private synchronized void finishPrefetchesOperation() {
+        if (prefetchesOperationContext != null) {
+            // Finishing the operation resets the current operation of this thread, so restore it afterwards
+            CurrentBuildOperationRef.instance().with(prefetchesOperation, () -> prefetchesOperationContext.setResult(null));
+            prefetchesOperation = null;
+            prefetchesOperationContext = null;
+        }
+    }
+
+    /**
+     * Cancels the prefetch of the given entry if it has not started yet, or waits for it to finish otherwise.
+     */
+    public void awaitPrefetch(BuildCacheKey key) {
+        Prefetch prefetch = prefetches.remove(key);
+        if (prefetch == null) {
+            return;
+        }
+        long size = prefetch.cancelOrAwait();
+        if (size >= 0) {
+            hitCount.incrementAndGet();
+            hitSize.addAndGet(size);
+        }
+    }
+
+    private boolean isBudgetExhausted() {
+        return prefetchedSize.get() >= maxPrefetchedSize;
+    }
+
+    private long download(BuildCacheKey key) {
+        AtomicLong size = new AtomicLong(-1L);
+        tmp.withTempFile(key, file -> {
+            remote.maybeLoad(key, file, loadedFile -> {
+                size.set(loadedFile.length());
+                return null;
+            });
+            if (size.get() >= 0) {
+                local.maybeStore(key, file);
+            }
+        });
+        return size.get();
+    }
+
+    private boolean isPresentLocally(BuildCacheKey key) {
+        AtomicBoolean found = new AtomicBoolean();
+        local.maybeLoad(key, file -> {
+            found.set(true);
+            return null;
+        });
+        return found.get();
+    }
+
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        prefetches.values().forEach(Prefetch::cancel);
+        executor.stop();
+        finishPrefetchesOperation();
+        if (requestedCount.get() == 0) {
+            return;
+        }
+
+        int wastedCount = 0;
+        long wastedSize = 0;
+        for (Prefetch prefetch : prefetches.values()) {
+            if (prefetch.size >= 0) {
+                wastedCount++;
+                wastedSize += prefetch.size;
+            }
+        }
+        OperationResult result = new OperationResult(requestedCount.get(), prefetchedCount.get(), prefetchedSize.get(), hitCount.get(), hitSize.get(), wastedCount, wastedSize);
+        LOGGER.info("Prefetched {} of {} requested build cache entries ({} bytes), {} were used ({} bytes), {} were not used ({} bytes)",
+            result.getPrefetchedCount(), result.getRequestedCount(), result.getPrefetchedSize(),
+            result.getHitCount(), result.getHitSize(),
+            result.getWastedCount(), result.getWastedSize());
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(result);
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Report build cache prefetch statistics")
+                    .details(Operation.Details.INSTANCE);
+            }
+        });
+    }
+
+    private enum State {
+        QUEUED, RUNNING, CANCELLED
+    }
+
+    private class Prefetch implements Runnable {
+        private final BuildCacheKey key;
+        private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile long size = -1L;
+
+        public Prefetch(BuildCacheKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(State.QUEUED, State.RUNNING)) {
+                return;
+            }
+            try {
+                if (!isBudgetExhausted() && !isPresentLocally(key)) {
+                    size = downloadInOperation();
+                    if (size >= 0) {
+                        prefetchedCount.incrementAndGet();
+                        prefetchedSize.addAndGet(size);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Could not prefetch entry {} from remote build cache", key.getDisplayName(), e);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private long downloadInOperation() {
+            return buildOperationExecutor.call(new CallableBuildOperation<Long>() {
+                @Override
+                public Long call(BuildOperationContext context) {
+                    return download(key);
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName("Prefetch entry " + key.getDisplayName() + " from remote build cache")
+                        .progressDisplayName("Prefetching from remote build cache");
+                }
+            });
+        }
+
+        public void cancel() {
+            state.compareAndSet(State.QUEUED, State.CANCELLED);
+        }
+
+        /**
+         * Returns the size of the prefetched entry, or -1 if the entry was not prefetched.
+         */
+        public long cancelOrAwait() {
+            if (state.compareAndSet(State.QUEUED, State.CANCELLED)) {
+                return -1L;
+            }
+            Uninterruptibles.awaitUninterruptibly(finished);
+            return size;
+        }
+    }
+
+    /*
+     * This operation is only used here temporarily. Should be replaced with a more stable operation in the long term.
+     */
+    public interface Operation extends BuildOperationType<Operation.Details, Operation.Result> {
+        interface Details {
+            Details INSTANCE = new Details() {
+            };
+        }
+
+        interface Result {
+            /**
+             * The number of entries prefetching was requested for.
+             */
+            int getRequestedCount();
+
+            /**
+             * The number of entries that were downloaded from the remote cache into the local cache.
+             */
+            int getPrefetchedCount();
+
+            long getPrefetchedSize();
+
+            /**
+             * The number of prefetched entries that were loaded later in the build.
+             */
+            int getHitCount();
+
+            long getHitSize();
+
+            /**
+             * The number of prefetched entries that were never loaded during the build.
+             */
+            int getWastedCount();
+
+            long getWastedSize();
+        }
+    }
+
+    private static class OperationResult implements Operation.Result {
+        private final int requestedCount;
+        private final int prefetchedCount;
+        private final long prefetchedSize;
+        private final int hitCount;
+        private final long hitSize;
+        private final int wastedCount;
+        private final long wastedSize;
+
+        public OperationResult(int requestedCount, int prefetchedCount, long prefetchedSize, int hitCount, long hitSize, int wastedCount, long wastedSize) {
+            this.requestedCount = requestedCount;
+            this.prefetchedCount = prefetchedCount;
+            this.prefetchedSize = prefetchedSize;
+            this.hitCount = hitCount;
+            this.hitSize = hitSize;
+            this.wastedCount = wastedCount;
+            this.wastedSize = wastedSize;
+        }
+
+        @Override
+        public int getRequestedCount() {
+            return requestedCount;
+        }
+
+        @Override
+        public int getPrefetchedCount() {
+            return prefetchedCount;
+        }
+
+        @Override
+        public long getPrefetchedSize() {
+            return prefetchedSize;
+        }
+
+        @Override
+        public int getHitCount() {
+            return hitCount;
+        }
+
+        @Override
+        public long getHitSize() {
+            return hitSize;
+        }
+
+        @Override
+        public int getWastedCount() {
+            return wastedCount;
+        }
+
+        @Override
+        public long getWastedSize() {
+            return wastedSize;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.util.internal.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gradle.caching.local.internal.BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX;
+
+/**
+ * Uploads packed entries to the remote cache.
+ *
+ * <p>
+ * Without an executor, entries are uploaded synchronously.
+ * With an executor, entries are copied to a spool file and uploaded in the background,
+ * so that the work storing the entry doesn't have to wait for the upload to finish.
+ * At most the given number of uploads are pending at any time, storing further entries blocks until an upload finishes.
+ * </p>
+ *
+ * <p>
+ * The build operations of background uploads are children of a single operation owned by the uploader,
+ * which is started by the first background upload and finished when the uploader is closed.
+ * The operation of the work storing the entry cannot be used as the parent, as it usually finishes before the upload does.
+ * </p>
+ *
+ * <p>
+ * Closing the uploader waits for all pending uploads to finish.
+ * </p>
+ */
+public class BuildCacheUploader implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheUploader.class);
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final TemporaryFileProvider temporaryFileProvider;
+    private final BuildOperationExecutor buildOperationExecutor;
+    @Nullable
+    private final ManagedExecutor executor;
+    private final int maxPendingUploads;
+    private final Semaphore pendingUploads;
+
+    private final AtomicInteger storedCount = new AtomicInteger();
+    private final AtomicInteger notStoredCount = new AtomicInteger();
+
+    @Nullable
+    private BuildOperationContext uploadsOperationContext;
+    @Nullable
+    private BuildOperationRef uploadsOperation;
+
+    public BuildCacheUploader(
+        RemoteBuildCacheServiceHandle remote,
+        TemporaryFileProvider temporaryFileProvider,
+        BuildOperationExecutor buildOperationExecutor,
+        @Nullable ManagedExecutor executor,
+        int maxPendingUploads
+    ) {
+        this.remote = remote;
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.executor = executor;
+        this.maxPendingUploads = maxPendingUploads;
+        this.pendingUploads = new Semaphore(maxPendingUploads);
+    }
+
+    /**
+     * Uploads the given file to the remote cache. The file may be deleted as soon as this method returns.
+     */
+    public void store(BuildCacheKey key, File file) {
+        if (executor == null) {
+            remote.maybeStore(key, file);
+            return;
+        }
+        if (!remote.canStore()) {
+            return;
+        }
+        pendingUploads.acquireUninterruptibly();
+        File spoolFile = null;
+        try {
+            spoolFile = spool(key, file);
+            BuildOperationRef parent = startUploadsOperation();
+            File uploadedFile = spoolFile;
+            executor.execute(() -> CurrentBuildOperationRef.instance().with(parent, () -> upload(key, uploadedFile)));
+        } catch (RuntimeException e) {
+            pendingUploads.release();
+            if (spoolFile != null) {
+                GFileUtils.deleteQuietly(spoolFile);
+            }
+            throw e;
+        }
+    }
+
+    @Nullable
+    private synchronized BuildOperationRef startUploadsOperation() {
+        if (uploadsOperationContext == null) {
+            // Start the operation without a parent, as it outlives the operation of the work storing the first entry
+            CurrentBuildOperationRef.instance().with(null, () -> {
+                uploadsOperationContext = buildOperationExecutor.start(BuildOperationDescriptor.displayName("Upload entries to the remote build cache in the background"));
+                uploadsOperation = CurrentBuildOperationRef.instance().get();
+            });
+        }
+        return uploadsOperation;
+    }
+
+    private File spool(BuildCacheKey key, File file) {
+        File spoolFile = temporaryFileProvider.createTemporaryFile(key.getHashCode() + "-upload-", PARTIAL_FILE_SUFFIX);
+        try {
+            Files.copy(file.toPath(), spoolFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(spoolFile);
+            throw new UncheckedIOException("Could not spool build cache entry " + key.getHashCode() + " for uploading", e);
+        }
+        return spoolFile;
+    }
+
+    private void upload(BuildCacheKey key, File spoolFile) {
+        try {
+            if (remote.maybeStore(key, spoolFile)) {
+                storedCount.incrementAndGet();
+            } else {
+                notStoredCount.incrementAndGet();
+            }
+        } finally {
+            GFileUtils.deleteQuietly(spoolFile);
+            pendingUploads.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        int pendingCount = maxPendingUploads - pendingUploads.availablePermits();
+        if (pendingCount > 0) {
+            LOGGER.info("Waiting for {} pending uploads to the remote build cache to finish", pendingCount);
+        }
+        executor.stop();
+        finishUploadsOperation();
+        if (storedCount.get() > 0 || notStoredCount.get() > 0) {
+            LOGGER.info("Uploaded {} entries to the remote build cache in the background, {} entries were not uploaded", storedCount.get(), notStoredCount.get());
+        }
+    }
+
+    private synchronized void finishUploadsOperation() {
+        if (uploadsOperationContext != null) {
+            // Finishing the operation resets the current operation of this thread, so restore it afterwards
+            CurrentBuildOperationRef.instance().with(uploadsOperation, () -> uploadsOperationContext.setResult(null));
+            uploadsOperation = null;
+            uploadsOperationContext = null;
+        }
+    }
+}
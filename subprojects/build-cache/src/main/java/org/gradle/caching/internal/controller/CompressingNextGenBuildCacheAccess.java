@@ -20,6 +20,7 @@
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.internal.NextGenBuildCacheService;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.gradle.internal.file.BufferProvider;
 
 import java.io.IOException;
@@ -27,15 +28,18 @@
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
-public class GZipNextGenBuildCacheAccess implements NextGenBuildCacheAccess {
+/**
+ * Compresses stored entries with the given compression, and decompresses loaded entries stored with any compression.
+ */
+public class CompressingNextGenBuildCacheAccess implements NextGenBuildCacheAccess {
     private final NextGenBuildCacheAccess delegate;
+    private final BuildCacheEntryCompression compression;
     private final BufferProvider bufferProvider;
 
-    public GZipNextGenBuildCacheAccess(NextGenBuildCacheAccess delegate, BufferProvider bufferProvider) {
+    public CompressingNextGenBuildCacheAccess(NextGenBuildCacheAccess delegate, BuildCacheEntryCompression compression, BufferProvider bufferProvider) {
         this.delegate = delegate;
+        this.compression = compression;
         this.bufferProvider = bufferProvider;
     }
 
@@ -44,8 +48,8 @@ public <T> void load(Map<BuildCacheKey, T> entries, LoadHandler<T> handler) {
         delegate.load(entries, new DelegatingLoadHandler<T>(handler) {
             @Override
             public void handle(InputStream inputStream, T payload) {
-                try (GZIPInputStream zipInput = new GZIPInputStream(inputStream)) {
-                    handler.handle(zipInput, payload);
+                try (InputStream decompressedInput = BuildCacheEntryCompression.decompress(inputStream)) {
+                    handler.handle(decompressedInput, payload);
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
@@ -61,9 +65,9 @@ public NextGenBuildCacheService.NextGenWriter createWriter(T payload) {
                 NextGenBuildCacheService.NextGenWriter delegateWriter = handler.createWriter(payload);
                 // TODO Make this more performant for large files
                 UnsynchronizedByteArrayOutputStream compressed = new UnsynchronizedByteArrayOutputStream((int) (delegateWriter.getSize() * 1.2));
-                try (GZIPOutputStream zipOutput = new GZIPOutputStream(compressed)) {
+                try (OutputStream compressedOutput = compression.compress(compressed)) {
                     try (InputStream delegateInput = delegateWriter.openStream()) {
-                        IOUtils.copyLarge(delegateInput, zipOutput, bufferProvider.getBuffer());
+                        IOUtils.copyLarge(delegateInput, compressedOutput, bufferProvider.getBuffer());
                     }
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
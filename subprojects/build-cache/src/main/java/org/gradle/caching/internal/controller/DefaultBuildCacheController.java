@@ -45,6 +45,7 @@
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -79,7 +80,10 @@ public class DefaultBuildCacheController implements BuildCacheController {
 
     private final BuildCacheTempFileStore tmp;
     private final boolean emitDebugLogging;
+    private final String cacheKeySalt;
     private final PackOperationExecutor packExecutor;
+    private final BuildCachePrefetcher prefetcher;
+    private final BuildCacheUploader uploader;
 
     private boolean closed;
 
@@ -92,10 +96,16 @@ public DefaultBuildCacheController(
         boolean disableRemoteOnError,
         FileSystemAccess fileSystemAccess,
         BuildCacheEntryPacker packer,
+        @Nullable String cacheKeySalt,
         OriginMetadataFactory originMetadataFactory,
-        StringInterner stringInterner
+        StringInterner stringInterner,
+        @Nullable ManagedExecutor prefetchExecutor,
+        long maxPrefetchedSize,
+        @Nullable ManagedExecutor uploadExecutor,
+        int maxPendingUploads
     ) {
         this.emitDebugLogging = emitDebugLogging;
+        this.cacheKeySalt = cacheKeySalt;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileProvider);
@@ -106,6 +116,8 @@ public DefaultBuildCacheController(
             originMetadataFactory,
             stringInterner
         );
+        this.prefetcher = new BuildCachePrefetcher(local, remote, tmp, buildOperationExecutor, prefetchExecutor, maxPrefetchedSize);
+        this.uploader = new BuildCacheUploader(remote, temporaryFileProvider, buildOperationExecutor, uploadExecutor, maxPendingUploads);
     }
 
     @Override
@@ -118,8 +130,20 @@ public boolean isEmitDebugLogging() {
         return emitDebugLogging;
     }
 
+    @Nullable
+    @Override
+    public String getCacheKeySalt() {
+        return cacheKeySalt;
+    }
+
+    @Override
+    public void prefetch(BuildCacheKey key) {
+        prefetcher.prefetch(key);
+    }
+
     @Override
     public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity entity) {
+        prefetcher.awaitPrefetch(key);
         Optional<BuildCacheLoadResult> result = loadLocal(key, entity);
         if (result.isPresent()) {
             return result;
@@ -162,7 +186,7 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         }
         tmp.withTempFile(key, file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            uploader.store(key, file);
             local.maybeStore(key, file);
         });
     }
@@ -174,6 +198,8 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            closer.register(uploader);
+            closer.register(prefetcher);
             closer.close();
         }
     }
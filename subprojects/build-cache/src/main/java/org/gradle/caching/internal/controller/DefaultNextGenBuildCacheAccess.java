@@ -16,6 +16,9 @@
 
 package org.gradle.caching.internal.controller;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.io.Closer;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
@@ -31,12 +34,18 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -46,11 +55,14 @@
  * Entries found in the remote cache are missored in the local cache.
  *
  * Downloads and uploads to and from the remote cache are handled via a thread pool in parallel.
+ * If the remote cache supports batch requests, entries are downloaded and checked for existence
+ * in batches of {@value #BATCH_SIZE} instead of one by one.
  * However, both {@link #load(Map, LoadHandler)} and {@link #store(Map, StoreHandler)} wait for all
  * async operations to finish before returning.
  */
 public class DefaultNextGenBuildCacheAccess implements NextGenBuildCacheAccess {
     public static final int THREAD_POOL_SIZE = 256;
+    public static final int BATCH_SIZE = 64;
 
     private final NextGenBuildCacheService local;
     private final RemoteNextGenBuildCacheServiceHandler remote;
@@ -77,57 +89,90 @@ public DefaultNextGenBuildCacheAccess(
 
     @Override
     public <T> void load(Map<BuildCacheKey, T> entries, LoadHandler<T> handler) {
-        CompletableFuture<?>[] asyncLoads = entries.entrySet().stream()
-            .flatMap(entry -> {
-                BuildCacheKey key = entry.getKey();
-                T payload = entry.getValue();
-                boolean foundLocally;
-                try {
-                    foundLocally = local.load(key, input -> handler.handle(input, payload));
-                } catch (Exception e) {
-                    handler.recordUnpackFailure(key, e);
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
-                if (!foundLocally && remote.canLoad()) {
-                    // TODO Improve error handling
-                    handler.ensureLoadOperationStarted(key);
-                    return Stream.of(CompletableFuture.runAsync(counter.wrap(new RemoteDownload<>(key, payload, handler)), remoteProcessor));
-                } else {
-                    return Stream.empty();
-                }
-            })
-            .toArray(CompletableFuture[]::new);
-        CompletableFuture.allOf(asyncLoads)
+        Map<BuildCacheKey, T> remoteEntries = new LinkedHashMap<>();
+        entries.forEach((key, payload) -> {
+            boolean foundLocally;
+            try {
+                foundLocally = local.load(key, input -> handler.handle(input, payload));
+            } catch (Exception e) {
+                handler.recordUnpackFailure(key, e);
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (!foundLocally && remote.canLoad()) {
+                // TODO Improve error handling
+                handler.ensureLoadOperationStarted(key);
+                remoteEntries.put(key, payload);
+            }
+        });
+        List<CompletableFuture<?>> asyncLoads = new ArrayList<>();
+        if (remoteEntries.size() > 1 && remote.supportsBatchRequests()) {
+            for (List<BuildCacheKey> batch : Iterables.partition(remoteEntries.keySet(), BATCH_SIZE)) {
+                Map<BuildCacheKey, T> batchEntries = new LinkedHashMap<>();
+                batch.forEach(key -> batchEntries.put(key, remoteEntries.get(key)));
+                asyncLoads.add(CompletableFuture.runAsync(counter.wrap(new RemoteBatchDownload<>(batchEntries, handler)), remoteProcessor));
+            }
+        } else {
+            remoteEntries.forEach((key, payload) ->
+                asyncLoads.add(CompletableFuture.runAsync(counter.wrap(new RemoteDownload<>(key, payload, handler)), remoteProcessor)));
+        }
+        CompletableFuture.allOf(asyncLoads.toArray(new CompletableFuture<?>[0]))
             .join();
     }
 
     @Override
     public <T> void store(Map<BuildCacheKey, T> entries, StoreHandler<T> handler) {
-        CompletableFuture<?>[] asyncStores = entries.entrySet().stream()
-            .flatMap(entry -> {
-                BuildCacheKey key = entry.getKey();
-                T payload = entry.getValue();
-                if (!local.contains(key)) {
-                    try {
-                        local.store(key, handler.createWriter(payload));
-                    } catch (Exception e) {
-                        handler.recordPackFailure(key, e);
-                        throw UncheckedException.throwAsUncheckedException(e);
-                    }
-                }
-                // TODO Improve error handling
-                if (remote.canStore()) {
-                    handler.ensureStoreOperationStarted(key);
-                    return Stream.of(CompletableFuture.runAsync(counter.wrap(new RemoteUpload(key, handler)), remoteProcessor));
-                } else {
-                    return Stream.empty();
+        entries.forEach((key, payload) -> {
+            if (!local.contains(key)) {
+                try {
+                    local.store(key, handler.createWriter(payload));
+                } catch (Exception e) {
+                    handler.recordPackFailure(key, e);
+                    throw UncheckedException.throwAsUncheckedException(e);
                 }
-            })
-            .toArray(CompletableFuture[]::new);
-        CompletableFuture.allOf(asyncStores)
+            }
+        });
+        // TODO Improve error handling
+        if (!remote.canStore()) {
+            return;
+        }
+        entries.keySet().forEach(handler::ensureStoreOperationStarted);
+        List<CompletableFuture<?>> asyncStores = new ArrayList<>();
+        if (entries.size() > 1 && remote.supportsBatchRequests()) {
+            for (List<BuildCacheKey> batch : Iterables.partition(entries.keySet(), BATCH_SIZE)) {
+                asyncStores.add(CompletableFuture.supplyAsync(counter.wrap(() -> findMissingInRemote(batch, handler)), remoteProcessor)
+                    .thenCompose(missingKeys -> CompletableFuture.allOf(missingKeys.stream()
+                        .map(key -> CompletableFuture.runAsync(counter.wrap(new RemoteUpload(key, handler, false)), remoteProcessor))
+                        .toArray(CompletableFuture[]::new))));
+            }
+        } else {
+            entries.keySet().forEach(key ->
+                asyncStores.add(CompletableFuture.runAsync(counter.wrap(new RemoteUpload(key, handler, true)), remoteProcessor)));
+        }
+        CompletableFuture.allOf(asyncStores.toArray(new CompletableFuture<?>[0]))
             .join();
     }
 
+    private List<BuildCacheKey> findMissingInRemote(List<BuildCacheKey> keys, StoreHandler<?> handler) {
+        Set<BuildCacheKey> existingKeys;
+        try {
+            existingKeys = remote.contains(ImmutableSet.copyOf(keys));
+        } catch (Exception e) {
+            keys.forEach(key -> handler.recordStoreFailure(key, e));
+            logger.warn("Checking {} entries in remote failed", keys.size(), e);
+            remote.disableOnError();
+            return ImmutableList.of();
+        }
+        List<BuildCacheKey> missingKeys = new ArrayList<>(keys.size());
+        for (BuildCacheKey key : keys) {
+            if (existingKeys.contains(key)) {
+                logger.warn("Not storing {} in remote", key);
+            } else {
+                missingKeys.add(key);
+            }
+        }
+        return missingKeys;
+    }
+
     @Override
     public void close() throws IOException {
         Closer closer = Closer.create();
@@ -159,12 +204,23 @@ public ConcurrencyCounter(ManagedThreadPoolExecutor processor) {
 
         public Runnable wrap(Runnable delegate) {
             return () -> {
-                maxQueueLength.updateAndGet(max -> Integer.max(max, processor.getQueue().size()));
-                maxActiveCount.updateAndGet(max -> Integer.max(max, processor.getActiveCount()));
+                recordConcurrency();
                 delegate.run();
             };
         }
 
+        public <T> Supplier<T> wrap(Supplier<T> delegate) {
+            return () -> {
+                recordConcurrency();
+                return delegate.get();
+            };
+        }
+
+        private void recordConcurrency() {
+            maxQueueLength.updateAndGet(max -> Integer.max(max, processor.getQueue().size()));
+            maxActiveCount.updateAndGet(max -> Integer.max(max, processor.getActiveCount()));
+        }
+
         @Override
         public void close() {
             logger.warn("Max concurrency encountered while processing remote cache entries: {}, max queue length: {}",
@@ -203,49 +259,93 @@ public void run() {
 
         private long load() {
             AtomicLong size = new AtomicLong(-1);
-            remote.load(key, input -> {
-                // TODO Make this work for large pieces of content, too
-                UnsynchronizedByteArrayOutputStream data = new UnsynchronizedByteArrayOutputStream();
-                byte[] buffer = bufferProvider.getBuffer();
-                IOUtils.copyLarge(input, data, buffer);
-                size.set(data.size());
-
-                // Mirror data in local cache
-                local.store(key, new NextGenBuildCacheService.NextGenWriter() {
-                    @Override
-                    public InputStream openStream() {
-                        return data.toInputStream();
-                    }
-
-                    @Override
-                    public void writeTo(OutputStream output) throws IOException {
-                        data.writeTo(output);
-                    }
-
-                    @Override
-                    public long getSize() {
-                        return data.size();
-                    }
-                });
-                handler.handle(data.toInputStream(), payload);
-            });
+            remote.load(key, input -> size.set(mirrorAndHandle(key, payload, input, handler)));
             return size.get();
         }
     }
 
+    private class RemoteBatchDownload<T> implements Runnable {
+        private final Map<BuildCacheKey, T> entries;
+        private final LoadHandler<T> handler;
+
+        public RemoteBatchDownload(Map<BuildCacheKey, T> entries, LoadHandler<T> handler) {
+            this.entries = entries;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            Set<BuildCacheKey> recordedKeys = ConcurrentHashMap.newKeySet();
+            try {
+                logger.warn("Loading {} entries from remote", entries.size());
+                remote.load(entries.keySet(), (key, input) -> {
+                    long size = mirrorAndHandle(key, entries.get(key), input, handler);
+                    recordedKeys.add(key);
+                    handler.recordLoadHit(key, size);
+                    logger.warn("Found {} in remote (size: {})", key, size);
+                });
+                entries.keySet().stream()
+                    .filter(recordedKeys::add)
+                    .forEach(key -> {
+                        handler.recordLoadMiss(key);
+                        logger.warn("Not found {} in remote", key);
+                    });
+            } catch (Exception e) {
+                entries.keySet().stream()
+                    .filter(recordedKeys::add)
+                    .forEach(key -> handler.recordLoadFailure(key, e));
+                remote.disableOnError();
+            }
+        }
+    }
+
+    /**
+     * Mirrors an entry loaded from the remote cache in the local cache, and passes it to the handler.
+     *
+     * @return the size of the entry
+     */
+    private <T> long mirrorAndHandle(BuildCacheKey key, T payload, InputStream input, LoadHandler<T> handler) throws IOException {
+        // TODO Make this work for large pieces of content, too
+        UnsynchronizedByteArrayOutputStream data = new UnsynchronizedByteArrayOutputStream();
+        byte[] buffer = bufferProvider.getBuffer();
+        IOUtils.copyLarge(input, data, buffer);
+
+        // Mirror data in local cache
+        local.store(key, new NextGenBuildCacheService.NextGenWriter() {
+            @Override
+            public InputStream openStream() {
+                return data.toInputStream();
+            }
+
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                data.writeTo(output);
+            }
+
+            @Override
+            public long getSize() {
+                return data.size();
+            }
+        });
+        handler.handle(data.toInputStream(), payload);
+        return data.size();
+    }
+
     private class RemoteUpload implements Runnable {
         private final BuildCacheKey key;
         private final StoreHandler<?> handler;
+        private final boolean checkRemote;
 
-        public RemoteUpload(BuildCacheKey key, StoreHandler<?> handler) {
+        public RemoteUpload(BuildCacheKey key, StoreHandler<?> handler, boolean checkRemote) {
             this.key = key;
             this.handler = handler;
+            this.checkRemote = checkRemote;
         }
 
         @Override
         public void run() {
             // TODO Check contains only above a threshold
-            if (remote.contains(key)) {
+            if (checkRemote && remote.contains(key)) {
                 logger.warn("Not storing {} in remote", key);
                 return;
             }
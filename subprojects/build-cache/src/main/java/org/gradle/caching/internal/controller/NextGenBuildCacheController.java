@@ -77,6 +77,8 @@
 import org.gradle.internal.vfs.FileSystemAccess;
 import org.slf4j.Logger;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
@@ -158,6 +160,7 @@ public class NextGenBuildCacheController implements BuildCacheController {
     private final Deleter deleter;
     private final StringInterner stringInterner;
     private final Gson gson;
+    private final String cacheKeySalt;
 
     public NextGenBuildCacheController(
         String buildInvocationId,
@@ -167,7 +170,8 @@ public NextGenBuildCacheController(
         BufferProvider bufferProvider,
         StringInterner stringInterner,
         BuildOperationExecutor buildOperationExecutor,
-        NextGenBuildCacheAccess cacheAccess
+        NextGenBuildCacheAccess cacheAccess,
+        @Nullable String cacheKeySalt
     ) {
         this.buildInvocationId = buildInvocationId;
         this.logger = logger;
@@ -178,6 +182,7 @@ public NextGenBuildCacheController(
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
         this.gson = createGson();
+        this.cacheKeySalt = cacheKeySalt;
 
         logger.warn("Creating next-generation build cache controller");
     }
@@ -220,6 +225,17 @@ public boolean isEmitDebugLogging() {
         return false;
     }
 
+    @Nullable
+    @Override
+    public String getCacheKeySalt() {
+        return cacheKeySalt;
+    }
+
+    @Override
+    public void prefetch(BuildCacheKey manifestKey) {
+        // Content entries are already loaded in batches and in parallel once the manifest is known
+    }
+
     @Override
     public Optional<BuildCacheLoadResult> load(BuildCacheKey manifestKey, CacheableEntity cacheableEntity) {
         try (OperationFiringLoadHandlerFactory handlerFactory = new OperationFiringLoadHandlerFactory(manifestKey)) {
@@ -569,7 +585,7 @@ public void store(BuildCacheKey manifestKey, CacheableEntity entity, Map<String,
         byte[] manifestBytes = manifestJson.getBytes(StandardCharsets.UTF_8);
 
         long totalUploadSize = contentSize.get() + manifestBytes.length;
-        try (OperationFiringStoreHandlerFactory handlerFactory = new OperationFiringStoreHandlerFactory(manifestKey, totalUploadSize)) {
+        try (OperationFiringStoreHandlerFactory handlerFactory = new OperationFiringStoreHandlerFactory(manifestKey, totalUploadSize, contentSize.get())) {
             storeInner(manifestKey, entity, manifest, manifestBytes, handlerFactory);
         }
     }
@@ -583,10 +599,13 @@ private class OperationFiringStoreHandlerFactory implements Closeable {
         private final AtomicLong totalPackSize = new AtomicLong(0L);
         private final OnDemandBuildOperationWrapper storeBuildOp = new OnDemandBuildOperationWrapper();
         private final AtomicBoolean storeEncountered = new AtomicBoolean(false);
+        private final long contentSize;
+        private long deduplicatedSize;
 
-        public OperationFiringStoreHandlerFactory(BuildCacheKey manifestKey, long totalUploadSize) {
+        public OperationFiringStoreHandlerFactory(BuildCacheKey manifestKey, long totalUploadSize, long contentSize) {
             this.manifestKey = manifestKey;
             this.totalUploadSize = totalUploadSize;
+            this.contentSize = contentSize;
             this.packBuildOp.ensureStarted(() -> BuildOperationDescriptor.displayName("Pack build cache entry " + manifestKey)
                 .details(new PackOperationDetails(manifestKey))
                 .progressDisplayName("Packing build cache entry"));
@@ -630,7 +649,16 @@ public void close() {
             storeBuildOp.finishIfNecessary(() -> storeEncountered.get()
                 ? StoreOperationResult.STORED
                 : StoreOperationResult.NOT_STORED);
-            packBuildOp.finishIfNecessary(() -> new PackOperationResult(packEntryCount.get(), totalPackSize.get()));
+            packBuildOp.finishIfNecessary(() -> new PackOperationResult(packEntryCount.get(), totalPackSize.get(), contentSize, deduplicatedSize));
+        }
+
+        /**
+         * Called after all content has been stored, but before the manifest is stored.
+         * Any content file that has not been packed was already present in the cache, or was identical to another file in the entry.
+         */
+        public void contentStored() {
+            deduplicatedSize = contentSize - totalPackSize.get();
+            logger.debug("Deduplicated {} of {} bytes for {}", deduplicatedSize, contentSize, manifestKey);
         }
     }
 
@@ -698,6 +726,7 @@ public long getSize() {
                 }
             }));
         });
+        handlerFactory.contentStored();
 
         cacheAccess.store(Collections.singletonMap(manifestKey, manifest), handlerFactory.create(__ -> new CountingWriter(handlerFactory.packEntryCount, handlerFactory.totalPackSize) {
             @Override
@@ -21,6 +21,7 @@
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
@@ -42,6 +43,17 @@ public boolean isEmitDebugLogging() {
         return false;
     }
 
+    @Nullable
+    @Override
+    public String getCacheKeySalt() {
+        return null;
+    }
+
+    @Override
+    public void prefetch(BuildCacheKey cacheKey) {
+
+    }
+
     @Override
     public Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity) {
         return Optional.empty();
@@ -21,6 +21,7 @@
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
@@ -65,6 +66,17 @@ public boolean isEmitDebugLogging() {
             return delegate.isEmitDebugLogging();
         }
 
+        @Nullable
+        @Override
+        public String getCacheKeySalt() {
+            return delegate.getCacheKeySalt();
+        }
+
+        @Override
+        public void prefetch(BuildCacheKey cacheKey) {
+            delegate.prefetch(cacheKey);
+        }
+
         @Override
         public Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity) {
             return delegate.load(cacheKey, cacheableEntity);
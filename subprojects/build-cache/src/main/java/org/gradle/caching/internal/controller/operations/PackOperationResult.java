@@ -22,10 +22,18 @@ public class PackOperationResult implements BuildCacheArchivePackBuildOperationT
 
     private final long archiveEntryCount;
     private final long archiveSize;
+    private final long contentSize;
+    private final long deduplicatedSize;
 
     public PackOperationResult(long archiveEntryCount, long archiveSize) {
+        this(archiveEntryCount, archiveSize, 0, 0);
+    }
+
+    public PackOperationResult(long archiveEntryCount, long archiveSize, long contentSize, long deduplicatedSize) {
         this.archiveEntryCount = archiveEntryCount;
         this.archiveSize = archiveSize;
+        this.contentSize = contentSize;
+        this.deduplicatedSize = deduplicatedSize;
     }
 
     @Override
@@ -37,4 +45,18 @@ public long getArchiveSize() {
     public long getArchiveEntryCount() {
         return archiveEntryCount;
     }
+
+    /**
+     * The number of (uncompressed) bytes that did not need to be stored because the cache already contained the same content.
+     */
+    public long getDeduplicatedSize() {
+        return deduplicatedSize;
+    }
+
+    /**
+     * The fraction of the (uncompressed) content of the entry that did not need to be stored because the cache already contained it.
+     */
+    public double getDeduplicationRatio() {
+        return contentSize == 0 ? 0 : (double) deduplicatedSize / contentSize;
+    }
 }
@@ -28,6 +28,8 @@ import org.gradle.caching.internal.controller.service.BuildCacheServicesConfigur
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.FileSystemSnapshot
 import org.gradle.internal.vfs.FileSystemAccess
@@ -36,6 +38,8 @@ import org.junit.Rule
 import spock.lang.Specification
 
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 class DefaultBuildCacheControllerTest extends Specification {
 
@@ -70,7 +74,7 @@ class DefaultBuildCacheControllerTest extends Specification {
 
     interface Local extends BuildCacheService, LocalBuildCacheService {}
 
-    BuildCacheController getController(boolean disableRemoteOnError = true) {
+    BuildCacheController getController(boolean disableRemoteOnError = true, ManagedExecutor prefetchExecutor = null, ManagedExecutor uploadExecutor = null) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
                 local,
@@ -85,8 +89,13 @@ class DefaultBuildCacheControllerTest extends Specification {
             disableRemoteOnError,
             fileSystemAccess,
             packer,
+            null,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            prefetchExecutor,
+            Long.MAX_VALUE,
+            uploadExecutor,
+            1
         )
     }
 
@@ -276,4 +285,112 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    def "does not prefetch when prefetching is disabled"() {
+        when:
+        def controller = getController()
+        controller.prefetch(key)
+        controller.close()
+
+        then:
+        0 * remote.load(_, _)
+        0 * local.storeLocally(_, _)
+        operations.log.all(BuildCachePrefetcher.Operation).empty
+    }
+
+    def "prefetched entry is loaded from local cache"() {
+        def prefetched = new CountDownLatch(1)
+
+        when:
+        def controller = getController(true, new DefaultExecutorFactory().create("prefetch", 1))
+        controller.prefetch(key)
+        prefetched.await(10, TimeUnit.SECONDS)
+        controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        2 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            if (prefetched.count == 0) {
+                def file = tmpDir.file("local")
+                file.text = "foo"
+                action.execute(file)
+            }
+        }
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        1 * local.storeLocally(key, _) >> { prefetched.countDown() }
+
+        and:
+        with(operations.log.mostRecentResult(BuildCachePrefetcher.Operation)) {
+            requestedCount == 1
+            prefetchedCount == 1
+            prefetchedSize == 3
+            hitCount == 1
+            hitSize == 3
+            wastedCount == 0
+            wastedSize == 0
+        }
+    }
+
+    def "reports prefetched entries that are not loaded as wasted"() {
+        def prefetched = new CountDownLatch(1)
+
+        when:
+        def controller = getController(true, new DefaultExecutorFactory().create("prefetch", 1))
+        controller.prefetch(key)
+        prefetched.await(10, TimeUnit.SECONDS)
+        controller.close()
+
+        then:
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        1 * local.storeLocally(key, _) >> { prefetched.countDown() }
+
+        and:
+        with(operations.log.mostRecentResult(BuildCachePrefetcher.Operation)) {
+            requestedCount == 1
+            prefetchedCount == 1
+            hitCount == 0
+            wastedCount == 1
+            wastedSize == 3
+        }
+        operations.log.descriptors*.displayName.count { it == "Prefetch entries from the remote build cache" } == 1
+    }
+
+    def "uploads to remote in the background when storing asynchronously"() {
+        def uploadStarted = new CountDownLatch(1)
+        def finishUpload = new CountDownLatch(1)
+        def uploaded = []
+
+        given:
+        def controller = getController(true, null, new DefaultExecutorFactory().create("upload", 1))
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        uploadStarted.await(10, TimeUnit.SECONDS)
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _) >> { BuildCacheKey key, BuildCacheEntryWriter writer ->
+            uploadStarted.countDown()
+            finishUpload.await(10, TimeUnit.SECONDS)
+            def output = new ByteArrayOutputStream()
+            writer.writeTo(output)
+            uploaded << output.size()
+        }
+        uploaded.empty
+
+        when:
+        finishUpload.countDown()
+        controller.close()
+
+        then:
+        uploaded == [0]
+        tmpDir.testDirectory.allDescendants().findAll { it.endsWith(".part") }.empty
+        operations.log.descriptors*.displayName.count { it == "Upload entries to the remote build cache in the background" } == 1
+    }
 }
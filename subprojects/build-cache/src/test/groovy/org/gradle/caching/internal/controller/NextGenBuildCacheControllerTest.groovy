@@ -59,7 +59,8 @@ class NextGenBuildCacheControllerTest extends Specification {
             new ThreadLocalBufferProvider(64 * 1024),
             new StringInterner(),
             new TestBuildOperationExecutor(),
-            Mock(NextGenBuildCacheAccess)
+            Mock(NextGenBuildCacheAccess),
+            null
         )
     }
 
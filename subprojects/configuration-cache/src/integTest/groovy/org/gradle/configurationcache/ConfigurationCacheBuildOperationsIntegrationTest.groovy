@@ -176,6 +176,57 @@ class ConfigurationCacheBuildOperationsIntegrationTest extends AbstractConfigura
         operations.none(ConfigureProjectBuildOperationType)
     }
 
+    def "reports task state segments of each project in load/store build operations"() {
+        given:
+        settingsFile << """
+            include 'a', 'b'
+        """
+        ['a', 'b'].each { project ->
+            file("$project/build.gradle") << """
+                tasks.register('greet') {
+                    def greeting = 'Hello from $project'
+                    doLast { println(greeting) }
+                }
+            """
+        }
+
+        when:
+        configurationCacheRun 'greet', '-Dorg.gradle.configuration-cache.internal.parallel-segments=2'
+
+        then:
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        hasOperationsForStoreAndLoad()
+        operations.only(ConfigurationCacheStoreBuildOperationType).result.segments*.projectPath == [':a', ':b']
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments*.projectPath == [':a', ':b']
+        operations.only(ConfigurationCacheStoreBuildOperationType).result.segments.every { it.size > 0 }
+        operations.only(ConfigurationCacheStoreBuildOperationType).result.segments*.taskCount == [1, 1]
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments*.taskCount == [1, 1]
+
+        when:
+        configurationCacheRun 'greet', '-Dorg.gradle.configuration-cache.internal.parallel-segments=2'
+
+        then:
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        hasOperationsForLoad()
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments*.projectPath == [':a', ':b']
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments*.taskCount == [1, 1]
+    }
+
+    def "reports no segments in load/store build operations by default"() {
+        given:
+        withLibBuild()
+
+        when:
+        inDirectory 'lib'
+        configurationCacheRun 'assemble'
+
+        then:
+        operations.only(ConfigurationCacheStoreBuildOperationType).result.segments.isEmpty()
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments.isEmpty()
+    }
+
     void hasCompositeWithUnusedBuildIdentified() {
         def buildIdentified = operations.progress(BuildIdentifiedProgressDetails)
         assert buildIdentified.size() == 2
@@ -17,6 +17,8 @@
 package org.gradle.configurationcache
 
 import org.gradle.integtests.fixtures.executer.GradleContextualExecuter
+import org.gradle.internal.resources.ResourceCost
+import org.gradle.internal.work.ResourceBudgetUsageReporter
 import org.gradle.test.fixtures.server.http.BlockingHttpServer
 import org.junit.Rule
 import spock.lang.IgnoreIf
@@ -62,6 +64,54 @@ class ConfigurationCacheParallelTaskIntegrationTest extends AbstractConfiguratio
         }
     }
 
+    @IgnoreIf({ GradleContextualExecuter.parallel })
+    def "tasks in different projects do not exceed the resource budget when loaded from the cache"() {
+        server.start()
+
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildFile << """
+            class SlowTask extends DefaultTask {
+
+                private final String projectName = project.name
+
+                @TaskAction
+                def go() {
+                    ${server.callFromBuildUsingExpression("projectName")}
+                }
+            }
+
+            subprojects {
+                tasks.create('slow', SlowTask)
+            }
+            project(':a') {
+                tasks.slow.dependsOn(project(':b').tasks.slow, project(':c').tasks.slow)
+            }
+            ['b', 'c'].each {
+                project(it).tasks.slow.resourceCost = ${ResourceCost.name}.of(1, 0, 0)
+            }
+        """
+
+        when:
+        server.expectConcurrent(1, "b", "c")
+        server.expectConcurrent("a")
+        configurationCacheRun "a:slow", "-D${ResourceBudgetUsageReporter.CPU_BUDGET.systemPropertyName}=1"
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        server.expectConcurrent(1, "b", "c")
+        server.expectConcurrent("a")
+        configurationCacheRun "a:slow", "-D${ResourceBudgetUsageReporter.CPU_BUDGET.systemPropertyName}=1"
+
+        then:
+        configurationCache.assertStateLoaded()
+    }
+
     // Don't run in parallel mode, as the expectation for the setup build are incorrect
     // It could potentially be worth running this in parallel mode to demonstrate the difference between
     // parallel and configuration cache
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache
+
+import org.gradle.integtests.fixtures.BuildOperationsFixture
+import org.gradle.integtests.resolve.transform.ArtifactTransformTestFixture
+import org.gradle.internal.configurationcache.ConfigurationCacheLoadBuildOperationType
+import org.gradle.internal.configurationcache.ConfigurationCacheStoreBuildOperationType
+
+class ConfigurationCacheTaskStateSegmentsIntegrationTest extends AbstractConfigurationCacheIntegrationTest implements ArtifactTransformTestFixture {
+
+    static final String SEGMENTS = '-Dorg.gradle.configuration-cache.internal.parallel-segments=2'
+
+    def operations = new BuildOperationsFixture(executer, temporaryFolder)
+
+    def setup() {
+        // So that dependency resolution results from previous executions do not interfere
+        requireOwnGradleUserHomeDir()
+    }
+
+    def "artifact transform of a project dependency consumed by tasks of several projects runs once"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        settingsFile << """
+            include 'a', 'c1', 'c2'
+        """
+        setupBuildWithColorTransformImplementation()
+        buildFile << """
+            ['c1', 'c2'].each {
+                project(it) {
+                    dependencies {
+                        implementation project(':a')
+                    }
+                }
+            }
+        """
+
+        when:
+        configurationCacheRun ':c1:resolve', ':c2:resolve', SEGMENTS
+
+        then:
+        assertTransformed('a.jar')
+        output.count('result = [a.jar.green]') == 2
+        storedSegments.containsAll([':c1', ':c2'])
+        loadedSegments == storedSegments
+
+        when:
+        configurationCacheRun ':c1:resolve', ':c2:resolve', SEGMENTS, '-DaContent=changed'
+
+        then:
+        configurationCache.assertStateLoaded()
+        result.assertTaskNotSkipped(':a:producer')
+        assertTransformed('a.jar')
+        output.count('result = [a.jar.green]') == 2
+    }
+
+    def "value source used by tasks of several projects is obtained once"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        settingsFile << """
+            include 'a', 'b'
+        """
+        buildFile << """
+            abstract class Greeting implements ValueSource<String, ValueSourceParameters.None> {
+                @Override
+                String obtain() {
+                    println('Obtaining greeting')
+                    return 'Hello'
+                }
+            }
+
+            def greeting = providers.of(Greeting) {}
+
+            subprojects {
+                def projectName = name
+                tasks.register('greet') {
+                    doLast { println("\${greeting.get()} from \$projectName") }
+                }
+            }
+        """
+
+        when:
+        configurationCacheRun 'greet', SEGMENTS
+
+        then:
+        output.count('Obtaining greeting') == 1
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        storedSegments.toSet() == [':a', ':b'].toSet()
+
+        when:
+        configurationCacheRun 'greet', SEGMENTS
+
+        then:
+        configurationCache.assertStateLoaded()
+        output.count('Obtaining greeting') == 1
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+    }
+
+    def "values shared by the tasks of several projects and the rest of the entry keep their identity"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildFile << """
+            import org.gradle.api.flow.*
+            import org.gradle.api.services.*
+            import java.util.concurrent.atomic.AtomicInteger
+
+            abstract class Greeting implements ValueSource<String, ValueSourceParameters.None> {
+                @Override
+                String obtain() {
+                    println('Obtaining greeting')
+                    return 'Hello'
+                }
+            }
+
+            abstract class Counter implements BuildService<BuildServiceParameters.None> {
+                final AtomicInteger count = new AtomicInteger()
+
+                Counter() {
+                    println('Creating counter')
+                }
+            }
+
+            class PrintGreeting implements FlowAction<Parameters> {
+                interface Parameters extends FlowParameters {
+                    @Input Property<String> getGreeting()
+                }
+
+                void execute(Parameters parameters) {
+                    println("\${parameters.greeting.get()} from the flow scope")
+                }
+            }
+
+            class GreetingPlugin implements Plugin<Project> {
+                final FlowScope flowScope
+
+                @Inject GreetingPlugin(FlowScope flowScope) {
+                    this.flowScope = flowScope
+                }
+
+                void apply(Project target) {
+                    def greeting = target.providers.of(Greeting) {}
+                    target.extensions.extraProperties.set('greeting', greeting)
+                    flowScope.always(PrintGreeting) {
+                        parameters.greeting = greeting
+                    }
+                }
+            }
+
+            apply type: GreetingPlugin
+
+            def sharedGreeting = greeting
+            def counter = gradle.sharedServices.registerIfAbsent('counter', Counter) {}
+
+            ['a', 'b'].each { projectName ->
+                project(projectName) {
+                    tasks.register('greet') {
+                        usesService(counter)
+                        doLast {
+                            counter.get().count.incrementAndGet()
+                            println("\${sharedGreeting.get()} from \$projectName")
+                        }
+                    }
+                }
+            }
+            project('c') {
+                tasks.register('greet') {
+                    def message = 'Plain greeting from c'
+                    doLast { println(message) }
+                }
+            }
+        """
+
+        when:
+        configurationCacheRun 'greet', SEGMENTS
+
+        then:
+        output.count('Obtaining greeting') == 1
+        output.count('Creating counter') == 1
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        outputContains('Plain greeting from c')
+        outputContains('Hello from the flow scope')
+        storedSegments.toSet() == [':a', ':b', ':c'].toSet()
+        loadedSegments == storedSegments
+
+        when:
+        configurationCacheRun 'greet', SEGMENTS
+
+        then:
+        configurationCache.assertStateLoaded()
+        output.count('Obtaining greeting') == 1
+        output.count('Creating counter') == 1
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        outputContains('Plain greeting from c')
+        outputContains('Hello from the flow scope')
+        loadedSegments.toSet() == [':a', ':b', ':c'].toSet()
+    }
+
+    def "entry stored with segments is loaded by a build without segments"() {
+        def configurationCache = newConfigurationCacheFixture()
+
+        settingsFile << """
+            include 'a', 'b'
+        """
+        buildFile << """
+            subprojects {
+                def projectName = name
+                tasks.register('greet') {
+                    def message = "Hello from \$projectName"
+                    doLast { println(message) }
+                }
+            }
+        """
+
+        when:
+        configurationCacheRun 'greet', SEGMENTS
+
+        then:
+        storedSegments.toSet() == [':a', ':b'].toSet()
+
+        when:
+        configurationCacheRun 'greet'
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains('Hello from a')
+        outputContains('Hello from b')
+        loadedSegments.toSet() == [':a', ':b'].toSet()
+    }
+
+    private List<String> getStoredSegments() {
+        operations.only(ConfigurationCacheStoreBuildOperationType).result.segments*.projectPath
+    }
+
+    private List<String> getLoadedSegments() {
+        operations.only(ConfigurationCacheLoadBuildOperationType).result.segments*.projectPath
+    }
+}
@@ -25,13 +25,17 @@ import org.gradle.internal.operations.CallableBuildOperation
 
 
 internal
-fun <T : Any> BuildOperationExecutor.withLoadOperation(block: () -> T) =
-    withOperation("Load configuration cache state", block, LoadDetails, LoadResult)
+fun <T : Any> BuildOperationExecutor.withLoadOperation(segments: ConfigurationCacheSegments, block: () -> T) =
+    withOperation("Load configuration cache state", block, LoadDetails) {
+        LoadResult(segments.takeStatistics())
+    }
 
 
 internal
-fun BuildOperationExecutor.withStoreOperation(@Suppress("UNUSED_PARAMETER") cacheKey: String, block: () -> Unit) =
-    withOperation("Store configuration cache state", block, StoreDetails, StoreResult)
+fun BuildOperationExecutor.withStoreOperation(@Suppress("UNUSED_PARAMETER") cacheKey: String, segments: ConfigurationCacheSegments, block: () -> Unit) =
+    withOperation("Store configuration cache state", block, StoreDetails) {
+        StoreResult(segments.takeStatistics())
+    }
 
 
 private
@@ -39,7 +43,11 @@ object LoadDetails : ConfigurationCacheLoadBuildOperationType.Details
 
 
 private
-object LoadResult : ConfigurationCacheLoadBuildOperationType.Result
+class LoadResult(
+    private val segments: List<ConfigurationCacheLoadBuildOperationType.Segment>
+) : ConfigurationCacheLoadBuildOperationType.Result {
+    override fun getSegments() = segments
+}
 
 
 private
@@ -47,15 +55,19 @@ object StoreDetails : ConfigurationCacheStoreBuildOperationType.Details
 
 
 private
-object StoreResult : ConfigurationCacheStoreBuildOperationType.Result
+class StoreResult(
+    private val segments: List<ConfigurationCacheStoreBuildOperationType.Segment>
+) : ConfigurationCacheStoreBuildOperationType.Result {
+    override fun getSegments() = segments
+}
 
 
 private
-fun <T : Any, D : Any, R : Any> BuildOperationExecutor.withOperation(displayName: String, block: () -> T, details: D, result: R): T =
+fun <T : Any, D : Any, R : Any> BuildOperationExecutor.withOperation(displayName: String, block: () -> T, details: D, result: () -> R): T =
     call(object : CallableBuildOperation<T> {
         override fun description(): BuildOperationDescriptor.Builder =
             BuildOperationDescriptor.displayName(displayName).details(details)
 
         override fun call(context: BuildOperationContext): T =
-            block().also { context.setResult(result) }
+            block().also { context.setResult(result()) }
     })
@@ -16,6 +16,7 @@
 
 package org.gradle.configurationcache
 
+import org.gradle.api.internal.TaskInternal
 import org.gradle.api.logging.LogLevel
 import org.gradle.cache.internal.streams.BlockAddress
 import org.gradle.cache.internal.streams.BlockAddressSerializer
@@ -27,19 +28,23 @@ import org.gradle.configurationcache.problems.ConfigurationCacheProblems
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.LoggingTracer
+import org.gradle.configurationcache.serialization.ProjectProvider
+import org.gradle.configurationcache.serialization.ReadSharedValues
+import org.gradle.configurationcache.serialization.SizeReportingTracer
 import org.gradle.configurationcache.serialization.Tracer
+import org.gradle.configurationcache.serialization.WriteSharedValues
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.TaskStateSegments
 import org.gradle.configurationcache.serialization.readCollection
-import org.gradle.configurationcache.serialization.readFile
 import org.gradle.configurationcache.serialization.readList
 import org.gradle.configurationcache.serialization.readNonNull
 import org.gradle.configurationcache.serialization.runReadOperation
 import org.gradle.configurationcache.serialization.runWriteOperation
+import org.gradle.configurationcache.serialization.withDebugFrame
 import org.gradle.configurationcache.serialization.withGradleIsolate
 import org.gradle.configurationcache.serialization.writeCollection
-import org.gradle.configurationcache.serialization.writeFile
 import org.gradle.internal.build.BuildStateRegistry
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter
@@ -49,7 +54,9 @@ import org.gradle.internal.serialize.kryo.KryoBackedDecoder
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.internal.service.scopes.Scopes
 import org.gradle.internal.service.scopes.ServiceScope
+import org.gradle.internal.time.Time
 import org.gradle.util.Path
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
@@ -63,7 +70,9 @@ class ConfigurationCacheIO internal constructor(
     private val scopeRegistryListener: ConfigurationCacheClassLoaderScopeRegistryListener,
     private val beanStateReaderLookup: BeanStateReaderLookup,
     private val beanStateWriterLookup: BeanStateWriterLookup,
-    private val eventEmitter: BuildOperationProgressEventEmitter
+    private val eventEmitter: BuildOperationProgressEventEmitter,
+    private val segments: ConfigurationCacheSegments,
+    private val retainedStates: RetainedConfigurationCacheStates
 ) {
     private
     val codecs = codecs()
@@ -165,12 +174,144 @@ class ConfigurationCacheIO internal constructor(
             }
         }
 
+    /**
+     * Whether the state of the tasks in the work graph is stored in per-project segments, see [writeTaskStateSegments].
+     */
+    internal
+    val isSegmented: Boolean
+        get() = segments.isEnabled
+
+    /**
+     * Writes the state of the tasks of each of the given [taskStateSegments] into its own file next to the given [stateFile].
+     *
+     * The state of the tasks is encoded on the calling thread, as encoding it evaluates providers and resolves dependencies,
+     * and only the encoded segments are written to their files concurrently. Each segment has its own class and string tables,
+     * and refers to the values that preserve their shared identity, such as value sources, build services or transformed artifacts,
+     * by their id in the shared identities of the given [context]. These values are encoded on their own and written to [context],
+     * so they keep their identity across the segments and the rest of the entry.
+     */
+    internal
+    fun writeTaskStateSegments(context: DefaultWriteContext, stateFile: ConfigurationCacheStateFile, taskStateSegments: TaskStateSegments) {
+        val projectPaths = taskStateSegments.projectPaths
+        val tasks = taskStateSegments.tasks
+        val sharedValues = WriteSharedValues(context.sharedIdentities) { encoder ->
+            writeContextFor(encoder, null, codecs, this)
+        }
+        val encodings = tasks.indices.map { index ->
+            val timer = Time.startTimer()
+            encodeTaskStateSegment(projectPaths[index], tasks[index], sharedValues) to timer.elapsedMillis
+        }
+        sharedValues.writeTo(context)
+        val statistics = arrayOfNulls<SegmentStatistics>(tasks.size)
+        segments.runConcurrently(
+            tasks.indices.map { index ->
+                {
+                    val segmentFile = stateFile.stateFileForSegment(index)
+                    val (encoding, encodingMillis) = encodings[index]
+                    val timer = Time.startTimer()
+                    stateOutputStream(segmentFile).use {
+                        it.write(encoding)
+                    }
+                    statistics[index] = SegmentStatistics(projectPaths[index], tasks[index].size, segmentFile.stateFile.file.length(), encodingMillis + timer.elapsedMillis)
+                }
+            }
+        )
+        segments.record(statistics.filterNotNull())
+    }
+
+    private
+    fun encodeTaskStateSegment(projectPath: String, tasks: List<TaskInternal>, sharedValues: WriteSharedValues): ByteArray {
+        val output = ByteArrayOutputStream()
+        val encoder = KryoBackedEncoder(output)
+        val context = writeContextFor(encoder, tracerFor({ "project $projectPath state" }, encoder), codecs, sharedValues)
+        context.useToRun {
+            runWriteOperation {
+                val taskStateCodec = codecs.taskStateCodec()
+                writeSmallInt(tasks.size)
+                for (task in tasks) {
+                    withDebugFrame({ task.path }) {
+                        writeLong(task.taskIdentity.uniqueId)
+                        taskStateCodec.run {
+                            writeTaskState(task)
+                        }
+                    }
+                }
+            }
+        }
+        return output.toByteArray()
+    }
+
+    /**
+     * Starts reading the state of the tasks of each of the given [taskStateSegments], as written by [writeTaskStateSegments].
+     *
+     * The tasks must already have been created. The segments are read concurrently with each other and with the rest of the entry,
+     * so the state of the tasks must not be used before [awaitTaskStateSegments] returns.
+     * The values shared by the segments are read from the given [context] first, and decoded by the first stream that needs them.
+     */
+    internal
+    fun readTaskStateSegments(context: DefaultReadContext, stateFile: ConfigurationCacheStateFile, taskStateSegments: TaskStateSegments, projectProvider: ProjectProvider) {
+        val sharedValues = requireNotNull(context.sharedValues)
+        sharedValues.readFrom(context)
+        val projectPaths = taskStateSegments.projectPaths
+        val tasks = taskStateSegments.tasks
+        val statistics = arrayOfNulls<SegmentStatistics>(tasks.size)
+        segments.startConcurrently(
+            tasks.indices.map { index ->
+                {
+                    val segmentFile = stateFile.stateFileForSegment(index)
+                    val timer = Time.startTimer()
+                    readTaskStateSegment(segmentFile, tasks[index], sharedValues, projectProvider)
+                    statistics[index] = SegmentStatistics(projectPaths[index], tasks[index].size, segmentFile.stateFile.file.length(), timer.elapsedMillis)
+                }
+            }
+        ) {
+            segments.record(statistics.filterNotNull())
+        }
+    }
+
+    /**
+     * Waits for the segments started by [readTaskStateSegments] to be read.
+     */
+    internal
+    fun awaitTaskStateSegments() {
+        val timer = Time.startTimer()
+        segments.awaitPending()
+        logger.debug("Waited {} ms for the state of the tasks to be read", timer.elapsedMillis)
+    }
+
+    /**
+     * Stops reading the segments started by [readTaskStateSegments], when reading the rest of the entry has failed.
+     */
+    internal
+    fun cancelTaskStateSegments() {
+        segments.cancelPending()
+    }
+
+    private
+    fun readTaskStateSegment(segmentFile: ConfigurationCacheStateFile, tasks: List<TaskInternal>, sharedValues: ReadSharedValues, projectProvider: ProjectProvider) {
+        withReadContextFor(stateInputStream(segmentFile), sharedValues) { codecs ->
+            initProjectProvider(projectProvider)
+            val taskStateCodec = codecs.taskStateCodec()
+            require(readSmallInt() == tasks.size) {
+                "corrupt state file"
+            }
+            for (task in tasks) {
+                require(readLong() == task.taskIdentity.uniqueId) {
+                    "corrupt state file"
+                }
+                taskStateCodec.run {
+                    readTaskState(task)
+                }
+            }
+        }
+    }
+
     private
     fun <T> readConfigurationCacheState(
         stateFile: ConfigurationCacheStateFile,
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
-        return withReadContextFor(encryptionService.inputStream(stateFile.stateType, stateFile::inputStream)) { codecs ->
+        return withReadContextFor(stateInputStream(stateFile), newReadSharedValues()) { codecs ->
             ConfigurationCacheState(codecs, stateFile, eventEmitter, host).run {
                 action(this)
             }
@@ -182,7 +323,7 @@ class ConfigurationCacheIO internal constructor(
         stateFile: ConfigurationCacheStateFile,
         action: suspend DefaultWriteContext.(ConfigurationCacheState) -> T
     ): T {
-        val (context, codecs) = writerContextFor(encryptionService.outputStream(stateFile.stateType, stateFile::outputStream)) {
+        val (context, codecs) = writerContextFor(stateOutputStream(stateFile)) {
             host.currentBuild.gradle.owner.displayName.displayName + " state"
         }
         return context.useToRun {
@@ -192,6 +333,24 @@ class ConfigurationCacheIO internal constructor(
         }
     }
 
+    private
+    fun stateInputStream(stateFile: ConfigurationCacheStateFile): InputStream {
+        val input = { encryptionService.inputStream(stateFile.stateType, stateFile::inputStream) }
+        return if (startParameter.retainStateInMemory) {
+            retainedStates.inputStream(stateFile.stateFile.file, input)
+        } else {
+            input()
+        }
+    }
+
+    private
+    fun stateOutputStream(stateFile: ConfigurationCacheStateFile): OutputStream {
+        if (startParameter.retainStateInMemory) {
+            retainedStates.invalidate(stateFile.stateFile.file)
+        }
+        return encryptionService.outputStream(stateFile.stateType, stateFile::outputStream)
+    }
+
     internal
     fun writeModelTo(model: Any, stateFile: ConfigurationCacheStateFile) {
         writeConfigurationCacheState(stateFile) {
@@ -218,11 +377,19 @@ class ConfigurationCacheIO internal constructor(
         KryoBackedEncoder(outputStream).let { encoder ->
             writeContextFor(
                 encoder,
-                loggingTracerFor(profile, encoder),
+                tracerFor(profile, encoder),
                 codecs
             ) to codecs
         }
 
+    private
+    fun tracerFor(profile: () -> String, encoder: KryoBackedEncoder): Tracer? =
+        if (startParameter.isSizeReportEnabled) {
+            SizeReportingTracer(profile(), encoder::getWritePosition, logger)
+        } else {
+            loggingTracerFor(profile, encoder)
+        }
+
     private
     fun loggingTracerFor(profile: () -> String, encoder: KryoBackedEncoder) =
         loggingTracerLogLevel()?.let { level ->
@@ -247,9 +414,10 @@ class ConfigurationCacheIO internal constructor(
     internal
     fun <R> withReadContextFor(
         inputStream: InputStream,
+        sharedValues: ReadSharedValues? = null,
         readOperation: suspend DefaultReadContext.(Codecs) -> R
     ): R =
-        readerContextFor(inputStream).let { (context, codecs) ->
+        readerContextFor(KryoBackedDecoder(inputStream), sharedValues).let { (context, codecs) ->
             context.use {
                 context.run {
                     initClassLoader(javaClass.classLoader)
@@ -262,16 +430,12 @@ class ConfigurationCacheIO internal constructor(
             }
         }
 
-    private
-    fun readerContextFor(
-        inputStream: InputStream,
-    ) = readerContextFor(KryoBackedDecoder(inputStream))
-
     internal
     fun readerContextFor(
         decoder: Decoder,
+        sharedValues: ReadSharedValues? = null
     ) =
-        readContextFor(decoder, codecs).apply {
+        readContextFor(decoder, codecs, sharedValues).apply {
             initClassLoader(javaClass.classLoader)
         } to codecs
 
@@ -279,7 +443,8 @@ class ConfigurationCacheIO internal constructor(
     fun writeContextFor(
         encoder: Encoder,
         tracer: Tracer?,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedValues: WriteSharedValues? = null
     ) = DefaultWriteContext(
         codecs.userTypesCodec(),
         encoder,
@@ -287,21 +452,30 @@ class ConfigurationCacheIO internal constructor(
         beanStateWriterLookup,
         logger,
         tracer,
-        problems
+        problems,
+        sharedValues
     )
 
     private
     fun readContextFor(
         decoder: Decoder,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedValues: ReadSharedValues? = null
     ) = DefaultReadContext(
         codecs.userTypesCodec(),
         decoder,
         beanStateReaderLookup,
         logger,
-        problems
+        problems,
+        sharedValues
     )
 
+    private
+    fun newReadSharedValues() =
+        ReadSharedValues { decoder ->
+            readContextFor(decoder, codecs, this)
+        }
+
     private
     fun codecs(): Codecs =
         Codecs(
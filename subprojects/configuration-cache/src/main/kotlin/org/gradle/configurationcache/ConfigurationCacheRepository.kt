@@ -118,6 +118,12 @@ class ConfigurationCacheRepository(
                 includedBuildFileFor(file, build),
                 stateType
             )
+
+        override fun stateFileForSegment(index: Int): ConfigurationCacheStateFile =
+            ReadableConfigurationCacheStateFile(
+                segmentFileFor(file, index),
+                stateType
+            )
     }
 
     private
@@ -154,6 +160,13 @@ class ConfigurationCacheRepository(
                 stateType,
                 onFileAccess
             )
+
+        override fun stateFileForSegment(index: Int): ConfigurationCacheStateFile =
+            WriteableConfigurationCacheStateFile(
+                segmentFileFor(file, index),
+                stateType,
+                onFileAccess
+            )
     }
 
     private
@@ -207,6 +220,12 @@ class ConfigurationCacheRepository(
             resolveSibling("$name.${build.name}")
         }
 
+    private
+    fun segmentFileFor(parentStateFile: File, index: Int) =
+        parentStateFile.run {
+            resolveSibling("$name.segment-$index")
+        }
+
     private
     val cleanupDepth = 1
 
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.api.internal.project.ProjectStateRegistry
+import org.gradle.configurationcache.initialization.ConfigurationCacheStartParameter
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.configurationcache.ConfigurationCacheLoadBuildOperationType
+import org.gradle.internal.configurationcache.ConfigurationCacheStoreBuildOperationType
+import org.gradle.internal.service.scopes.Scopes
+import org.gradle.internal.service.scopes.ServiceScope
+import java.io.Closeable
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+
+
+/**
+ * Stores and loads the per-project segments of the configuration cache entry on a bounded pool of threads,
+ * and keeps track of the segments handled by the current load or store operation.
+ *
+ * Segments are only stored when [ConfigurationCacheStartParameter.segmentParallelism] is positive.
+ * As the parallelism is not part of the cache key, an entry stored with segments can be loaded by a build
+ * which does not use them, in which case the segments are read on the calling thread.
+ */
+@ServiceScope(Scopes.BuildTree::class)
+internal
+class ConfigurationCacheSegments(
+    private val startParameter: ConfigurationCacheStartParameter,
+    private val executorFactory: ExecutorFactory,
+    private val projectStateRegistry: ProjectStateRegistry
+) : Closeable {
+
+    val isEnabled: Boolean
+        get() = startParameter.segmentParallelism > 0
+
+    private
+    val executor = lazy {
+        executorFactory.create("Configuration cache segments", startParameter.segmentParallelism)
+    }
+
+    private
+    val statistics = ConcurrentLinkedQueue<SegmentStatistics>()
+
+    /**
+     * Actions started by [startConcurrently] which have not been waited for yet, with the action to run once they complete.
+     * Only used by the thread loading the entry.
+     */
+    private
+    val pending = ArrayList<Pair<List<Future<*>>, () -> Unit>>()
+
+    /**
+     * Runs the given actions concurrently and waits for all of them to complete, rethrowing the first failure.
+     *
+     * The calling thread holds the locks of the projects being stored or loaded while it waits,
+     * so the actions are allowed to access the state of any project.
+     */
+    fun runConcurrently(actions: List<() -> Unit>) {
+        awaitAll(submit(actions))
+    }
+
+    /**
+     * Starts running the given actions concurrently, without waiting for them to complete.
+     * The calling thread must call [awaitPending] or [cancelPending] before it releases the locks of the projects being loaded.
+     */
+    fun startConcurrently(actions: List<() -> Unit>, onCompletion: () -> Unit) {
+        pending.add(submit(actions) to onCompletion)
+    }
+
+    /**
+     * Waits for all the actions started by [startConcurrently] to complete, rethrowing the first failure.
+     */
+    fun awaitPending() {
+        val started = ArrayList(pending)
+        pending.clear()
+        var failure: Throwable? = null
+        for ((futures, onCompletion) in started) {
+            try {
+                awaitAll(futures)
+                onCompletion()
+            } catch (e: Throwable) {
+                if (failure == null) {
+                    failure = e
+                } else {
+                    failure.addSuppressed(e)
+                }
+            }
+        }
+        failure?.let { throw it }
+    }
+
+    /**
+     * Cancels the actions started by [startConcurrently] which are not running yet, and waits for the running ones, ignoring their failures.
+     */
+    fun cancelPending() {
+        val started = ArrayList(pending)
+        pending.clear()
+        for ((futures, _) in started) {
+            futures.forEach { it.cancel(false) }
+            futures.forEach {
+                try {
+                    it.get()
+                } catch (e: Exception) {
+                    // Ignore, as the load has already failed
+                }
+            }
+        }
+    }
+
+    private
+    fun submit(actions: List<() -> Unit>): List<Future<*>> =
+        if (isEnabled) {
+            actions.map { action ->
+                executor.value.submit {
+                    projectStateRegistry.allowUncontrolledAccessToAnyProject(Factory { action() })
+                }
+            }
+        } else {
+            actions.map { action ->
+                FutureTask<Any?>(action, null).apply { run() }
+            }
+        }
+
+    private
+    fun awaitAll(futures: List<Future<*>>) {
+        var failure: Throwable? = null
+        for (future in futures) {
+            try {
+                future.get()
+            } catch (e: ExecutionException) {
+                val cause = e.cause ?: e
+                if (failure == null) {
+                    failure = cause
+                } else {
+                    failure.addSuppressed(cause)
+                }
+            }
+        }
+        failure?.let { throw it }
+    }
+
+    fun record(segments: List<SegmentStatistics>) {
+        statistics.addAll(segments)
+    }
+
+    /**
+     * Returns the segments recorded since the last call, in the order they were recorded.
+     */
+    fun takeStatistics(): List<SegmentStatistics> {
+        val result = ArrayList<SegmentStatistics>()
+        while (true) {
+            result.add(statistics.poll() ?: break)
+        }
+        return result
+    }
+
+    override fun close() {
+        if (executor.isInitialized()) {
+            executor.value.stop()
+        }
+    }
+}
+
+
+internal
+class SegmentStatistics(
+    private val projectPath: String,
+    private val taskCount: Int,
+    private val size: Long,
+    private val durationMillis: Long
+) : ConfigurationCacheStoreBuildOperationType.Segment, ConfigurationCacheLoadBuildOperationType.Segment {
+
+    override fun getProjectPath(): String = projectPath
+
+    override fun getTaskCount(): Int = taskCount
+
+    override fun getSize(): Long = size
+
+    override fun getDurationMillis(): Long = durationMillis
+
+    override fun toString(): String = "$projectPath: $taskCount tasks, $size bytes in $durationMillis ms"
+}
@@ -41,6 +41,7 @@ import org.gradle.configurationcache.serialization.IsolateOwner
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.TaskStateSegments
 import org.gradle.configurationcache.serialization.logNotImplemented
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readEnum
@@ -127,6 +128,9 @@ interface ConfigurationCacheStateFile {
     // Replace the contents of this state file, by moving the given file to the location of this state file
     fun moveFrom(file: File)
     fun stateFileForIncludedBuild(build: BuildDefinition): ConfigurationCacheStateFile
+
+    // The file holding the segment with the given index, which is written and read independently of this state file
+    fun stateFileForSegment(index: Int): ConfigurationCacheStateFile
 }
 
 
@@ -147,10 +151,20 @@ class ConfigurationCacheState(
         }
 
     suspend fun DefaultReadContext.readRootBuildState(graph: BuildTreeWorkGraph, graphBuilder: BuildTreeWorkGraphBuilder?, loadAfterStore: Boolean): BuildTreeWorkGraph.FinalizedGraph {
-        val builds = readRootBuild()
-        require(readInt() == 0x1ecac8e) {
-            "corrupt state file"
+        val cacheIO = host.service<ConfigurationCacheIO>()
+        val builds = try {
+            readRootBuild().also {
+                require(readInt() == 0x1ecac8e) {
+                    "corrupt state file"
+                }
+            }
+        } catch (e: Throwable) {
+            cacheIO.cancelTaskStateSegments()
+            throw e
         }
+        // The state of the tasks of each build is read in the background while the rest of the entry is read,
+        // and must be complete before the work graphs are scheduled
+        cacheIO.awaitTaskStateSegments()
         if (!loadAfterStore) {
             for (build in builds) {
                 identifyBuild(build)
@@ -436,7 +450,7 @@ class ConfigurationCacheState(
             applyProjectStates(projects, gradle)
             readRequiredBuildServicesOf(gradle)
 
-            val workGraph = readWorkGraph(gradle)
+            val workGraph = readWorkGraph(gradle, build)
             readFlowScopeOf(gradle)
             readBuildOutputCleanupRegistrations(gradle)
             return BuildWithWork(build.state.identityPath, build, gradle.rootProject.name, projects, workGraph)
@@ -447,16 +461,32 @@ class ConfigurationCacheState(
 
     private
     suspend fun DefaultWriteContext.writeWorkGraphOf(gradle: GradleInternal, scheduledNodes: List<Node>) {
-        workNodeCodec(gradle).run {
+        val cacheIO = gradle.serviceOf<ConfigurationCacheIO>()
+        val taskStateSegments = if (cacheIO.isSegmented) TaskStateSegments() else null
+        writeBoolean(taskStateSegments != null)
+        workNodeCodec(gradle, taskStateSegments).run {
             writeWork(scheduledNodes)
         }
+        if (taskStateSegments != null) {
+            writeSmallInt(taskStateSegments.size)
+            cacheIO.writeTaskStateSegments(this, stateFile, taskStateSegments)
+        }
     }
 
     private
-    suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal) =
-        workNodeCodec(gradle).run {
+    suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal, build: ConfigurationCacheBuild): List<Node> {
+        val taskStateSegments = if (readBoolean()) TaskStateSegments() else null
+        val workGraph = workNodeCodec(gradle, taskStateSegments).run {
             readWork()
         }
+        if (taskStateSegments != null) {
+            require(readSmallInt() == taskStateSegments.size) {
+                "corrupt state file"
+            }
+            gradle.serviceOf<ConfigurationCacheIO>().readTaskStateSegments(this, stateFile, taskStateSegments, build::getProject)
+        }
+        return workGraph
+    }
 
     private
     suspend fun WriteContext.writeFlowScopeOf(gradle: GradleInternal) {
@@ -478,8 +508,8 @@ class ConfigurationCacheState(
         gradle.serviceOf<FlowScope>().uncheckedCast<BuildFlowScope>()
 
     private
-    fun workNodeCodec(gradle: GradleInternal) =
-        codecs.workNodeCodecFor(gradle)
+    fun workNodeCodec(gradle: GradleInternal, taskStateSegments: TaskStateSegments?) =
+        codecs.workNodeCodecFor(gradle, taskStateSegments)
 
     private
     suspend fun DefaultWriteContext.writeRequiredBuildServicesOf(build: BuildState, buildTreeState: StoredBuildTreeState) {
@@ -67,6 +67,8 @@ class DefaultConfigurationCache internal constructor(
     private val cacheFingerprintController: ConfigurationCacheFingerprintController,
     private val encryptionService: EncryptionService,
     private val resolveStateFactory: LocalComponentGraphResolveStateFactory,
+    private val segments: ConfigurationCacheSegments,
+    private val retainedStates: RetainedConfigurationCacheStates,
     /**
      * Force the [FileSystemAccess] service to be initialized as it initializes important static state.
      */
@@ -118,6 +120,10 @@ class DefaultConfigurationCache internal constructor(
 
     override fun initializeCacheEntry() {
         cacheAction = determineCacheAction()
+        if (cacheAction != ConfigurationCacheAction.LOAD) {
+            // The entry is about to be replaced, so do not keep it in memory
+            retainedStates.invalidateAll()
+        }
         problems.action(cacheAction)
     }
 
@@ -341,7 +347,7 @@ class DefaultConfigurationCache internal constructor(
             Instrumented.discardListener()
         }
 
-        buildOperationExecutor.withStoreOperation(cacheKey.string) {
+        buildOperationExecutor.withStoreOperation(cacheKey.string, segments) {
             store.useForStore { layout ->
                 try {
                     action(layout.fileFor(stateType))
@@ -380,7 +386,7 @@ class DefaultConfigurationCache internal constructor(
         // when loading the task graph.
         scopeRegistryListener.dispose()
 
-        val result = buildOperationExecutor.withLoadOperation {
+        val result = buildOperationExecutor.withLoadOperation(segments) {
             store.useForStateLoad(stateType, action)
         }
         crossConfigurationTimeBarrier()
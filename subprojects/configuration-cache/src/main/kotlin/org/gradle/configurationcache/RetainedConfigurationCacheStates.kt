@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.internal.service.scopes.Scope
+import org.gradle.internal.service.scopes.ServiceScope
+import java.io.ByteArrayInputStream
+import java.io.File
+import java.io.InputStream
+import java.lang.ref.SoftReference
+
+
+/**
+ * Keeps the decrypted contents of the state files of the last loaded configuration cache entry in the daemon,
+ * so that loading the same entry again does not need to read and decrypt the files.
+ *
+ * A retained state is only used while the length and the modification time of its file are unchanged.
+ * The contents are softly referenced, so they are discarded when the daemon runs low on heap.
+ */
+@ServiceScope(Scope.Global::class)
+internal
+class RetainedConfigurationCacheStates {
+
+    private
+    class RetainedState(
+        val length: Long,
+        val lastModified: Long,
+        val content: SoftReference<ByteArray>
+    )
+
+    private
+    val lock = Any()
+
+    /**
+     * The directory of the retained entry. The state files of an entry are all in the same directory.
+     */
+    private
+    var entryDir: File? = null
+
+    private
+    val states = HashMap<File, RetainedState>()
+
+    /**
+     * Returns the retained contents of the given [file], or reads them from [input] and retains them.
+     * Retaining a file of another entry discards the previously retained entry.
+     */
+    fun inputStream(file: File, input: () -> InputStream): InputStream {
+        val length = file.length()
+        val lastModified = file.lastModified()
+        synchronized(lock) {
+            val retained = states[file]
+            if (retained != null && retained.length == length && retained.lastModified == lastModified) {
+                retained.content.get()?.let {
+                    return ByteArrayInputStream(it)
+                }
+            }
+        }
+        val content = input().use { it.readBytes() }
+        synchronized(lock) {
+            if (entryDir != file.parentFile) {
+                states.clear()
+                entryDir = file.parentFile
+            }
+            states[file] = RetainedState(length, lastModified, SoftReference(content))
+        }
+        return ByteArrayInputStream(content)
+    }
+
+    /**
+     * Discards the retained contents of the given [file], which is about to be written.
+     */
+    fun invalidate(file: File) {
+        synchronized(lock) {
+            states.remove(file)
+        }
+    }
+
+    /**
+     * Discards all retained contents, as the retained entry cannot be reused.
+     */
+    fun invalidateAll() {
+        synchronized(lock) {
+            states.clear()
+            entryDir = null
+        }
+    }
+}
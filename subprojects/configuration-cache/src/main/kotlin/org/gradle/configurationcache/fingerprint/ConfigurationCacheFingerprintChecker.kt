@@ -33,6 +33,12 @@ import org.gradle.internal.util.NumberUtil.ordinal
 import org.gradle.util.Path
 import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 import java.util.function.Consumer
 
 
@@ -40,8 +46,18 @@ internal
 typealias InvalidationReason = String
 
 
+/**
+ * Checks the inputs recorded in the configuration cache fingerprint.
+ *
+ * When an [executor] is given, the inputs that only query the file system are checked on it, while the
+ * remaining inputs are read and checked on the calling thread. The reported invalidation reason is always
+ * the one of the first out-of-date input, in the order the inputs were recorded.
+ */
 internal
-class ConfigurationCacheFingerprintChecker(private val host: Host) {
+class ConfigurationCacheFingerprintChecker(
+    private val host: Host,
+    private val executor: ExecutorService? = null
+) {
 
     interface Host {
         val isEncrypted: Boolean
@@ -64,64 +80,112 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
     }
 
     suspend fun ReadContext.checkBuildScopedFingerprint(): CheckedFingerprint {
-        // TODO: log some debug info
-        while (true) {
-            when (val input = read()) {
-                null -> break
-                is ConfigurationCacheFingerprint -> {
-                    // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
-                    val reason = check(input)
-                    if (reason != null) {
-                        return CheckedFingerprint.EntryInvalid(reason)
+        val timings = CheckTimings()
+        // Checks in progress, in the order the inputs were read
+        val pending = ArrayDeque<Future<InvalidationReason?>>()
+        try {
+            while (true) {
+                when (val input = read()) {
+                    null -> break
+                    is ConfigurationCacheFingerprint -> {
+                        // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
+                        if (executor != null && isFileSystemCheck(input)) {
+                            pending.addLast(executor.submit<InvalidationReason?> { timings.check(input) })
+                        } else {
+                            // Wait for the earlier checks first, so that checks which can be expensive or run build logic,
+                            // such as obtaining a value source, are skipped once the entry is known to be invalid
+                            val earlierReason = firstReasonOf(pending)
+                            if (earlierReason != null) {
+                                return CheckedFingerprint.EntryInvalid(earlierReason)
+                            }
+                            val reason = timings.check(input)
+                            if (reason != null) {
+                                return CheckedFingerprint.EntryInvalid(reason)
+                            }
+                        }
+                        val reason = completedReasonOf(pending)
+                        if (reason != null) {
+                            return CheckedFingerprint.EntryInvalid(reason)
+                        }
                     }
+                    else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
                 }
-                else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
             }
+            val reason = firstReasonOf(pending)
+            if (reason != null) {
+                return CheckedFingerprint.EntryInvalid(reason)
+            }
+            return CheckedFingerprint.Valid
+        } finally {
+            pending.forEach { it.cancel(false) }
+            timings.log("build")
         }
-        return CheckedFingerprint.Valid
     }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(): CheckedFingerprint {
-        // TODO: log some debug info
-        var firstReason: InvalidationReason? = null
-        val projects = mutableMapOf<Path, ProjectInvalidationState>()
-        while (true) {
-            when (val input = read()) {
-                null -> break
-                is ProjectSpecificFingerprint.ProjectFingerprint -> input.run {
-                    // An input that is specific to a project. If it is out-of-date, then invalidate that project's values and continue checking values
-                    // Don't check a value for a project that is already out-of-date
-                    val state = projects.entryFor(input.projectPath)
-                    if (!state.isInvalid) {
-                        val reason = check(input.value)
-                        if (reason != null) {
+        val timings = CheckTimings()
+        // Checks in progress, in the order the inputs were read
+        val pending = ArrayDeque<Pair<ProjectInvalidationState, Future<InvalidationReason?>>>()
+        try {
+            var firstReason: InvalidationReason? = null
+            val projects = mutableMapOf<Path, ProjectInvalidationState>()
+            while (true) {
+                when (val input = read()) {
+                    null -> break
+                    is ProjectSpecificFingerprint.ProjectFingerprint -> input.run {
+                        // An input that is specific to a project. If it is out-of-date, then invalidate that project's values and continue checking values
+                        // Don't check a value for a project that is already out-of-date
+                        val state = projects.entryFor(input.projectPath)
+                        if (executor != null && isFileSystemCheck(input.value)) {
+                            if (!state.isInvalid) {
+                                pending.addLast(state to executor.submit<InvalidationReason?> { timings.check(input.value) })
+                            }
+                        } else {
+                            // Apply the results of the earlier checks first, so that checks which can be expensive or run build logic
+                            // are skipped for projects which are already known to be out-of-date
+                            val earlierReason = invalidateProjectsOf(pending)
                             if (firstReason == null) {
-                                firstReason = reason
+                                firstReason = earlierReason
+                            }
+                            if (!state.isInvalid) {
+                                val reason = timings.check(input.value)
+                                if (reason != null) {
+                                    if (firstReason == null) {
+                                        firstReason = reason
+                                    }
+                                    state.invalidate()
+                                }
                             }
-                            state.invalidate()
                         }
                     }
-                }
-                is ProjectSpecificFingerprint.ProjectDependency -> {
-                    val consumer = projects.entryFor(input.consumingProject)
-                    val target = projects.entryFor(input.targetProject)
-                    target.consumedBy(consumer)
-                }
-                is ProjectSpecificFingerprint.CoupledProjects -> {
-                    if (host.invalidateCoupledProjects) {
-                        val referrer = projects.entryFor(input.referringProject)
+                    is ProjectSpecificFingerprint.ProjectDependency -> {
+                        val consumer = projects.entryFor(input.consumingProject)
                         val target = projects.entryFor(input.targetProject)
-                        target.consumedBy(referrer)
-                        referrer.consumedBy(target)
+                        target.consumedBy(consumer)
                     }
+                    is ProjectSpecificFingerprint.CoupledProjects -> {
+                        if (host.invalidateCoupledProjects) {
+                            val referrer = projects.entryFor(input.referringProject)
+                            val target = projects.entryFor(input.targetProject)
+                            target.consumedBy(referrer)
+                            referrer.consumedBy(target)
+                        }
+                    }
+                    else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
                 }
-                else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
             }
-        }
-        return if (firstReason == null) {
-            CheckedFingerprint.Valid
-        } else {
-            CheckedFingerprint.ProjectsInvalid(firstReason!!, projects.entries.filter { it.value.isInvalid }.map { it.key }.toSet())
+            val earlierReason = invalidateProjectsOf(pending)
+            if (firstReason == null) {
+                firstReason = earlierReason
+            }
+            return if (firstReason == null) {
+                CheckedFingerprint.Valid
+            } else {
+                CheckedFingerprint.ProjectsInvalid(firstReason!!, projects.entries.filter { it.value.isInvalid }.map { it.key }.toSet())
+            }
+        } finally {
+            pending.forEach { it.second.cancel(false) }
+            timings.log("project")
         }
     }
 
@@ -148,6 +212,81 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
     private
     fun MutableMap<Path, ProjectInvalidationState>.entryFor(path: Path) = getOrPut(path) { ProjectInvalidationState() }
 
+    /**
+     * Is the given input checked by only querying the file system, so that it can be checked on any thread?
+     */
+    private
+    fun isFileSystemCheck(input: ConfigurationCacheFingerprint) =
+        input is ConfigurationCacheFingerprint.InputFile
+            || input is ConfigurationCacheFingerprint.DirectoryChildren
+            || input is ConfigurationCacheFingerprint.InputFileSystemEntry
+
+    /**
+     * Removes the completed checks from the head of the queue, returning the first invalidation reason.
+     */
+    private
+    fun completedReasonOf(pending: ArrayDeque<Future<InvalidationReason?>>): InvalidationReason? {
+        while (pending.isNotEmpty() && pending.first().isDone) {
+            val reason = pending.removeFirst().reason()
+            if (reason != null) {
+                return reason
+            }
+        }
+        return null
+    }
+
+    /**
+     * Waits for the checks in the queue in order, returning the first invalidation reason.
+     */
+    private
+    fun firstReasonOf(pending: ArrayDeque<Future<InvalidationReason?>>): InvalidationReason? {
+        while (pending.isNotEmpty()) {
+            val reason = pending.removeFirst().reason()
+            if (reason != null) {
+                return reason
+            }
+        }
+        return null
+    }
+
+    /**
+     * Waits for the checks in the queue in order, invalidating the project of each out-of-date input.
+     * Invalidating a project also invalidates its consumers, regardless of the order in which the projects are invalidated.
+     */
+    private
+    fun invalidateProjectsOf(pending: ArrayDeque<Pair<ProjectInvalidationState, Future<InvalidationReason?>>>): InvalidationReason? {
+        var firstReason: InvalidationReason? = null
+        while (pending.isNotEmpty()) {
+            val (state, check) = pending.removeFirst()
+            val reason = check.reason()
+            if (reason != null) {
+                if (firstReason == null) {
+                    firstReason = reason
+                }
+                state.invalidate()
+            }
+        }
+        return firstReason
+    }
+
+    private
+    fun Future<InvalidationReason?>.reason(): InvalidationReason? =
+        try {
+            get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+
+    private
+    fun CheckTimings.check(input: ConfigurationCacheFingerprint): InvalidationReason? {
+        val start = System.nanoTime()
+        try {
+            return check(input)
+        } finally {
+            record(input, System.nanoTime() - start)
+        }
+    }
+
     private
     fun check(input: ConfigurationCacheFingerprint): InvalidationReason? {
         when (input) {
@@ -336,6 +475,45 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
     fun buildLogicInputFailed(obtainedValue: ObtainedValue, failure: Throwable): InvalidationReason =
         "a build logic input of type '${obtainedValue.valueSourceType.simpleName}' failed when storing the entry with $failure"
 
+    /**
+     * Accumulates the time spent checking the inputs, by kind of input.
+     *
+     * As the file system inputs may be checked concurrently, the time of a kind can exceed the elapsed time.
+     */
+    private
+    class CheckTimings {
+        private
+        val startTime = System.nanoTime()
+
+        private
+        val byKind = ConcurrentHashMap<String, KindTiming>()
+
+        fun record(input: ConfigurationCacheFingerprint, nanos: Long) {
+            byKind.computeIfAbsent(input.javaClass.simpleName) { KindTiming() }.run {
+                count.incrementAndGet()
+                totalNanos.addAndGet(nanos)
+            }
+        }
+
+        fun log(scope: String) {
+            if (!logger.isInfoEnabled || byKind.isEmpty()) {
+                return
+            }
+            val kinds = byKind.entries.sortedByDescending { it.value.totalNanos.get() }.joinToString { (kind, timing) ->
+                "$kind: ${timing.count.get()} in ${TimeUnit.NANOSECONDS.toMillis(timing.totalNanos.get())} ms"
+            }
+            val inputCount = byKind.values.sumOf { it.count.get() }
+            val elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)
+            logger.info("Checked $inputCount $scope scoped configuration cache inputs in $elapsedMillis ms ($kinds)")
+        }
+
+        private
+        class KindTiming {
+            val count = AtomicLong()
+            val totalNanos = AtomicLong()
+        }
+    }
+
     private
     class ProjectInvalidationState {
         // When true, the project is definitely invalid
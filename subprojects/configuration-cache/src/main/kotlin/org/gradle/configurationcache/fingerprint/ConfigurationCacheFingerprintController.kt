@@ -43,6 +43,7 @@ import org.gradle.configurationcache.services.ConfigurationCacheEnvironmentChang
 import org.gradle.configurationcache.services.RemoteScriptUpToDateChecker
 import org.gradle.internal.agents.AgentStatus
 import org.gradle.internal.buildtree.BuildModelParameters
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry
@@ -91,7 +92,8 @@ class ConfigurationCacheFingerprintController internal constructor(
     private val remoteScriptUpToDateChecker: RemoteScriptUpToDateChecker,
     private val agentStatus: AgentStatus,
     private val problems: ConfigurationCacheProblems,
-    private val encryptionService: EncryptionService
+    private val encryptionService: EncryptionService,
+    private val executorFactory: ExecutorFactory
 ) : Stoppable, ProjectScopedScriptResolution {
 
     interface Host {
@@ -102,6 +104,11 @@ class ConfigurationCacheFingerprintController internal constructor(
     private
     val fileCollectionFingerprinter = fingerprinterRegistry.getFingerprinter(DefaultFileNormalizationSpec.from(InputNormalizer.ABSOLUTE_PATH, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT))
 
+    private
+    val checkExecutor = lazy {
+        executorFactory.create("Configuration cache fingerprint checker", startParameter.fingerprintCheckParallelism)
+    }
+
     private
     abstract class WritingState {
 
@@ -273,18 +280,25 @@ class ConfigurationCacheFingerprintController internal constructor(
 
     override fun stop() {
         writingState = writingState.dispose()
+        if (checkExecutor.isInitialized()) {
+            checkExecutor.value.stop()
+        }
     }
 
     suspend fun ReadContext.checkBuildScopedFingerprint(host: Host): CheckedFingerprint =
-        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
+        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host), fingerprintCheckExecutor()).run {
             checkBuildScopedFingerprint()
         }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(host: Host): CheckedFingerprint =
-        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
+        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host), fingerprintCheckExecutor()).run {
             checkProjectScopedFingerprint()
         }
 
+    private
+    fun fingerprintCheckExecutor() =
+        if (startParameter.fingerprintCheckParallelism > 1) checkExecutor.value else null
+
     suspend fun ReadContext.collectFingerprintForReusedProjects(host: Host, reusedProjects: Set<Path>): Unit =
         ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
             visitEntriesForProjects(reusedProjects) { fingerprint ->
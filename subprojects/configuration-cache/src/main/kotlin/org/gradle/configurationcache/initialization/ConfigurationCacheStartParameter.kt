@@ -23,6 +23,7 @@ import org.gradle.configurationcache.extensions.unsafeLazy
 import org.gradle.initialization.StartParameterBuildOptions.ConfigurationCacheProblemsOption
 import org.gradle.initialization.layout.BuildLayout
 import org.gradle.internal.Factory
+import org.gradle.internal.buildoption.IntegerInternalOption
 import org.gradle.internal.buildoption.InternalFlag
 import org.gradle.internal.buildoption.InternalOptions
 import org.gradle.internal.buildoption.StringInternalOption
@@ -51,6 +52,28 @@ class ConfigurationCacheStartParameter(
 
     val encryptionAlgorithm: String = options.getInternalString("org.gradle.configuration-cache.internal.encryption-alg", SupportedEncryptionAlgorithm.AES_ECB_PADDING.transformation)
 
+    /**
+     * The number of threads used to store and load the per-project segments of the work graph state.
+     * When 0, the state of all tasks is stored in the work graph state file.
+     */
+    val segmentParallelism: Int = options.getInternalInt("org.gradle.configuration-cache.internal.parallel-segments", 0)
+
+    /**
+     * The number of threads used to check the file system inputs of the fingerprint.
+     * When 1 or less, all inputs are checked by the thread reading the fingerprint.
+     */
+    val fingerprintCheckParallelism: Int = options.getInternalInt("org.gradle.configuration-cache.internal.fingerprint-check-parallelism", 4)
+
+    /**
+     * Should the contents of the loaded state files be kept in the daemon, so that the next build can reuse the entry without reading them again?
+     */
+    val retainStateInMemory: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.retain-in-memory")
+
+    /**
+     * Should the size of each written state file be logged, broken down by the type of the written values?
+     */
+    val isSizeReportEnabled: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.size-report")
+
     /**
      * Should be provided if a link to the report is expected even if no errors were found.
      * Useful in testing.
@@ -147,3 +170,8 @@ fun InternalOptions.getInternalFlag(systemPropertyName: String, defaultValue: Bo
 private
 fun InternalOptions.getInternalString(systemPropertyName: String, defaultValue: String?) =
     getOption(StringInternalOption(systemPropertyName, defaultValue)).get()
+
+
+private
+fun InternalOptions.getInternalInt(systemPropertyName: String, defaultValue: Int) =
+    getOption(IntegerInternalOption(systemPropertyName, defaultValue)).get()
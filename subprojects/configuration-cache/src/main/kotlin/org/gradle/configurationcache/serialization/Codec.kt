@@ -30,6 +30,7 @@ import org.gradle.configurationcache.serialization.beans.BeanStateReader
 import org.gradle.configurationcache.serialization.beans.BeanStateWriter
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import java.io.File
 
 
 /**
@@ -44,6 +45,12 @@ interface WriteContext : IsolateContext, MutableIsolateContext, Encoder {
 
     val sharedIdentities: WriteIdentities
 
+    /**
+     * Where values which preserve their shared identity are encoded, when this context writes a stream read concurrently with others.
+     */
+    val sharedValues: WriteSharedValues?
+        get() = null
+
     val circularReferences: CircularReferences
 
     override val isolate: WriteIsolate
@@ -53,6 +60,8 @@ interface WriteContext : IsolateContext, MutableIsolateContext, Encoder {
     suspend fun write(value: Any?)
 
     fun writeClass(type: Class<*>)
+
+    fun writeFile(file: File)
 }
 
 
@@ -68,6 +77,12 @@ interface ReadContext : IsolateContext, MutableIsolateContext, Decoder {
 
     val sharedIdentities: ReadIdentities
 
+    /**
+     * Where values which preserve their shared identity are decoded from, when this context reads a stream read concurrently with others.
+     */
+    val sharedValues: ReadSharedValues?
+        get() = null
+
     override val isolate: ReadIsolate
 
     val classLoader: ClassLoader
@@ -86,6 +101,8 @@ interface ReadContext : IsolateContext, MutableIsolateContext, Decoder {
 
     fun readClass(): Class<*>
 
+    fun readFile(): File
+
     /**
      * Defers the given [action] until all objects have been read.
      */
@@ -260,8 +277,16 @@ inline fun <T : Any> WriteContext.encodePreservingIdentityOf(reference: T, encod
 
 
 internal
-inline fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: WriteContext.(T) -> Unit) =
-    encodePreservingIdentityOf(sharedIdentities, reference, encode)
+suspend fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: suspend WriteContext.(T) -> Unit) {
+    val sharedValues = sharedValues
+    if (sharedValues != null) {
+        writeSmallInt(sharedValues.idOf(this, reference, encode))
+    } else {
+        encodePreservingIdentityOf(sharedIdentities, reference) {
+            encode(it)
+        }
+    }
+}
 
 
 internal
@@ -288,10 +313,15 @@ inline fun <T> ReadContext.decodePreservingIdentity(decode: ReadContext.(Int) ->
 
 
 internal
-inline fun <T : Any> ReadContext.decodePreservingSharedIdentity(decode: ReadContext.(Int) -> T): T =
+suspend fun <T : Any> ReadContext.decodePreservingSharedIdentity(decode: suspend ReadContext.(Int) -> T): T =
     decodePreservingIdentity(sharedIdentities) { id ->
-        decode(id).also {
-            sharedIdentities.putInstance(id, it)
+        val sharedValues = sharedValues
+        if (sharedValues != null && id in sharedValues) {
+            sharedValues.read(this, id, decode)
+        } else {
+            decode(id).also {
+                sharedIdentities.putInstance(id, it)
+            }
         }
     }
 
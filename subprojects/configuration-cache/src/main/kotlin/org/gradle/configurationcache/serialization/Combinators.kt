@@ -28,7 +28,6 @@ import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
 import org.gradle.internal.serialize.Serializer
 
-import java.io.File
 import java.io.ObjectInputStream
 import java.io.ObjectOutputStream
 
@@ -276,7 +275,7 @@ suspend fun <K, V, T : MutableMap<K, V>> ReadContext.readMapEntriesInto(items: T
 
 
 internal
-fun Encoder.writeClassPath(classPath: ClassPath) {
+fun WriteContext.writeClassPath(classPath: ClassPath) {
     // Ensure that the proper type is going to be restored,
     // because it is important for the equality checks.
     if (classPath is TransformedClassPath) {
@@ -290,7 +289,7 @@ fun Encoder.writeClassPath(classPath: ClassPath) {
 
 
 internal
-fun Encoder.writeDefaultClassPath(classPath: ClassPath) {
+fun WriteContext.writeDefaultClassPath(classPath: ClassPath) {
     writeCollection(classPath.asFiles) {
         writeFile(it)
     }
@@ -298,7 +297,7 @@ fun Encoder.writeDefaultClassPath(classPath: ClassPath) {
 
 
 internal
-fun Encoder.writeTransformedClassPath(classPath: TransformedClassPath) {
+fun WriteContext.writeTransformedClassPath(classPath: TransformedClassPath) {
     writeCollection(classPath.asFiles.zip(classPath.asTransformedFiles)) {
         writeFile(it.first)
         writeFile(it.second)
@@ -307,7 +306,7 @@ fun Encoder.writeTransformedClassPath(classPath: TransformedClassPath) {
 
 
 internal
-fun Decoder.readClassPath(): ClassPath {
+fun ReadContext.readClassPath(): ClassPath {
     val isTransformed = readBoolean()
     return if (isTransformed) {
         readTransformedClassPath()
@@ -318,7 +317,7 @@ fun Decoder.readClassPath(): ClassPath {
 
 
 internal
-fun Decoder.readDefaultClassPath(): ClassPath {
+fun ReadContext.readDefaultClassPath(): ClassPath {
     val size = readSmallInt()
     val builder = DefaultClassPath.builderWithExactSize(size)
     for (i in 0 until size) {
@@ -329,7 +328,7 @@ fun Decoder.readDefaultClassPath(): ClassPath {
 
 
 internal
-fun Decoder.readTransformedClassPath(): ClassPath {
+fun ReadContext.readTransformedClassPath(): ClassPath {
     val size = readSmallInt()
     val builder = TransformedClassPath.builderWithExactSize(size)
     for (i in 0 until size) {
@@ -339,17 +338,6 @@ fun Decoder.readTransformedClassPath(): ClassPath {
 }
 
 
-internal
-fun Encoder.writeFile(file: File) {
-    BaseSerializerFactory.FILE_SERIALIZER.write(this, file)
-}
-
-
-internal
-fun Decoder.readFile(): File =
-    BaseSerializerFactory.FILE_SERIALIZER.read(this)
-
-
 internal
 fun Encoder.writeStrings(strings: Collection<String>) {
     writeCollection(strings) {
@@ -36,6 +36,7 @@ import org.gradle.internal.Describables
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import java.io.File
 
 
 internal
@@ -55,11 +56,13 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
+
+    override val sharedValues: WriteSharedValues? = null
 
 ) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
-    override val sharedIdentities = WriteIdentities()
+    override val sharedIdentities = sharedValues?.identities ?: WriteIdentities()
 
     override val circularReferences = CircularReferences()
 
@@ -69,11 +72,18 @@ class DefaultWriteContext(
     private
     val scopes = WriteIdentities()
 
+    private
+    val strings = WriteInternedValues()
+
+    private
+    val files = WriteInternedValues()
+
     /**
-     * Closes the given [encoder] if it is [AutoCloseable].
+     * Closes the given [encoder] and [tracer] if they are [AutoCloseable].
      */
     override fun close() {
         (encoder as? AutoCloseable)?.close()
+        (tracer as? AutoCloseable)?.close()
     }
 
     override fun beanStateWriterFor(beanType: Class<*>): BeanStateWriter =
@@ -146,9 +156,41 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
-    override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+    override fun writeString(string: CharSequence) {
+        val value = string.toString()
+        val id = strings.getId(value)
+        if (id != null) {
+            writeSmallInt(id)
+        } else {
+            val newId = strings.putValue(value)
+            writeSmallInt(newId)
+            encoder.writeString(value)
+        }
+    }
+
+    /**
+     * Writes the file as its parent directory followed by its name, so that files sharing
+     * a parent directory, such as the files of a project, only encode their common prefix once.
+     */
+    override fun writeFile(file: File) {
+        val path = file.path
+        val id = files.getId(path)
+        if (id != null) {
+            writeSmallInt(id)
+        } else {
+            val newId = files.putValue(path)
+            writeSmallInt(newId)
+            val parent = file.parentFile
+            if (parent == null) {
+                writeBoolean(false)
+                writeString(path)
+            } else {
+                writeBoolean(true)
+                writeFile(parent)
+                writeString(file.name)
+            }
+        }
+    }
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
@@ -217,11 +259,13 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
+
+    override val sharedValues: ReadSharedValues? = null
 
 ) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
-    override val sharedIdentities = ReadIdentities()
+    override val sharedIdentities = sharedValues?.identities ?: ReadIdentities()
 
     private
     val classes = ReadIdentities()
@@ -229,6 +273,12 @@ class DefaultReadContext(
     private
     val scopes = ReadIdentities()
 
+    private
+    val strings = ReadIdentities()
+
+    private
+    val files = ReadIdentities()
+
     private
     lateinit var projectProvider: ProjectProvider
 
@@ -297,6 +347,32 @@ class DefaultReadContext(
         return newType
     }
 
+    override fun readString(): String {
+        val id = readSmallInt()
+        val string = strings.getInstance(id)
+        if (string != null) {
+            return string as String
+        }
+        val newString = decoder.readString()
+        strings.putInstance(id, newString)
+        return newString
+    }
+
+    override fun readFile(): File {
+        val id = readSmallInt()
+        val file = files.getInstance(id)
+        if (file != null) {
+            return file as File
+        }
+        val newFile = if (readBoolean()) {
+            File(readFile(), readString())
+        } else {
+            File(readString())
+        }
+        files.putInstance(id, newFile)
+        return newFile
+    }
+
     private
     fun readScope(): ClassLoaderScope {
         val id = readSmallInt()
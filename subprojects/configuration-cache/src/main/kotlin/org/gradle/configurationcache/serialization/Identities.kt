@@ -35,10 +35,28 @@ class WriteIdentities {
 }
 
 
-class ReadIdentities {
+/**
+ * Like [WriteIdentities], but identifies values by equality rather than by identity,
+ * so that equal values written more than once are only encoded the first time.
+ */
+class WriteInternedValues {
 
     private
-    val instanceIds = HashMap<Int, Any>()
+    val valueIds = HashMap<Any, Int>()
+
+    fun getId(value: Any) = valueIds[value]
+
+    fun putValue(value: Any): Int {
+        val id = valueIds.size
+        valueIds[value] = id
+        return id
+    }
+}
+
+
+class ReadIdentities(
+    private val instanceIds: MutableMap<Int, Any> = HashMap()
+) {
 
     fun getInstance(id: Int) = instanceIds[id]
 
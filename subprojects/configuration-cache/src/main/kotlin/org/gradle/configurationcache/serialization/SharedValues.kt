@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache.serialization
+
+import org.gradle.configurationcache.extensions.uncheckedCast
+import org.gradle.configurationcache.extensions.useToRun
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.ConcurrentHashMap
+
+
+/**
+ * The values which preserve their shared identity found while writing streams that are read concurrently, such as the task state segments.
+ *
+ * Each value is encoded on its own, with its own class and string tables, and the encodings are written to the main stream by [writeTo].
+ * The streams only refer to a value by its id in the shared [identities] of the main stream, so the value is decoded once,
+ * by whichever stream needs it first, see [ReadSharedValues].
+ */
+class WriteSharedValues internal constructor(
+    val identities: WriteIdentities,
+    private val contextFor: WriteSharedValues.(Encoder) -> DefaultWriteContext
+) {
+
+    private
+    val encodings = ArrayList<Pair<Int, ByteArray>>()
+
+    /**
+     * Returns the id of the given [reference], encoding it with [encode] in the isolate of the given [context] the first time it is seen.
+     */
+    fun <T : Any> idOf(context: WriteContext, reference: T, encode: suspend WriteContext.(T) -> Unit): Int {
+        identities.getId(reference)?.let {
+            return it
+        }
+        val id = identities.putInstance(reference)
+        val output = ByteArrayOutputStream()
+        contextFor(KryoBackedEncoder(output)).useToRun {
+            trace = context.trace
+            push(context.isolate.owner)
+            runWriteOperation {
+                encode(reference)
+            }
+        }
+        encodings.add(id to output.toByteArray())
+        return id
+    }
+
+    fun writeTo(encoder: Encoder) {
+        encoder.writeSmallInt(encodings.size)
+        for ((id, encoding) in encodings) {
+            encoder.writeSmallInt(id)
+            encoder.writeBinary(encoding)
+        }
+    }
+}
+
+
+/**
+ * The values written by [WriteSharedValues], which are decoded on demand by the streams read concurrently.
+ */
+class ReadSharedValues internal constructor(
+    private val contextFor: ReadSharedValues.(Decoder) -> DefaultReadContext
+) {
+
+    val identities = ReadIdentities(ConcurrentHashMap())
+
+    private
+    val encodings = ConcurrentHashMap<Int, Encoding>()
+
+    fun readFrom(decoder: Decoder) {
+        repeat(decoder.readSmallInt()) {
+            val id = decoder.readSmallInt()
+            encodings[id] = Encoding(decoder.readBinary())
+        }
+    }
+
+    operator fun contains(id: Int) =
+        encodings.containsKey(id)
+
+    /**
+     * Returns the value with the given [id], decoding it with [decode] in the isolate of the given [context] the first time it is requested.
+     * Threads requesting a value while it is being decoded wait for it, so that all of them get the same instance.
+     */
+    fun <T : Any> read(context: ReadContext, id: Int, decode: suspend ReadContext.(Int) -> T): T {
+        val encoding = encodings.getValue(id)
+        synchronized(encoding) {
+            identities.getInstance(id)?.let {
+                return it.uncheckedCast()
+            }
+            val value = contextFor(KryoBackedDecoder(ByteArrayInputStream(encoding.bytes))).useToRun {
+                initClassLoader(context.classLoader)
+                initProjectProvider(context::getProject)
+                trace = context.trace
+                push(context.isolate.owner)
+                runReadOperation {
+                    decode(id)
+                }.also {
+                    finish()
+                }
+            }
+            identities.putInstance(id, value)
+            return value
+        }
+    }
+
+    private
+    class Encoding(val bytes: ByteArray)
+}
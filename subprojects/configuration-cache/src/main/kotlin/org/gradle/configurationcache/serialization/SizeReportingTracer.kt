@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configurationcache.serialization
+
+import org.gradle.api.logging.Logger
+
+
+/**
+ * Breaks down the size of a state file by the frames reported to the [Tracer], that is, by the type of each
+ * written value and by the property, task or section of the state it belongs to.
+ *
+ * The size reported for a frame excludes the size of the frames nested in it, so that the sizes add up to the size of the file.
+ * The breakdown is logged when the tracer is closed.
+ */
+internal
+class SizeReportingTracer(
+    private val profile: String,
+    private val writePosition: () -> Long,
+    private val logger: Logger,
+    private val maxReportedFrames: Int = 20
+) : Tracer, AutoCloseable {
+
+    private
+    val openFrames = ArrayDeque<OpenFrame>()
+
+    private
+    val sizes = HashMap<String, FrameSize>()
+
+    override fun open(frame: String) {
+        openFrames.addLast(OpenFrame(writePosition()))
+    }
+
+    override fun close(frame: String) {
+        val openFrame = openFrames.removeLast()
+        val size = writePosition() - openFrame.start
+        sizes.getOrPut(frame) { FrameSize() }.run {
+            count += 1
+            bytes += size - openFrame.nestedBytes
+        }
+        openFrames.lastOrNull()?.let {
+            it.nestedBytes += size
+        }
+    }
+
+    override fun close() {
+        if (sizes.isEmpty()) {
+            return
+        }
+        val totalBytes = writePosition()
+        val report = StringBuilder("Size of configuration cache state '$profile': $totalBytes bytes")
+        sizes.entries.sortedByDescending { it.value.bytes }.take(maxReportedFrames).forEach { (frame, size) ->
+            report.append("\n  ").append(size.bytes).append(" bytes in ").append(size.count).append(" x ").append(frame)
+        }
+        logger.lifecycle(report.toString())
+    }
+
+    private
+    class OpenFrame(val start: Long) {
+        var nestedBytes = 0L
+    }
+
+    private
+    class FrameSize {
+        var count = 0
+        var bytes = 0L
+    }
+}
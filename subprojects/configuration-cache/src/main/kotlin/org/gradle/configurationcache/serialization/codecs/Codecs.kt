@@ -76,7 +76,6 @@ import org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.BYTE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.CHAR_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.DOUBLE_SERIALIZER
-import org.gradle.internal.serialize.BaseSerializerFactory.FILE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.FLOAT_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.HASHCODE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.INTEGER_SERIALIZER
@@ -256,10 +255,10 @@ class Codecs(
         bind(DefaultResolvableArtifactCodec(calculatedValueContainerFactory))
     }
 
-    fun internalTypesCodec(): Codec<Any?> = internalTypesBindings.append {
+    fun internalTypesCodec(taskStateSegments: TaskStateSegments? = null): Codec<Any?> = internalTypesBindings.append {
         val userTypesCodec = userTypesCodec()
 
-        bind(TaskNodeCodec(userTypesCodec, taskNodeFactory))
+        bind(TaskNodeCodec(userTypesCodec, taskNodeFactory, taskStateSegments))
         bind(DelegatingCodec<TransformStepNode>(userTypesCodec))
         bind(ActionNodeCodec(userTypesCodec))
         bind(OrdinalNodeCodec(ordinalGroupFactory))
@@ -339,7 +338,7 @@ class Codecs(
         bind(BYTE_SERIALIZER)
         bind(FLOAT_SERIALIZER)
         bind(DOUBLE_SERIALIZER)
-        bind(FILE_SERIALIZER)
+        bind(FileCodec)
         bind(PATH_SERIALIZER)
         bind(BIG_INTEGER_SERIALIZER)
         bind(BIG_DECIMAL_SERIALIZER)
@@ -391,6 +390,9 @@ class Codecs(
         bind(BuildIdentifierSerializer())
     }
 
-    fun workNodeCodecFor(gradle: GradleInternal) =
-        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory)
+    fun workNodeCodecFor(gradle: GradleInternal, taskStateSegments: TaskStateSegments? = null) =
+        WorkNodeCodec(gradle, internalTypesCodec(taskStateSegments), ordinalGroupFactory)
+
+    fun taskStateCodec() =
+        TaskNodeCodec(userTypesCodec(), taskNodeFactory)
 }
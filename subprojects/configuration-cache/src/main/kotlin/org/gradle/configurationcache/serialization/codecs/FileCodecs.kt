@@ -22,8 +22,18 @@ import org.gradle.api.internal.file.FileFactory
 import org.gradle.configurationcache.serialization.Codec
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
-import org.gradle.configurationcache.serialization.readFile
-import org.gradle.configurationcache.serialization.writeFile
+import java.io.File
+
+
+object FileCodec : Codec<File> {
+    override suspend fun WriteContext.encode(value: File) {
+        writeFile(value)
+    }
+
+    override suspend fun ReadContext.decode(): File {
+        return readFile()
+    }
+}
 
 
 class DirectoryCodec(private val fileFactory: FileFactory) : Codec<Directory> {
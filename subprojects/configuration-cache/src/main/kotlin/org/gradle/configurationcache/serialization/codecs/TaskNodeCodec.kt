@@ -61,12 +61,17 @@ import org.gradle.internal.properties.InputFilePropertyType
 import org.gradle.internal.properties.OutputFilePropertyType
 import org.gradle.internal.properties.PropertyValue
 import org.gradle.internal.properties.PropertyVisitor
+import org.gradle.internal.resources.ResourceCost
 import org.gradle.util.internal.DeferredUtil
 
 
 class TaskNodeCodec(
     private val userTypesCodec: Codec<Any?>,
-    private val taskNodeFactory: TaskNodeFactory
+    private val taskNodeFactory: TaskNodeFactory,
+    /**
+     * When present, the state of each task is left to [TaskStateSegments] and only the task identity is encoded with the node.
+     */
+    private val taskStateSegments: TaskStateSegments? = null
 ) : Codec<LocalTaskNode> {
 
     override suspend fun WriteContext.encode(value: LocalTaskNode) {
@@ -93,25 +98,39 @@ class TaskNodeCodec(
             writeLong(task.taskIdentity.uniqueId)
             writeNullableString(task.reasonTaskIsIncompatibleWithConfigurationCache.orElse(null))
 
-            withDebugFrame({ taskType.name }) {
-                withTaskOf(taskType, task, userTypesCodec) {
-                    writeUpToDateSpec(task)
-                    writeCollection(task.outputs.cacheIfSpecs)
-                    writeCollection(task.outputs.doNotCacheIfSpecs)
-                    writeReasonNotToTrackState(task)
-                    beanStateWriterFor(task.javaClass).run {
-                        writeStateOf(task)
-                        withTaskReferencesAllowed {
-                            writeRegisteredPropertiesOf(
-                                task,
-                                this as BeanPropertyWriter
-                            )
-                        }
+            if (taskStateSegments != null) {
+                taskStateSegments.add(task)
+            } else {
+                writeTaskState(task)
+            }
+        }
+    }
+
+    /**
+     * Writes the state of the given [task], which is read back by [readTaskState] once the task has been created.
+     */
+    internal
+    suspend fun WriteContext.writeTaskState(task: TaskInternal) {
+        val taskType = GeneratedSubclasses.unpackType(task)
+        withDebugFrame({ taskType.name }) {
+            withTaskOf(taskType, task, userTypesCodec) {
+                writeUpToDateSpec(task)
+                writeCollection(task.outputs.cacheIfSpecs)
+                writeCollection(task.outputs.doNotCacheIfSpecs)
+                writeReasonNotToTrackState(task)
+                beanStateWriterFor(task.javaClass).run {
+                    writeStateOf(task)
+                    withTaskReferencesAllowed {
+                        writeRegisteredPropertiesOf(
+                            task,
+                            this as BeanPropertyWriter
+                        )
                     }
-                    writeDestroyablesOf(task)
-                    writeLocalStateOf(task)
-                    writeRequiredServices(task)
                 }
+                writeDestroyablesOf(task)
+                writeLocalStateOf(task)
+                writeRequiredServices(task)
+                writeResourceCost(task)
             }
         }
     }
@@ -126,6 +145,21 @@ class TaskNodeCodec(
 
         val task = createTask(projectPath, taskName, taskType, uniqueId, incompatibleReason)
 
+        if (taskStateSegments != null) {
+            taskStateSegments.add(task)
+        } else {
+            readTaskState(task)
+        }
+
+        return task
+    }
+
+    /**
+     * Reads the state written by [writeTaskState] into the given [task].
+     */
+    internal
+    suspend fun ReadContext.readTaskState(task: TaskInternal) {
+        val taskType = GeneratedSubclasses.unpackType(task)
         withTaskOf(taskType, task, userTypesCodec) {
             readUpToDateSpec(task)
             readCollectionInto { task.outputs.cacheIfSpecs.uncheckedCast() }
@@ -138,9 +172,8 @@ class TaskNodeCodec(
             readDestroyablesOf(task)
             readLocalStateOf(task)
             readRequiredServices(task)
+            readResourceCost(task)
         }
-
-        return task
     }
 
     private
@@ -186,6 +219,26 @@ class TaskNodeCodec(
         }
     }
 
+    private
+    fun WriteContext.writeResourceCost(task: TaskInternal) {
+        val resourceCost = task.resourceCost
+        if (resourceCost.isNone) {
+            writeBoolean(false)
+        } else {
+            writeBoolean(true)
+            writeSmallInt(resourceCost.cpu)
+            writeLong(resourceCost.memoryMegabytes)
+            writeSmallInt(resourceCost.io)
+        }
+    }
+
+    private
+    fun ReadContext.readResourceCost(task: TaskInternal) {
+        if (readBoolean()) {
+            task.resourceCost = ResourceCost.of(readSmallInt(), readLong(), readSmallInt())
+        }
+    }
+
     private
     suspend fun WriteContext.writeDestroyablesOf(task: TaskInternal) {
         val destroyables = (task.destroyables as TaskDestroyablesInternal).registeredFiles
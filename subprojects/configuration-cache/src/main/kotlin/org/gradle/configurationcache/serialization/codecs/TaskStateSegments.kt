@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import org.gradle.api.Project
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.project.ProjectInternal
+
+
+/**
+ * Groups the tasks of the work graph by project, so that the state of the tasks of each project
+ * can be encoded into a separate segment, independently of the work graph and of the other segments.
+ *
+ * Tasks are added in the order they are encoded in, or decoded from, the work graph,
+ * so both sides agree on the segments and on the order of the tasks in each segment.
+ */
+class TaskStateSegments {
+
+    private
+    val tasksByProject = LinkedHashMap<Project, MutableList<TaskInternal>>()
+
+    fun add(task: TaskInternal) {
+        tasksByProject.getOrPut(task.project) { ArrayList() }.add(task)
+    }
+
+    val size: Int
+        get() = tasksByProject.size
+
+    /**
+     * The identity path of the project of each segment.
+     */
+    val projectPaths: List<String>
+        get() = tasksByProject.keys.map { (it as ProjectInternal).identityPath.path }
+
+    /**
+     * The tasks of each segment.
+     */
+    val tasks: List<List<TaskInternal>>
+        get() = tasksByProject.values.toList()
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import java.io.InputStream
+
+
+class RetainedConfigurationCacheStatesTest {
+
+    @JvmField
+    @Rule
+    val testDirectoryProvider = TestNameTestDirectoryProvider(javaClass)
+
+    private
+    val states = RetainedConfigurationCacheStates()
+
+    private
+    var reads = 0
+
+    @Test
+    fun `reuses the contents of an unchanged file`() {
+        val file = stateFile("entry/work.bin", "work")
+
+        assertThat(read(file), equalTo("work"))
+        assertThat(read(file), equalTo("work"))
+        assertThat(reads, equalTo(1))
+    }
+
+    @Test
+    fun `reads a file again when it changes`() {
+        val file = stateFile("entry/work.bin", "work")
+        assertThat(read(file), equalTo("work"))
+
+        file.writeText("changed work")
+        assertThat(read(file), equalTo("changed work"))
+        assertThat(reads, equalTo(2))
+    }
+
+    @Test
+    fun `reads a file again when it is invalidated`() {
+        val file = stateFile("entry/work.bin", "work")
+        assertThat(read(file), equalTo("work"))
+
+        states.invalidate(file)
+        assertThat(read(file), equalTo("work"))
+        assertThat(reads, equalTo(2))
+
+        states.invalidateAll()
+        assertThat(read(file), equalTo("work"))
+        assertThat(reads, equalTo(3))
+    }
+
+    @Test
+    fun `only retains the files of the last entry`() {
+        val work = stateFile("entry/work.bin", "work")
+        val segment = stateFile("entry/work.bin.segment-0", "segment")
+        val otherWork = stateFile("other-entry/work.bin", "other work")
+
+        read(work)
+        read(segment)
+        read(otherWork)
+        assertThat(reads, equalTo(3))
+
+        read(otherWork)
+        assertThat(reads, equalTo(3))
+
+        read(work)
+        read(segment)
+        assertThat(reads, equalTo(5))
+    }
+
+    private
+    fun stateFile(path: String, content: String): TestFile =
+        testDirectoryProvider.file(path).apply {
+            parentFile.mkdirs()
+            writeText(content)
+        }
+
+    private
+    fun read(file: TestFile): String =
+        states.inputStream(file) { countingInputStream(file) }.use {
+            it.readBytes().toString(Charsets.UTF_8)
+        }
+
+    private
+    fun countingInputStream(file: TestFile): InputStream {
+        reads += 1
+        return file.inputStream()
+    }
+}
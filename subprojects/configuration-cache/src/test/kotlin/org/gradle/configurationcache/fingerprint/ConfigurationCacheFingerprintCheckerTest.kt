@@ -19,6 +19,8 @@ package org.gradle.configurationcache.fingerprint
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
 import org.gradle.api.Describable
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.logging.Logger
@@ -53,6 +55,8 @@ import org.junit.Test
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 
 class ConfigurationCacheFingerprintCheckerTest {
@@ -201,6 +205,57 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `first changed file is reported when files are checked concurrently`() {
+        val files = (1..20).map { File("file$it.txt") }
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            assertThat(
+                checkFingerprintGiven(
+                    mock {
+                        on { hashCodeOf(any()) } doReturn TestHashCodes.hashCodeFrom(2)
+                        on { displayNameOf(any()) }.then { invocation ->
+                            invocation.getArgument<File>(0).name
+                        }
+                    },
+                    files.map { ConfigurationCacheFingerprint.InputFile(it, TestHashCodes.hashCodeFrom(if (it.name == "file1.txt") 2 else 1)) }
+                        + ConfigurationCacheFingerprint.UndeclaredSystemProperty("org.gradle.test.undefined", "value"),
+                    executor
+                ),
+                equalTo("file 'file2.txt' has changed")
+            )
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `value source is not obtained when an earlier file checked concurrently has changed`() {
+        val file = File("file.txt")
+        val obtainedValue = obtainedValueMock()
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { hashCodeOf(file) } doReturn TestHashCodes.hashCodeFrom(2)
+            on { displayNameOf(file) } doReturn "file.txt"
+        }
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            assertThat(
+                checkFingerprintGiven(
+                    host,
+                    listOf(
+                        ConfigurationCacheFingerprint.InputFile(file, TestHashCodes.hashCodeFrom(1)),
+                        ConfigurationCacheFingerprint.ValueSource(obtainedValue)
+                    ),
+                    executor
+                ),
+                equalTo("file 'file.txt' has changed")
+            )
+            verify(host, never()).instantiateValueSourceOf(any())
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
     private
     fun invalidationReasonForInitScriptsChange(
         from: Iterable<Pair<File, HashCode>>,
@@ -226,15 +281,23 @@ class ConfigurationCacheFingerprintCheckerTest {
     fun checkFingerprintGiven(
         host: ConfigurationCacheFingerprintChecker.Host,
         fingerprint: ConfigurationCacheFingerprint
+    ): InvalidationReason? =
+        checkFingerprintGiven(host, listOf(fingerprint))
+
+    private
+    fun checkFingerprintGiven(
+        host: ConfigurationCacheFingerprintChecker.Host,
+        fingerprints: List<ConfigurationCacheFingerprint>,
+        executor: ExecutorService? = null
     ): InvalidationReason? {
 
         val readContext = recordWritingOf {
-            write(fingerprint)
+            fingerprints.forEach { write(it) }
             write(null)
         }
 
         val checkedFingerprint = readContext.runReadOperation {
-            ConfigurationCacheFingerprintChecker(host).run {
+            ConfigurationCacheFingerprintChecker(host, executor).run {
                 checkBuildScopedFingerprint()
             }
         }
@@ -297,6 +360,9 @@ class ConfigurationCacheFingerprintCheckerTest {
         override fun writeClass(type: Class<*>): Unit =
             undefined()
 
+        override fun writeFile(file: File): Unit =
+            undefined()
+
         override val logger: Logger
             get() = undefined()
 
@@ -406,6 +472,9 @@ class ConfigurationCacheFingerprintCheckerTest {
         override fun readClass(): Class<*> =
             undefined()
 
+        override fun readFile(): File =
+            undefined()
+
         override val logger: Logger
             get() = undefined()
 
@@ -17,8 +17,10 @@
 package org.gradle.configurationcache.serialization.codecs
 
 import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
+import java.io.File
 import java.util.Hashtable
 import java.util.Properties
 
@@ -45,4 +47,29 @@ class BaseTypeCodecTest : AbstractUserTypeCodecTest() {
             assertThat(hashtable, equalTo(this))
         }
     }
+
+    @Test
+    fun `can handle Files sharing parent directories`() {
+        val files = listOf(
+            File("/root/project/build/classes"),
+            File("/root/project/build/classes/Main.class"),
+            File("/root/project/build"),
+            File("/root/other/build"),
+            File("relative/path"),
+            File("relative"),
+            File("/")
+        )
+        configurationCacheRoundtripOf(ArrayList(files)).run {
+            assertThat(files, equalTo(this))
+        }
+    }
+
+    @Test
+    fun `equal strings are read as the same instance`() {
+        val strings = arrayListOf("value", StringBuilder("val").append("ue").toString())
+        configurationCacheRoundtripOf(strings).run {
+            assertThat(strings, equalTo(this))
+            assertThat(this[0], sameInstance(this[1]))
+        }
+    }
 }
@@ -16,6 +16,8 @@
 
 package org.gradle.caching.configuration;
 
+import org.gradle.api.Incubating;
+
 /**
  * Base implementation for build cache service configuration.
  *
@@ -24,6 +26,7 @@
 public abstract class AbstractBuildCache implements BuildCache {
     private boolean enabled = true;
     private boolean push;
+    private BuildCacheCompression compression = BuildCacheCompression.GZIP;
 
     /**
      * {@inheritDoc}
@@ -56,4 +59,30 @@ public boolean isPush() {
     public void setPush(boolean push) {
         this.push = push;
     }
+
+    /**
+     * Returns the compression used for entries stored in this build cache.
+     *
+     * @since 8.4
+     */
+    @Incubating
+    public BuildCacheCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets the compression used for entries stored in this build cache.
+     *
+     * <p>Entries are packed once and stored in both the local and the remote build cache,
+     * so when a remote build cache is used its compression takes precedence, even if it is not pushed to.</p>
+     *
+     * <p>Entries compressed with anything but gzip are stored under different cache keys.
+     * Switching to another compression therefore starts with an empty cache, and entries stored with the previous compression are not reused.</p>
+     *
+     * @since 8.4
+     */
+    @Incubating
+    public void setCompression(BuildCacheCompression compression) {
+        this.compression = compression;
+    }
 }
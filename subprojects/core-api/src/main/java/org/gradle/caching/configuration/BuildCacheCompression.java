@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.configuration;
+
+import org.gradle.api.Incubating;
+
+/**
+ * The compression used for entries stored in a build cache.
+ *
+ * <p>Entries compressed with anything but gzip are stored under different cache keys,
+ * as Gradle versions before 8.4 can't read them.
+ * Switching to another compression therefore starts with an empty cache, and entries stored with the previous compression are not reused.</p>
+ *
+ * @since 8.4
+ */
+@Incubating
+public enum BuildCacheCompression {
+    /**
+     * Compresses entries with gzip. This is the default, and the only compression understood by Gradle versions before 8.4.
+     */
+    GZIP,
+
+    /**
+     * Compresses entries with LZ4. Entries are larger than with gzip, but are much cheaper to store and to load.
+     */
+    LZ4
+}
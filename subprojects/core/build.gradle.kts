@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.api-java")
+    id("gradlebuild.jmh")
 }
 
 description = "Public and internal 'core' Gradle APIs with implementation"
@@ -81,6 +82,8 @@ dependencies {
         because("it needs to forward calls from instrumented code to the Kotlin standard library")
     }
 
+    jmhImplementation(platform(project(":distributions-dependencies")))
+
     testImplementation(project(":platform-jvm"))
     testImplementation(project(":testing-base"))
     testImplementation(project(":platform-native"))
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.Stat;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Measures checking the outputs of all nodes in a plan with 10000 nodes for conflicts with the running nodes.
+ *
+ * The outputs are nested below a few shared ancestors, as for tasks in a multi-project build.
+ * The conflicts are either looked up in the hierarchy of all nodes, filtering for the running ones,
+ * or in the hierarchy which only contains the running nodes.
+ *
+ * With nested outputs, every other node has its output below the output of the previous node,
+ * so that the conflicts are found by looking up both the ancestors and the descendants of a location.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MutationConflictDetectionBenchmark {
+    private static final int NODE_COUNT = 10000;
+    private static final int NODES_PER_PROJECT = 20;
+
+    private static final Stat STAT = new Stat() {
+        @Override
+        public int getUnixMode(File f) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileMetadata stat(File f) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Param({"8", "64"})
+    int runningCount;
+
+    @Param({"false", "true"})
+    boolean nestedOutputs;
+
+    private final List<String> outputPaths = new ArrayList<>();
+    private final Set<Node> runningNodes = new HashSet<>();
+    private ExecutionNodeAccessHierarchy allNodesHierarchy;
+    private ExecutionNodeAccessHierarchy runningNodesHierarchy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        allNodesHierarchy = new ExecutionNodeAccessHierarchy(CaseSensitivity.CASE_SENSITIVE, STAT);
+        runningNodesHierarchy = allNodesHierarchy.createEmptyHierarchy();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            String outputPath = nestedOutputs && i % 2 == 1
+                ? outputPaths.get(i - 1) + "/nested"
+                : "/root/project" + (i / NODES_PER_PROJECT) + "/build/task" + (i % NODES_PER_PROJECT);
+            Node node = new BenchmarkNode(outputPath);
+            nodes.add(node);
+            outputPaths.add(outputPath);
+            allNodesHierarchy.recordNodeAccessingLocations(node, Collections.singleton(outputPath));
+        }
+        for (int i = 0; i < runningCount; i++) {
+            Node node = nodes.get(i * (NODE_COUNT / runningCount));
+            runningNodes.add(node);
+            runningNodesHierarchy.recordNodeAccessingLocations(node, Collections.singleton(node.toString()));
+        }
+    }
+
+    @Benchmark
+    public int filterAllNodes() {
+        return countConflicts(allNodesHierarchy, (current, candidate) -> current || runningNodes.contains(candidate));
+    }
+
+    @Benchmark
+    public int lookupRunningNodes() {
+        return countConflicts(runningNodesHierarchy, (current, candidate) -> true);
+    }
+
+    private int countConflicts(ExecutionNodeAccessHierarchy hierarchy, BiFunction<Boolean, Node, Boolean> conflicts) {
+        int count = 0;
+        for (String outputPath : outputPaths) {
+            if (hierarchy.visitNodesAccessing(outputPath, false, conflicts)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static class BenchmarkNode extends CreationOrderedNode {
+        private final String outputPath;
+
+        public BenchmarkNode(String outputPath) {
+            this.outputPath = outputPath;
+        }
+
+        @Override
+        public Throwable getNodeFailure() {
+            return null;
+        }
+
+        @Override
+        public void resolveDependencies(TaskDependencyResolver dependencyResolver) {
+        }
+
+        @Override
+        public String toString() {
+            return outputPath;
+        }
+    }
+}
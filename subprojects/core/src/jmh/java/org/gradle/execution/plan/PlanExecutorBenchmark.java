@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.internal.build.ExecutionResult;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the plan executor takes to run 50000 nodes which do nothing, so that the time is spent coordinating the workers.
+ *
+ * The nodes form a binary tree, where finishing a node makes its two children ready to start,
+ * so there are frequent state changes which make work available to some, but not all, of the waiting workers.
+ * The waiting workers are either all woken up on each state change, or one at a time.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlanExecutorBenchmark {
+    private static final int NODE_COUNT = 50000;
+
+    @Param({"16", "64"})
+    int workerCount;
+
+    @Param({"false", "true"})
+    boolean targetedWakeups;
+
+    private DefaultExecutorFactory executorFactory;
+    private DefaultWorkerLeaseService workerLeaseService;
+    private DefaultPlanExecutor planExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DefaultParallelismConfiguration parallelismConfiguration = new DefaultParallelismConfiguration(true, workerCount);
+        DefaultResourceLockCoordinationService coordinationService = new DefaultResourceLockCoordinationService(targetedWakeups);
+        executorFactory = new DefaultExecutorFactory();
+        workerLeaseService = new DefaultWorkerLeaseService(coordinationService, parallelismConfiguration);
+        planExecutor = new DefaultPlanExecutor(
+            parallelismConfiguration,
+            executorFactory,
+            workerLeaseService,
+            new DefaultBuildCancellationToken(),
+            coordinationService,
+            new DefaultInternalOptions(Collections.emptyMap())
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        planExecutor.stop();
+        executorFactory.stop();
+    }
+
+    @Benchmark
+    public ExecutionResult<Void> runTrivialNodes() {
+        TreeWorkSource workSource = new TreeWorkSource(NODE_COUNT);
+        return workerLeaseService.runAsWorkerThread(() -> planExecutor.process(workSource, node -> {
+        }));
+    }
+
+    /**
+     * Work source where the nodes form a binary tree. Only used while holding the state lock.
+     */
+    private static class TreeWorkSource implements WorkSource<Integer> {
+        private final int nodeCount;
+        private final Deque<Integer> readyToStart = new ArrayDeque<>();
+        private int started;
+        private int finished;
+
+        public TreeWorkSource(int nodeCount) {
+            this.nodeCount = nodeCount;
+            readyToStart.add(0);
+        }
+
+        @Override
+        public State executionState() {
+            if (started == nodeCount) {
+                return State.NoMoreWorkToStart;
+            }
+            return readyToStart.isEmpty() ? State.NoWorkReadyToStart : State.MaybeWorkReadyToStart;
+        }
+
+        @Override
+        public Selection<Integer> selectNext() {
+            Integer node = readyToStart.poll();
+            if (node != null) {
+                started++;
+                return Selection.of(node);
+            }
+            return started == nodeCount ? Selection.noMoreWorkToStart() : Selection.noWorkReadyToStart();
+        }
+
+        @Override
+        public void finishedExecuting(Integer node, @Nullable Throwable failure) {
+            finished++;
+            for (int child = 2 * node + 1; child <= 2 * node + 2 && child < nodeCount; child++) {
+                readyToStart.add(child);
+            }
+        }
+
+        @Override
+        public void abortAllAndFail(Throwable t) {
+        }
+
+        @Override
+        public void cancelExecution() {
+        }
+
+        @Override
+        public boolean allExecutionComplete() {
+            return finished == nodeCount;
+        }
+
+        @Override
+        public void collectFailures(Collection<? super Throwable> failures) {
+        }
+
+        @Override
+        public Diagnostics healthDiagnostics() {
+            return new Diagnostics("tree of " + nodeCount + " nodes", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading and storing the execution history of 20000 units of work
+ * in the B-tree backed indexed cache and in the memory-mapped execution history log.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutionHistoryStoreBenchmark {
+    private static final int ENTRY_COUNT = 20000;
+
+    @Param({"512", "4096"})
+    int entrySize;
+
+    private final String[] keys = new String[ENTRY_COUNT];
+    private byte[][] values;
+    private File tmpDir;
+    private BTreePersistentIndexedCache<String, byte[]> btree;
+    private ExecutionHistoryLog log;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = Files.createTempDirectory("execution-history").toFile();
+        Random random = new Random(1234);
+        values = new byte[ENTRY_COUNT][];
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            keys[i] = ":project" + (i / 20) + ":task" + (i % 20);
+            values[i] = new byte[entrySize];
+            random.nextBytes(values[i]);
+        }
+        btree = new BTreePersistentIndexedCache<>(new File(tmpDir, "executionHistory.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        log = new ExecutionHistoryLog(tmpDir, "executionHistory");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            btree.put(keys[i], values[i]);
+            log.put(keys[i], values[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        btree.close();
+        log.close();
+        for (File file : tmpDir.listFiles()) {
+            file.delete();
+        }
+        tmpDir.delete();
+    }
+
+    @Benchmark
+    public void loadFromBTree(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(btree.get(key));
+        }
+    }
+
+    @Benchmark
+    public void loadFromLog(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(log.get(key));
+        }
+    }
+
+    @Benchmark
+    public void storeInBTree() {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            btree.put(keys[i], values[i]);
+        }
+    }
+
+    @Benchmark
+    public void storeInLog() {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            log.put(keys[i], values[i]);
+        }
+        if (log.isCompactionRequired()) {
+            log.compact();
+        }
+    }
+
+    @Benchmark
+    public int openLog() {
+        // Measures building the index of a log written by an earlier build
+        try (ExecutionHistoryLog reopened = new ExecutionHistoryLog(tmpDir, "executionHistory")) {
+            return reopened.get(keys[0]).length;
+        }
+    }
+}
@@ -78,6 +78,8 @@
 import org.gradle.internal.logging.slf4j.DefaultContextAwareTaskLogger;
 import org.gradle.internal.metaobject.DynamicObject;
 import org.gradle.internal.properties.bean.PropertyWalker;
+import org.gradle.internal.resources.ResourceBudgetLeaseRegistry;
+import org.gradle.internal.resources.ResourceCost;
 import org.gradle.internal.resources.ResourceLock;
 import org.gradle.internal.scripts.ScriptOriginUtil;
 import org.gradle.internal.service.ServiceRegistry;
@@ -164,6 +166,8 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
     private final TaskExecutionAccessChecker taskExecutionAccessChecker;
     private LoggingManagerInternal loggingManager;
 
+    private ResourceCost resourceCost = ResourceCost.NONE;
+
     protected AbstractTask() {
         this(taskInfo());
     }
@@ -1066,7 +1070,25 @@ public void acceptServiceReferences(Set<ServiceReferenceSpec> serviceReferences)
 
     @Override
     public List<ResourceLock> getSharedResources() {
-        return getBuildServiceRegistry().getSharedResources(taskRequiredServices.getElements());
+        List<ResourceLock> sharedResources = getBuildServiceRegistry().getSharedResources(taskRequiredServices.getElements());
+        ResourceBudgetLeaseRegistry resourceBudgetLeaseRegistry = getServices().get(ResourceBudgetLeaseRegistry.class);
+        if (!resourceBudgetLeaseRegistry.isLimited(resourceCost)) {
+            return sharedResources;
+        }
+        List<ResourceLock> resources = new ArrayList<>(sharedResources.size() + 1);
+        resources.addAll(sharedResources);
+        resources.add(resourceBudgetLeaseRegistry.getResourceLock(getIdentityPath().toString(), resourceCost));
+        return resources;
+    }
+
+    @Override
+    public ResourceCost getResourceCost() {
+        return resourceCost;
+    }
+
+    @Override
+    public void setResourceCost(ResourceCost resourceCost) {
+        taskMutator.mutate("Task.setResourceCost(ResourceCost)", () -> this.resourceCost = resourceCost);
     }
 
     private void notifyConventionAccess(String invocationDescription) {
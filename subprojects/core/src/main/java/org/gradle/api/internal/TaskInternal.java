@@ -28,6 +28,7 @@
 import org.gradle.api.tasks.TaskDependency;
 import org.gradle.internal.Factory;
 import org.gradle.internal.logging.StandardOutputCapture;
+import org.gradle.internal.resources.ResourceCost;
 import org.gradle.internal.resources.ResourceLock;
 import org.gradle.util.Configurable;
 import org.gradle.util.Path;
@@ -119,6 +120,14 @@ public interface TaskInternal extends Task, Configurable<Task> {
     @Internal
     List<? extends ResourceLock> getSharedResources();
 
+    /**
+     * <p>Gets the estimated resources used while this task runs. The task only starts while its cost fits the resource budget of the build.</p>
+     */
+    @Internal
+    ResourceCost getResourceCost();
+
+    void setResourceCost(ResourceCost resourceCost);
+
     /**
      * "Lifecycle dependencies" are dependencies of this task declared via an explicit {@link Task#dependsOn(Object...)} call,
      * as opposed to the recommended approach of connecting producer tasks' outputs to consumer tasks' inputs.
@@ -22,6 +22,7 @@
 import org.gradle.cache.IndexedCacheParameters;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
+import org.gradle.internal.hash.Hashing;
 
 import java.io.Closeable;
 
@@ -34,7 +35,7 @@ public class CrossBuildFileHashCache implements Closeable {
 
     public CrossBuildFileHashCache(ScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, Kind cacheKind) {
         this.inMemoryCacheDecoratorFactory = inMemoryCacheDecoratorFactory;
-        cache = cacheBuilderFactory.createCacheBuilder(cacheKind.cacheId)
+        cache = cacheBuilderFactory.createCacheBuilder(Hashing.schemeQualifiedName(cacheKind.cacheId))
             .withDisplayName(cacheKind.description)
             .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
             .open();
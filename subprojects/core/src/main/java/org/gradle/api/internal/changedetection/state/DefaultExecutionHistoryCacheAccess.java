@@ -19,6 +19,7 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
 import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
+import org.gradle.internal.hash.Hashing;
 
 import java.io.Closeable;
 
@@ -29,7 +30,7 @@ public class DefaultExecutionHistoryCacheAccess implements ExecutionHistoryCache
 
     public DefaultExecutionHistoryCacheAccess(ScopedCacheBuilderFactory cacheBuilderFactory) {
         this.cache = cacheBuilderFactory
-            .createCacheBuilder("executionHistory")
+            .createCacheBuilder(Hashing.schemeQualifiedName("executionHistory"))
             .withDisplayName("execution history cache")
             .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
             .open();
@@ -20,6 +20,7 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.execution.caching.CachingState;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +45,11 @@ public interface TaskExecuterResult {
      */
     CachingState getCachingState();
 
+    /**
+     * How long it took to check whether the task is up-to-date, if it was checked.
+     */
+    Optional<Duration> getUpToDateCheckDuration();
+
     TaskExecuterResult WITHOUT_OUTPUTS = new TaskExecuterResult() {
         @Override
         public List<String> getExecutionReasons() {
@@ -64,5 +70,10 @@ public Optional<OriginMetadata> getReusedOutputOriginMetadata() {
         public CachingState getCachingState() {
             return CachingState.NOT_DETERMINED;
         }
+
+        @Override
+        public Optional<Duration> getUpToDateCheckDuration() {
+            return Optional.empty();
+        }
     };
 }
@@ -84,7 +84,8 @@ private TaskExecuterResult executeTask(BuildOperationContext operationContext) {
                     result.getCachingState(),
                     result.getReusedOutputOriginMetadata().orElse(null),
                     result.executedIncrementally(),
-                    result.getExecutionReasons()
+                    result.getExecutionReasons(),
+                    result.getUpToDateCheckDuration().orElse(null)
                 ));
 
                 try {
@@ -39,6 +39,7 @@
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.work.AsyncWorkTracker;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -169,6 +170,11 @@ public List<String> getExecutionReasons() {
             public CachingState getCachingState() {
                 return result.getCachingState();
             }
+
+            @Override
+            public Optional<Duration> getUpToDateCheckDuration() {
+                return result.getUpToDateCheckDuration();
+            }
         };
     }
 
@@ -23,6 +23,7 @@
 import org.gradle.operations.execution.CachingDisabledReasonCategory;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,13 +34,15 @@ public class ExecuteTaskBuildOperationResult implements ExecuteTaskBuildOperatio
     private final OriginMetadata originMetadata;
     private final boolean incremental;
     private final List<String> executionReasons;
+    private final Duration upToDateCheckDuration;
 
-    public ExecuteTaskBuildOperationResult(TaskStateInternal taskState, CachingState cachingState, @Nullable OriginMetadata originMetadata, boolean incremental, List<String> executionReasons) {
+    public ExecuteTaskBuildOperationResult(TaskStateInternal taskState, CachingState cachingState, @Nullable OriginMetadata originMetadata, boolean incremental, List<String> executionReasons, @Nullable Duration upToDateCheckDuration) {
         this.taskState = taskState;
         this.cachingState = cachingState;
         this.originMetadata = originMetadata;
         this.incremental = incremental;
         this.executionReasons = executionReasons;
+        this.upToDateCheckDuration = upToDateCheckDuration;
     }
 
     @Nullable
@@ -131,4 +134,10 @@ public boolean isIncremental() {
         return incremental;
     }
 
+    @Nullable
+    @Override
+    public Long getUpToDateCheckDurationMillis() {
+        return upToDateCheckDuration == null ? null : upToDateCheckDuration.toMillis();
+    }
+
 }
@@ -416,6 +416,13 @@ public Optional<CachingDisabledReason> shouldDisableCaching(@Nullable Overlappin
         );
     }
 
+    @Override
+    public boolean isPotentiallyCacheable() {
+        return !task.getOutputs().getCacheIfSpecs().isEmpty()
+            && context.getTaskProperties().hasDeclaredOutputs()
+            && !task.getReasonNotToTrackState().isPresent();
+    }
+
     @Override
     public boolean isAllowedToLoadFromCache() {
         return context.getTaskExecutionMode().isAllowedToUseCachedResults();
@@ -32,7 +32,6 @@
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
-import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -138,8 +137,7 @@ BuildCacheEntryPacker createResultPacker(
                 StringInterner stringInterner,
                 BufferProvider bufferProvider
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider));
+                return new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider);
             }
 
             OriginMetadataFactory createOriginMetadataFactory(
@@ -218,7 +216,8 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                         fileSystemAccess,
                         stringInterner,
                         temporaryFileProvider,
-                        packer
+                        packer,
+                        executorFactory
                     );
                 }
             }
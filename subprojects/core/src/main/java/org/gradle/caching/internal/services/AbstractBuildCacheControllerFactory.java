@@ -23,13 +23,16 @@
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
+import org.gradle.caching.configuration.AbstractBuildCache;
 import org.gradle.caching.configuration.BuildCache;
+import org.gradle.caching.configuration.BuildCacheCompression;
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
 import org.gradle.caching.internal.FinalizeBuildCacheConfigurationBuildOperationType;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.NoOpBuildCacheController;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceRole;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.internal.Cast;
 import org.gradle.internal.instantiation.InstanceGenerator;
@@ -140,6 +143,40 @@ public BuildOperationDescriptor.Builder description() {
         });
     }
 
+    /**
+     * Returns the compression to store entries with, which also determines the cache key salt.
+     *
+     * Compressions other than gzip use separate cache keys, so the compression has to match the entries being looked up.
+     * When a remote cache is used, its compression takes precedence even if it is not pushed to,
+     * so that the entries stored by other builds are found.
+     */
+    protected static BuildCacheEntryCompression compressionFor(
+        @Nullable DescribedBuildCacheService<DirectoryBuildCache, ?> localDescribedService,
+        @Nullable DescribedBuildCacheService<BuildCache, BuildCacheService> remoteDescribedService
+    ) {
+        if (remoteDescribedService != null) {
+            return compressionFor(remoteDescribedService.config);
+        }
+        if (localDescribedService != null) {
+            return compressionFor(localDescribedService.config);
+        }
+        return BuildCacheEntryCompression.GZIP;
+    }
+
+    private static BuildCacheEntryCompression compressionFor(BuildCache configuration) {
+        BuildCacheCompression compression = configuration instanceof AbstractBuildCache
+            ? ((AbstractBuildCache) configuration).getCompression()
+            : BuildCacheCompression.GZIP;
+        switch (compression) {
+            case GZIP:
+                return BuildCacheEntryCompression.GZIP;
+            case LZ4:
+                return BuildCacheEntryCompression.LZ4;
+            default:
+                throw new IllegalArgumentException("Unknown build cache compression: " + compression);
+        }
+    }
+
     private static <C extends BuildCache, S> DescribedBuildCacheService<C, S> createBuildCacheService(
         C configuration,
         BuildCacheServiceRole role,
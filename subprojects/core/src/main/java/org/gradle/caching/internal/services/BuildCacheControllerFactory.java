@@ -23,6 +23,18 @@
 
 public interface BuildCacheControllerFactory {
     String REMOTE_CONTINUE_ON_ERROR_PROPERTY = "org.gradle.unsafe.build-cache.remote-continue-on-error";
+    /**
+     * The number of remote cache entries to prefetch concurrently; prefetching is disabled when not set.
+     */
+    String PREFETCH_MAX_CONCURRENT_PROPERTY = "org.gradle.unsafe.build-cache.prefetch.max-concurrent";
+    /**
+     * The number of bytes after which no more entries are prefetched during a build.
+     */
+    String PREFETCH_MAX_SIZE_PROPERTY = "org.gradle.unsafe.build-cache.prefetch.max-size";
+    /**
+     * The number of entries that can wait to be uploaded to the remote cache in the background; entries are uploaded synchronously when not set.
+     */
+    String ASYNC_STORE_MAX_PENDING_PROPERTY = "org.gradle.unsafe.build-cache.async-store.max-pending";
 
     BuildCacheController createController(Path buildIdentityPath, BuildCacheConfigurationInternal buildCacheConfiguration, InstanceGenerator instanceGenerator);
 }
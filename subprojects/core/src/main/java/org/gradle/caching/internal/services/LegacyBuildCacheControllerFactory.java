@@ -26,9 +26,13 @@
 import org.gradle.caching.internal.controller.DefaultBuildCacheController;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.vfs.FileSystemAccess;
 
@@ -36,8 +40,12 @@
 
 public class LegacyBuildCacheControllerFactory extends AbstractBuildCacheControllerFactory<DirectoryBuildCacheService> {
 
+    private static final long DEFAULT_PREFETCH_MAX_SIZE = 512L * 1024 * 1024;
+    private static final int ASYNC_STORE_THREADS = 4;
+
     private final TemporaryFileProvider temporaryFileProvider;
     private final BuildCacheEntryPacker packer;
+    private final ExecutorFactory executorFactory;
 
     public LegacyBuildCacheControllerFactory(
         StartParameter startParameter,
@@ -46,7 +54,8 @@ public LegacyBuildCacheControllerFactory(
         FileSystemAccess fileSystemAccess,
         StringInterner stringInterner,
         TemporaryFileProvider temporaryFileProvider,
-        BuildCacheEntryPacker packer
+        BuildCacheEntryPacker packer,
+        ExecutorFactory executorFactory
     ) {
         super(
             startParameter,
@@ -57,6 +66,7 @@ public LegacyBuildCacheControllerFactory(
         );
         this.temporaryFileProvider = temporaryFileProvider;
         this.packer = packer;
+        this.executorFactory = executorFactory;
     }
 
     @Override
@@ -71,6 +81,7 @@ protected BuildCacheController doCreateController(
 
         boolean logStackTraces = startParameter.getShowStacktrace() != ShowStacktrace.INTERNAL_EXCEPTIONS;
         boolean emitDebugLogging = startParameter.isBuildCacheDebugLogging();
+        BuildCacheEntryCompression compression = compressionFor(localDescribedService, remoteDescribedService);
 
         return new DefaultBuildCacheController(
             config,
@@ -80,12 +91,33 @@ protected BuildCacheController doCreateController(
             emitDebugLogging,
             !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
             fileSystemAccess,
-            packer,
+            new CompressingBuildCacheEntryPacker(packer, compression),
+            compression.getCacheKeySalt(),
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            createPrefetchExecutor(),
+            Long.getLong(PREFETCH_MAX_SIZE_PROPERTY, DEFAULT_PREFETCH_MAX_SIZE),
+            createUploadExecutor(),
+            Integer.getInteger(ASYNC_STORE_MAX_PENDING_PROPERTY, 0)
         );
     }
 
+    @Nullable
+    private ManagedExecutor createPrefetchExecutor() {
+        int maxConcurrent = Integer.getInteger(PREFETCH_MAX_CONCURRENT_PROPERTY, 0);
+        return maxConcurrent > 0
+            ? executorFactory.create("Build cache prefetch", maxConcurrent)
+            : null;
+    }
+
+    @Nullable
+    private ManagedExecutor createUploadExecutor() {
+        int maxPending = Integer.getInteger(ASYNC_STORE_MAX_PENDING_PROPERTY, 0);
+        return maxPending > 0
+            ? executorFactory.create("Build cache upload", Math.min(maxPending, ASYNC_STORE_THREADS))
+            : null;
+    }
+
     private static BuildCacheServicesConfiguration toConfiguration(
         @Nullable DescribedBuildCacheService<DirectoryBuildCache, DirectoryBuildCacheService> local,
         @Nullable DescribedBuildCacheService<BuildCache, BuildCacheService> remote
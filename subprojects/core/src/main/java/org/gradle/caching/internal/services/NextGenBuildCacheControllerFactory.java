@@ -26,11 +26,12 @@
 import org.gradle.caching.configuration.BuildCache;
 import org.gradle.caching.internal.NextGenBuildCacheService;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.CompressingNextGenBuildCacheAccess;
 import org.gradle.caching.internal.controller.DefaultNextGenBuildCacheAccess;
-import org.gradle.caching.internal.controller.GZipNextGenBuildCacheAccess;
 import org.gradle.caching.internal.controller.NextGenBuildCacheController;
 import org.gradle.caching.internal.controller.RemoteNextGenBuildCacheServiceHandler;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCompression;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.H2BuildCacheService;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -46,6 +47,8 @@
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
 
 public final class NextGenBuildCacheControllerFactory extends AbstractBuildCacheControllerFactory<H2BuildCacheService> {
 
@@ -93,6 +96,7 @@ protected BuildCacheController doCreateController(
         Logger logger = startParameter.isBuildCacheDebugLogging()
             ? LoggerFactory.getLogger(NextGenBuildCacheController.class)
             : NOPLogger.NOP_LOGGER;
+        BuildCacheEntryCompression compression = compressionFor(localDescribedService, remoteDescribedService);
 
         return new NextGenBuildCacheController(
             buildInvocationScopeId.getId().asString(),
@@ -102,7 +106,7 @@ protected BuildCacheController doCreateController(
             bufferProvider,
             stringInterner,
             buildOperationExecutor,
-            new GZipNextGenBuildCacheAccess(
+            new CompressingNextGenBuildCacheAccess(
                 new DefaultNextGenBuildCacheAccess(
                     local,
                     remote,
@@ -110,8 +114,10 @@ protected BuildCacheController doCreateController(
                     executorFactory,
                     logger
                 ),
+                compression,
                 bufferProvider
-            )
+            ),
+            compression.getCacheKeySalt()
         );
     }
 
@@ -221,11 +227,26 @@ public boolean contains(BuildCacheKey key) {
             return canLoad() && service.contains(key);
         }
 
+        @Override
+        public boolean supportsBatchRequests() {
+            return service.supportsBatchRequests();
+        }
+
+        @Override
+        public Set<BuildCacheKey> contains(Set<BuildCacheKey> keys) {
+            return canLoad() ? service.contains(keys) : Collections.emptySet();
+        }
+
         @Override
         public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
             return canLoad() && service.load(key, reader);
         }
 
+        @Override
+        public Set<BuildCacheKey> load(Set<BuildCacheKey> keys, BatchReader reader) throws BuildCacheException {
+            return canLoad() ? service.load(keys, reader) : Collections.emptySet();
+        }
+
         @Override
         public void store(BuildCacheKey key, NextGenBuildCacheService.NextGenWriter writer) throws BuildCacheException {
             if (canStore()) {
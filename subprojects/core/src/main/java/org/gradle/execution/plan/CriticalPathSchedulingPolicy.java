@@ -0,0 +1,258 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationType;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Starts the ready nodes with the longest estimated remaining critical path first,
+ * so that long chains of work are not delayed by cheap nodes that happen to be scheduled earlier.
+ *
+ * <p>
+ * The remaining critical path of a node is the estimated duration of the node plus the longest remaining critical path of the nodes that depend on it or finalize it.
+ * Ordering constraints like {@code mustRunAfter} and {@code shouldRunAfter} are not taken into account.
+ * Task nodes without an estimate are assumed to take as long as the average task with an estimate, other nodes are assumed to take no time.
+ * Nodes added while the plan executes inherit the remaining critical path of the node that added them.
+ * </p>
+ *
+ * <p>
+ * When the plan completes, an {@link Operation} is emitted reporting the predicted and the actual makespan of the plan.
+ * </p>
+ */
+public class CriticalPathSchedulingPolicy implements NodeSchedulingPolicy {
+    public static final InternalFlag CRITICAL_PATH_SCHEDULING = new InternalFlag("org.gradle.internal.scheduling.critical-path");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CriticalPathSchedulingPolicy.class);
+    private static final long DEFAULT_TASK_DURATION_MILLIS = 100;
+
+    private final NodeDurationEstimator estimator;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final Clock clock;
+
+    public CriticalPathSchedulingPolicy(NodeDurationEstimator estimator, BuildOperationExecutor buildOperationExecutor, Clock clock) {
+        this.estimator = estimator;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public PlanSchedule schedule(String displayName, List<Node> scheduledNodes) {
+        Map<Node, Long> durations = new IdentityHashMap<>();
+        long knownTaskDurationTotal = 0;
+        int knownTaskCount = 0;
+        for (Node node : scheduledNodes) {
+            Optional<Duration> duration = estimator.estimateDuration(node);
+            if (duration.isPresent()) {
+                long millis = duration.get().toMillis();
+                durations.put(node, millis);
+                if (node instanceof LocalTaskNode) {
+                    knownTaskDurationTotal += millis;
+                    knownTaskCount++;
+                }
+            }
+        }
+        long fallbackTaskDuration = knownTaskCount == 0 ? DEFAULT_TASK_DURATION_MILLIS : knownTaskDurationTotal / knownTaskCount;
+
+        // Scheduled nodes are ordered so that the dependencies of a node and the nodes it finalizes come before it, so visit the nodes in reverse
+        // to calculate the remaining critical path of the nodes that depend on or finalize a node before the node itself
+        Map<Node, Long> remainingCriticalPath = new IdentityHashMap<>();
+        long predictedMakespan = 0;
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+            Node node = scheduledNodes.get(i);
+            long longestDependent = 0;
+            for (Node dependent : node.getDependencyPredecessors()) {
+                longestDependent = Math.max(longestDependent, remainingCriticalPath.getOrDefault(dependent, 0L));
+            }
+            // Finalizers run after the nodes they finalize, so they are part of the remaining path as well
+            for (Node finalizer : node.getFinalizers()) {
+                longestDependent = Math.max(longestDependent, remainingCriticalPath.getOrDefault(finalizer, 0L));
+            }
+            Long duration = durations.get(node);
+            if (duration == null) {
+                duration = node instanceof LocalTaskNode ? fallbackTaskDuration : 0L;
+            }
+            long remaining = duration + longestDependent;
+            remainingCriticalPath.put(node, remaining);
+            predictedMakespan = Math.max(predictedMakespan, remaining);
+        }
+
+        return new CriticalPathSchedule(displayName, remainingCriticalPath, predictedMakespan, scheduledNodes.size(), knownTaskCount);
+    }
+
+    private class CriticalPathSchedule implements PlanSchedule {
+        private final String displayName;
+        private final Map<Node, Long> remainingCriticalPath;
+        private final long predictedMakespan;
+        private final int nodeCount;
+        private final int estimatedTaskCount;
+        private final Comparator<Node> executionOrder;
+        private long firstStartTime = -1;
+        private long lastFinishTime = -1;
+        private int executedNodeCount;
+        private boolean completed;
+
+        public CriticalPathSchedule(String displayName, Map<Node, Long> remainingCriticalPath, long predictedMakespan, int nodeCount, int estimatedTaskCount) {
+            this.displayName = displayName;
+            this.remainingCriticalPath = remainingCriticalPath;
+            this.predictedMakespan = predictedMakespan;
+            this.nodeCount = nodeCount;
+            this.estimatedTaskCount = estimatedTaskCount;
+            this.executionOrder = Comparator.<Node, Boolean>comparing(node -> !node.isPriority())
+                .thenComparing(this::remainingCriticalPathOf, Comparator.reverseOrder())
+                .thenComparing(DefaultFinalizedExecutionPlan.NODE_EXECUTION_ORDER);
+        }
+
+        private long remainingCriticalPathOf(Node node) {
+            return remainingCriticalPath.getOrDefault(node, 0L);
+        }
+
+        @Override
+        public Comparator<Node> getExecutionOrder() {
+            return executionOrder;
+        }
+
+        @Override
+        public void nodeAdded(Node node, Node addedBy) {
+            remainingCriticalPath.putIfAbsent(node, remainingCriticalPathOf(addedBy));
+        }
+
+        @Override
+        public void nodeStarted(Node node) {
+            if (firstStartTime < 0) {
+                firstStartTime = clock.getCurrentTime();
+            }
+            executedNodeCount++;
+        }
+
+        @Override
+        public void nodeFinished(Node node) {
+            lastFinishTime = clock.getCurrentTime();
+        }
+
+        @Override
+        public void completed() {
+            if (completed || firstStartTime < 0) {
+                return;
+            }
+            completed = true;
+            OperationResult result = new OperationResult(predictedMakespan, Math.max(0, lastFinishTime - firstStartTime), nodeCount, estimatedTaskCount, executedNodeCount);
+            LOGGER.info("Predicted makespan of {} was {} ms, actual makespan was {} ms ({} of {} nodes executed, {} tasks had an estimated duration)",
+                displayName, result.getPredictedMakespanMillis(), result.getActualMakespanMillis(),
+                result.getExecutedNodeCount(), result.getNodeCount(), result.getEstimatedTaskCount());
+            buildOperationExecutor.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    context.setResult(result);
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName("Report critical path schedule of " + displayName)
+                        .details(Operation.Details.INSTANCE);
+                }
+            });
+        }
+    }
+
+    /*
+     * This operation is only used here temporarily. Should be replaced with a more stable operation in the long term.
+     */
+    public interface Operation extends BuildOperationType<Operation.Details, Operation.Result> {
+        interface Details {
+            Details INSTANCE = new Details() {
+            };
+        }
+
+        interface Result {
+            /**
+             * The length of the longest estimated critical path of the plan when it was finalized.
+             */
+            long getPredictedMakespanMillis();
+
+            /**
+             * The time between the first node of the plan starting and the last node of the plan finishing.
+             */
+            long getActualMakespanMillis();
+
+            int getNodeCount();
+
+            /**
+             * The number of task nodes the duration could be estimated for.
+             */
+            int getEstimatedTaskCount();
+
+            int getExecutedNodeCount();
+        }
+    }
+
+    private static class OperationResult implements Operation.Result {
+        private final long predictedMakespanMillis;
+        private final long actualMakespanMillis;
+        private final int nodeCount;
+        private final int estimatedTaskCount;
+        private final int executedNodeCount;
+
+        public OperationResult(long predictedMakespanMillis, long actualMakespanMillis, int nodeCount, int estimatedTaskCount, int executedNodeCount) {
+            this.predictedMakespanMillis = predictedMakespanMillis;
+            this.actualMakespanMillis = actualMakespanMillis;
+            this.nodeCount = nodeCount;
+            this.estimatedTaskCount = estimatedTaskCount;
+            this.executedNodeCount = executedNodeCount;
+        }
+
+        @Override
+        public long getPredictedMakespanMillis() {
+            return predictedMakespanMillis;
+        }
+
+        @Override
+        public long getActualMakespanMillis() {
+            return actualMakespanMillis;
+        }
+
+        @Override
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        @Override
+        public int getEstimatedTaskCount() {
+            return estimatedTaskCount;
+        }
+
+        @Override
+        public int getExecutedNodeCount() {
+            return executedNodeCount;
+        }
+    }
+}
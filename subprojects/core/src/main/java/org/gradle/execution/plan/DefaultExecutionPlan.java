@@ -56,6 +56,7 @@ public class DefaultExecutionPlan implements ExecutionPlan, QueryableExecutionPl
     private final ExecutionNodeAccessHierarchy outputHierarchy;
     private final ExecutionNodeAccessHierarchy destroyableHierarchy;
     private final ResourceLockCoordinationService lockCoordinator;
+    private final NodeSchedulingPolicy schedulingPolicy;
     private Spec<? super Task> filter = Specs.satisfyAll();
     private int order = 0;
     private boolean continueOnFailure;
@@ -77,7 +78,8 @@ public DefaultExecutionPlan(
         TaskDependencyResolver dependencyResolver,
         ExecutionNodeAccessHierarchy outputHierarchy,
         ExecutionNodeAccessHierarchy destroyableHierarchy,
-        ResourceLockCoordinationService lockCoordinator
+        ResourceLockCoordinationService lockCoordinator,
+        NodeSchedulingPolicy schedulingPolicy
     ) {
         this.displayName = displayName;
         this.taskNodeFactory = taskNodeFactory;
@@ -85,6 +87,7 @@ public DefaultExecutionPlan(
         this.outputHierarchy = outputHierarchy;
         this.destroyableHierarchy = destroyableHierarchy;
         this.lockCoordinator = lockCoordinator;
+        this.schedulingPolicy = schedulingPolicy;
         this.ordinalNodeAccess = new OrdinalNodeAccess(ordinalGroupFactory);
     }
 
@@ -235,7 +238,7 @@ public FinalizedExecutionPlan finalizePlan() {
         if (finalizedPlan == null) {
             dependencyResolver.clear();
             // Should make an immutable copy of the contents to pass to the finalized plan and also to use in this instance
-            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler);
+            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler, schedulingPolicy.schedule(displayName, scheduledNodes));
         }
         return finalizedPlan;
     }
@@ -67,12 +67,17 @@ public int compare(Node node1, Node node2) {
     };
 
     private final Set<Node> waitingToStartNodes = new HashSet<>();
-    private final ExecutionQueue readyNodes = new ExecutionQueue();
+    private final ExecutionQueue readyNodes;
     private final List<Throwable> failures = new ArrayList<>();
     private final List<DiagnosticEvent> diagnosticEvents = new ArrayList<>();
     private final String displayName;
     private final ExecutionNodeAccessHierarchy outputHierarchy;
     private final ExecutionNodeAccessHierarchy destroyableHierarchy;
+    // Indexes of the locations mutated by the nodes that are running, and of the outputs that are produced but not yet consumed,
+    // so checking for conflicts only needs to visit the nodes that can actually conflict
+    private final ExecutionNodeAccessHierarchy runningOutputHierarchy;
+    private final ExecutionNodeAccessHierarchy runningDestroyableHierarchy;
+    private final ExecutionNodeAccessHierarchy unconsumedOutputHierarchy;
     private final ResourceLockCoordinationService lockCoordinator;
     private final Action<ResourceLock> resourceUnlockListener = this::resourceUnlocked;
 
@@ -84,6 +89,7 @@ public int compare(Node node1, Node node2) {
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    private final NodeSchedulingPolicy.PlanSchedule schedule;
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -100,16 +106,22 @@ public DefaultFinalizedExecutionPlan(
         List<Node> scheduledNodes,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        NodeSchedulingPolicy.PlanSchedule schedule
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
         this.destroyableHierarchy = destroyableHierarchy;
+        this.runningOutputHierarchy = outputHierarchy.createEmptyHierarchy();
+        this.runningDestroyableHierarchy = destroyableHierarchy.createEmptyHierarchy();
+        this.unconsumedOutputHierarchy = outputHierarchy.createEmptyHierarchy();
         this.lockCoordinator = lockCoordinator;
         this.ordinalNodeAccess = ordinalNodeAccess;
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.schedule = schedule;
+        this.readyNodes = new ExecutionQueue(schedule.getExecutionOrder());
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -150,7 +162,11 @@ public void close() {
         waitingToStartNodes.clear();
         readyNodes.clear();
         runningNodes.clear();
+        runningOutputHierarchy.clear();
+        runningDestroyableHierarchy.clear();
+        unconsumedOutputHierarchy.clear();
         reachableCache.clear();
+        schedule.completed();
     }
 
     private void resourceUnlocked(ResourceLock resourceLock) {
@@ -262,6 +278,7 @@ public Selection<Node> selectNext() {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
                         prepareNode.setIndex(node.getIndex());
+                        schedule.nodeAdded(prepareNode, node);
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
@@ -279,7 +296,7 @@ public Selection<Node> selectNext() {
                 if (attemptToStart(node, resources)) {
                     readyNodes.remove();
                     waitingToStartNodes.remove(node);
-                    node.getMutationInfo().started();
+                    recordNodeStartedMutating(node);
                     return Selection.of(node);
                 }
             }
@@ -328,6 +345,22 @@ private boolean attemptToStart(Node node, List<ResourceLock> resources) {
         return true;
     }
 
+    private void recordNodeStartedMutating(Node node) {
+        MutationInfo mutations = node.getMutationInfo();
+        mutations.started();
+        runningOutputHierarchy.recordNodeAccessingLocations(node, mutations.outputPaths);
+        runningDestroyableHierarchy.recordNodeAccessingLocations(node, mutations.destroyablePaths);
+        if (mutations.isOutputProducedButNotYetConsumed()) {
+            unconsumedOutputHierarchy.recordNodeAccessingLocations(node, mutations.outputPaths);
+        }
+    }
+
+    private void recordNodeFinishedMutating(Node node) {
+        MutationInfo mutations = node.getMutationInfo();
+        runningOutputHierarchy.removeNodeAccessingLocations(node, mutations.outputPaths);
+        runningDestroyableHierarchy.removeNodeAccessingLocations(node, mutations.destroyablePaths);
+    }
+
     private void releaseLocks(List<ResourceLock> resources) {
         for (ResourceLock resource : resources) {
             resource.unlock();
@@ -427,7 +460,7 @@ private boolean mutationConflictsWithOtherNodes(Node node, MutationInfo mutation
         };
 
         for (String path : nodeOutputPaths) {
-            if (outputHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
+            if (runningOutputHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
                 return true;
             }
             if (nodeOrdinal != null) {
@@ -437,7 +470,7 @@ private boolean mutationConflictsWithOtherNodes(Node node, MutationInfo mutation
             }
         }
         for (String path : nodeDestroysPaths) {
-            if (destroyableHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
+            if (runningDestroyableHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
                 return true;
             }
             if (nodeOrdinal != null) {
@@ -475,7 +508,7 @@ private boolean destroysNotYetConsumedOutputOfAnotherNode(Node destroyer, Set<St
         };
 
         for (String destroyablePath : destroyablePaths) {
-            if (outputHierarchy.visitNodesAccessing(destroyablePath, false, conflicts)) {
+            if (unconsumedOutputHierarchy.visitNodesAccessing(destroyablePath, false, conflicts)) {
                 return true;
             }
         }
@@ -506,6 +539,7 @@ private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        schedule.nodeStarted(node);
     }
 
     private void recordNodeCompleted(Node node) {
@@ -522,7 +556,11 @@ private void recordNodeCompleted(Node node) {
 
         for (Node producer : node.getDependencySuccessors()) {
             MutationInfo producerMutations = producer.getMutationInfo();
+            boolean wasUnconsumed = producerMutations.isOutputProducedButNotYetConsumed();
             producerMutations.consumerCompleted(node);
+            if (wasUnconsumed && !producerMutations.isOutputProducedButNotYetConsumed()) {
+                unconsumedOutputHierarchy.removeNodeAccessingLocations(producer, producerMutations.outputPaths);
+            }
         }
 
         updateAllDependenciesCompleteForPredecessors(node);
@@ -547,6 +585,8 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
         lockCoordinator.assertHasStateLock();
         try {
             runningNodes.remove(node);
+            recordNodeFinishedMutating(node);
+            schedule.nodeFinished(node);
 
             if (failure != null) {
                 node.setExecutionFailure(failure);
@@ -567,6 +607,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    schedule.nodeAdded(postNode, node);
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -679,12 +720,16 @@ public boolean allExecutionComplete() {
     }
 
     /**
-     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER}.
+     * An ordered queue of nodes, sorted by the execution order of the plan's schedule, which defaults to {@link #NODE_EXECUTION_ORDER}.
      */
     static class ExecutionQueue {
-        private final Set<Node> nodes = new TreeSet<>(NODE_EXECUTION_ORDER);
+        private final Set<Node> nodes;
         private Iterator<Node> current;
 
+        public ExecutionQueue(Comparator<Node> executionOrder) {
+            this.nodes = new TreeSet<>(executionOrder);
+        }
+
         public void clear() {
             nodes.clear();
             current = null;
@@ -401,6 +401,7 @@ private WorkItem getNextItem(final WorkerLease workerLease) {
             try {
                 selected = MutableReference.empty();
                 coordinationService.withStateLock(resourceLockState -> {
+                    stats.stateLockAcquired();
                     stats.finishWaitingForNextItem();
                     if (cancellationToken.isCancellationRequested()) {
                         queue.cancelExecution();
@@ -475,6 +476,7 @@ private void markFinished(Object selected, WorkSource<Object> executionPlan, @Nu
             stats.startMarkFinished();
             try {
                 coordinationService.withStateLock(() -> {
+                    stats.stateLockAcquired();
                     try {
                         executionPlan.finishedExecuting(selected, failure);
                     } catch (Throwable t) {
@@ -514,6 +516,11 @@ private interface WorkerState {
     private interface WorkerStats extends WorkerState {
         void startSelect();
 
+        /**
+         * Called each time the worker runs an action holding the state lock, including when it retries the action after being woken up.
+         */
+        void stateLockAcquired();
+
         void finishSelect();
 
         void startExecute();
@@ -610,6 +617,10 @@ private static class WorkerState implements WorkerStats {
             public void startSelect() {
             }
 
+            @Override
+            public void stateLockAcquired() {
+            }
+
             @Override
             public void finishSelect() {
             }
@@ -678,6 +689,9 @@ public void report() {
                 LOGGER.lifecycle("average select time: " + format(stats -> stats.totalSelectTime));
                 LOGGER.lifecycle("average execute time: " + format(stats -> stats.totalExecuteTime));
                 LOGGER.lifecycle("average finish time: " + format(stats -> stats.totalMarkFinishedTime));
+                LOGGER.lifecycle("average state lock wait time: " + format(stats -> stats.totalStateLockWaitTime));
+                LOGGER.lifecycle("wakeups: " + completedWorkers.stream().mapToLong(stats -> stats.wakeupCount).sum()
+                    + ", of which futile: " + completedWorkers.stream().mapToLong(stats -> stats.futileWakeupCount).sum());
             }
             completedWorkers.clear();
         }
@@ -697,6 +711,12 @@ private static class CollectingWorkerStats implements WorkerStats {
         long totalSelectTime;
         long totalExecuteTime;
         long totalMarkFinishedTime;
+        // Time spent waiting to acquire the state lock, excluding the time spent waiting for a state change
+        long totalStateLockWaitTime;
+        // The number of times the worker was woken up while waiting for work, and how many of those did not result in starting work
+        long wakeupCount;
+        long futileWakeupCount;
+        int attempts;
 
         public CollectingWorkerStats(CollectingExecutorStats owner, WorkerState delegate) {
             this.owner = owner;
@@ -712,6 +732,17 @@ public void finish() {
         @Override
         public void startSelect() {
             startCurrentOperation = System.nanoTime();
+            attempts = 0;
+        }
+
+        @Override
+        public void stateLockAcquired() {
+            if (attempts++ == 0) {
+                long duration = System.nanoTime() - startCurrentOperation;
+                if (duration > 0) {
+                    totalStateLockWaitTime += duration;
+                }
+            }
         }
 
         @Override
@@ -720,6 +751,11 @@ public void finishSelect() {
             if (duration > 0) {
                 totalSelectTime += duration;
             }
+            if (attempts > 1) {
+                // The last attempt either selected work or found that there is no more work
+                wakeupCount += attempts - 1;
+                futileWakeupCount += attempts - 2;
+            }
         }
 
         @Override
@@ -738,6 +774,7 @@ public void finishExecute() {
         @Override
         public void startMarkFinished() {
             startCurrentOperation = System.nanoTime();
+            attempts = 0;
         }
 
         @Override
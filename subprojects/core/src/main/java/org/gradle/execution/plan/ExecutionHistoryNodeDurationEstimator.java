@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.execution.history.ExecutionDurationStore;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Estimates the duration of task nodes from the mean of the recent execution durations of the task.
+ * The duration of tasks without recorded durations is unknown.
+ */
+public class ExecutionHistoryNodeDurationEstimator implements NodeDurationEstimator {
+    @Override
+    public Optional<Duration> estimateDuration(Node node) {
+        if (!(node instanceof LocalTaskNode)) {
+            return Optional.empty();
+        }
+        TaskInternal task = ((LocalTaskNode) node).getTask();
+        ServiceRegistry services = ((ProjectInternal) task.getProject()).getServices();
+        return services.get(ExecutionDurationStore.class).load(task.getPath())
+            .map(ExecutionDurationStore.DurationStatistics::getMean);
+    }
+}
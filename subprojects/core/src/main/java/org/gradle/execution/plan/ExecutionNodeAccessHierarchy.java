@@ -37,8 +37,19 @@ public class ExecutionNodeAccessHierarchy {
     private final SingleFileTreeElementMatcher matcher;
 
     public ExecutionNodeAccessHierarchy(CaseSensitivity caseSensitivity, Stat stat) {
-        this.root = ValuedVfsHierarchy.emptyHierarchy(caseSensitivity);
-        this.matcher = new SingleFileTreeElementMatcher(stat);
+        this(ValuedVfsHierarchy.emptyHierarchy(caseSensitivity), new SingleFileTreeElementMatcher(stat));
+    }
+
+    private ExecutionNodeAccessHierarchy(ValuedVfsHierarchy<NodeAccess> root, SingleFileTreeElementMatcher matcher) {
+        this.root = root;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Creates a new, empty hierarchy with the same case sensitivity.
+     */
+    public ExecutionNodeAccessHierarchy createEmptyHierarchy() {
+        return new ExecutionNodeAccessHierarchy(root.empty(), matcher);
     }
 
     /**
@@ -97,6 +108,16 @@ public synchronized void recordNodeAccessingLocations(Node node, Iterable<String
         }
     }
 
+    /**
+     * Removes the records that a node accesses the given locations.
+     */
+    public synchronized void removeNodeAccessingLocations(Node node, Iterable<String> accessedLocations) {
+        for (String location : accessedLocations) {
+            VfsRelativePath relativePath = VfsRelativePath.of(location);
+            root = root.removeValues(relativePath, nodeAccess -> nodeAccess.getNode() == node);
+        }
+    }
+
     /**
      * Records that a node accesses the fileTreeRoot with a filter.
      *
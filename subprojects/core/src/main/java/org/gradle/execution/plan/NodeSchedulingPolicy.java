@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.plan;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decides the order in which the ready nodes of a finalized execution plan are started.
+ */
+public interface NodeSchedulingPolicy {
+
+    /**
+     * Starts ready nodes in the order they were scheduled in.
+     */
+    NodeSchedulingPolicy DEFAULT = (displayName, scheduledNodes) -> PlanSchedule.DEFAULT;
+
+    /**
+     * Creates the schedule for a plan containing the given nodes, in the order they were scheduled in.
+     */
+    PlanSchedule schedule(String displayName, List<Node> scheduledNodes);
+
+    /**
+     * The schedule of a single plan. The methods are called while holding the state lock of the plan, except for {@link #completed()}.
+     */
+    interface PlanSchedule {
+        PlanSchedule DEFAULT = () -> DefaultFinalizedExecutionPlan.NODE_EXECUTION_ORDER;
+
+        /**
+         * The order in which ready nodes are started. Must be consistent while nodes are waiting to start.
+         */
+        Comparator<Node> getExecutionOrder();
+
+        /**
+         * Called when a node is added to the plan while it executes, before the node becomes ready.
+         */
+        default void nodeAdded(Node node, Node addedBy) {
+        }
+
+        default void nodeStarted(Node node) {
+        }
+
+        default void nodeFinished(Node node) {
+        }
+
+        /**
+         * Called when the plan is closed.
+         */
+        default void completed() {
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.execution.plan;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.internal.MutableBoolean;
 import org.gradle.internal.collect.PersistentList;
 import org.gradle.internal.snapshot.CaseSensitivity;
 import org.gradle.internal.snapshot.ChildMap;
@@ -25,7 +26,11 @@
 import org.gradle.internal.snapshot.VfsRelativePath;
 
 import javax.annotation.CheckReturnValue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
@@ -180,6 +185,114 @@ public ValuedVfsHierarchy<T> createNodeFromChildren(ChildMap<ValuedVfsHierarchy<
         return new ValuedVfsHierarchy<>(values, newChildren, caseSensitivity);
     }
 
+    /**
+     * Returns a new {@link ValuedVfsHierarchy} without the values attached to the location which match the predicate.
+     *
+     * Locations which have neither values nor children left are removed from the hierarchy.
+     */
+    @CheckReturnValue
+    public ValuedVfsHierarchy<T> removeValues(VfsRelativePath location, Predicate<? super T> predicate) {
+        if (location.isEmpty()) {
+            PersistentList<T> newValues = withoutValues(values, predicate);
+            return newValues == values ? this : new ValuedVfsHierarchy<>(newValues, children, caseSensitivity);
+        }
+        ChildMap<ValuedVfsHierarchy<T>> newChildren = children.withNode(location, caseSensitivity, new ChildMap.NodeHandler<ValuedVfsHierarchy<T>, ChildMap<ValuedVfsHierarchy<T>>>() {
+            @Override
+            public ChildMap<ValuedVfsHierarchy<T>> handleAsDescendantOfChild(VfsRelativePath pathInChild, ValuedVfsHierarchy<T> child) {
+                ValuedVfsHierarchy<T> newChild = child.removeValues(pathInChild, predicate);
+                return newChild == child ? children : withReplacedChild(location, newChild);
+            }
+
+            @Override
+            public ChildMap<ValuedVfsHierarchy<T>> handleExactMatchWithChild(ValuedVfsHierarchy<T> child) {
+                PersistentList<T> newValues = withoutValues(child.getValues(), predicate);
+                return newValues == child.getValues() ? children : withReplacedChild(location, new ValuedVfsHierarchy<>(newValues, child.getChildren(), caseSensitivity));
+            }
+
+            @Override
+            public ChildMap<ValuedVfsHierarchy<T>> handleAsAncestorOfChild(String childPath, ValuedVfsHierarchy<T> child) {
+                // No values are attached to the location
+                return children;
+            }
+
+            @Override
+            public ChildMap<ValuedVfsHierarchy<T>> handleUnrelatedToAnyChild() {
+                return children;
+            }
+        });
+        return newChildren == children ? this : new ValuedVfsHierarchy<>(values, newChildren, caseSensitivity);
+    }
+
+    private ChildMap<ValuedVfsHierarchy<T>> withReplacedChild(VfsRelativePath location, ValuedVfsHierarchy<T> newChild) {
+        if (newChild.isEmpty()) {
+            return children.invalidate(location, caseSensitivity, new ChildMap.InvalidationHandler<ValuedVfsHierarchy<T>, ValuedVfsHierarchy<T>>() {
+                @Override
+                public Optional<ValuedVfsHierarchy<T>> handleAsDescendantOfChild(VfsRelativePath pathInChild, ValuedVfsHierarchy<T> child) {
+                    return Optional.empty();
+                }
+
+                @Override
+                public void handleAsAncestorOfChild(String childPath, ValuedVfsHierarchy<T> child) {
+                }
+
+                @Override
+                public void handleExactMatchWithChild(ValuedVfsHierarchy<T> child) {
+                }
+
+                @Override
+                public void handleUnrelatedToAnyChild() {
+                }
+            });
+        }
+        return children.store(location, caseSensitivity, new ChildMap.StoreHandler<ValuedVfsHierarchy<T>>() {
+            @Override
+            public ValuedVfsHierarchy<T> handleAsDescendantOfChild(VfsRelativePath pathInChild, ValuedVfsHierarchy<T> child) {
+                return newChild;
+            }
+
+            @Override
+            public ValuedVfsHierarchy<T> mergeWithExisting(ValuedVfsHierarchy<T> child) {
+                return newChild;
+            }
+
+            @Override
+            public ValuedVfsHierarchy<T> handleAsAncestorOfChild(String childPath, ValuedVfsHierarchy<T> child) {
+                throw new IllegalStateException("Cannot replace child at " + location.getAsString());
+            }
+
+            @Override
+            public ValuedVfsHierarchy<T> createChild() {
+                throw new IllegalStateException("Cannot replace child at " + location.getAsString());
+            }
+
+            @Override
+            public ValuedVfsHierarchy<T> createNodeFromChildren(ChildMap<ValuedVfsHierarchy<T>> children) {
+                throw new IllegalStateException("Cannot replace child at " + location.getAsString());
+            }
+        });
+    }
+
+    private static <T> PersistentList<T> withoutValues(PersistentList<T> values, Predicate<? super T> predicate) {
+        List<T> retained = new ArrayList<>();
+        MutableBoolean removed = new MutableBoolean();
+        values.forEach(value -> {
+            if (predicate.test(value)) {
+                removed.set(true);
+            } else {
+                retained.add(value);
+            }
+        });
+        if (!removed.get()) {
+            return values;
+        }
+        // Adding a value puts it in front of the list, so add the retained values in reverse order to keep the order
+        PersistentList<T> result = PersistentList.of();
+        for (int i = retained.size() - 1; i >= 0; i--) {
+            result = result.plus(retained.get(i));
+        }
+        return result;
+    }
+
     private PersistentList<T> getValues() {
         return values;
     }
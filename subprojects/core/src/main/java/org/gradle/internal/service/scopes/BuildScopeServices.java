@@ -102,9 +102,12 @@
 import org.gradle.configuration.project.DefaultCompileOperationFactory;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
 import org.gradle.execution.ProjectConfigurer;
+import org.gradle.execution.plan.CriticalPathSchedulingPolicy;
 import org.gradle.execution.plan.DefaultNodeValidator;
+import org.gradle.execution.plan.ExecutionHistoryNodeDurationEstimator;
 import org.gradle.execution.plan.ExecutionNodeAccessHierarchies;
 import org.gradle.execution.plan.ExecutionPlanFactory;
+import org.gradle.execution.plan.NodeSchedulingPolicy;
 import org.gradle.execution.plan.OrdinalGroupFactory;
 import org.gradle.execution.plan.TaskDependencyResolver;
 import org.gradle.execution.plan.TaskNodeDependencyResolver;
@@ -173,6 +176,7 @@
 import org.gradle.internal.build.PublicBuildPath;
 import org.gradle.internal.buildevents.BuildStartedTime;
 import org.gradle.internal.buildoption.FeatureFlags;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.buildtree.BuildInclusionCoordinator;
 import org.gradle.internal.buildtree.BuildModelParameters;
 import org.gradle.internal.classloader.ClassLoaderFactory;
@@ -208,6 +212,7 @@
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.time.Clock;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
@@ -262,8 +267,14 @@ ExecutionPlanFactory createExecutionPlanFactory(
         OrdinalGroupFactory ordinalGroupFactory,
         TaskDependencyResolver dependencyResolver,
         ExecutionNodeAccessHierarchies executionNodeAccessHierarchies,
-        ResourceLockCoordinationService lockCoordinationService
+        ResourceLockCoordinationService lockCoordinationService,
+        InternalOptions internalOptions,
+        BuildOperationExecutor buildOperationExecutor,
+        Clock clock
     ) {
+        NodeSchedulingPolicy schedulingPolicy = internalOptions.getOption(CriticalPathSchedulingPolicy.CRITICAL_PATH_SCHEDULING).get()
+            ? new CriticalPathSchedulingPolicy(new ExecutionHistoryNodeDurationEstimator(), buildOperationExecutor, clock)
+            : NodeSchedulingPolicy.DEFAULT;
         return new ExecutionPlanFactory(
             build.getDisplayName().getDisplayName(),
             taskNodeFactory,
@@ -271,7 +282,8 @@ ExecutionPlanFactory createExecutionPlanFactory(
             dependencyResolver,
             executionNodeAccessHierarchies.getOutputHierarchy(),
             executionNodeAccessHierarchies.getDestroyableHierarchy(),
-            lockCoordinationService
+            lockCoordinationService,
+            schedulingPolicy
         );
     }
 
@@ -68,6 +68,7 @@
 import org.gradle.internal.hash.DefaultFileHasher;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeintegration.NativeCapabilities;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -77,6 +78,7 @@
 import org.gradle.internal.snapshot.CaseSensitivity;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
 import org.gradle.internal.vfs.FileSystemAccess;
 import org.gradle.internal.vfs.VirtualFileSystem;
@@ -92,6 +94,7 @@
 import org.gradle.internal.watch.vfs.impl.DefaultWatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.LocationsWrittenByCurrentBuild;
 import org.gradle.internal.watch.vfs.impl.WatchingNotSupportedVirtualFileSystem;
+import org.gradle.internal.watch.vfs.impl.PersistentVirtualFileSystemStore;
 import org.gradle.internal.watch.vfs.impl.WatchingVirtualFileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -148,6 +151,10 @@ FileHasherStatistics.Collector createCachingFileHasherStatisticsCollector() {
         DirectorySnapshotterStatistics.Collector createDirectorySnapshotterStatisticsCollector() {
             return new DirectorySnapshotterStatistics.Collector();
         }
+
+        DirectorySnapshotterPool createDirectorySnapshotterPool() {
+            return DirectorySnapshotterPool.fromSystemProperties();
+        }
     }
 
     @VisibleForTesting
@@ -162,10 +169,13 @@ FileHasher createCachingFileHasher(
             CrossBuildFileHashCache fileStore,
             FileSystem fileSystem,
             GradleUserHomeScopeFileTimeStampInspector fileTimeStampInspector,
+            GlobalCacheLocations globalCacheLocations,
             StreamHasher streamHasher,
             StringInterner stringInterner
         ) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            // Files in the global caches are never modified, so it is safe to memory map them for hashing
+            DefaultFileHasher delegate = new DefaultFileHasher(streamHasher, DefaultFileHasher.DEFAULT_MAPPED_HASHING_THRESHOLD, file -> globalCacheLocations.isInsideGlobalCache(file.getPath()));
+            CachingFileHasher fileHasher = new CachingFileHasher(delegate, fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
@@ -198,6 +208,7 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             FileChangeListeners fileChangeListeners,
             FileSystem fileSystem,
             GlobalCacheLocations globalCacheLocations,
+            GlobalScopedCacheBuilderFactory cacheBuilderFactory,
             WatchableFileSystemDetector watchableFileSystemDetector
         ) {
             CaseSensitivity caseSensitivity = fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE;
@@ -205,6 +216,10 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             // All the changes in global caches should be done by Gradle itself, so in order
             // to minimize the number of watches we don't watch anything within the global caches.
             Predicate<String> watchFilter = path -> !globalCacheLocations.isInsideGlobalCache(path);
+            // The persisted snapshots contain hashes, so they are only reused by daemons using the same hash scheme
+            PersistentVirtualFileSystemStore persistentStore = PersistentVirtualFileSystemStore.isEnabled()
+                ? new PersistentVirtualFileSystemStore(new File(cacheBuilderFactory.baseDirForCache(Hashing.schemeQualifiedName("vfs")), "snapshots.bin"))
+                : null;
 
             BuildLifecycleAwareVirtualFileSystem virtualFileSystem = determineWatcherRegistryFactory(
                 OperatingSystem.current(),
@@ -216,7 +231,8 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
                     sectionId -> documentationRegistry.getDocumentationRecommendationFor("details", "gradle_daemon", sectionId),
                     locationsWrittenByCurrentBuild,
                     watchableFileSystemDetector,
-                    fileChangeListeners
+                    fileChangeListeners,
+                    persistentStore
                 ))
                 .orElse(new WatchingNotSupportedVirtualFileSystem(root));
             listenerManager.addListener((BuildAddedListener) buildState -> {
@@ -234,6 +250,7 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             FileSystemAccess.WriteListener writeListener,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshotterPool snapshotterPool,
             ListenerManager listenerManager
         ) {
             DefaultFileSystemAccess defaultFileSystemAccess = new DefaultFileSystemAccess(
@@ -243,6 +260,7 @@ FileSystemAccess createFileSystemAccess(
                 virtualFileSystem,
                 writeListener,
                 statisticsCollector,
+                snapshotterPool,
                 DirectoryScanner.getDefaultExcludes()
             );
             listenerManager.addListener(defaultFileSystemAccess);
@@ -329,7 +347,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshotterPool snapshotterPool
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -338,6 +357,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                snapshotterPool,
                 DirectoryScanner.getDefaultExcludes()
             );
 
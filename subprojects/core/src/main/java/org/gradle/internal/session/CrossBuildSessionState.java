@@ -26,6 +26,9 @@
 import org.gradle.configuration.internal.DefaultUserCodeApplicationContext;
 import org.gradle.configuration.internal.ListenerBuildOperationDecorator;
 import org.gradle.configuration.internal.UserCodeApplicationContext;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.DefaultParallelismConfiguration;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -43,14 +46,21 @@
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceBudget;
+import org.gradle.internal.resources.ResourceBudgetLeaseRegistry;
+import org.gradle.internal.resources.ResourceCost;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.ServiceRegistryBuilder;
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.time.Clock;
+import org.gradle.internal.work.AdaptiveWorkerLeaseLimit;
 import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.ResourceBudgetUsageReporter;
 import org.gradle.internal.work.WorkerLeaseService;
+import org.gradle.process.internal.health.memory.MemoryManager;
 
 import java.io.Closeable;
 
@@ -66,16 +76,22 @@
  */
 @ServiceScope(Scopes.BuildSession.class)
 public class CrossBuildSessionState implements Closeable {
+    public static final InternalFlag TARGETED_WAKEUPS = new InternalFlag("org.gradle.internal.coordination.targeted-wakeups");
+
     private final ServiceRegistry services;
 
     public CrossBuildSessionState(ServiceRegistry parent, StartParameter startParameter) {
+        InternalOptions internalOptions = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
         this.services = ServiceRegistryBuilder.builder()
             .displayName("cross session services")
             .parent(parent)
-            .provider(new Services(startParameter))
+            .provider(new Services(startParameter, internalOptions))
             .build();
         // Trigger listener to wire itself in
         services.get(BuildOperationTrace.class);
+        if (internalOptions.getOption(AdaptiveWorkerLeaseLimit.ADAPTIVE_WORKERS).get()) {
+            services.get(AdaptiveWorkerLeaseLimit.class);
+        }
     }
 
     public ServiceRegistry getServices() {
@@ -90,17 +106,35 @@ public void close() {
     private class Services {
 
         private final StartParameter startParameter;
+        private final InternalOptions internalOptions;
 
-        public Services(StartParameter startParameter) {
+        public Services(StartParameter startParameter, InternalOptions internalOptions) {
             this.startParameter = startParameter;
+            this.internalOptions = internalOptions;
         }
 
         void configure(ServiceRegistration registration) {
-            registration.add(DefaultResourceLockCoordinationService.class);
             registration.add(DefaultWorkerLeaseService.class);
             registration.add(DefaultDynamicCallContextTracker.class);
         }
 
+        DefaultResourceLockCoordinationService createResourceLockCoordinationService() {
+            return new DefaultResourceLockCoordinationService(internalOptions.getOption(TARGETED_WAKEUPS).get());
+        }
+
+        AdaptiveWorkerLeaseLimit createAdaptiveWorkerLeaseLimit(DefaultWorkerLeaseService workerLeaseService, MemoryManager memoryManager) {
+            return new AdaptiveWorkerLeaseLimit(workerLeaseService, memoryManager, internalOptions.getOption(AdaptiveWorkerLeaseLimit.MIN_WORKERS).get());
+        }
+
+        ResourceBudgetLeaseRegistry createResourceBudgetLeaseRegistry(ResourceLockCoordinationService coordinationService, BuildOperationProgressEventEmitter progressEventEmitter) {
+            ResourceCost capacity = ResourceCost.of(
+                internalOptions.getOption(ResourceBudgetUsageReporter.CPU_BUDGET).get(),
+                internalOptions.getOption(ResourceBudgetUsageReporter.MEMORY_BUDGET).get(),
+                internalOptions.getOption(ResourceBudgetUsageReporter.IO_BUDGET).get()
+            );
+            return new ResourceBudgetLeaseRegistry(coordinationService, new ResourceBudget(capacity, new ResourceBudgetUsageReporter(progressEventEmitter)));
+        }
+
         CrossBuildSessionState createCrossBuildSessionState() {
             return CrossBuildSessionState.this;
         }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.health.memory.JvmMemoryStatusListener;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
+import org.gradle.process.internal.health.memory.OsMemoryStatusAspect;
+import org.gradle.process.internal.health.memory.OsMemoryStatusListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Adjusts the number of worker leases which can be held at the same time, based on the load of the machine and on memory pressure.
+ *
+ * <p>
+ * Each time the memory manager reports the memory status, the limit is lowered by a quarter when free physical memory is low
+ * or when the build process spends too much time collecting garbage, so that fewer memory-heavy workers run at the same time.
+ * Otherwise, the limit is raised by one while there are idle cores, and lowered by one when the machine is overloaded.
+ * The limit always stays between the configured minimum and the max worker count.
+ * </p>
+ */
+public class AdaptiveWorkerLeaseLimit implements Closeable {
+    public static final InternalFlag ADAPTIVE_WORKERS = new InternalFlag("org.gradle.internal.workers.adaptive");
+    public static final IntegerInternalOption MIN_WORKERS = new IntegerInternalOption("org.gradle.internal.workers.adaptive.min", 1);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveWorkerLeaseLimit.class);
+    private static final double MIN_FREE_PHYSICAL_MEMORY = 0.1;
+    private static final double MAX_GC_TIME = 0.1;
+    private static final double IDLE_LOAD_PER_PROCESSOR = 0.9;
+    private static final double OVERLOADED_LOAD_PER_PROCESSOR = 1.5;
+
+    private final DefaultWorkerLeaseService workerLeaseService;
+    private final MemoryManager memoryManager;
+    private final int minLimit;
+    private final int maxLimit;
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private final OsMemoryStatusListener osMemoryStatusListener = this::onOsMemoryStatus;
+    private final JvmMemoryStatusListener jvmMemoryStatusListener = this::onJvmMemoryStatus;
+
+    private double freePhysicalMemory = Double.NaN;
+    private long lastSampleTime;
+    private long lastGcTime;
+
+    public AdaptiveWorkerLeaseLimit(DefaultWorkerLeaseService workerLeaseService, MemoryManager memoryManager, int minLimit) {
+        this.workerLeaseService = workerLeaseService;
+        this.memoryManager = memoryManager;
+        this.maxLimit = workerLeaseService.getMaxWorkerCount();
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.lastSampleTime = System.nanoTime();
+        this.lastGcTime = totalGcTimeMillis();
+        memoryManager.addListener(osMemoryStatusListener);
+        memoryManager.addListener(jvmMemoryStatusListener);
+        LOGGER.info("Adapting the number of worker leases between {} and {}.", this.minLimit, maxLimit);
+    }
+
+    private synchronized void onOsMemoryStatus(OsMemoryStatus osMemoryStatus) {
+        OsMemoryStatusAspect physicalMemory = osMemoryStatus.getPhysicalMemory();
+        if (physicalMemory instanceof OsMemoryStatusAspect.Available) {
+            OsMemoryStatusAspect.Available available = (OsMemoryStatusAspect.Available) physicalMemory;
+            freePhysicalMemory = (double) available.getFree() / available.getTotal();
+        }
+    }
+
+    /**
+     * The JVM memory status is reported after the OS memory status, so the limit is adjusted here.
+     */
+    private synchronized void onJvmMemoryStatus(JvmMemoryStatus jvmMemoryStatus) {
+        long now = System.nanoTime();
+        long gcTime = totalGcTimeMillis();
+        double elapsedMillis = (now - lastSampleTime) / 1000000d;
+        double gcTimeFraction = elapsedMillis > 0 ? (gcTime - lastGcTime) / elapsedMillis : 0;
+        lastSampleTime = now;
+        lastGcTime = gcTime;
+
+        double loadPerProcessor = operatingSystem.getSystemLoadAverage() / operatingSystem.getAvailableProcessors();
+        int currentLimit = workerLeaseService.getWorkerLeaseLimit();
+        int newLimit = nextLimit(currentLimit, minLimit, maxLimit, loadPerProcessor, freePhysicalMemory, gcTimeFraction);
+        if (newLimit != currentLimit) {
+            LOGGER.info("Changing the number of worker leases from {} to {} (load per processor: {}, free physical memory: {}, time spent in GC: {}).",
+                currentLimit, newLimit, loadPerProcessor, freePhysicalMemory, gcTimeFraction);
+            workerLeaseService.setWorkerLeaseLimit(newLimit);
+        }
+    }
+
+    /**
+     * Calculates the next limit. The load and the free memory are {@code NaN} or negative when they are not available.
+     */
+    @VisibleForTesting
+    static int nextLimit(int currentLimit, int minLimit, int maxLimit, double loadPerProcessor, double freePhysicalMemory, double gcTimeFraction) {
+        int newLimit;
+        if ((freePhysicalMemory >= 0 && freePhysicalMemory < MIN_FREE_PHYSICAL_MEMORY) || gcTimeFraction > MAX_GC_TIME) {
+            newLimit = currentLimit - Math.max(1, currentLimit / 4);
+        } else if (loadPerProcessor > OVERLOADED_LOAD_PER_PROCESSOR) {
+            newLimit = currentLimit - 1;
+        } else if (!(loadPerProcessor >= IDLE_LOAD_PER_PROCESSOR)) {
+            // Also grow when the load is not available, as there is no memory pressure
+            newLimit = currentLimit + 1;
+        } else {
+            newLimit = currentLimit;
+        }
+        return Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    private static long totalGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        memoryManager.removeListener(osMemoryStatusListener);
+        memoryManager.removeListener(jvmMemoryStatusListener);
+    }
+}
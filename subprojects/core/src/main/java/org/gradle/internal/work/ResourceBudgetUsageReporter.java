@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.resources.ResourceBudget;
+import org.gradle.internal.resources.ResourceCost;
+
+/**
+ * Reports the resources used by the running units of work as {@link ResourceUsageProgressDetails}.
+ */
+public class ResourceBudgetUsageReporter implements ResourceBudget.UsageListener {
+    public static final IntegerInternalOption CPU_BUDGET = new IntegerInternalOption("org.gradle.internal.resources.budget.cpu", 0);
+    public static final IntegerInternalOption MEMORY_BUDGET = new IntegerInternalOption("org.gradle.internal.resources.budget.memory", 0);
+    public static final IntegerInternalOption IO_BUDGET = new IntegerInternalOption("org.gradle.internal.resources.budget.io", 0);
+
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
+
+    public ResourceBudgetUsageReporter(BuildOperationProgressEventEmitter progressEventEmitter) {
+        this.progressEventEmitter = progressEventEmitter;
+    }
+
+    @Override
+    public void usageChanged(ResourceBudget budget) {
+        progressEventEmitter.emitNowIfCurrent(new Details(budget.getInUse(), budget.getCapacity()));
+    }
+
+    private static class Details implements ResourceUsageProgressDetails {
+        private final ResourceCost inUse;
+        private final ResourceCost capacity;
+
+        public Details(ResourceCost inUse, ResourceCost capacity) {
+            this.inUse = inUse;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int getCpuInUse() {
+            return inUse.getCpu();
+        }
+
+        @Override
+        public int getCpuCapacity() {
+            return capacity.getCpu();
+        }
+
+        @Override
+        public long getMemoryMegabytesInUse() {
+            return inUse.getMemoryMegabytes();
+        }
+
+        @Override
+        public long getMemoryMegabytesCapacity() {
+            return capacity.getMemoryMegabytes();
+        }
+
+        @Override
+        public int getIoInUse() {
+            return inUse.getIo();
+        }
+
+        @Override
+        public int getIoCapacity() {
+            return capacity.getIo();
+        }
+
+        @Override
+        public String toString() {
+            return "in use: " + inUse + ", capacity: " + capacity;
+        }
+    }
+}
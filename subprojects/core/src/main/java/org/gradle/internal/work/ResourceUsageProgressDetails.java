@@ -0,0 +1,36 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+/**
+ * Emitted as progress of the current build operation whenever the resources used by the running units of work change.
+ *
+ * A capacity of 0 means that the resource class is not limited.
+ */
+public interface ResourceUsageProgressDetails {
+    int getCpuInUse();
+
+    int getCpuCapacity();
+
+    long getMemoryMegabytesInUse();
+
+    long getMemoryMegabytesCapacity();
+
+    int getIoInUse();
+
+    int getIoCapacity();
+}
@@ -27,6 +27,7 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.configuration.AbstractBuildCache
+import org.gradle.caching.configuration.BuildCacheCompression
 import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration
 import org.gradle.caching.internal.FinalizeBuildCacheConfigurationBuildOperationType
@@ -35,6 +36,7 @@ import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.internal.services.LegacyBuildCacheControllerFactory
 import org.gradle.caching.local.DirectoryBuildCache
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.vfs.FileSystemAccess
 import org.gradle.util.Path
@@ -68,7 +70,8 @@ class LegacyBuildCacheControllerFactoryTest extends Specification {
             Stub(FileSystemAccess),
             Stub(StringInterner),
             Stub(TemporaryFileProvider),
-            Stub(BuildCacheEntryPacker)
+            Stub(BuildCacheEntryPacker),
+            Stub(ExecutorFactory)
         ).createController(Path.path("test"), config, TestUtil.instantiatorFactory().inject())
         assert controllerType.isInstance(controller)
         controllerType.cast(controller)
@@ -142,6 +145,27 @@ class LegacyBuildCacheControllerFactoryTest extends Specification {
         }
     }
 
+    def 'salts cache keys with the compression of the local cache when remote is not configured'() {
+        config.local.compression = BuildCacheCompression.LZ4
+
+        when:
+        def c = createController()
+
+        then:
+        c.cacheKeySalt == "compression-lz4"
+    }
+
+    def 'uses the compression of a pull-only remote cache over the compression of the local cache'() {
+        config.local.compression = BuildCacheCompression.LZ4
+        config.remote(TestRemoteBuildCache).push = false
+
+        when:
+        def c = createController()
+
+        then:
+        c.cacheKeySalt == null
+    }
+
     def "respects debug logging setting - #setting"() {
         when:
         emitDebugLogging = setting
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.plan
+
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.time.MockClock
+import spock.lang.Specification
+
+import java.time.Duration
+
+class CriticalPathSchedulingPolicyTest extends Specification {
+    def durations = [:]
+    def estimator = { Node node -> Optional.ofNullable(durations[node] as Duration) } as NodeDurationEstimator
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def clock = new MockClock(0)
+    def policy = new CriticalPathSchedulingPolicy(estimator, buildOperationExecutor, clock)
+
+    def "orders ready nodes by longest remaining critical path"() {
+        def cheap = node("cheap", 5)
+        def compile = node("compile", 50)
+        def test = node("test", 100, compile)
+        def other = node("other", 20)
+        def scheduled = indexed([cheap, compile, other, test])
+
+        when:
+        def schedule = policy.schedule("plan", scheduled)
+
+        then:
+        sorted(schedule, scheduled) == [compile, test, other, cheap]
+    }
+
+    def "includes finalizers in the remaining critical path"() {
+        def finalized = node("finalized", 10)
+        def finalizer = node("finalizer", 100)
+        finalized.addFinalizer(finalizer)
+        def other = node("other", 50)
+        def scheduled = indexed([other, finalized, finalizer])
+
+        when:
+        def schedule = policy.schedule("plan", scheduled)
+
+        then:
+        sorted(schedule, [other, finalized]) == [finalized, other]
+    }
+
+    def "priority nodes are ordered first"() {
+        def slow = node("slow", 1000)
+        def priority = new TestNode("priority", true)
+        def scheduled = indexed([slow, priority])
+
+        when:
+        def schedule = policy.schedule("plan", scheduled)
+
+        then:
+        sorted(schedule, scheduled) == [priority, slow]
+    }
+
+    def "nodes without estimate are ordered by scheduling order"() {
+        def a = node("a")
+        def b = node("b")
+        def c = node("c")
+        def scheduled = indexed([a, b, c])
+
+        when:
+        def schedule = policy.schedule("plan", scheduled)
+
+        then:
+        sorted(schedule, scheduled) == [a, b, c]
+    }
+
+    def "nodes added during execution inherit the remaining critical path of the node adding them"() {
+        def cheap = node("cheap", 5)
+        def compile = node("compile", 50)
+        def scheduled = indexed([cheap, compile])
+        def added = node("added")
+        added.index = 0
+
+        when:
+        def schedule = policy.schedule("plan", scheduled)
+        schedule.nodeAdded(added, compile)
+
+        then:
+        sorted(schedule, [cheap, added]) == [added, cheap]
+    }
+
+    def "reports predicted and actual makespan when completed"() {
+        def compile = node("compile", 50)
+        def test = node("test", 100, compile)
+        def scheduled = indexed([compile, test])
+        def schedule = policy.schedule("plan", scheduled)
+
+        when:
+        schedule.nodeStarted(compile)
+        schedule.nodeFinished(compile)
+        schedule.nodeStarted(test)
+        schedule.nodeFinished(test)
+        schedule.completed()
+        schedule.completed()
+
+        then:
+        buildOperationExecutor.log.all(CriticalPathSchedulingPolicy.Operation).size() == 1
+        def result = buildOperationExecutor.log.mostRecentResult(CriticalPathSchedulingPolicy.Operation)
+        result.predictedMakespanMillis == 150
+        result.actualMakespanMillis == 20
+        result.nodeCount == 2
+        result.executedNodeCount == 2
+    }
+
+    def "does not report when no node was executed"() {
+        def schedule = policy.schedule("plan", indexed([node("a", 10)]))
+
+        when:
+        schedule.completed()
+
+        then:
+        buildOperationExecutor.log.all(CriticalPathSchedulingPolicy.Operation).empty
+    }
+
+    private Node node(String name, Integer durationMillis = null, Node... dependencies) {
+        def node = new TestNode(name, false)
+        dependencies.each { node.addDependencySuccessor(it) }
+        if (durationMillis != null) {
+            durations[node] = Duration.ofMillis(durationMillis)
+        }
+        return node
+    }
+
+    private static List<Node> indexed(List<Node> nodes) {
+        nodes.eachWithIndex { Node node, int index -> node.index = index }
+        return nodes
+    }
+
+    private static List<Node> sorted(NodeSchedulingPolicy.PlanSchedule schedule, List<Node> nodes) {
+        def queue = new TreeSet<Node>(schedule.executionOrder)
+        queue.addAll(nodes)
+        return queue as List
+    }
+
+    private static class TestNode extends CreationOrderedNode {
+        final String name
+        final boolean priority
+
+        TestNode(String name, boolean priority) {
+            this.name = name
+            this.priority = priority
+        }
+
+        @Override
+        Throwable getNodeFailure() {
+            return null
+        }
+
+        @Override
+        boolean isPriority() {
+            return priority
+        }
+
+        @Override
+        void resolveDependencies(TaskDependencyResolver dependencyResolver) {
+        }
+
+        @Override
+        String toString() {
+            return name
+        }
+    }
+}
@@ -82,6 +82,43 @@ class ExecutionNodeAccessHierarchyTest extends Specification {
         assertNodesAccessing("/some/location/child/other", ancestor)
     }
 
+    def "can remove nodes"() {
+        def node1 = Mock(Node)
+        def node2 = Mock(Node)
+        def child = Mock(Node)
+        hierarchy.recordNodeAccessingLocations(node1, ["/some/location"])
+        hierarchy.recordNodeAccessingLocations(node2, ["/some/location", "/some/other"])
+        hierarchy.recordNodeAccessingLocations(child, ["/some/location/child"])
+
+        when:
+        hierarchy.removeNodeAccessingLocations(node2, ["/some/location", "/some/other"])
+        then:
+        assertNodesAccessing("/some", node1, child)
+        assertNodesAccessing("/some/other")
+
+        when:
+        hierarchy.removeNodeAccessingLocations(child, ["/some/location/child"])
+        then:
+        assertNodesAccessing("/some/location/child", node1)
+        assertNodesAccessing("/some", node1)
+    }
+
+    def "empty hierarchy created from another hierarchy does not contain its nodes"() {
+        def node = Mock(Node)
+        hierarchy.recordNodeAccessingLocations(node, ["/some/location"])
+
+        when:
+        def emptyHierarchy = hierarchy.createEmptyHierarchy()
+        then:
+        emptyHierarchy.getNodesAccessing("/some").empty
+
+        when:
+        emptyHierarchy.recordNodeAccessingLocations(node, ["/other/location"])
+        then:
+        emptyHierarchy.getNodesAccessing("/other") == [node] as Set
+        assertNodesAccessing("/other")
+    }
+
     def "ancestor accesses location"() {
         def node1 = Mock(Node)
         def node2 = Mock(Node)
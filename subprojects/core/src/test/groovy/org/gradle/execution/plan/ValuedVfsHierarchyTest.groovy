@@ -136,6 +136,55 @@ class ValuedVfsHierarchyTest extends Specification {
         visitor.exactValues == [10]
     }
 
+    def "can remove values"() {
+        ValuedVfsHierarchy<Integer> hierarchy = complexHierarchy()
+
+        when:
+        hierarchy = hierarchy.removeValues(VfsRelativePath.of(location), { it in removed })
+        then:
+        getAllValues(hierarchy) as Set == remaining as Set
+
+        where:
+        location                                      | removed | remaining
+        "some/location"                               | [1]     | [2, 3, 4, 5, 6, 7]
+        "some/location/intermediate/child"            | [3]     | [1, 2, 4, 5, 6, 7]
+        "some/location/intermediate/child"            | [3, 4]  | [1, 2, 5, 6, 7]
+        "some/location/intermediate/child/sub1/leaf1" | [5]     | [1, 2, 3, 4, 6, 7]
+        "some/location/intermediate/child/sub1/leaf1" | [6]     | [1, 2, 3, 4, 5, 6, 7]
+        "some/location/intermediate"                  | [3]     | [1, 2, 3, 4, 5, 6, 7]
+        "some/non-existing"                           | [1]     | [1, 2, 3, 4, 5, 6, 7]
+    }
+
+    def "keeps order of remaining values"() {
+        def hierarchy = emptyHierarchy()
+        (1..4).each { hierarchy = hierarchy.recordValue(VfsRelativePath.of("some/location"), it) }
+
+        when:
+        hierarchy = hierarchy.removeValues(VfsRelativePath.of("some/location"), { it == 2 })
+        then:
+        getValuesFor(hierarchy, "some/location") == [4, 3, 1]
+    }
+
+    def "returns the same hierarchy when nothing is removed"() {
+        def hierarchy = complexHierarchy()
+
+        expect:
+        hierarchy.removeValues(VfsRelativePath.of("some/location/intermediate/child"), { it == 1 }).is(hierarchy)
+        hierarchy.removeValues(VfsRelativePath.of("some/unrelated"), { true }).is(hierarchy)
+    }
+
+    def "removing all values leaves an empty hierarchy"() {
+        def hierarchy = emptyHierarchy()
+        hierarchy = hierarchy.recordValue(VfsRelativePath.of("some/location"), 1)
+        hierarchy = hierarchy.recordValue(VfsRelativePath.of("some/location/child"), 2)
+
+        when:
+        hierarchy = hierarchy.removeValues(VfsRelativePath.of("some/location/child"), { true })
+        hierarchy = hierarchy.removeValues(VfsRelativePath.of("some/location"), { true })
+        then:
+        hierarchy.empty
+    }
+
     private ValuedVfsHierarchy<Integer> complexHierarchy() {
         def hierarchy = emptyHierarchy()
         hierarchy = hierarchy.recordValue(VfsRelativePath.of("some/location"), 1)
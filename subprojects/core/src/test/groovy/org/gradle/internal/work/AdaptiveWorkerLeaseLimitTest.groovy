@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work
+
+import spock.lang.Specification
+
+class AdaptiveWorkerLeaseLimitTest extends Specification {
+
+    def "calculates next limit"() {
+        expect:
+        AdaptiveWorkerLeaseLimit.nextLimit(current, 2, 16, load, freeMemory, gcTime) == expected
+
+        where:
+        current | load       | freeMemory | gcTime | expected
+        // idle cores
+        8       | 0.5        | 0.5        | 0      | 9
+        16      | 0.5        | 0.5        | 0      | 16
+        8       | -1         | Double.NaN | 0      | 9
+        // busy cores
+        8       | 1.0        | 0.5        | 0      | 8
+        // overloaded cores
+        8       | 2.0        | 0.5        | 0      | 7
+        2       | 2.0        | 0.5        | 0      | 2
+        // low physical memory
+        8       | 0.5        | 0.05       | 0      | 6
+        16      | 1.0        | 0.05       | 0      | 12
+        3       | 0.5        | 0.05       | 0      | 2
+        // GC pressure
+        8       | 0.5        | 0.5        | 0.2    | 6
+        8       | -1         | Double.NaN | 0.2    | 6
+    }
+}
@@ -43,6 +43,7 @@
 import org.gradle.internal.resource.local.FileResourceRepository;
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.vfs.FileSystemAccess;
@@ -215,7 +216,8 @@ public static FileSystemAccess fileSystemAccess(VirtualFileSystem virtualFileSys
             fileSystem(),
             virtualFileSystem,
             locations -> {},
-            new DirectorySnapshotterStatistics.Collector()
+            new DirectorySnapshotterStatistics.Collector(),
+            DirectorySnapshotterPool.sequential()
         );
     }
 
@@ -303,6 +303,11 @@ public Optional<CachingDisabledReason> shouldDisableCaching(@Nullable Overlappin
             : Optional.of(NOT_CACHEABLE);
     }
 
+    @Override
+    public boolean isPotentiallyCacheable() {
+        return transform.isCacheable();
+    }
+
     @Override
     public String getDisplayName() {
         return transform.getDisplayName() + ": " + inputArtifact;
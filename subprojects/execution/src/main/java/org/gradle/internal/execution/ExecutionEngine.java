@@ -27,6 +27,7 @@
 import org.gradle.internal.execution.history.AfterExecutionState;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Optional;
 
 public interface ExecutionEngine {
@@ -76,6 +77,12 @@ interface Result {
          */
         Optional<OriginMetadata> getReusedOutputOriginMetadata();
 
+        /**
+         * How long it took to check whether the work is up-to-date.
+         * Empty if the check did not happen.
+         */
+        Optional<Duration> getUpToDateCheckDuration();
+
         /**
          * State after execution.
          */
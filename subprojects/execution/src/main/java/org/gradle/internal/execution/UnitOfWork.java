@@ -338,6 +338,14 @@ default Optional<CachingDisabledReason> shouldDisableCaching(@Nullable Overlappi
         return Optional.empty();
     }
 
+    /**
+     * Whether the work may be cacheable, as far as can be told without evaluating any user-provided conditions.
+     * Used to start fetching the cache entry of the work before it is decided whether caching is disabled for it.
+     */
+    default boolean isPotentiallyCacheable() {
+        return false;
+    }
+
     /**
      * Is this work item allowed to load from the cache, or if we only allow it to be stored.
      */
@@ -17,13 +17,19 @@
 package org.gradle.internal.execution.caching.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.internal.DefaultBuildCacheKey;
 import org.gradle.internal.execution.caching.CachingDisabledReason;
 import org.gradle.internal.execution.caching.CachingState;
 import org.gradle.internal.execution.caching.CachingStateFactory;
 import org.gradle.internal.execution.history.BeforeExecutionState;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.ValueSnapshot;
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
@@ -37,20 +43,12 @@ public DefaultCachingStateFactory(Logger logger) {
 
     @Override
     public final CachingState createCachingState(BeforeExecutionState beforeExecutionState, @Nullable String cacheSalt, ImmutableList<CachingDisabledReason> cachingDisabledReasons) {
-        final Hasher cacheKeyHasher = Hashing.newHasher();
-        if (cacheSalt != null) {
-            cacheKeyHasher.putString(cacheSalt);
-        }
-
         logger.warn("Appending implementation to build cache key: {}",
             beforeExecutionState.getImplementation());
-        beforeExecutionState.getImplementation().appendToHasher(cacheKeyHasher);
 
-        beforeExecutionState.getAdditionalImplementations().forEach(additionalImplementation -> {
+        beforeExecutionState.getAdditionalImplementations().forEach(additionalImplementation ->
             logger.warn("Appending additional implementation to build cache key: {}",
-                additionalImplementation);
-            additionalImplementation.appendToHasher(cacheKeyHasher);
-        });
+                additionalImplementation));
 
         beforeExecutionState.getInputProperties().forEach((propertyName, valueSnapshot) -> {
             if (logger.isWarnEnabled()) {
@@ -59,28 +57,65 @@ public final CachingState createCachingState(BeforeExecutionState beforeExecutio
                 logger.warn("Appending input value fingerprint for '{}' to build cache key: {}",
                     propertyName, valueHasher.hash());
             }
-            cacheKeyHasher.putString(propertyName);
-            valueSnapshot.appendToHasher(cacheKeyHasher);
         });
 
-        beforeExecutionState.getInputFileProperties().forEach((propertyName, fingerprint) -> {
+        beforeExecutionState.getInputFileProperties().forEach((propertyName, fingerprint) ->
             logger.warn("Appending input file fingerprints for '{}' to build cache key: {} - {}",
-                propertyName, fingerprint.getHash(), fingerprint);
-            cacheKeyHasher.putString(propertyName);
-            cacheKeyHasher.putHash(fingerprint.getHash());
-        });
+                propertyName, fingerprint.getHash(), fingerprint));
 
-        beforeExecutionState.getOutputFileLocationSnapshots().keySet().forEach(propertyName -> {
-            logger.warn("Appending output property name to build cache key: {}", propertyName);
-            cacheKeyHasher.putString(propertyName);
-        });
+        beforeExecutionState.getOutputFileLocationSnapshots().keySet().forEach(propertyName ->
+            logger.warn("Appending output property name to build cache key: {}", propertyName));
+
+        BuildCacheKey cacheKey = calculateCacheKey(
+            beforeExecutionState.getImplementation(),
+            beforeExecutionState.getAdditionalImplementations(),
+            beforeExecutionState.getInputProperties(),
+            beforeExecutionState.getInputFileProperties(),
+            beforeExecutionState.getOutputFileLocationSnapshots().keySet(),
+            cacheSalt
+        );
 
         if (cachingDisabledReasons.isEmpty()) {
-            return CachingState.enabled(new DefaultBuildCacheKey(cacheKeyHasher.hash()), beforeExecutionState);
+            return CachingState.enabled(cacheKey, beforeExecutionState);
         } else {
             cachingDisabledReasons.forEach(reason ->
                 logger.warn("Non-cacheable because {} [{}]", reason.getMessage(), reason.getCategory()));
-            return CachingState.disabled(cachingDisabledReasons, new DefaultBuildCacheKey(cacheKeyHasher.hash()), beforeExecutionState);
+            return CachingState.disabled(cachingDisabledReasons, cacheKey, beforeExecutionState);
         }
     }
+
+    /**
+     * Calculates the build cache key of work from the parts of its state before execution that make up the key.
+     *
+     * Only the names of the output properties are part of the key, so the key is known before the outputs are snapshotted.
+     */
+    public static BuildCacheKey calculateCacheKey(
+        ImplementationSnapshot implementation,
+        ImmutableList<ImplementationSnapshot> additionalImplementations,
+        ImmutableSortedMap<String, ValueSnapshot> inputProperties,
+        ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFileProperties,
+        ImmutableSortedSet<String> outputPropertyNames,
+        @Nullable String cacheSalt
+    ) {
+        Hasher cacheKeyHasher = Hashing.newHasher();
+        if (!Hashing.defaultScheme().equals(Hashing.DEFAULT_HASH_SCHEME)) {
+            // Keep keys of different hash schemes apart, while keys of the default scheme stay the same
+            cacheKeyHasher.putString(Hashing.defaultScheme());
+        }
+        if (cacheSalt != null) {
+            cacheKeyHasher.putString(cacheSalt);
+        }
+        implementation.appendToHasher(cacheKeyHasher);
+        additionalImplementations.forEach(additionalImplementation -> additionalImplementation.appendToHasher(cacheKeyHasher));
+        inputProperties.forEach((propertyName, valueSnapshot) -> {
+            cacheKeyHasher.putString(propertyName);
+            valueSnapshot.appendToHasher(cacheKeyHasher);
+        });
+        inputFileProperties.forEach((propertyName, fingerprint) -> {
+            cacheKeyHasher.putString(propertyName);
+            cacheKeyHasher.putHash(fingerprint.getHash());
+        });
+        outputPropertyNames.forEach(cacheKeyHasher::putString);
+        return new DefaultBuildCacheKey(cacheKeyHasher.hash());
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.execution.history;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Keeps rolling statistics of how long units of work took to execute across builds.
+ *
+ * Only executions that actually ran the work are recorded, reused results like up-to-date or cached outputs are not.
+ */
+public interface ExecutionDurationStore {
+    ExecutionDurationStore NO_OP = new ExecutionDurationStore() {
+        @Override
+        public Optional<DurationStatistics> load(String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void record(String key, Duration duration) {
+        }
+    };
+
+    /**
+     * Returns the statistics for the work with the given unique id, if the work has been executed recently.
+     */
+    Optional<DurationStatistics> load(String key);
+
+    /**
+     * Records an execution of the work with the given unique id.
+     */
+    void record(String key, Duration duration);
+
+    /**
+     * Statistics over the most recent executions of a unit of work.
+     */
+    interface DurationStatistics {
+        /**
+         * The number of recent executions the statistics are calculated from.
+         */
+        int getSampleCount();
+
+        Duration getMean();
+
+        /**
+         * The duration that 90% of the recent executions did not exceed.
+         */
+        Duration getP90();
+
+        /**
+         * The variance of the recent execution durations, in square milliseconds.
+         */
+        double getVariance();
+    }
+}
@@ -19,9 +19,12 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
+import javax.annotation.Nullable;
+
 /**
  * Captures the state of the inputs of a {@link org.gradle.internal.execution.UnitOfWork}.
  */
@@ -45,4 +48,13 @@ public interface InputExecutionState extends ExecutionState {
      * The file inputs.
      */
     ImmutableSortedMap<String, ? extends FileCollectionFingerprint> getInputFileProperties();
+
+    /**
+     * A combined hash of the implementations, the non-file inputs and the file inputs.
+     *
+     * When the hashes of two states are the same, their inputs don't need to be compared in detail.
+     * Returns {@code null} if the hash cannot be calculated, e.g. because an implementation is unknown.
+     */
+    @Nullable
+    HashCode getInputsHash();
 }
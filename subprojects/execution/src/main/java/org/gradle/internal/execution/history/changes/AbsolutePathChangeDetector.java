@@ -16,14 +16,17 @@
 
 package org.gradle.internal.execution.history.changes;
 
+import com.google.common.collect.AbstractIterator;
 import org.gradle.internal.execution.history.changes.CompareStrategy.ChangeDetector;
 
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Compares by absolute paths and file contents. Order does not matter.
+ *
+ * The changes are determined one by one by looking up each path in the other map,
+ * so no memory is needed besides the two maps being compared.
  */
 public class AbsolutePathChangeDetector<S> implements ChangeDetector<S> {
 
@@ -37,35 +40,47 @@ public AbsolutePathChangeDetector(ItemComparator<S> itemComparator, CompareStrat
 
     @Override
     public boolean visitChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle, ChangeVisitor visitor) {
-        Set<String> unaccountedForPreviousItems = new LinkedHashSet<>(previous.keySet());
+        Iterator<Change> changes = iterateChangesSince(previous, current, propertyTitle);
+        while (changes.hasNext()) {
+            if (!visitor.visitChange(changes.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<Change> iterateChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle) {
+        return new AbstractIterator<Change>() {
+            private final Iterator<Map.Entry<String, S>> currentEntries = current.entrySet().iterator();
+            private final Iterator<Map.Entry<String, S>> previousEntries = previous.entrySet().iterator();
 
-        for (Map.Entry<String, S> currentEntry : current.entrySet()) {
-            String currentAbsolutePath = currentEntry.getKey();
-            S currentItem = currentEntry.getValue();
-            if (unaccountedForPreviousItems.remove(currentAbsolutePath)) {
-                S previousItem = previous.get(currentAbsolutePath);
-                if (!itemComparator.hasSameContent(previousItem, currentItem)) {
-                    Change modified = changeFactory.modified(currentAbsolutePath, propertyTitle, previousItem, currentItem);
-                    if (!visitor.visitChange(modified)) {
-                        return false;
+            @Override
+            protected Change computeNext() {
+                // First report added and modified files in the current order, then removed files in the previous order
+                while (currentEntries.hasNext()) {
+                    Map.Entry<String, S> currentEntry = currentEntries.next();
+                    String currentAbsolutePath = currentEntry.getKey();
+                    S currentItem = currentEntry.getValue();
+                    S previousItem = previous.get(currentAbsolutePath);
+                    if (previousItem == null) {
+                        return changeFactory.added(currentAbsolutePath, propertyTitle, currentItem);
                     }
+                    if (!itemComparator.hasSameContent(previousItem, currentItem)) {
+                        return changeFactory.modified(currentAbsolutePath, propertyTitle, previousItem, currentItem);
+                    }
+                    // else, unchanged; check next file
                 }
-                // else, unchanged; check next file
-            } else {
-                Change added = changeFactory.added(currentAbsolutePath, propertyTitle, currentItem);
-                if (!visitor.visitChange(added)) {
-                    return false;
+                while (previousEntries.hasNext()) {
+                    Map.Entry<String, S> previousEntry = previousEntries.next();
+                    String previousAbsolutePath = previousEntry.getKey();
+                    if (!current.containsKey(previousAbsolutePath)) {
+                        return changeFactory.removed(previousAbsolutePath, propertyTitle, previousEntry.getValue());
+                    }
                 }
+                return endOfData();
             }
-        }
-
-        for (String previousAbsolutePath : unaccountedForPreviousItems) {
-            Change removed = changeFactory.removed(previousAbsolutePath, propertyTitle, previous.get(previousAbsolutePath));
-            if (!visitor.visitChange(removed)) {
-                return false;
-            }
-        }
-        return true;
+        };
     }
 
     public interface ItemComparator<S> {
@@ -18,6 +18,11 @@
 
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.PackedFingerprintMap;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
 
 public abstract class AbstractFingerprintCompareStrategy extends CompareStrategy<FileCollectionFingerprint, FileSystemLocationFingerprint> implements FingerprintCompareStrategy {
 
@@ -54,7 +59,35 @@ public AbstractFingerprintCompareStrategy(ChangeDetector<FileSystemLocationFinge
         super(
             FileCollectionFingerprint::getFingerprints,
             FileCollectionFingerprint::getRootHashes,
-            new TrivialChangeDetector<>(ITEM_COMPARATOR, FINGERPRINT_CHANGE_FACTORY, changeDetector)
+            new PackedFingerprintChangeDetector(new TrivialChangeDetector<>(ITEM_COMPARATOR, FINGERPRINT_CHANGE_FACTORY, changeDetector))
         );
     }
+
+    /**
+     * Compares packed previous fingerprints with the current fingerprints without unpacking them,
+     * so that unchanged files with different root hashes, for example due to normalization, don't need to be unpacked.
+     */
+    private static class PackedFingerprintChangeDetector implements ChangeDetector<FileSystemLocationFingerprint> {
+        private final ChangeDetector<FileSystemLocationFingerprint> delegate;
+
+        public PackedFingerprintChangeDetector(ChangeDetector<FileSystemLocationFingerprint> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean visitChangesSince(Map<String, FileSystemLocationFingerprint> previous, Map<String, FileSystemLocationFingerprint> current, String propertyTitle, ChangeVisitor visitor) {
+            if (previous instanceof PackedFingerprintMap && ((PackedFingerprintMap) previous).hasSameFingerprints(current)) {
+                return true;
+            }
+            return delegate.visitChangesSince(previous, current, propertyTitle, visitor);
+        }
+
+        @Override
+        public Iterator<Change> iterateChangesSince(Map<String, FileSystemLocationFingerprint> previous, Map<String, FileSystemLocationFingerprint> current, String propertyTitle) {
+            if (previous instanceof PackedFingerprintMap && ((PackedFingerprintMap) previous).hasSameFingerprints(current)) {
+                return Collections.emptyIterator();
+            }
+            return delegate.iterateChangesSince(previous, current, propertyTitle);
+        }
+    }
 }
@@ -20,6 +20,8 @@
 import com.google.common.collect.Multimap;
 import org.gradle.internal.hash.HashCode;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -39,14 +41,42 @@ public CompareStrategy(
     }
 
     public boolean visitChangesSince(C previous, C current, String propertyTitle, ChangeVisitor visitor) {
-        if (Iterables.elementsEqual(rootHasher.apply(previous).entries(), rootHasher.apply(current).entries())) {
+        if (hasSameRootHashes(previous, current)) {
             return true;
         }
         return changeDetector.visitChangesSince(indexer.apply(previous), indexer.apply(current), propertyTitle, visitor);
     }
 
+    /**
+     * Returns the changes since the previous state.
+     *
+     * If the change detector supports it, the changes are determined one by one while iterating.
+     */
+    public Iterator<Change> iterateChangesSince(C previous, C current, String propertyTitle) {
+        if (hasSameRootHashes(previous, current)) {
+            return Collections.emptyIterator();
+        }
+        return changeDetector.iterateChangesSince(indexer.apply(previous), indexer.apply(current), propertyTitle);
+    }
+
+    private boolean hasSameRootHashes(C previous, C current) {
+        return Iterables.elementsEqual(rootHasher.apply(previous).entries(), rootHasher.apply(current).entries());
+    }
+
     public interface ChangeDetector<S> {
         boolean visitChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle, ChangeVisitor visitor);
+
+        /**
+         * Returns the changes since the previous state.
+         *
+         * By default, all changes are collected before returning.
+         * Detectors which can determine the changes one by one should override this, so the changes don't need to be held in memory.
+         */
+        default Iterator<Change> iterateChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle) {
+            CollectingChangeVisitor visitor = new CollectingChangeVisitor();
+            visitChangesSince(previous, current, propertyTitle, visitor);
+            return visitor.getChanges().iterator();
+        }
     }
 
     public interface ChangeFactory<S> {
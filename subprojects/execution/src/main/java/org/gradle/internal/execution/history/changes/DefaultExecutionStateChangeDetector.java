@@ -23,13 +23,38 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.PreviousExecutionState;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.impl.ClassImplementationSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
 
 import static org.gradle.internal.execution.history.impl.OutputSnapshotUtil.findOutputsStillPresentSincePreviousExecution;
 
 public class DefaultExecutionStateChangeDetector implements ExecutionStateChangeDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultExecutionStateChangeDetector.class);
+
+    private static final InputFileChanges NO_INPUT_FILE_CHANGES = new InputFileChanges() {
+        @Override
+        public boolean accept(ChangeVisitor visitor) {
+            return true;
+        }
+
+        @Override
+        public boolean accept(String propertyName, ChangeVisitor visitor) {
+            return true;
+        }
+
+        @Override
+        public Iterator<Change> iterateChanges(String propertyName) {
+            return Collections.emptyIterator();
+        }
+    };
+
     @Override
     public ExecutionStateChanges detectChanges(
         Describable executable,
@@ -37,44 +62,14 @@ public ExecutionStateChanges detectChanges(
         BeforeExecutionState thisExecution,
         IncrementalInputProperties incrementalInputProperties
     ) {
+        // When the combined hash of the inputs is the same, the inputs don't need to be compared in detail
+        HashCode previousInputsHash = lastExecution.getInputsHash();
+        boolean inputsUnchanged = previousInputsHash != null && previousInputsHash.equals(thisExecution.getInputsHash());
+
         // Capture changes in execution outcome
         ChangeContainer previousSuccessState = new PreviousSuccessChanges(
             lastExecution.isSuccessful());
 
-        // Capture changes to implementation
-
-        // After validation, the current implementations and previous implementations can't be unknown.
-        // Moreover, they need to come from an actual Class, not a lambda, since there isn't a way for a unit of work implementation to be a lambda.
-        ClassImplementationSnapshot currentImplementation = Cast.uncheckedNonnullCast(thisExecution.getImplementation());
-        ClassImplementationSnapshot previousImplementation = Cast.uncheckedNonnullCast(lastExecution.getImplementation());
-        ImmutableList<ImplementationSnapshot> currentAdditionalImplementations = Cast.uncheckedNonnullCast(thisExecution.getAdditionalImplementations());
-        ChangeContainer implementationChanges = new ImplementationChanges(
-            previousImplementation, lastExecution.getAdditionalImplementations(),
-            currentImplementation, currentAdditionalImplementations,
-            executable);
-
-        // Capture non-file input changes
-        ChangeContainer inputPropertyChanges = new PropertyChanges(
-            lastExecution.getInputProperties().keySet(),
-            thisExecution.getInputProperties().keySet(),
-            "Input",
-            executable);
-        ChangeContainer inputPropertyValueChanges = new InputValueChanges(
-            lastExecution.getInputProperties(),
-            thisExecution.getInputProperties(),
-            executable);
-
-        // Capture input files state
-        ChangeContainer inputFilePropertyChanges = new PropertyChanges(
-            lastExecution.getInputFileProperties().keySet(),
-            thisExecution.getInputFileProperties().keySet(),
-            "Input file",
-            executable);
-        InputFileChanges nonIncrementalInputFileChanges = incrementalInputProperties.nonIncrementalChanges(
-            lastExecution.getInputFileProperties(),
-            thisExecution.getInputFileProperties()
-        );
-
         // Capture output files state
         ChangeContainer outputFilePropertyChanges = new PropertyChanges(
             lastExecution.getOutputFilesProducedByWork().keySet(),
@@ -90,16 +85,60 @@ public ExecutionStateChanges detectChanges(
         );
 
         // Collect changes that would trigger a rebuild
-        ChangeContainer rebuildTriggeringChanges = errorHandling(executable, new SummarizingChangeContainer(
-            previousSuccessState,
-            implementationChanges,
-            inputPropertyChanges,
-            inputPropertyValueChanges,
-            outputFilePropertyChanges,
-            outputFileChanges,
-            inputFilePropertyChanges,
-            nonIncrementalInputFileChanges
-        ));
+        ChangeContainer rebuildTriggeringChanges;
+        if (inputsUnchanged) {
+            LOGGER.debug("Skipping detailed comparison of the inputs of {} as the combined hash of the inputs did not change", executable.getDisplayName());
+            rebuildTriggeringChanges = errorHandling(executable, new SummarizingChangeContainer(
+                previousSuccessState,
+                outputFilePropertyChanges,
+                outputFileChanges
+            ));
+        } else {
+            // Capture changes to implementation
+
+            // After validation, the current implementations and previous implementations can't be unknown.
+            // Moreover, they need to come from an actual Class, not a lambda, since there isn't a way for a unit of work implementation to be a lambda.
+            ClassImplementationSnapshot currentImplementation = Cast.uncheckedNonnullCast(thisExecution.getImplementation());
+            ClassImplementationSnapshot previousImplementation = Cast.uncheckedNonnullCast(lastExecution.getImplementation());
+            ImmutableList<ImplementationSnapshot> currentAdditionalImplementations = Cast.uncheckedNonnullCast(thisExecution.getAdditionalImplementations());
+            ChangeContainer implementationChanges = new ImplementationChanges(
+                previousImplementation, lastExecution.getAdditionalImplementations(),
+                currentImplementation, currentAdditionalImplementations,
+                executable);
+
+            // Capture non-file input changes
+            ChangeContainer inputPropertyChanges = new PropertyChanges(
+                lastExecution.getInputProperties().keySet(),
+                thisExecution.getInputProperties().keySet(),
+                "Input",
+                executable);
+            ChangeContainer inputPropertyValueChanges = new InputValueChanges(
+                lastExecution.getInputProperties(),
+                thisExecution.getInputProperties(),
+                executable);
+
+            // Capture input files state
+            ChangeContainer inputFilePropertyChanges = new PropertyChanges(
+                lastExecution.getInputFileProperties().keySet(),
+                thisExecution.getInputFileProperties().keySet(),
+                "Input file",
+                executable);
+            InputFileChanges nonIncrementalInputFileChanges = incrementalInputProperties.nonIncrementalChanges(
+                lastExecution.getInputFileProperties(),
+                thisExecution.getInputFileProperties()
+            );
+
+            rebuildTriggeringChanges = errorHandling(executable, new SummarizingChangeContainer(
+                previousSuccessState,
+                implementationChanges,
+                inputPropertyChanges,
+                inputPropertyValueChanges,
+                outputFilePropertyChanges,
+                outputFileChanges,
+                inputFilePropertyChanges,
+                nonIncrementalInputFileChanges
+            ));
+        }
         ImmutableList<String> rebuildReasons = collectChanges(rebuildTriggeringChanges);
 
         if (!rebuildReasons.isEmpty()) {
@@ -110,10 +149,12 @@ public ExecutionStateChanges detectChanges(
             );
         } else {
             // Collect incremental input changes
-            InputFileChanges directIncrementalInputFileChanges = incrementalInputProperties.incrementalChanges(
-                lastExecution.getInputFileProperties(),
-                thisExecution.getInputFileProperties()
-            );
+            InputFileChanges directIncrementalInputFileChanges = inputsUnchanged
+                ? NO_INPUT_FILE_CHANGES
+                : incrementalInputProperties.incrementalChanges(
+                    lastExecution.getInputFileProperties(),
+                    thisExecution.getInputFileProperties()
+                );
             InputFileChanges incrementalInputFileChanges = errorHandling(executable, caching(directIncrementalInputFileChanges));
             ImmutableList<String> incrementalInputFileChangeMessages = collectChanges(incrementalInputFileChanges);
             return ExecutionStateChanges.incremental(
@@ -160,6 +201,11 @@ public boolean accept(String propertyName, ChangeVisitor visitor) {
             return inputFileChangesDelegate.accept(propertyName, visitor);
         }
 
+        @Override
+        public Iterator<Change> iterateChanges(String propertyName) {
+            return inputFileChangesDelegate.iterateChanges(propertyName);
+        }
+
         @Override
         public boolean accept(ChangeVisitor visitor) {
             return changeContainerDelegate.accept(visitor);
@@ -19,6 +19,7 @@
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 
+import java.util.Iterator;
 import java.util.SortedMap;
 
 public class DefaultInputFileChanges extends AbstractFingerprintChanges implements InputFileChanges {
@@ -35,4 +36,12 @@ public boolean accept(String propertyName, ChangeVisitor visitor) {
         FingerprintCompareStrategy compareStrategy = determineCompareStrategy(currentFileCollectionFingerprint);
         return compareStrategy.visitChangesSince(previousFileCollectionFingerprint, currentFileCollectionFingerprint, TITLE, visitor);
     }
+
+    @Override
+    public Iterator<Change> iterateChanges(String propertyName) {
+        CurrentFileCollectionFingerprint currentFileCollectionFingerprint = current.get(propertyName);
+        FileCollectionFingerprint previousFileCollectionFingerprint = previous.get(propertyName);
+        FingerprintCompareStrategy compareStrategy = determineCompareStrategy(currentFileCollectionFingerprint);
+        return compareStrategy.iterateChangesSince(previousFileCollectionFingerprint, currentFileCollectionFingerprint, TITLE);
+    }
 }
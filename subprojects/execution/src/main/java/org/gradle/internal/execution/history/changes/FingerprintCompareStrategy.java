@@ -18,6 +18,8 @@
 
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 
+import java.util.Iterator;
+
 /**
  * Strategy to compare two {@link FileCollectionFingerprint}s.
  *
@@ -30,4 +32,11 @@ public interface FingerprintCompareStrategy {
      * @return Whether the {@link ChangeVisitor} is looking for further changes. See {@link ChangeVisitor#visitChange(Change)}.
      */
     boolean visitChangesSince(FileCollectionFingerprint previous, FileCollectionFingerprint current, String propertyTitle, ChangeVisitor visitor);
+
+    /**
+     * Returns the changes to file contents since the given fingerprint.
+     *
+     * Where possible, the changes are determined while iterating, so that they don't need to be held in memory.
+     */
+    Iterator<Change> iterateChangesSince(FileCollectionFingerprint previous, FileCollectionFingerprint current, String propertyTitle);
 }
@@ -50,9 +50,8 @@ public Iterable<FileChange> getFileChanges(Provider<? extends FileSystemLocation
 
     private Iterable<FileChange> getObjectFileChanges(Object parameter) {
         String propertyName = incrementalInputProperties.getPropertyNameFor(parameter);
-        CollectingChangeVisitor visitor = new CollectingChangeVisitor();
-        changes.accept(propertyName, visitor);
-        return Cast.uncheckedNonnullCast(visitor.getChanges());
+        // Determine the changes while the work iterates over them, so they don't need to be held in memory
+        return () -> Cast.uncheckedNonnullCast(changes.iterateChanges(propertyName));
     }
 
     @Override
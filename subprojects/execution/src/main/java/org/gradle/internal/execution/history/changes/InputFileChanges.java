@@ -18,9 +18,16 @@
 
 import org.gradle.api.InvalidUserDataException;
 
+import java.util.Iterator;
+
 public interface InputFileChanges extends ChangeContainer {
     boolean accept(String propertyName, ChangeVisitor visitor);
 
+    /**
+     * Returns the changes of the given property, determined while iterating where possible.
+     */
+    Iterator<Change> iterateChanges(String propertyName);
+
     InputFileChanges EMPTY = new InputFileChanges() {
 
         @Override
@@ -32,5 +39,10 @@ public boolean accept(ChangeVisitor visitor) {
         public boolean accept(String propertyName, ChangeVisitor visitor) {
             throw new InvalidUserDataException("Cannot query incremental changes for property " + propertyName + ": No incremental properties declared.");
         }
+
+        @Override
+        public Iterator<Change> iterateChanges(String propertyName) {
+            throw new InvalidUserDataException("Cannot query incremental changes for property " + propertyName + ": No incremental properties declared.");
+        }
     };
 }
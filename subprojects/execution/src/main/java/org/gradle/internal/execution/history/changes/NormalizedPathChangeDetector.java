@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.history.changes;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
 import org.gradle.internal.file.FileType;
@@ -47,28 +48,49 @@ public enum NormalizedPathChangeDetector implements CompareStrategy.ChangeDetect
      */
     @Override
     public boolean visitChangesSince(Map<String, FileSystemLocationFingerprint> previousFingerprints, Map<String, FileSystemLocationFingerprint> currentFingerprints, String propertyTitle, ChangeVisitor visitor) {
-        ListMultimap<FileSystemLocationFingerprint, FilePathWithType> unaccountedForPreviousFiles = getUnaccountedForPreviousFingerprints(previousFingerprints, currentFingerprints.entrySet());
-        ListMultimap<String, FilePathWithType> addedFilesByNormalizedPath = getAddedFilesByNormalizedPath(currentFingerprints, unaccountedForPreviousFiles, previousFingerprints.entrySet());
-
-        Iterator<Entry<FileSystemLocationFingerprint, FilePathWithType>> iterator = unaccountedForPreviousFiles.entries().stream().sorted(comparingByKey()).iterator();
-        while (iterator.hasNext()) {
-            Entry<FileSystemLocationFingerprint, FilePathWithType> entry = iterator.next();
-            FileSystemLocationFingerprint previousFingerprint = entry.getKey();
-            FilePathWithType pathWithType = entry.getValue();
-
-            Change change = getChange(propertyTitle, addedFilesByNormalizedPath, previousFingerprint, pathWithType);
-            if (!visitor.visitChange(change)) {
+        Iterator<Change> changes = iterateChangesSince(previousFingerprints, currentFingerprints, propertyTitle);
+        while (changes.hasNext()) {
+            if (!visitor.visitChange(changes.next())) {
                 return false;
             }
         }
+        return true;
+    }
 
-        for (Entry<String, FilePathWithType> entry : addedFilesByNormalizedPath.entries()) {
-            Change added = added(propertyTitle, entry);
-            if (!visitor.visitChange(added)) {
-                return false;
+    /**
+     * Returns the changes in the same order as {@link #visitChangesSince(Map, Map, String, ChangeVisitor)}.
+     *
+     * Matching entries by normalized path requires indexing the entries which are only in the previous or current fingerprint collection,
+     * which happens when iterating starts. The changes themselves are created one by one while iterating.
+     */
+    @Override
+    public Iterator<Change> iterateChangesSince(Map<String, FileSystemLocationFingerprint> previousFingerprints, Map<String, FileSystemLocationFingerprint> currentFingerprints, String propertyTitle) {
+        return new AbstractIterator<Change>() {
+            private ListMultimap<String, FilePathWithType> addedFilesByNormalizedPath;
+            private Iterator<Entry<FileSystemLocationFingerprint, FilePathWithType>> unaccountedForPreviousEntries;
+            private Iterator<Entry<String, FilePathWithType>> addedEntries;
+
+            @Override
+            protected Change computeNext() {
+                if (unaccountedForPreviousEntries == null) {
+                    ListMultimap<FileSystemLocationFingerprint, FilePathWithType> unaccountedForPreviousFiles = getUnaccountedForPreviousFingerprints(previousFingerprints, currentFingerprints.entrySet());
+                    addedFilesByNormalizedPath = getAddedFilesByNormalizedPath(currentFingerprints, unaccountedForPreviousFiles, previousFingerprints.entrySet());
+                    unaccountedForPreviousEntries = unaccountedForPreviousFiles.entries().stream().sorted(comparingByKey()).iterator();
+                }
+                // First report modified and removed files, then the remaining added files
+                if (unaccountedForPreviousEntries.hasNext()) {
+                    Entry<FileSystemLocationFingerprint, FilePathWithType> entry = unaccountedForPreviousEntries.next();
+                    return getChange(propertyTitle, addedFilesByNormalizedPath, entry.getKey(), entry.getValue());
+                }
+                if (addedEntries == null) {
+                    addedEntries = addedFilesByNormalizedPath.entries().iterator();
+                }
+                if (addedEntries.hasNext()) {
+                    return added(propertyTitle, addedEntries.next());
+                }
+                return endOfData();
             }
-        }
-        return true;
+        };
     }
 
     private static Change getChange(
@@ -16,9 +16,11 @@
 
 package org.gradle.internal.execution.history.changes;
 
+import com.google.common.collect.Iterators;
 import org.gradle.internal.execution.history.changes.CompareStrategy.ChangeDetector;
 import org.gradle.internal.execution.history.changes.CompareStrategy.ChangeFactory;
 
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -73,6 +75,20 @@ public boolean visitChangesSince(Map<String, S> previous, Map<String, S> current
         }
     }
 
+    @Override
+    public Iterator<Change> iterateChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle) {
+        if (current.isEmpty()) {
+            return Iterators.transform(previous.entrySet().iterator(), entry -> changeFactory.removed(entry.getKey(), propertyTitle, entry.getValue()));
+        }
+        if (previous.isEmpty()) {
+            return Iterators.transform(current.entrySet().iterator(), entry -> changeFactory.added(entry.getKey(), propertyTitle, entry.getValue()));
+        }
+        if (current.size() == 1 && previous.size() == 1) {
+            return ChangeDetector.super.iterateChangesSince(previous, current, propertyTitle);
+        }
+        return delegate.iterateChangesSince(previous, current, propertyTitle);
+    }
+
     private boolean reportAllAdded(ChangeVisitor visitor, Map<String, S> current, String propertyTitle) {
         for (Map.Entry<String, S> entry : current.entrySet()) {
             if (!visitor.visitChange(changeFactory.added(entry.getKey(), propertyTitle, entry.getValue()))) {
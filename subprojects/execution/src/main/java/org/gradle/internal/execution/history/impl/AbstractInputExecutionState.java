@@ -23,7 +23,7 @@
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
-public class AbstractInputExecutionState<C extends FileCollectionFingerprint> implements InputExecutionState {
+public abstract class AbstractInputExecutionState<C extends FileCollectionFingerprint> implements InputExecutionState {
     protected final ImplementationSnapshot implementation;
     protected final ImmutableList<ImplementationSnapshot> additionalImplementations;
     protected final ImmutableSortedMap<String, ValueSnapshot> inputProperties;
@@ -22,10 +22,13 @@
 import org.gradle.internal.execution.history.AfterExecutionState;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
+import javax.annotation.Nullable;
+
 public class DefaultAfterExecutionState implements AfterExecutionState {
     private final BeforeExecutionState beforeExecutionState;
     private final ImmutableSortedMap<String, FileSystemSnapshot> outputFileLocationSnapshots;
@@ -64,6 +67,12 @@ public ImmutableSortedMap<String, ValueSnapshot> getInputProperties() {
         return beforeExecutionState.getInputProperties();
     }
 
+    @Nullable
+    @Override
+    public HashCode getInputsHash() {
+        return beforeExecutionState.getInputsHash();
+    }
+
     @Override
     public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFilesProducedByWork() {
         return outputFileLocationSnapshots;
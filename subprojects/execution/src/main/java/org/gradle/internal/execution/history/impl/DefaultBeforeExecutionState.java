@@ -21,9 +21,13 @@
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.OverlappingOutputs;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+import org.gradle.internal.snapshot.impl.UnknownImplementationSnapshot;
 
 import javax.annotation.Nullable;
 import java.util.Optional;
@@ -32,6 +36,8 @@ public class DefaultBeforeExecutionState extends AbstractInputExecutionState<Cur
     @Nullable
     private final OverlappingOutputs detectedOutputOverlaps;
     private final ImmutableSortedMap<String, FileSystemSnapshot> outputFileLocationSnapshots;
+    private HashCode inputsHash;
+    private boolean inputsHashCalculated;
 
     public DefaultBeforeExecutionState(
         ImplementationSnapshot implementation,
@@ -60,4 +66,43 @@ public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFileLocationSnaps
     public Optional<OverlappingOutputs> getDetectedOverlappingOutputs() {
         return Optional.ofNullable(detectedOutputOverlaps);
     }
+
+    @Nullable
+    @Override
+    public HashCode getInputsHash() {
+        if (!inputsHashCalculated) {
+            inputsHash = calculateInputsHash();
+            inputsHashCalculated = true;
+        }
+        return inputsHash;
+    }
+
+    @Nullable
+    private HashCode calculateInputsHash() {
+        if (implementation instanceof UnknownImplementationSnapshot
+            || additionalImplementations.stream().anyMatch(UnknownImplementationSnapshot.class::isInstance)) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        implementation.appendToHasher(hasher);
+        hasher.putInt(additionalImplementations.size());
+        additionalImplementations.forEach(additionalImplementation -> additionalImplementation.appendToHasher(hasher));
+        hasher.putInt(inputProperties.size());
+        try {
+            inputProperties.forEach((propertyName, valueSnapshot) -> {
+                hasher.putString(propertyName);
+                valueSnapshot.appendToHasher(hasher);
+            });
+        } catch (UnsupportedOperationException e) {
+            // Some value has an unknown implementation, which is reported as a validation problem
+            return null;
+        }
+        hasher.putInt(inputFileProperties.size());
+        inputFileProperties.forEach((propertyName, fingerprint) -> {
+            hasher.putString(propertyName);
+            hasher.putString(fingerprint.getStrategyIdentifier());
+            hasher.putHash(fingerprint.getHash());
+        });
+        return hasher.hash();
+    }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.execution.history.ExecutionDurationStore;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.time.Clock;
+import org.gradle.util.internal.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the durations of the most recent executions of each unit of work in a single compact file next to the execution history.
+ *
+ * <p>
+ * The file is read when the store is first used, and the entries recorded during the build are merged into it when the store is closed.
+ * When writing the file, entries that haven't been recorded for {@link #MAX_AGE} are pruned,
+ * and only the {@link #MAX_ENTRIES} most recently recorded entries are kept, which bounds the size of the file.
+ * </p>
+ */
+public class DefaultExecutionDurationStore implements ExecutionDurationStore, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultExecutionDurationStore.class);
+
+    private static final String FILE_NAME = "executionDurations.bin";
+    private static final int FORMAT_VERSION = 1;
+    static final int MAX_SAMPLES = 20;
+    static final int MAX_ENTRIES = 10000;
+    static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+
+    private final Supplier<PersistentCache> cache;
+    private final Clock clock;
+    private Map<String, DurationSamples> entries;
+    private final Map<String, DurationSamples> recordedEntries = new HashMap<>();
+
+    public DefaultExecutionDurationStore(Supplier<PersistentCache> cache, Clock clock) {
+        this.cache = cache;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized Optional<DurationStatistics> load(String key) {
+        return Optional.ofNullable(getEntries().get(key))
+            .map(DurationSamples::toStatistics);
+    }
+
+    @Override
+    public synchronized void record(String key, Duration duration) {
+        DurationSamples samples = getEntries().get(key);
+        DurationSamples updated = (samples == null ? DurationSamples.EMPTY : samples).withSample(duration.toMillis(), clock.getCurrentTime());
+        entries.put(key, updated);
+        recordedEntries.put(key, updated);
+    }
+
+    private Map<String, DurationSamples> getEntries() {
+        if (entries == null) {
+            entries = cache.get().useCache(() -> read(getFile()));
+        }
+        return entries;
+    }
+
+    private File getFile() {
+        return new File(cache.get().getBaseDir(), FILE_NAME);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (recordedEntries.isEmpty()) {
+            return;
+        }
+        cache.get().useCache(() -> {
+            File file = getFile();
+            // Another build may have updated the file since it was read
+            Map<String, DurationSamples> merged = read(file);
+            merged.putAll(recordedEntries);
+            write(prune(merged), file);
+        });
+        recordedEntries.clear();
+    }
+
+    private List<Map.Entry<String, DurationSamples>> prune(Map<String, DurationSamples> entries) {
+        long oldestRecordingTime = clock.getCurrentTime() - MAX_AGE;
+        List<Map.Entry<String, DurationSamples>> retained = new ArrayList<>(entries.size());
+        for (Map.Entry<String, DurationSamples> entry : entries.entrySet()) {
+            if (entry.getValue().lastRecorded >= oldestRecordingTime) {
+                retained.add(entry);
+            }
+        }
+        if (retained.size() > MAX_ENTRIES) {
+            retained.sort(Comparator.comparingLong((Map.Entry<String, DurationSamples> entry) -> entry.getValue().lastRecorded).reversed());
+            return retained.subList(0, MAX_ENTRIES);
+        }
+        return retained;
+    }
+
+    private static Map<String, DurationSamples> read(File file) {
+        Map<String, DurationSamples> entries = new HashMap<>();
+        if (!file.isFile()) {
+            return entries;
+        }
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(file))) {
+            if (decoder.readSmallInt() != FORMAT_VERSION) {
+                return entries;
+            }
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                String key = decoder.readString();
+                entries.put(key, DurationSamples.read(decoder));
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read execution durations from {}, ignoring them", file, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static void write(List<Map.Entry<String, DurationSamples>> entries, File file) {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(tempFile))) {
+                encoder.writeSmallInt(FORMAT_VERSION);
+                encoder.writeSmallInt(entries.size());
+                for (Map.Entry<String, DurationSamples> entry : entries) {
+                    encoder.writeString(entry.getKey());
+                    entry.getValue().write(encoder);
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            GFileUtils.deleteQuietly(tempFile);
+            LOGGER.debug("Could not write execution durations to {}", file, e);
+        }
+    }
+
+    /**
+     * The durations of the most recent executions in milliseconds, oldest first.
+     */
+    private static class DurationSamples {
+        static final DurationSamples EMPTY = new DurationSamples(new long[0], 0);
+
+        private final long[] samples;
+        private final long lastRecorded;
+
+        DurationSamples(long[] samples, long lastRecorded) {
+            this.samples = samples;
+            this.lastRecorded = lastRecorded;
+        }
+
+        DurationSamples withSample(long millis, long recordedAt) {
+            int retained = Math.min(samples.length, MAX_SAMPLES - 1);
+            long[] updated = new long[retained + 1];
+            System.arraycopy(samples, samples.length - retained, updated, 0, retained);
+            updated[retained] = millis;
+            return new DurationSamples(updated, recordedAt);
+        }
+
+        DurationStatistics toStatistics() {
+            return DefaultDurationStatistics.of(samples);
+        }
+
+        void write(Encoder encoder) throws IOException {
+            encoder.writeLong(lastRecorded);
+            encoder.writeSmallInt(samples.length);
+            for (long sample : samples) {
+                encoder.writeSmallLong(sample);
+            }
+        }
+
+        static DurationSamples read(Decoder decoder) throws IOException {
+            long lastRecorded = decoder.readLong();
+            int count = decoder.readSmallInt();
+            long[] samples = new long[count];
+            for (int i = 0; i < count; i++) {
+                samples[i] = decoder.readSmallLong();
+            }
+            return new DurationSamples(samples, lastRecorded);
+        }
+    }
+
+    private static class DefaultDurationStatistics implements DurationStatistics {
+        private final int sampleCount;
+        private final Duration mean;
+        private final Duration p90;
+        private final double variance;
+
+        private DefaultDurationStatistics(int sampleCount, Duration mean, Duration p90, double variance) {
+            this.sampleCount = sampleCount;
+            this.mean = mean;
+            this.p90 = p90;
+            this.variance = variance;
+        }
+
+        static DurationStatistics of(long[] samples) {
+            double sum = 0;
+            for (long sample : samples) {
+                sum += sample;
+            }
+            double mean = sum / samples.length;
+            double squaredDifferences = 0;
+            for (long sample : samples) {
+                squaredDifferences += (sample - mean) * (sample - mean);
+            }
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            // Nearest-rank percentile
+            long p90 = sorted[(int) Math.ceil(0.9 * sorted.length) - 1];
+            return new DefaultDurationStatistics(samples.length, Duration.ofMillis(Math.round(mean)), Duration.ofMillis(p90), squaredDifferences / samples.length);
+        }
+
+        @Override
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        @Override
+        public Duration getMean() {
+            return mean;
+        }
+
+        @Override
+        public Duration getP90() {
+            return p90;
+        }
+
+        @Override
+        public double getVariance() {
+            return variance;
+        }
+    }
+}
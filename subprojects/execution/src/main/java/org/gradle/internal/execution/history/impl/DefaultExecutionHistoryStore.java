@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.history.impl;
 
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Interner;
 import org.gradle.cache.CacheDecorator;
@@ -28,8 +29,12 @@
 import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.PackedFingerprintMap;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -39,6 +44,7 @@
 public class DefaultExecutionHistoryStore implements ExecutionHistoryStore {
 
     private final IndexedCache<String, PreviousExecutionState> store;
+    private final Interner<String> stringInterner;
 
     public DefaultExecutionHistoryStore(
         Supplier<PersistentCache> cache,
@@ -52,6 +58,7 @@ public DefaultExecutionHistoryStore(
             classLoaderHasher
         );
 
+        this.stringInterner = stringInterner;
         CacheDecorator inMemoryCacheDecorator = inMemoryCacheDecoratorFactory.decorator(10000, false);
         this.store = cache.get().createIndexedCache(
             IndexedCacheParameters.of("executionHistory", String.class, serializer)
@@ -71,7 +78,8 @@ public void store(String key, boolean successful, AfterExecutionState executionS
             executionState.getImplementation(),
             executionState.getAdditionalImplementations(),
             executionState.getInputProperties(),
-            prepareForSerialization(executionState.getInputFileProperties()),
+            prepareForSerialization(executionState.getInputFileProperties(), this::packFingerprints),
+            executionState.getInputsHash(),
             executionState.getOutputFilesProducedByWork(),
             successful
         ));
@@ -82,10 +90,24 @@ public void remove(String key) {
         store.remove(key);
     }
 
-    private static ImmutableSortedMap<String, FileCollectionFingerprint> prepareForSerialization(ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprints) {
+    /**
+     * The stored state is kept in memory, so the fingerprints are packed to reduce its footprint.
+     */
+    private FileCollectionFingerprint packFingerprints(Map<String, FileSystemLocationFingerprint> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash) {
+        return new SerializableFileCollectionFingerprint(PackedFingerprintMap.of(fingerprints, stringInterner), rootHashes, strategyConfigurationHash);
+    }
+
+    static ImmutableSortedMap<String, FileCollectionFingerprint> prepareForSerialization(ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprints) {
+        return prepareForSerialization(fingerprints, SerializableFileCollectionFingerprint::new);
+    }
+
+    private static ImmutableSortedMap<String, FileCollectionFingerprint> prepareForSerialization(
+        ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprints,
+        CurrentFileCollectionFingerprint.ArchivedFileCollectionFingerprintFactory factory
+    ) {
         return copyOfSorted(transformValues(
             fingerprints,
-            value -> value.archive(SerializableFileCollectionFingerprint::new)
+            value -> value.archive(factory)
         ));
     }
 }
@@ -21,11 +21,16 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
+import javax.annotation.Nullable;
+
 public class DefaultPreviousExecutionState extends AbstractInputExecutionState<FileCollectionFingerprint> implements PreviousExecutionState {
+    @Nullable
+    private final HashCode inputsHash;
     private final ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork;
     private final OriginMetadata originMetadata;
     private final boolean successful;
@@ -36,15 +41,23 @@ public DefaultPreviousExecutionState(
         ImmutableList<ImplementationSnapshot> additionalImplementations,
         ImmutableSortedMap<String, ValueSnapshot> inputProperties,
         ImmutableSortedMap<String, FileCollectionFingerprint> inputFileProperties,
+        @Nullable HashCode inputsHash,
         ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork,
         boolean successful
     ) {
         super(implementation, additionalImplementations, inputProperties, inputFileProperties);
+        this.inputsHash = inputsHash;
         this.outputFilesProducedByWork = outputFilesProducedByWork;
         this.originMetadata = originMetadata;
         this.successful = successful;
     }
 
+    @Nullable
+    @Override
+    public HashCode getInputsHash() {
+        return inputsHash;
+    }
+
     @Override
     public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFilesProducedByWork() {
         return outputFilesProducedByWork;
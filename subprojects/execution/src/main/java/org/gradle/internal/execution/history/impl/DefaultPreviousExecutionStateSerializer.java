@@ -23,9 +23,11 @@
 import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
@@ -33,6 +35,7 @@
 import org.gradle.internal.snapshot.impl.ImplementationSnapshotSerializer;
 import org.gradle.internal.snapshot.impl.SnapshotSerializer;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.Map;
 
@@ -41,6 +44,7 @@ public class DefaultPreviousExecutionStateSerializer extends AbstractSerializer<
     private final Serializer<FileSystemSnapshot> fileSystemSnapshotSerializer;
     private final Serializer<ImplementationSnapshot> implementationSnapshotSerializer;
     private final Serializer<ValueSnapshot> valueSnapshotSerializer;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
 
     public DefaultPreviousExecutionStateSerializer(
         Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer,
@@ -55,24 +59,12 @@ public DefaultPreviousExecutionStateSerializer(
 
     @Override
     public PreviousExecutionState read(Decoder decoder) throws Exception {
-        OriginMetadata originMetadata = new OriginMetadata(
-            decoder.readString(),
-            Duration.ofMillis(decoder.readLong())
-        );
-
-        ImplementationSnapshot taskImplementation = implementationSnapshotSerializer.read(decoder);
-
-        // We can't use an immutable list here because some hashes can be null
-        int taskActionsCount = decoder.readSmallInt();
-        ImmutableList.Builder<ImplementationSnapshot> taskActionImplementationsBuilder = ImmutableList.builder();
-        for (int j = 0; j < taskActionsCount; j++) {
-            ImplementationSnapshot actionImpl = implementationSnapshotSerializer.read(decoder);
-            taskActionImplementationsBuilder.add(actionImpl);
-        }
-        ImmutableList<ImplementationSnapshot> taskActionImplementations = taskActionImplementationsBuilder.build();
-
+        OriginMetadata originMetadata = readOriginMetadata(decoder);
+        ImplementationSnapshot taskImplementation = readImplementation(decoder);
+        ImmutableList<ImplementationSnapshot> taskActionImplementations = readAdditionalImplementations(decoder);
         ImmutableSortedMap<String, ValueSnapshot> inputProperties = readInputProperties(decoder);
         ImmutableSortedMap<String, FileCollectionFingerprint> inputFilesFingerprints = readFingerprints(decoder);
+        HashCode inputsHash = readInputsHash(decoder);
         ImmutableSortedMap<String, FileSystemSnapshot> outputFilesSnapshots = readSnapshots(decoder);
 
         boolean successful = decoder.readBoolean();
@@ -83,6 +75,7 @@ public PreviousExecutionState read(Decoder decoder) throws Exception {
             taskActionImplementations,
             inputProperties,
             inputFilesFingerprints,
+            inputsHash,
             outputFilesSnapshots,
             successful
         );
@@ -90,22 +83,53 @@ public PreviousExecutionState read(Decoder decoder) throws Exception {
 
     @Override
     public void write(Encoder encoder, PreviousExecutionState execution) throws Exception {
-        OriginMetadata originMetadata = execution.getOriginMetadata();
+        writeOriginMetadata(encoder, execution.getOriginMetadata());
+        writeImplementation(encoder, execution.getImplementation());
+        writeAdditionalImplementations(encoder, execution.getAdditionalImplementations());
+        writeInputProperties(encoder, execution.getInputProperties());
+        writeFingerprints(encoder, execution.getInputFileProperties());
+        writeInputsHash(encoder, execution.getInputsHash());
+        writeSnapshots(encoder, execution.getOutputFilesProducedByWork());
+
+        encoder.writeBoolean(execution.isSuccessful());
+    }
+
+    public OriginMetadata readOriginMetadata(Decoder decoder) throws Exception {
+        return new OriginMetadata(
+            decoder.readString(),
+            Duration.ofMillis(decoder.readLong())
+        );
+    }
+
+    public void writeOriginMetadata(Encoder encoder, OriginMetadata originMetadata) throws Exception {
         encoder.writeString(originMetadata.getBuildInvocationId());
         encoder.writeLong(originMetadata.getExecutionTime().toMillis());
+    }
+
+    public ImplementationSnapshot readImplementation(Decoder decoder) throws Exception {
+        return implementationSnapshotSerializer.read(decoder);
+    }
 
-        implementationSnapshotSerializer.write(encoder, execution.getImplementation());
-        ImmutableList<ImplementationSnapshot> additionalImplementations = execution.getAdditionalImplementations();
+    public void writeImplementation(Encoder encoder, ImplementationSnapshot implementation) throws Exception {
+        implementationSnapshotSerializer.write(encoder, implementation);
+    }
+
+    public ImmutableList<ImplementationSnapshot> readAdditionalImplementations(Decoder decoder) throws Exception {
+        // We can't use an immutable list here because some hashes can be null
+        int taskActionsCount = decoder.readSmallInt();
+        ImmutableList.Builder<ImplementationSnapshot> taskActionImplementationsBuilder = ImmutableList.builder();
+        for (int j = 0; j < taskActionsCount; j++) {
+            ImplementationSnapshot actionImpl = implementationSnapshotSerializer.read(decoder);
+            taskActionImplementationsBuilder.add(actionImpl);
+        }
+        return taskActionImplementationsBuilder.build();
+    }
+
+    public void writeAdditionalImplementations(Encoder encoder, ImmutableList<ImplementationSnapshot> additionalImplementations) throws Exception {
         encoder.writeSmallInt(additionalImplementations.size());
         for (ImplementationSnapshot actionImpl : additionalImplementations) {
             implementationSnapshotSerializer.write(encoder, actionImpl);
         }
-
-        writeInputProperties(encoder, execution.getInputProperties());
-        writeFingerprints(encoder, execution.getInputFileProperties());
-        writeSnapshots(encoder, execution.getOutputFilesProducedByWork());
-
-        encoder.writeBoolean(execution.isSuccessful());
     }
 
     public ImmutableSortedMap<String, ValueSnapshot> readInputProperties(Decoder decoder) throws Exception {
@@ -132,7 +156,7 @@ public void writeInputProperties(Encoder encoder, ImmutableMap<String, ValueSnap
         }
     }
 
-    private ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(Decoder decoder) throws Exception {
+    public ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(Decoder decoder) throws Exception {
         int count = decoder.readSmallInt();
         ImmutableSortedMap.Builder<String, FileCollectionFingerprint> builder = ImmutableSortedMap.naturalOrder();
         for (int fingerprintIdx = 0; fingerprintIdx < count; fingerprintIdx++) {
@@ -143,7 +167,7 @@ private ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(D
         return builder.build();
     }
 
-    private void writeFingerprints(Encoder encoder, Map<String, FileCollectionFingerprint> fingerprints) throws Exception {
+    public void writeFingerprints(Encoder encoder, Map<String, FileCollectionFingerprint> fingerprints) throws Exception {
         encoder.writeSmallInt(fingerprints.size());
         for (Map.Entry<String, FileCollectionFingerprint> entry : fingerprints.entrySet()) {
             encoder.writeString(entry.getKey());
@@ -151,7 +175,19 @@ private void writeFingerprints(Encoder encoder, Map<String, FileCollectionFinger
         }
     }
 
-    private ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder decoder) throws Exception {
+    @Nullable
+    public HashCode readInputsHash(Decoder decoder) throws Exception {
+        return decoder.readBoolean() ? hashCodeSerializer.read(decoder) : null;
+    }
+
+    public void writeInputsHash(Encoder encoder, @Nullable HashCode inputsHash) throws Exception {
+        encoder.writeBoolean(inputsHash != null);
+        if (inputsHash != null) {
+            hashCodeSerializer.write(encoder, inputsHash);
+        }
+    }
+
+    public ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder decoder) throws Exception {
         int count = decoder.readSmallInt();
         ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
         for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
@@ -162,7 +198,7 @@ private ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder dec
         return builder.build();
     }
 
-    private void writeSnapshots(Encoder encoder, ImmutableSortedMap<String, FileSystemSnapshot> snapshots) throws Exception {
+    public void writeSnapshots(Encoder encoder, ImmutableSortedMap<String, FileSystemSnapshot> snapshots) throws Exception {
         encoder.writeSmallInt(snapshots.size());
         for (Map.Entry<String, FileSystemSnapshot> entry : snapshots.entrySet()) {
             encoder.writeString(entry.getKey());
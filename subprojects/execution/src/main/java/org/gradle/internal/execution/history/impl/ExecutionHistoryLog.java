@@ -0,0 +1,362 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.util.internal.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only log of binary entries, mapped into memory, with an in-memory index from each key to its latest entry.
+ *
+ * <p>
+ * Each generation of the log is stored in its own file.
+ * The file starts with a header, which records how far the entries in the file have been written, followed by the entries.
+ * Storing or removing an entry appends a new entry to the end of the file, and the header is only updated once the entry has been written.
+ * Entries appended by other processes are added to the index the next time the log is used.
+ * </p>
+ *
+ * <p>
+ * Compacting the log copies the latest entry of each key to a file for the next generation, and marks the current file as superseded,
+ * so that other processes switch to the new file the next time they use the log.
+ * </p>
+ *
+ * <p>
+ * The log must only be used while holding the cross-process lock of the cache which contains it.
+ * </p>
+ */
+public class ExecutionHistoryLog implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionHistoryLog.class);
+
+    private static final int MAGIC = 0x47484c47;
+    private static final int FORMAT_VERSION = 2;
+    private static final int STATE_CURRENT = 0;
+    private static final int STATE_SUPERSEDED = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int STATE_OFFSET = 8;
+    private static final int END_OFFSET = 12;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int REMOVED = -1;
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+    private static final int MIN_COMPACTION_SIZE = 4 * 1024 * 1024;
+
+    private final File dir;
+    private final String name;
+    private final Pattern fileNamePattern;
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private long generation;
+    private File file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int indexedEnd;
+    private long liveBytes;
+
+    public ExecutionHistoryLog(File dir, String name) {
+        this.dir = dir;
+        this.name = name;
+        this.fileNamePattern = Pattern.compile(Pattern.quote(name) + "-(\\d+)\\.log");
+    }
+
+    /**
+     * Returns the value of the latest entry for the given key, or null when there is none.
+     */
+    @Nullable
+    public synchronized byte[] get(String key) {
+        sync();
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        int keyLength = buffer.getInt(offset);
+        int valuePosition = offset + 4 + keyLength;
+        byte[] value = new byte[buffer.getInt(valuePosition)];
+        read(valuePosition + 4, value);
+        return value;
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        sync();
+        append(key, value);
+    }
+
+    public synchronized void remove(String key) {
+        sync();
+        if (index.containsKey(key)) {
+            append(key, null);
+        }
+    }
+
+    /**
+     * Returns true when most of the log is taken up by entries which have been replaced or removed.
+     */
+    public synchronized boolean isCompactionRequired() {
+        sync();
+        return indexedEnd > MIN_COMPACTION_SIZE && indexedEnd - HEADER_SIZE > 2 * liveBytes;
+    }
+
+    /**
+     * Writes the latest entry of each key to a new generation of the log.
+     */
+    public synchronized void compact() {
+        sync();
+        int previousSize = indexedEnd;
+        writeNextGeneration(true);
+        LOGGER.debug("Compacted {} from {} to {} bytes", file, previousSize, indexedEnd);
+    }
+
+    private void sync() {
+        if (buffer == null) {
+            open();
+        } else if (buffer.getInt(STATE_OFFSET) == STATE_SUPERSEDED) {
+            closeFile();
+            open();
+        }
+        int end = buffer.getInt(END_OFFSET);
+        if (end > buffer.capacity()) {
+            // Another process has grown the file
+            map(end);
+        }
+        scan(end);
+    }
+
+    private void open() {
+        long latestGeneration = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File candidate : files) {
+                if (candidate.getName().endsWith(".tmp") && candidate.getName().startsWith(name + "-")) {
+                    // Left behind by a process that stopped while compacting
+                    GFileUtils.deleteQuietly(candidate);
+                    continue;
+                }
+                Matcher matcher = fileNamePattern.matcher(candidate.getName());
+                if (matcher.matches()) {
+                    latestGeneration = Math.max(latestGeneration, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        if (latestGeneration == 0) {
+            generation = 0;
+            writeNextGeneration(false);
+            return;
+        }
+        openGeneration(latestGeneration);
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION || buffer.getInt(STATE_OFFSET) != STATE_CURRENT) {
+            LOGGER.warn("Invalid execution history log {}, discarding its entries.", file);
+            writeNextGeneration(false);
+            return;
+        }
+        deletePreviousGenerations();
+    }
+
+    private void openGeneration(long generation) {
+        this.generation = generation;
+        this.file = generationFile(generation);
+        index.clear();
+        indexedEnd = HEADER_SIZE;
+        liveBytes = 0;
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            map((int) Math.min(Integer.MAX_VALUE, Math.max(INITIAL_CAPACITY, channel.size())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open execution history log " + file, e);
+        }
+    }
+
+    /**
+     * Writes the next generation of the log, optionally with the latest entry of each key, and switches to it.
+     */
+    private void writeNextGeneration(boolean retainEntries) {
+        long nextGeneration = generation + 1;
+        File nextFile = generationFile(nextGeneration);
+        File tmpFile = new File(dir, nextFile.getName() + ".tmp");
+        try {
+            try (RandomAccessFile output = new RandomAccessFile(tmpFile, "rw")) {
+                FileChannel outputChannel = output.getChannel();
+                long position = HEADER_SIZE;
+                if (retainEntries) {
+                    for (int offset : index.values()) {
+                        ByteBuffer entry = buffer.duplicate();
+                        entry.position(offset);
+                        entry.limit(offset + entrySize(offset));
+                        while (entry.hasRemaining()) {
+                            position += outputChannel.write(entry, position);
+                        }
+                    }
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(STATE_CURRENT).putInt((int) position);
+                header.flip();
+                outputChannel.write(header, 0);
+                outputChannel.force(true);
+            }
+            Files.move(tmpFile.toPath(), nextFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(tmpFile);
+            throw new UncheckedIOException("Could not write execution history log " + nextFile, e);
+        }
+        if (buffer != null) {
+            buffer.putInt(STATE_OFFSET, STATE_SUPERSEDED);
+            closeFile();
+        }
+        openGeneration(nextGeneration);
+        scan(buffer.getInt(END_OFFSET));
+        deletePreviousGenerations();
+    }
+
+    private void deletePreviousGenerations() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File candidate : files) {
+            Matcher matcher = fileNamePattern.matcher(candidate.getName());
+            if (matcher.matches() && Long.parseLong(matcher.group(1)) < generation) {
+                // May fail while the file is still mapped, in which case it is deleted when the next generation is written
+                GFileUtils.deleteQuietly(candidate);
+            }
+        }
+    }
+
+    /**
+     * Adds the entries between the indexed end and the given end to the index.
+     */
+    private void scan(int end) {
+        int offset = indexedEnd;
+        while (offset < end) {
+            int keyLength = buffer.getInt(offset);
+            if (keyLength < 0 || (long) offset + 8 + keyLength > end) {
+                discardCorruptedEntries(offset);
+                return;
+            }
+            int valueLength = buffer.getInt(offset + 4 + keyLength);
+            if (valueLength < REMOVED || (long) offset + 8 + keyLength + Math.max(0, valueLength) > end) {
+                discardCorruptedEntries(offset);
+                return;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            read(offset + 4, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            Integer previous = valueLength == REMOVED ? index.remove(key) : index.put(key, offset);
+            if (previous != null) {
+                liveBytes -= entrySize(previous);
+            }
+            int size = entrySize(offset);
+            if (valueLength != REMOVED) {
+                liveBytes += size;
+            }
+            offset += size;
+        }
+        indexedEnd = offset;
+    }
+
+    private void discardCorruptedEntries(int offset) {
+        LOGGER.warn("Invalid entry at offset {} in execution history log {}, discarding its entries.", offset, file);
+        writeNextGeneration(false);
+    }
+
+    private void append(String key, @Nullable byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long size = 8L + keyBytes.length + (value == null ? 0 : value.length);
+        long end = indexedEnd + size;
+        if (end > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Execution history log " + file + " is full.");
+        }
+        if (end > buffer.capacity()) {
+            map((int) Math.min(Integer.MAX_VALUE, Math.max(end, 2L * buffer.capacity())));
+        }
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(indexedEnd);
+        entry.putInt(keyBytes.length);
+        entry.put(keyBytes);
+        if (value == null) {
+            entry.putInt(REMOVED);
+        } else {
+            entry.putInt(value.length);
+            entry.put(value);
+        }
+        // Only make the entry visible once it has been written completely
+        buffer.putInt(END_OFFSET, (int) end);
+        scan((int) end);
+    }
+
+    private int entrySize(int offset) {
+        int keyLength = buffer.getInt(offset);
+        int valueLength = buffer.getInt(offset + 4 + keyLength);
+        return 8 + keyLength + Math.max(0, valueLength);
+    }
+
+    private void read(int offset, byte[] destination) {
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(destination);
+    }
+
+    private void map(int capacity) {
+        try {
+            // Mapping a region beyond the end of the file extends the file
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map execution history log " + file, e);
+        }
+    }
+
+    private File generationFile(long generation) {
+        return new File(dir, name + "-" + generation + ".log");
+    }
+
+    private void closeFile() {
+        // The mapped buffer is released once it is garbage collected
+        buffer = null;
+        index.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close execution history log " + file, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeFile();
+    }
+}
@@ -17,12 +17,12 @@
 package org.gradle.internal.execution.history.impl;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
 import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint;
 import org.gradle.internal.fingerprint.impl.IgnoredPathFileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.PackedFingerprintMap;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
@@ -50,9 +50,9 @@ public FingerprintMapSerializer(Interner<String> stringInterner) {
     @Override
     public Map<String, FileSystemLocationFingerprint> read(Decoder decoder) throws IOException {
         int fingerprintCount = decoder.readSmallInt();
-        ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builderWithExpectedSize(fingerprintCount);
+        PackedFingerprintMap.Builder fingerprints = PackedFingerprintMap.builder(fingerprintCount, stringInterner);
         for (int i = 0; i < fingerprintCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
+            String absolutePath = decoder.readString();
             FileSystemLocationFingerprint fingerprint = readFingerprint(decoder);
             fingerprints.put(absolutePath, fingerprint);
         }
@@ -67,7 +67,7 @@ private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IO
         switch (fingerprintKind) {
             case DEFAULT_NORMALIZATION:
                 String normalizedPath = decoder.readString();
-                return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHash);
+                return new DefaultFileSystemLocationFingerprint(normalizedPath, fileType, contentHash);
             case IGNORED_PATH_NORMALIZATION:
                 return IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHash);
             default:
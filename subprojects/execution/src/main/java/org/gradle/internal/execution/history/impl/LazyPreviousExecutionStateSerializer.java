@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.execution.history.PreviousExecutionState;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.lazy.Lazy;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.ValueSnapshot;
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Serializes the previous execution state so that the input file fingerprints and the output file snapshots
+ * are only deserialized when they are first used.
+ */
+public class LazyPreviousExecutionStateSerializer extends AbstractSerializer<PreviousExecutionState> {
+    private final DefaultPreviousExecutionStateSerializer serializer;
+
+    public LazyPreviousExecutionStateSerializer(DefaultPreviousExecutionStateSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public PreviousExecutionState read(Decoder decoder) throws Exception {
+        OriginMetadata originMetadata = serializer.readOriginMetadata(decoder);
+        ImplementationSnapshot implementation = serializer.readImplementation(decoder);
+        ImmutableList<ImplementationSnapshot> additionalImplementations = serializer.readAdditionalImplementations(decoder);
+        ImmutableSortedMap<String, ValueSnapshot> inputProperties = serializer.readInputProperties(decoder);
+        HashCode inputsHash = serializer.readInputsHash(decoder);
+        boolean successful = decoder.readBoolean();
+        byte[] inputFileProperties = decoder.readBinary();
+        byte[] outputFilesProducedByWork = decoder.readBinary();
+        return new LazyPreviousExecutionState(
+            originMetadata,
+            implementation,
+            additionalImplementations,
+            inputProperties,
+            Lazy.locking().of(() -> decode(inputFileProperties, serializer::readFingerprints)),
+            inputsHash,
+            Lazy.locking().of(() -> decode(outputFilesProducedByWork, serializer::readSnapshots)),
+            successful
+        );
+    }
+
+    @Override
+    public void write(Encoder encoder, PreviousExecutionState execution) throws Exception {
+        serializer.writeOriginMetadata(encoder, execution.getOriginMetadata());
+        serializer.writeImplementation(encoder, execution.getImplementation());
+        serializer.writeAdditionalImplementations(encoder, execution.getAdditionalImplementations());
+        serializer.writeInputProperties(encoder, execution.getInputProperties());
+        serializer.writeInputsHash(encoder, execution.getInputsHash());
+        encoder.writeBoolean(execution.isSuccessful());
+        encoder.writeBinary(encode(sectionEncoder -> serializer.writeFingerprints(sectionEncoder, execution.getInputFileProperties())));
+        encoder.writeBinary(encode(sectionEncoder -> serializer.writeSnapshots(sectionEncoder, execution.getOutputFilesProducedByWork())));
+    }
+
+    private static byte[] encode(SectionWriter writer) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(bytes)) {
+            writer.write(encoder);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T decode(byte[] bytes, SectionReader<T> reader) {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(bytes))) {
+            return reader.read(decoder);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private interface SectionWriter {
+        void write(Encoder encoder) throws Exception;
+    }
+
+    private interface SectionReader<T> {
+        T read(Decoder decoder) throws Exception;
+    }
+
+    private static class LazyPreviousExecutionState implements PreviousExecutionState {
+        private final OriginMetadata originMetadata;
+        private final ImplementationSnapshot implementation;
+        private final ImmutableList<ImplementationSnapshot> additionalImplementations;
+        private final ImmutableSortedMap<String, ValueSnapshot> inputProperties;
+        private final Lazy<ImmutableSortedMap<String, FileCollectionFingerprint>> inputFileProperties;
+        @Nullable
+        private final HashCode inputsHash;
+        private final Lazy<ImmutableSortedMap<String, FileSystemSnapshot>> outputFilesProducedByWork;
+        private final boolean successful;
+
+        public LazyPreviousExecutionState(
+            OriginMetadata originMetadata,
+            ImplementationSnapshot implementation,
+            ImmutableList<ImplementationSnapshot> additionalImplementations,
+            ImmutableSortedMap<String, ValueSnapshot> inputProperties,
+            Lazy<ImmutableSortedMap<String, FileCollectionFingerprint>> inputFileProperties,
+            @Nullable HashCode inputsHash,
+            Lazy<ImmutableSortedMap<String, FileSystemSnapshot>> outputFilesProducedByWork,
+            boolean successful
+        ) {
+            this.originMetadata = originMetadata;
+            this.implementation = implementation;
+            this.additionalImplementations = additionalImplementations;
+            this.inputProperties = inputProperties;
+            this.inputFileProperties = inputFileProperties;
+            this.inputsHash = inputsHash;
+            this.outputFilesProducedByWork = outputFilesProducedByWork;
+            this.successful = successful;
+        }
+
+        @Override
+        public OriginMetadata getOriginMetadata() {
+            return originMetadata;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+        @Override
+        public ImplementationSnapshot getImplementation() {
+            return implementation;
+        }
+
+        @Override
+        public ImmutableList<ImplementationSnapshot> getAdditionalImplementations() {
+            return additionalImplementations;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, ValueSnapshot> getInputProperties() {
+            return inputProperties;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, FileCollectionFingerprint> getInputFileProperties() {
+            return inputFileProperties.get();
+        }
+
+        @Nullable
+        @Override
+        public HashCode getInputsHash() {
+            return inputsHash;
+        }
+
+        @Override
+        public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFilesProducedByWork() {
+            return outputFilesProducedByWork.get();
+        }
+    }
+}
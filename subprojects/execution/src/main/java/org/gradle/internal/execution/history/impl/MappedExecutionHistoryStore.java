@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.Interner;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.execution.history.AfterExecutionState;
+import org.gradle.internal.execution.history.ExecutionHistoryStore;
+import org.gradle.internal.execution.history.PreviousExecutionState;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Stores the execution history in an {@link ExecutionHistoryLog}, instead of in an indexed cache.
+ *
+ * <p>
+ * Loading an entry only copies its bytes out of the memory-mapped log, without walking a B-tree,
+ * and the input file fingerprints and output file snapshots are only deserialized when they are used.
+ * When most of the log is taken up by replaced entries, it is compacted in the background.
+ * </p>
+ */
+public class MappedExecutionHistoryStore implements ExecutionHistoryStore, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedExecutionHistoryStore.class);
+
+    private final Supplier<PersistentCache> cache;
+    private final Serializer<PreviousExecutionState> serializer;
+    private final ExecutionHistoryLog log;
+    private final ManagedExecutor compactionExecutor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    public MappedExecutionHistoryStore(
+        Supplier<PersistentCache> cache,
+        Interner<String> stringInterner,
+        ClassLoaderHierarchyHasher classLoaderHasher,
+        ExecutorFactory executorFactory
+    ) {
+        this.cache = cache;
+        this.serializer = new LazyPreviousExecutionStateSerializer(new DefaultPreviousExecutionStateSerializer(
+            new FileCollectionFingerprintSerializer(stringInterner),
+            new FileSystemSnapshotSerializer(stringInterner),
+            classLoaderHasher
+        ));
+        this.log = new ExecutionHistoryLog(cache.get().getBaseDir(), "executionHistory");
+        this.compactionExecutor = executorFactory.create("Execution history compaction", 1);
+    }
+
+    @Override
+    public Optional<PreviousExecutionState> load(String key) {
+        byte[] bytes = cache.get().withFileLock(() -> log.get(key));
+        if (bytes == null) {
+            return Optional.empty();
+        }
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(bytes))) {
+            return Optional.of(serializer.read(decoder));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void store(String key, boolean successful, AfterExecutionState executionState) {
+        PreviousExecutionState previousExecutionState = new DefaultPreviousExecutionState(
+            executionState.getOriginMetadata(),
+            executionState.getImplementation(),
+            executionState.getAdditionalImplementations(),
+            executionState.getInputProperties(),
+            DefaultExecutionHistoryStore.prepareForSerialization(executionState.getInputFileProperties()),
+            executionState.getInputsHash(),
+            executionState.getOutputFilesProducedByWork(),
+            successful
+        );
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(bytes)) {
+            serializer.write(encoder, previousExecutionState);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        boolean compactionRequired = cache.get().withFileLock(() -> {
+            log.put(key, bytes.toByteArray());
+            return log.isCompactionRequired();
+        });
+        if (compactionRequired) {
+            scheduleCompaction();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        cache.get().withFileLock(() -> log.remove(key));
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    cache.get().withFileLock(() -> {
+                        if (log.isCompactionRequired()) {
+                            log.compact();
+                        }
+                    });
+                } catch (Exception e) {
+                    LOGGER.warn("Could not compact the execution history.", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        compactionExecutor.stop();
+        log.close();
+    }
+}
@@ -36,7 +36,7 @@ public CachingResult(UpToDateResult parent, CachingState cachingState) {
     }
 
     public CachingResult(Duration duration, Try<ExecutionEngine.Execution> execution, @Nullable AfterExecutionState afterExecutionState, ImmutableList<String> executionReasons, @Nullable OriginMetadata reusedOutputOriginMetadata, CachingState cachingState) {
-        super(duration, execution, afterExecutionState, executionReasons, reusedOutputOriginMetadata);
+        super(duration, execution, afterExecutionState, executionReasons, reusedOutputOriginMetadata, null);
         this.cachingState = cachingState;
     }
 
@@ -18,15 +18,20 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.internal.execution.InputFingerprinter;
 import org.gradle.internal.execution.OutputSnapshotter;
 import org.gradle.internal.execution.UnitOfWork;
+import org.gradle.internal.execution.caching.impl.DefaultCachingStateFactory;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.InputExecutionState;
 import org.gradle.internal.execution.history.OverlappingOutputDetector;
 import org.gradle.internal.execution.history.OverlappingOutputs;
 import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.gradle.internal.execution.history.impl.DefaultBeforeExecutionState;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.operations.BuildOperationDescriptor;
@@ -40,6 +45,7 @@
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Map;
 import java.util.Optional;
 
 public class CaptureStateBeforeExecutionStep<C extends PreviousExecutionContext, R extends CachingResult> extends BuildOperationStep<C, R> {
@@ -48,6 +54,7 @@
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final OutputSnapshotter outputSnapshotter;
     private final OverlappingOutputDetector overlappingOutputDetector;
+    private final BuildCacheController buildCache;
     private final Step<? super BeforeExecutionContext, ? extends R> delegate;
 
     public CaptureStateBeforeExecutionStep(
@@ -55,12 +62,14 @@ public CaptureStateBeforeExecutionStep(
         ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
         OutputSnapshotter outputSnapshotter,
         OverlappingOutputDetector overlappingOutputDetector,
+        BuildCacheController buildCache,
         Step<? super BeforeExecutionContext, ? extends R> delegate
     ) {
         super(buildOperationExecutor);
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
         this.outputSnapshotter = outputSnapshotter;
         this.overlappingOutputDetector = overlappingOutputDetector;
+        this.buildCache = buildCache;
         this.delegate = delegate;
     }
 
@@ -74,12 +83,35 @@ public R execute(UnitOfWork work, C context) {
     @Nonnull
     private BeforeExecutionState captureExecutionState(UnitOfWork work, PreviousExecutionContext context) {
         return operation(operationContext -> {
+                Optional<PreviousExecutionState> previousExecutionState = context.getPreviousExecutionState();
+
+                ImplementationsBuilder implementationsBuilder = new ImplementationsBuilder(classLoaderHierarchyHasher);
+                work.visitImplementations(implementationsBuilder);
+                ImplementationSnapshot implementation = implementationsBuilder.getImplementation();
+                ImmutableList<ImplementationSnapshot> additionalImplementations = implementationsBuilder.getAdditionalImplementations();
+
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Implementation for {}: {}", work.getDisplayName(), implementation);
+                    LOGGER.debug("Additional implementations for {}: {}", work.getDisplayName(), additionalImplementations);
+                }
+
+                InputFingerprinter.Result newInputs = fingerprintInputs(work, context, previousExecutionState);
+
+                prefetchIfLikelyToBeLoaded(work, context, previousExecutionState, implementation, additionalImplementations, newInputs);
+
                 ImmutableSortedMap<String, FileSystemSnapshot> unfilteredOutputSnapshots;
                 unfilteredOutputSnapshots = outputSnapshotter.snapshotOutputs(work, context.getWorkspace());
 
                 OverlappingOutputs overlappingOutputs = detectOverlappingOutputs(work, context, unfilteredOutputSnapshots);
 
-                BeforeExecutionState executionState = captureExecutionStateWithOutputs(work, context, unfilteredOutputSnapshots, overlappingOutputs);
+                BeforeExecutionState executionState = new DefaultBeforeExecutionState(
+                    implementation,
+                    additionalImplementations,
+                    newInputs.getAllValueSnapshots(),
+                    newInputs.getAllFileFingerprints(),
+                    unfilteredOutputSnapshots,
+                    overlappingOutputs
+                );
                 operationContext.setResult(Operation.Result.INSTANCE);
                 return executionState;
             },
@@ -100,19 +132,7 @@ private OverlappingOutputs detectOverlappingOutputs(UnitOfWork work, PreviousExe
         return overlappingOutputDetector.detect(previousOutputSnapshots, unfilteredOutputSnapshots);
     }
 
-    private BeforeExecutionState captureExecutionStateWithOutputs(UnitOfWork work, PreviousExecutionContext context, ImmutableSortedMap<String, FileSystemSnapshot> unfilteredOutputSnapshots, @Nullable OverlappingOutputs overlappingOutputs) {
-        Optional<PreviousExecutionState> previousExecutionState = context.getPreviousExecutionState();
-
-        ImplementationsBuilder implementationsBuilder = new ImplementationsBuilder(classLoaderHierarchyHasher);
-        work.visitImplementations(implementationsBuilder);
-        ImplementationSnapshot implementation = implementationsBuilder.getImplementation();
-        ImmutableList<ImplementationSnapshot> additionalImplementations = implementationsBuilder.getAdditionalImplementations();
-
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Implementation for {}: {}", work.getDisplayName(), implementation);
-            LOGGER.debug("Additional implementations for {}: {}", work.getDisplayName(), additionalImplementations);
-        }
-
+    private static InputFingerprinter.Result fingerprintInputs(UnitOfWork work, PreviousExecutionContext context, Optional<PreviousExecutionState> previousExecutionState) {
         ImmutableSortedMap<String, ValueSnapshot> previousInputPropertySnapshots = previousExecutionState
             .map(InputExecutionState::getInputProperties)
             .orElse(ImmutableSortedMap.of());
@@ -120,22 +140,77 @@ private BeforeExecutionState captureExecutionStateWithOutputs(UnitOfWork work, P
             .map(InputExecutionState::getInputFileProperties)
             .orElse(ImmutableSortedMap.of());
 
-        InputFingerprinter.Result newInputs = work.getInputFingerprinter().fingerprintInputProperties(
+        return work.getInputFingerprinter().fingerprintInputProperties(
             previousInputPropertySnapshots,
             previousInputFileFingerprints,
             context.getInputProperties(),
             context.getInputFileProperties(),
             work::visitRegularInputs
         );
+    }
 
-        return new DefaultBeforeExecutionState(
+    /**
+     * Starts fetching the cache entry of the work as soon as its inputs are known,
+     * so that it is downloaded while the outputs are snapshotted and the work is checked for being up-to-date.
+     *
+     * Work whose previous execution was successful and whose inputs didn't change is most likely up-to-date, so its entry is not prefetched.
+     */
+    private void prefetchIfLikelyToBeLoaded(
+        UnitOfWork work,
+        PreviousExecutionContext context,
+        Optional<PreviousExecutionState> previousExecutionState,
+        ImplementationSnapshot implementation,
+        ImmutableList<ImplementationSnapshot> additionalImplementations,
+        InputFingerprinter.Result newInputs
+    ) {
+        if (!buildCache.isEnabled() || !work.isPotentiallyCacheable() || !work.isAllowedToLoadFromCache()) {
+            return;
+        }
+        boolean likelyUpToDate = previousExecutionState
+            .map(previous -> previous.isSuccessful() && !inputsChanged(previous, implementation, additionalImplementations, newInputs))
+            .orElse(false);
+        if (likelyUpToDate) {
+            return;
+        }
+        ImmutableSortedSet.Builder<String> outputPropertyNames = ImmutableSortedSet.naturalOrder();
+        work.visitOutputs(context.getWorkspace(), new UnitOfWork.OutputVisitor() {
+            @Override
+            public void visitOutputProperty(String propertyName, TreeType type, UnitOfWork.OutputFileValueSupplier value) {
+                outputPropertyNames.add(propertyName);
+            }
+        });
+        buildCache.prefetch(DefaultCachingStateFactory.calculateCacheKey(
             implementation,
             additionalImplementations,
             newInputs.getAllValueSnapshots(),
             newInputs.getAllFileFingerprints(),
-            unfilteredOutputSnapshots,
-            overlappingOutputs
-        );
+            outputPropertyNames.build(),
+            ResolveCachingStateStep.cacheSaltFor(buildCache)
+        ));
+    }
+
+    private static boolean inputsChanged(
+        PreviousExecutionState previous,
+        ImplementationSnapshot implementation,
+        ImmutableList<ImplementationSnapshot> additionalImplementations,
+        InputFingerprinter.Result newInputs
+    ) {
+        if (!previous.getImplementation().equals(implementation)
+            || !previous.getAdditionalImplementations().equals(additionalImplementations)
+            || !previous.getInputProperties().equals(newInputs.getAllValueSnapshots())) {
+            return true;
+        }
+        ImmutableSortedMap<String, FileCollectionFingerprint> previousInputFiles = previous.getInputFileProperties();
+        ImmutableSortedMap<String, CurrentFileCollectionFingerprint> currentInputFiles = newInputs.getAllFileFingerprints();
+        if (!previousInputFiles.keySet().equals(currentInputFiles.keySet())) {
+            return true;
+        }
+        for (Map.Entry<String, CurrentFileCollectionFingerprint> entry : currentInputFiles.entrySet()) {
+            if (!entry.getValue().getRootHashes().equals(previousInputFiles.get(entry.getKey()).getRootHashes())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static class ImplementationsBuilder implements UnitOfWork.ImplementationVisitor {
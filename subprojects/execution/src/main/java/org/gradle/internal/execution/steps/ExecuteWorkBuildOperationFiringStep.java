@@ -29,6 +29,7 @@
 import org.gradle.operations.execution.ExecuteWorkBuildOperationType;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,7 +55,8 @@ public R execute(UnitOfWork work, C context) {
                         result.getExecution(),
                         result.getCachingState(),
                         result.getReusedOutputOriginMetadata(),
-                        result.getExecutionReasons()
+                        result.getExecutionReasons(),
+                        result.getUpToDateCheckDuration()
                     );
                     operationContext.setResult(operationResult);
                     result.getExecution().getFailure().ifPresent(operationContext::failed);
@@ -95,17 +97,20 @@ private static class ExecuteWorkResult implements ExecuteWorkBuildOperationType.
         private final CachingState cachingState;
         private final Optional<OriginMetadata> originMetadata;
         private final ImmutableList<String> executionReasons;
+        private final Optional<Duration> upToDateCheckDuration;
 
         public ExecuteWorkResult(
             Try<ExecutionEngine.Execution> execution,
             CachingState cachingState,
             Optional<OriginMetadata> originMetadata,
-            ImmutableList<String> executionReasons
+            ImmutableList<String> executionReasons,
+            Optional<Duration> upToDateCheckDuration
         ) {
             this.execution = execution;
             this.cachingState = cachingState;
             this.originMetadata = originMetadata;
             this.executionReasons = executionReasons;
+            this.upToDateCheckDuration = upToDateCheckDuration;
         }
 
         @Nullable
@@ -148,6 +153,12 @@ public List<String> getExecutionReasons() {
             return executionReasons;
         }
 
+        @Nullable
+        @Override
+        public Long getUpToDateCheckDurationMillis() {
+            return upToDateCheckDuration.map(Duration::toMillis).orElse(null);
+        }
+
         @Nullable
         @Override
         public String getCachingDisabledReasonMessage() {
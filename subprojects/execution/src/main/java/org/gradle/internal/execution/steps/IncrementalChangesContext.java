@@ -20,17 +20,20 @@
 import org.gradle.internal.execution.history.changes.ExecutionStateChanges;
 
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Optional;
 
 public class IncrementalChangesContext extends CachingContext {
 
     private final ImmutableList<String> rebuildReasons;
     private final ExecutionStateChanges executionStateChanges;
+    private final Duration upToDateCheckDuration;
 
-    public IncrementalChangesContext(CachingContext parent, ImmutableList<String> rebuildReasons, @Nullable ExecutionStateChanges executionStateChanges) {
+    public IncrementalChangesContext(CachingContext parent, ImmutableList<String> rebuildReasons, @Nullable ExecutionStateChanges executionStateChanges, @Nullable Duration upToDateCheckDuration) {
         super(parent);
         this.rebuildReasons = rebuildReasons;
         this.executionStateChanges = executionStateChanges;
+        this.upToDateCheckDuration = upToDateCheckDuration;
     }
 
     /**
@@ -47,4 +50,12 @@ public ImmutableList<String> getRebuildReasons() {
     public Optional<ExecutionStateChanges> getChanges() {
         return Optional.ofNullable(executionStateChanges);
     }
+
+    /**
+     * Returns how long it took to detect the changes since the previous execution.
+     * Empty if changes weren't detected (e.g. because the state before execution couldn't be captured).
+     */
+    public Optional<Duration> getUpToDateCheckDuration() {
+        return Optional.ofNullable(upToDateCheckDuration);
+    }
 }
@@ -32,6 +32,7 @@
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.NOPLogger;
 
+import javax.annotation.Nullable;
 import java.util.Formatter;
 import java.util.List;
 
@@ -92,11 +93,25 @@ private CachingState calculateCachingState(UnitOfWork work, BeforeExecutionState
             .orElse(null);
         work.shouldDisableCaching(detectedOverlappingOutputs)
             .ifPresent(cachingDisabledReasonsBuilder::add);
-        String cacheSalt = NextGenBuildCacheController.isNextGenCachingEnabled() ? "next-gen" : null;
+        String cacheSalt = cacheSaltFor(buildCache);
 
         return cachingStateFactory.createCachingState(beforeExecutionState, cacheSalt, cachingDisabledReasonsBuilder.build());
     }
 
+    /**
+     * Returns the salt to mix into the cache keys of work using the given build cache.
+     */
+    @Nullable
+    static String cacheSaltFor(BuildCacheController buildCache) {
+        String buildCacheSalt = buildCache.getCacheKeySalt();
+        if (!NextGenBuildCacheController.isNextGenCachingEnabled()) {
+            return buildCacheSalt;
+        }
+        return buildCacheSalt == null
+            ? "next-gen"
+            : "next-gen:" + buildCacheSalt;
+    }
+
     private CachingState calculateCachingStateWithNoCapturedInputs(UnitOfWork work) {
         if (!buildCache.isEnabled()) {
             return BUILD_CACHE_DISABLED_STATE;
@@ -28,12 +28,18 @@
 import org.gradle.internal.execution.history.changes.ExecutionStateChanges;
 import org.gradle.internal.execution.history.changes.IncrementalInputProperties;
 import org.gradle.internal.properties.InputBehavior;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.time.Duration;
 
 import static org.gradle.internal.execution.history.changes.ExecutionStateChanges.nonIncremental;
 
 public class ResolveChangesStep<C extends CachingContext, R extends Result> implements Step<C, R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolveChangesStep.class);
     private static final ImmutableList<String> NO_HISTORY = ImmutableList.of("No history is available.");
     private static final ImmutableList<String> UNTRACKED = ImmutableList.of("Change tracking is disabled.");
     private static final ImmutableList<String> VALIDATION_FAILED = ImmutableList.of("Incremental execution has been disabled to ensure correctness. Please consult deprecation warnings for more details.");
@@ -53,13 +59,18 @@ public ResolveChangesStep(
     @Override
     public R execute(UnitOfWork work, C context) {
         IncrementalChangesContext delegateContext = context.getBeforeExecutionState()
-            .map(beforeExecution -> resolveExecutionStateChanges(work, context, beforeExecution))
-            .map(changes -> new IncrementalChangesContext(context, changes.getChangeDescriptions(), changes))
+            .map(beforeExecution -> {
+                Timer timer = Time.startTimer();
+                ExecutionStateChanges changes = resolveExecutionStateChanges(work, context, beforeExecution);
+                Duration upToDateCheckDuration = Duration.ofMillis(timer.getElapsedMillis());
+                LOGGER.debug("Checked {} for changes in {}", work.getDisplayName(), timer.getElapsed());
+                return new IncrementalChangesContext(context, changes.getChangeDescriptions(), changes, upToDateCheckDuration);
+            })
             .orElseGet(() -> {
                 ImmutableList<String> rebuildReason = context.getNonIncrementalReason()
                     .map(ImmutableList::of)
                     .orElse(UNTRACKED);
-                return new IncrementalChangesContext(context, rebuildReason, null);
+                return new IncrementalChangesContext(context, rebuildReason, null, null);
             });
 
         return delegate.execute(work, delegateContext);
@@ -18,6 +18,7 @@
 
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang.StringUtils;
+import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.Try;
 import org.gradle.internal.execution.ExecutionEngine.Execution;
 import org.gradle.internal.execution.ExecutionEngine.ExecutionOutcome;
@@ -82,17 +83,19 @@ public Object getOutput() {
             execution,
             afterExecutionState,
             ImmutableList.of(),
-            previousExecutionState.getOriginMetadata()
+            previousExecutionState.getOriginMetadata(),
+            context.getUpToDateCheckDuration().orElse(null)
         );
     }
 
     private UpToDateResult executeBecause(UnitOfWork work, ImmutableList<String> reasons, C context) {
         logExecutionReasons(reasons, work);
         AfterExecutionResult result = delegate.execute(work, context);
-        return new UpToDateResult(result, reasons, result.getAfterExecutionState()
+        OriginMetadata reusedOutputOriginMetadata = result.getAfterExecutionState()
             .filter(AfterExecutionState::isReused)
             .map(AfterExecutionState::getOriginMetadata)
-            .orElse(null));
+            .orElse(null);
+        return new UpToDateResult(result, reasons, reusedOutputOriginMetadata, context.getUpToDateCheckDuration().orElse(null));
     }
 
     private void logExecutionReasons(List<String> reasons, UnitOfWork work) {
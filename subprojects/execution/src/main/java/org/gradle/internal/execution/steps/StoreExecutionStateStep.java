@@ -18,16 +18,20 @@
 
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.internal.execution.UnitOfWork;
+import org.gradle.internal.execution.history.ExecutionDurationStore;
 import org.gradle.internal.execution.history.changes.ChangeDetectorVisitor;
 import org.gradle.internal.execution.history.changes.OutputFileChanges;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
 public class StoreExecutionStateStep<C extends PreviousExecutionContext, R extends AfterExecutionResult> implements Step<C, R> {
+    private final ExecutionDurationStore executionDurationStore;
     private final Step<? super C, ? extends R> delegate;
 
     public StoreExecutionStateStep(
+        ExecutionDurationStore executionDurationStore,
         Step<? super C, ? extends R> delegate
     ) {
+        this.executionDurationStore = executionDurationStore;
         this.delegate = delegate;
     }
 
@@ -55,6 +59,11 @@ public R execute(UnitOfWork work, C context) {
                                 afterExecutionState
                             );
                         }
+
+                        // Only record durations of work that was actually executed, reused results take no time to execute
+                        if (result.getExecution().isSuccessful() && !afterExecutionState.isReused()) {
+                            executionDurationStore.record(context.getIdentity().getUniqueId(), result.getDuration());
+                        }
                     }
                 )
             );
@@ -29,21 +29,24 @@
 public class UpToDateResult extends AfterExecutionResult {
     private final ImmutableList<String> executionReasons;
     private final OriginMetadata reusedOutputOriginMetadata;
+    private final Duration upToDateCheckDuration;
 
-    public UpToDateResult(AfterExecutionResult parent, ImmutableList<String> executionReasons, @Nullable OriginMetadata reusedOutputOriginMetadata) {
+    public UpToDateResult(AfterExecutionResult parent, ImmutableList<String> executionReasons, @Nullable OriginMetadata reusedOutputOriginMetadata, @Nullable Duration upToDateCheckDuration) {
         super(parent);
         this.executionReasons = executionReasons;
         this.reusedOutputOriginMetadata = reusedOutputOriginMetadata;
+        this.upToDateCheckDuration = upToDateCheckDuration;
     }
 
-    public UpToDateResult(Duration duration, Try<ExecutionEngine.Execution> execution, @Nullable AfterExecutionState afterExecutionState, ImmutableList<String> executionReasons, @Nullable OriginMetadata reusedOutputOriginMetadata) {
+    public UpToDateResult(Duration duration, Try<ExecutionEngine.Execution> execution, @Nullable AfterExecutionState afterExecutionState, ImmutableList<String> executionReasons, @Nullable OriginMetadata reusedOutputOriginMetadata, @Nullable Duration upToDateCheckDuration) {
         super(duration, execution, afterExecutionState);
         this.executionReasons = executionReasons;
         this.reusedOutputOriginMetadata = reusedOutputOriginMetadata;
+        this.upToDateCheckDuration = upToDateCheckDuration;
     }
 
     protected UpToDateResult(UpToDateResult parent) {
-        this(parent, parent.getExecutionReasons(), parent.getReusedOutputOriginMetadata().orElse(null));
+        this(parent, parent.getExecutionReasons(), parent.getReusedOutputOriginMetadata().orElse(null), parent.getUpToDateCheckDuration().orElse(null));
     }
 
     /**
@@ -60,4 +63,12 @@ public ImmutableList<String> getExecutionReasons() {
     public Optional<OriginMetadata> getReusedOutputOriginMetadata() {
         return Optional.ofNullable(reusedOutputOriginMetadata);
     }
+
+    /**
+     * How long it took to check whether the work is up-to-date.
+     * Empty if the check did not happen.
+     */
+    public Optional<Duration> getUpToDateCheckDuration() {
+        return Optional.ofNullable(upToDateCheckDuration);
+    }
 }
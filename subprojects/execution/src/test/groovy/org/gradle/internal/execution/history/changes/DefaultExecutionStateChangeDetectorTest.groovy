@@ -0,0 +1,68 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.changes
+
+import com.google.common.collect.ImmutableSortedMap
+import org.gradle.api.Describable
+import org.gradle.internal.execution.history.BeforeExecutionState
+import org.gradle.internal.execution.history.PreviousExecutionState
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+class DefaultExecutionStateChangeDetectorTest extends Specification {
+    def detector = new DefaultExecutionStateChangeDetector()
+    def executable = Stub(Describable) {
+        getDisplayName() >> "job ':test'"
+    }
+    def previousExecution = Mock(PreviousExecutionState)
+    def beforeExecution = Mock(BeforeExecutionState)
+
+    def "does not compare inputs in detail when the inputs hash did not change"() {
+        when:
+        def changes = detector.detectChanges(executable, previousExecution, beforeExecution, IncrementalInputProperties.NONE)
+
+        then:
+        changes.changeDescriptions.empty
+
+        _ * previousExecution.inputsHash >> TestHashCodes.hashCodeFrom(1234)
+        _ * beforeExecution.inputsHash >> TestHashCodes.hashCodeFrom(1234)
+        _ * previousExecution.successful >> true
+        _ * previousExecution.outputFilesProducedByWork >> ImmutableSortedMap.of()
+        _ * beforeExecution.outputFileLocationSnapshots >> ImmutableSortedMap.of()
+        _ * beforeExecution.detectedOverlappingOutputs >> Optional.empty()
+        0 * previousExecution.implementation
+        0 * previousExecution.inputProperties
+        0 * previousExecution.inputFileProperties
+        0 * beforeExecution.inputFileProperties
+    }
+
+    def "reports rebuild when the previous execution failed even if the inputs hash did not change"() {
+        when:
+        def changes = detector.detectChanges(executable, previousExecution, beforeExecution, IncrementalInputProperties.NONE)
+
+        then:
+        changes.changeDescriptions == ["Task has failed previously."]
+
+        _ * previousExecution.inputsHash >> TestHashCodes.hashCodeFrom(1234)
+        _ * beforeExecution.inputsHash >> TestHashCodes.hashCodeFrom(1234)
+        _ * previousExecution.successful >> false
+        _ * previousExecution.outputFilesProducedByWork >> ImmutableSortedMap.of()
+        _ * beforeExecution.outputFileLocationSnapshots >> ImmutableSortedMap.of()
+        _ * beforeExecution.detectedOverlappingOutputs >> Optional.empty()
+        0 * previousExecution.inputFileProperties
+    }
+}
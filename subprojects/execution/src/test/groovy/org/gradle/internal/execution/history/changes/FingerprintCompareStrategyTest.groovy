@@ -296,17 +296,57 @@ class FingerprintCompareStrategyTest extends Specification {
         strategy << ALL_STRATEGIES
     }
 
+    def "determines changes with absolute paths while iterating"() {
+        def lookups = []
+        def previous = new LinkedHashMap<String, FileSystemLocationFingerprint>([
+            "one": fingerprint("one", 1),
+            "two": fingerprint("two", 2),
+            "three": fingerprint("three", 3)
+        ]) {
+            @Override
+            FileSystemLocationFingerprint get(Object key) {
+                lookups << key
+                return super.get(key)
+            }
+        }
+        def current = [
+            "one": fingerprint("one", 0),
+            "two": fingerprint("two", 0),
+            "three": fingerprint("three", 3)
+        ]
+
+        when:
+        def changes = ABSOLUTE.iterateChangesSince(fingerprints(previous, 4321), fingerprints(current, 1234), "test")
+        def first = changes.next()
+
+        then:
+        first == modified("one")
+        lookups == ["one"]
+
+        when:
+        def second = changes.next()
+
+        then:
+        second == modified("two")
+        lookups == ["one", "two"]
+        !changes.hasNext()
+    }
+
     def changes(FingerprintCompareStrategy strategy, Map<String, FileSystemLocationFingerprint> current, Map<String, FileSystemLocationFingerprint> previous) {
-        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
-        def currentFingerprint = new SerializableFileCollectionFingerprint(current, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(1234)), strategyConfigurationHash)
-        def previousFingerprint = new SerializableFileCollectionFingerprint(previous, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(4321)), strategyConfigurationHash)
-        changes(strategy, currentFingerprint, previousFingerprint)
+        changes(strategy, fingerprints(current, 1234), fingerprints(previous, 4321))
     }
 
     def changes(FingerprintCompareStrategy strategy, FileCollectionFingerprint currentFingerprint, FileCollectionFingerprint previousFingerprint) {
         def visitor = new CollectingChangeVisitor()
         strategy.visitChangesSince(previousFingerprint, currentFingerprint, "test", visitor)
-        visitor.getChanges().toList()
+        def visitedChanges = visitor.getChanges().toList()
+        assert strategy.iterateChangesSince(previousFingerprint, currentFingerprint, "test").toList() == visitedChanges
+        visitedChanges
+    }
+
+    def fingerprints(Map<String, FileSystemLocationFingerprint> fingerprints, long rootHash) {
+        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
+        new SerializableFileCollectionFingerprint(fingerprints, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(rootHash)), strategyConfigurationHash)
     }
 
     def fingerprint(String normalizedPath, def hashCode = 0x1234abcd) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl
+
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableSortedMap
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.ValueSnapshot
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot
+import spock.lang.Specification
+
+class DefaultBeforeExecutionStateTest extends Specification {
+    def implementation = ImplementationSnapshot.of("MyWork", TestHashCodes.hashCodeFrom(1234))
+
+    def "inputs hash is the same for the same inputs"() {
+        expect:
+        inputsHash(implementation, [input: value("a")], [files: fingerprint(1)]) == inputsHash(implementation, [input: value("a")], [files: fingerprint(1)])
+    }
+
+    def "inputs hash changes when #description changes"() {
+        def hash = inputsHash(implementation, [input: value("a")], [files: fingerprint(1)])
+
+        expect:
+        hash != inputsHash(changedImplementation, changedInputs, changedFiles)
+
+        where:
+        description                | changedImplementation                                              | changedInputs         | changedFiles
+        "implementation"           | ImplementationSnapshot.of("MyWork", TestHashCodes.hashCodeFrom(1)) | [input: value("a")]   | [files: fingerprint(1)]
+        "input value"              | implementation                                                     | [input: value("b")]   | [files: fingerprint(1)]
+        "input property name"      | implementation                                                     | [other: value("a")]   | [files: fingerprint(1)]
+        "input file fingerprint"   | implementation                                                     | [input: value("a")]   | [files: fingerprint(2)]
+        "input file property name" | implementation                                                     | [input: value("a")]   | [other: fingerprint(1)]
+    }
+
+    def "inputs hash is not available when the implementation is unknown"() {
+        expect:
+        inputsHash(ImplementationSnapshot.of("MyWork", null), [input: value("a")], [files: fingerprint(1)]) == null
+    }
+
+    private HashCode inputsHash(ImplementationSnapshot implementation, Map<String, ValueSnapshot> inputProperties, Map<String, CurrentFileCollectionFingerprint> inputFileProperties) {
+        new DefaultBeforeExecutionState(
+            implementation,
+            ImmutableList.of(),
+            ImmutableSortedMap.copyOf(inputProperties),
+            ImmutableSortedMap.copyOf(inputFileProperties),
+            ImmutableSortedMap.of(),
+            null
+        ).inputsHash
+    }
+
+    private ValueSnapshot value(String value) {
+        Stub(ValueSnapshot) {
+            appendToHasher(_ as Hasher) >> { Hasher hasher -> hasher.putString(value) }
+        }
+    }
+
+    private CurrentFileCollectionFingerprint fingerprint(long hash) {
+        Stub(CurrentFileCollectionFingerprint) {
+            getHash() >> TestHashCodes.hashCodeFrom(hash)
+            getStrategyIdentifier() >> "RELATIVE_PATH"
+        }
+    }
+}
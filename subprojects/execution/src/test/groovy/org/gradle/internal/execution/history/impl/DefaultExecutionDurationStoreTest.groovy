@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.execution.history.impl
+
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.internal.time.MockClock
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+
+class DefaultExecutionDurationStoreTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def clock = new MockClock(0)
+    def cacheAccess = Stub(PersistentCache) {
+        getBaseDir() >> tmpDir.testDirectory
+        useCache(_ as Factory) >> { Factory action -> action.create() }
+        useCache(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+
+    def "calculates statistics from recorded durations"() {
+        def store = createStore()
+
+        when:
+        (1..10).each { store.record("work", Duration.ofMillis(it * 10)) }
+        def statistics = store.load("work").get()
+
+        then:
+        statistics.sampleCount == 10
+        statistics.mean == Duration.ofMillis(55)
+        statistics.p90 == Duration.ofMillis(90)
+        statistics.variance == 825d
+        !store.load("other").present
+    }
+
+    def "keeps only the most recent durations"() {
+        def store = createStore()
+
+        when:
+        (1..DefaultExecutionDurationStore.MAX_SAMPLES + 5).each { store.record("work", Duration.ofMillis(it)) }
+        def statistics = store.load("work").get()
+
+        then:
+        statistics.sampleCount == DefaultExecutionDurationStore.MAX_SAMPLES
+        statistics.mean == Duration.ofMillis(16)
+        statistics.p90 == Duration.ofMillis(23)
+    }
+
+    def "durations are persisted when closed"() {
+        def store = createStore()
+        store.record("work", Duration.ofMillis(100))
+
+        expect:
+        !createStore().load("work").present
+
+        when:
+        store.close()
+
+        then:
+        createStore().load("work").get().mean == Duration.ofMillis(100)
+    }
+
+    def "merges durations recorded by concurrent builds"() {
+        def first = createStore()
+        def second = createStore()
+        first.load("first")
+        second.load("second")
+
+        when:
+        first.record("first", Duration.ofMillis(1))
+        second.record("second", Duration.ofMillis(2))
+        first.close()
+        second.close()
+        def store = createStore()
+
+        then:
+        store.load("first").get().mean == Duration.ofMillis(1)
+        store.load("second").get().mean == Duration.ofMillis(2)
+    }
+
+    def "prunes durations that have not been recorded recently"() {
+        def store = createStore()
+        store.record("old", Duration.ofMillis(1))
+        store.close()
+
+        when:
+        clock.increment(DefaultExecutionDurationStore.MAX_AGE)
+        store = createStore()
+        store.record("new", Duration.ofMillis(2))
+        store.close()
+        store = createStore()
+
+        then:
+        !store.load("old").present
+        store.load("new").present
+    }
+
+    def "ignores unreadable durations file"() {
+        tmpDir.file("executionDurations.bin").text = "corrupt"
+
+        when:
+        def store = createStore()
+        store.record("work", Duration.ofMillis(1))
+        store.close()
+
+        then:
+        createStore().load("work").present
+    }
+
+    private DefaultExecutionDurationStore createStore() {
+        return new DefaultExecutionDurationStore({ cacheAccess }, clock)
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.execution.history.impl
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ExecutionHistoryLogTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def log = createLog()
+
+    def cleanup() {
+        log.close()
+    }
+
+    def "stores, replaces and removes entries"() {
+        when:
+        log.put("one", bytes(1))
+        log.put("two", bytes(2))
+        log.put("one", bytes(3))
+        log.remove("two")
+
+        then:
+        log.get("one") == bytes(3)
+        log.get("two") == null
+        log.get("unknown") == null
+    }
+
+    def "reads entries stored before the log was reopened"() {
+        log.put("one", bytes(1))
+        log.put("two", bytes(2))
+        log.remove("two")
+        log.close()
+
+        when:
+        log = createLog()
+
+        then:
+        log.get("one") == bytes(1)
+        log.get("two") == null
+    }
+
+    def "sees entries stored by another process"() {
+        def other = createLog()
+        log.put("one", bytes(1))
+
+        when:
+        other.put("one", bytes(2))
+        other.put("two", bytes(3))
+
+        then:
+        log.get("one") == bytes(2)
+        log.get("two") == bytes(3)
+
+        cleanup:
+        other.close()
+    }
+
+    def "grows the log to store large entries"() {
+        def large = new byte[3 * 1024 * 1024]
+        Arrays.fill(large, (byte) 7)
+
+        when:
+        log.put("small", bytes(1))
+        log.put("large", large)
+
+        then:
+        log.get("large") == large
+        createLog().withCloseable { it.get("large") } == large
+    }
+
+    def "compacts the log when most of it is taken up by replaced entries"() {
+        def other = createLog()
+        def value = new byte[100 * 1024]
+
+        when:
+        log.put("removed", bytes(1))
+        log.remove("removed")
+        60.times {
+            value[0] = (byte) it
+            log.put("replaced", value)
+        }
+        log.put("kept", bytes(2))
+
+        then:
+        log.compactionRequired
+
+        when:
+        log.compact()
+
+        then:
+        !log.compactionRequired
+        log.get("replaced") == value
+        log.get("kept") == bytes(2)
+        log.get("removed") == null
+        logFiles() == ["executionHistory-2.log"]
+
+        and:
+        other.get("replaced") == value
+        other.get("kept") == bytes(2)
+
+        when:
+        other.put("kept", bytes(3))
+
+        then:
+        log.get("kept") == bytes(3)
+
+        cleanup:
+        other.close()
+    }
+
+    def "discards entries of a corrupted log"() {
+        log.put("one", bytes(1))
+        log.close()
+        new RandomAccessFile(tmpDir.file("executionHistory-1.log"), "rw").withCloseable {
+            // Corrupt the length of the key of the first entry
+            it.seek(16)
+            it.writeInt(-5)
+        }
+
+        when:
+        log = createLog()
+
+        then:
+        log.get("one") == null
+        logFiles() == ["executionHistory-2.log"]
+
+        when:
+        log.put("one", bytes(2))
+
+        then:
+        log.get("one") == bytes(2)
+    }
+
+    private ExecutionHistoryLog createLog() {
+        new ExecutionHistoryLog(tmpDir.testDirectory, "executionHistory")
+    }
+
+    private List<String> logFiles() {
+        tmpDir.testDirectory.list().findAll { it.startsWith("executionHistory") }.sort()
+    }
+
+    private static byte[] bytes(int value) {
+        return [value, value + 1, value + 2] as byte[]
+    }
+}
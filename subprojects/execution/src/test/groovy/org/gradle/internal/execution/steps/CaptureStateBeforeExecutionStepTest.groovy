@@ -16,15 +16,20 @@
 
 package org.gradle.internal.execution.steps
 
+import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableSet
 import com.google.common.collect.ImmutableSortedMap
+import com.google.common.collect.ImmutableSortedSet
+import org.gradle.caching.internal.controller.BuildCacheController
 import org.gradle.internal.execution.InputFingerprinter
 import org.gradle.internal.execution.OutputSnapshotter
 import org.gradle.internal.execution.UnitOfWork
+import org.gradle.internal.execution.caching.impl.DefaultCachingStateFactory
 import org.gradle.internal.execution.history.ExecutionHistoryStore
 import org.gradle.internal.execution.history.OverlappingOutputDetector
 import org.gradle.internal.execution.history.PreviousExecutionState
 import org.gradle.internal.execution.impl.DefaultInputFingerprinter
+import org.gradle.internal.file.TreeType
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher
 import org.gradle.internal.hash.TestHashCodes
@@ -43,8 +48,9 @@ class CaptureStateBeforeExecutionStepTest extends StepSpec<BeforeExecutionContex
     def implementationSnapshot = ImplementationSnapshot.of("MyWorkClass", TestHashCodes.hashCodeFrom(1234))
     def overlappingOutputDetector = Mock(OverlappingOutputDetector)
     def executionHistoryStore = Mock(ExecutionHistoryStore)
+    def buildCache = Mock(BuildCacheController)
 
-    def step = new CaptureStateBeforeExecutionStep(buildOperationExecutor, classloaderHierarchyHasher, outputSnapshotter, overlappingOutputDetector, delegate)
+    def step = new CaptureStateBeforeExecutionStep(buildOperationExecutor, classloaderHierarchyHasher, outputSnapshotter, overlappingOutputDetector, buildCache, delegate)
 
     def setup() {
         _ * work.history >> Optional.of(executionHistoryStore)
@@ -220,7 +226,86 @@ class CaptureStateBeforeExecutionStepTest extends StepSpec<BeforeExecutionContex
         assertOperation()
     }
 
+    def "prefetches the cache entry of work without a previous execution once its inputs are known"() {
+        def expectedKey = DefaultCachingStateFactory.calculateCacheKey(
+            implementationSnapshot,
+            ImmutableList.of(),
+            ImmutableSortedMap.of(),
+            ImmutableSortedMap.of(),
+            ImmutableSortedSet.of("outputDir"),
+            null
+        )
+
+        when:
+        step.execute(work, context)
+
+        then:
+        interaction { prefetchEnabled() }
+        _ * context.history >> Optional.of(executionHistoryStore)
+        _ * context.previousExecutionState >> Optional.empty()
+        _ * work.visitImplementations(_ as UnitOfWork.ImplementationVisitor) >> { UnitOfWork.ImplementationVisitor visitor ->
+            visitor.visitImplementation(implementationSnapshot)
+        }
+        _ * inputFingerprinter.fingerprintInputProperties(_, _, _, _, _) >> new DefaultInputFingerprinter.InputFingerprints(ImmutableSortedMap.of(), ImmutableSortedMap.of(), ImmutableSortedMap.of(), ImmutableSortedMap.of(), ImmutableSet.of())
+
+        then:
+        1 * buildCache.prefetch(expectedKey)
+
+        then:
+        1 * outputSnapshotter.snapshotOutputs(work, _) >> ImmutableSortedMap.of()
+        _ * work.overlappingOutputHandling >> IGNORE_OVERLAPS
+        1 * delegate.execute(work, _ as BeforeExecutionContext)
+    }
+
+    def "prefetches the cache entry of work when its inputs changed since the previous successful execution"() {
+        def previousExecutionState = Mock(PreviousExecutionState)
+
+        when:
+        step.execute(work, context)
+
+        then:
+        interaction { prefetchEnabled() }
+        _ * context.previousExecutionState >> Optional.of(previousExecutionState)
+        _ * previousExecutionState.successful >> true
+        _ * previousExecutionState.implementation >> ImplementationSnapshot.of("MyWorkClass", TestHashCodes.hashCodeFrom(5678))
+        _ * previousExecutionState.additionalImplementations >> ImmutableList.of()
+        _ * previousExecutionState.inputProperties >> ImmutableSortedMap.of()
+        _ * previousExecutionState.inputFileProperties >> ImmutableSortedMap.of()
+        interaction { snapshotState() }
+        1 * buildCache.prefetch(_)
+        1 * delegate.execute(work, _ as BeforeExecutionContext)
+    }
+
+    def "does not prefetch the cache entry of work with unchanged inputs since the previous successful execution"() {
+        def previousExecutionState = Mock(PreviousExecutionState)
+
+        when:
+        step.execute(work, context)
+
+        then:
+        interaction { prefetchEnabled() }
+        _ * context.previousExecutionState >> Optional.of(previousExecutionState)
+        _ * previousExecutionState.successful >> true
+        _ * previousExecutionState.implementation >> implementationSnapshot
+        _ * previousExecutionState.additionalImplementations >> ImmutableList.of()
+        _ * previousExecutionState.inputProperties >> ImmutableSortedMap.of()
+        _ * previousExecutionState.inputFileProperties >> ImmutableSortedMap.of()
+        interaction { snapshotState() }
+        0 * buildCache.prefetch(_)
+        1 * delegate.execute(work, _ as BeforeExecutionContext)
+    }
+
+    void prefetchEnabled() {
+        _ * buildCache.enabled >> true
+        _ * work.potentiallyCacheable >> true
+        _ * work.allowedToLoadFromCache >> true
+        _ * work.visitOutputs(_, _ as UnitOfWork.OutputVisitor) >> { File workspace, UnitOfWork.OutputVisitor visitor ->
+            visitor.visitOutputProperty("outputDir", TreeType.DIRECTORY, Mock(UnitOfWork.OutputFileValueSupplier))
+        }
+    }
+
     void snapshotState() {
+        _ * buildCache.enabled >> false
         _ * context.previousExecutionState >> Optional.empty()
         _ * work.visitImplementations(_ as UnitOfWork.ImplementationVisitor) >> { UnitOfWork.ImplementationVisitor visitor ->
             visitor.visitImplementation(implementationSnapshot)
@@ -61,6 +61,7 @@ class ResolveChangesStepTest extends StepSpec<CachingContext> {
         result == delegateResult
 
         1 * delegate.execute(work, _ as IncrementalChangesContext) >> { UnitOfWork work, IncrementalChangesContext delegateContext ->
+            assert !delegateContext.upToDateCheckDuration.present
             return delegateResult
         }
         _ * context.nonIncrementalReason >> Optional.empty()
@@ -123,6 +124,7 @@ class ResolveChangesStepTest extends StepSpec<CachingContext> {
 
         1 * delegate.execute(work, _ as IncrementalChangesContext) >> { UnitOfWork work, IncrementalChangesContext delegateContext ->
             assert delegateContext.changes.get() == changes
+            assert delegateContext.upToDateCheckDuration.present
             return delegateResult
         }
         _ * changes.changeDescriptions >> ImmutableList.of("changed")
@@ -49,9 +49,11 @@ class SkipUpToDateStepTest extends StepSpec<IncrementalChangesContext> {
         then:
         result.execution.get().outcome == UP_TO_DATE
         !result.executionReasons.present
+        result.upToDateCheckDuration.get() == Duration.ofMillis(5)
 
         _ * context.changes >> Optional.of(changes)
         _ * context.rebuildReasons >> ImmutableList.of()
+        _ * context.upToDateCheckDuration >> Optional.of(Duration.ofMillis(5))
         1 * changes.beforeExecutionState >> Mock(BeforeExecutionState)
         _ * context.previousExecutionState >> Optional.of(Stub(PreviousExecutionState) {
             getOutputFilesProducedByWork() >> ImmutableSortedMap.of()
@@ -22,16 +22,21 @@ import org.gradle.caching.internal.origin.OriginMetadata
 import org.gradle.internal.Try
 import org.gradle.internal.execution.history.AfterExecutionState
 import org.gradle.internal.execution.history.BeforeExecutionState
+import org.gradle.internal.execution.history.ExecutionDurationStore
 import org.gradle.internal.execution.history.ExecutionHistoryStore
 import org.gradle.internal.execution.history.PreviousExecutionState
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.FileSystemSnapshot
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot
 
+import java.time.Duration
+
 import static org.gradle.internal.execution.ExecutionEngine.Execution
 
 class StoreExecutionStateStepTest extends StepSpec<BeforeExecutionContext> implements SnapshotterFixture {
     def executionHistoryStore = Mock(ExecutionHistoryStore)
+    def executionDurationStore = Mock(ExecutionDurationStore)
+    def duration = Duration.ofMillis(1234)
 
     def originMetadata = Mock(OriginMetadata)
     def beforeExecutionState = Stub(BeforeExecutionState) {
@@ -44,7 +49,7 @@ class StoreExecutionStateStepTest extends StepSpec<BeforeExecutionContext> imple
     def outputFile = file("output.txt").text = "output"
     def outputFilesProducedByWork = snapshotsOf(output: outputFile)
 
-    def step = new StoreExecutionStateStep<PreviousExecutionContext, AfterExecutionResult>(delegate)
+    def step = new StoreExecutionStateStep<PreviousExecutionContext, AfterExecutionResult>(executionDurationStore, delegate)
     def delegateResult = Mock(AfterExecutionResult)
 
 
@@ -64,6 +69,31 @@ class StoreExecutionStateStepTest extends StepSpec<BeforeExecutionContext> imple
         1 * delegateResult.afterExecutionState >> Optional.of(Mock(AfterExecutionState) {
             _ * getOutputFilesProducedByWork() >> this.outputFilesProducedByWork
             _ * getOriginMetadata() >> originMetadata
+            _ * isReused() >> false
+        })
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState)
+        _ * delegateResult.execution >> Try.successful(Mock(Execution))
+        _ * delegateResult.duration >> duration
+
+        then:
+        interaction { expectStore(true, outputFilesProducedByWork) }
+        1 * executionDurationStore.record(identity.uniqueId, duration)
+        0 * _
+    }
+
+    def "duration is not recorded when outputs are reused"() {
+        when:
+        def result = step.execute(work, context)
+
+        then:
+        result == delegateResult
+        1 * delegate.execute(work, context) >> delegateResult
+
+        then:
+        1 * delegateResult.afterExecutionState >> Optional.of(Mock(AfterExecutionState) {
+            _ * getOutputFilesProducedByWork() >> this.outputFilesProducedByWork
+            _ * getOriginMetadata() >> originMetadata
+            _ * isReused() >> true
         })
         _ * context.beforeExecutionState >> Optional.of(beforeExecutionState)
         _ * delegateResult.execution >> Try.successful(Mock(Execution))
@@ -49,6 +49,7 @@ public void store(String key, boolean successful, AfterExecutionState executionS
             executionState.getAdditionalImplementations(),
             executionState.getInputProperties(),
             prepareForSerialization(executionState.getInputFileProperties()),
+            executionState.getInputsHash(),
             executionState.getOutputFilesProducedByWork(),
             successful
         ));
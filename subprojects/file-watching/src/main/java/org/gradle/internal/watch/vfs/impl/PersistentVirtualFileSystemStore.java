@@ -0,0 +1,414 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.PathUtil;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Persists the complete snapshots retained by the virtual file system to a file,
+ * so that a new daemon can start with the state the previous daemon had at the end of its last build.
+ *
+ * The persisted snapshots are restored for each watchable hierarchy once it is registered, see {@link #restore(File, SnapshotHierarchy, SnapshotHierarchy.NodeDiffListener)}.
+ * The restored snapshots are then validated against the file system, see {@link #validate(SnapshotHierarchy, SnapshotHierarchy.NodeDiffListener)}:
+ * regular files must still have the same length and modification time, directories the same modification time,
+ * and missing files must still be missing.
+ * Any snapshot that doesn't match is dropped completely.
+ */
+public class PersistentVirtualFileSystemStore implements Closeable {
+    /**
+     * Enables persisting the virtual file system state between daemons when file system watching is active.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.vfs.persistent";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentVirtualFileSystemStore.class);
+
+    private static final int MAGIC = 0x47564653;
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The coarsest resolution of the modification times of the supported file systems.
+     */
+    private static final long TIMESTAMP_RESOLUTION_MILLIS = 2000;
+
+    /**
+     * Written instead of the modification time of a directory which may have changed since it was snapshotted, so that its snapshot is never restored.
+     */
+    private static final long UNKNOWN_LAST_MODIFIED = Long.MIN_VALUE;
+
+    private static final byte END = 0;
+    private static final byte ROOT = 1;
+
+    private static final byte DIRECTORY = 1;
+    private static final byte REGULAR_FILE = 2;
+    private static final byte MISSING = 3;
+
+    private final File stateFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VFS state writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SnapshotHierarchy lastStoredRoot;
+    private long watchingStartedAt = Long.MIN_VALUE;
+    private final List<PersistedSnapshot> persistedSnapshots = new ArrayList<>();
+    private final List<PersistedSnapshot> restoredSnapshots = new ArrayList<>();
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public PersistentVirtualFileSystemStore(File stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * Reads the persisted snapshots, which are restored once their watchable hierarchy is registered.
+     * Must be called when watching starts, before anything is added to the virtual file system.
+     */
+    public synchronized void watchingStarted() {
+        watchingStartedAt = System.currentTimeMillis();
+        persistedSnapshots.clear();
+        restoredSnapshots.clear();
+        if (!stateFile.isFile()) {
+            return;
+        }
+        List<PersistedSnapshot> snapshots = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile.toPath())))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring virtual file system state in {} with unknown format", stateFile);
+                return;
+            }
+            while (input.readByte() != END) {
+                String absolutePath = input.readUTF();
+                Validation validation = new Validation();
+                FileSystemLocationSnapshot snapshot = readSnapshot(input, absolutePath, PathUtil.getFileName(absolutePath), validation);
+                snapshots.add(new PersistedSnapshot(snapshot, validation));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Unable to read virtual file system state from {}, ignoring it", stateFile, e);
+            return;
+        }
+        persistedSnapshots.addAll(snapshots);
+    }
+
+    /**
+     * Adds the persisted snapshots within the given watchable hierarchy to the given root, unless the root already has a snapshot for their location.
+     *
+     * The added snapshots must be watched before they are validated with {@link #validate(SnapshotHierarchy, SnapshotHierarchy.NodeDiffListener)},
+     * so that any change after the validation is picked up by the watchers.
+     */
+    public synchronized SnapshotHierarchy restore(File watchableHierarchy, SnapshotHierarchy root, SnapshotHierarchy.NodeDiffListener diffListener) {
+        String hierarchyPath = watchableHierarchy.getAbsolutePath();
+        SnapshotHierarchy newRoot = root;
+        Iterator<PersistedSnapshot> iterator = persistedSnapshots.iterator();
+        while (iterator.hasNext()) {
+            PersistedSnapshot persisted = iterator.next();
+            String absolutePath = persisted.snapshot.getAbsolutePath();
+            if (!isWithin(absolutePath, hierarchyPath)) {
+                continue;
+            }
+            iterator.remove();
+            if (newRoot.findMetadata(absolutePath).isPresent() || newRoot.hasDescendantsUnder(absolutePath)) {
+                continue;
+            }
+            newRoot = newRoot.store(absolutePath, persisted.snapshot, diffListener);
+            restoredSnapshots.add(persisted);
+        }
+        return newRoot;
+    }
+
+    /**
+     * Drops the snapshots added by {@link #restore(File, SnapshotHierarchy, SnapshotHierarchy.NodeDiffListener)} which don't match the file system anymore.
+     */
+    public synchronized SnapshotHierarchy validate(SnapshotHierarchy root, SnapshotHierarchy.NodeDiffListener diffListener) {
+        if (restoredSnapshots.isEmpty()) {
+            return root;
+        }
+        SnapshotHierarchy newRoot = root;
+        int dropped = 0;
+        for (PersistedSnapshot restored : restoredSnapshots) {
+            if (!restored.validation.isUpToDate()) {
+                newRoot = newRoot.invalidate(restored.snapshot.getAbsolutePath(), diffListener);
+                dropped++;
+            }
+        }
+        LOGGER.info("Restored {} snapshots of the virtual file system from {}, dropped {} out-of-date snapshots", restoredSnapshots.size() - dropped, stateFile, dropped);
+        restoredSnapshots.clear();
+        return newRoot;
+    }
+
+    private static boolean isWithin(String absolutePath, String hierarchyPath) {
+        return absolutePath.equals(hierarchyPath) || absolutePath.startsWith(hierarchyPath.endsWith(File.separator) ? hierarchyPath : hierarchyPath + File.separatorChar);
+    }
+
+    /**
+     * Writes the complete snapshots of the given hierarchy to the state file on a background thread.
+     */
+    public synchronized void storeInBackground(SnapshotHierarchy root) {
+        if (root == lastStoredRoot || executor.isShutdown()) {
+            return;
+        }
+        lastStoredRoot = root;
+        // Directories which were modified after watching started may have been modified after they were snapshotted
+        long unchangedBefore = watchingStartedAt - TIMESTAMP_RESOLUTION_MILLIS;
+        executor.execute(() -> {
+            if (isLatest(root)) {
+                store(root, unchangedBefore);
+            }
+        });
+    }
+
+    private synchronized boolean isLatest(SnapshotHierarchy root) {
+        return root == lastStoredRoot;
+    }
+
+    /**
+     * Waits for pending writes to finish. Must not be called while holding the lock of the virtual file system.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Timed out waiting for the virtual file system state to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores the snapshots of the given hierarchy unless it has already been stored, waiting for pending writes to finish.
+     * Must not be called while holding the lock of the virtual file system.
+     */
+    public void storeAndClose(SnapshotHierarchy root) {
+        storeInBackground(root);
+        close();
+    }
+
+    private void store(SnapshotHierarchy root, long unchangedBefore) {
+        File tempFile = new File(stateFile.getParentFile(), stateFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(stateFile.getParentFile().toPath());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                Iterator<FileSystemLocationSnapshot> rootSnapshots = root.rootSnapshots().iterator();
+                while (rootSnapshots.hasNext()) {
+                    FileSystemLocationSnapshot snapshot = rootSnapshots.next();
+                    output.writeByte(ROOT);
+                    output.writeUTF(snapshot.getAbsolutePath());
+                    writeSnapshot(output, snapshot, unchangedBefore);
+                }
+                output.writeByte(END);
+            }
+            moveIntoPlace(tempFile.toPath(), stateFile.toPath());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Unable to store virtual file system state to {}", stateFile, e);
+            tempFile.delete();
+        }
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the given snapshot. Since the snapshot of a directory has no modification time,
+     * the modification time of a directory is only written when it shows that the directory has not changed since {@code unchangedBefore},
+     * which is before the directory was snapshotted or its restored snapshot was validated.
+     */
+    private static void writeSnapshot(DataOutputStream output, FileSystemLocationSnapshot snapshot, long unchangedBefore) throws IOException {
+        switch (snapshot.getType()) {
+            case RegularFile:
+                RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+                output.writeByte(REGULAR_FILE);
+                output.writeByte(snapshot.getAccessType().ordinal());
+                writeHash(output, fileSnapshot.getHash());
+                output.writeLong(fileSnapshot.getMetadata().getLastModified());
+                output.writeLong(fileSnapshot.getMetadata().getLength());
+                break;
+            case Directory:
+                DirectorySnapshot directorySnapshot = (DirectorySnapshot) snapshot;
+                output.writeByte(DIRECTORY);
+                output.writeByte(snapshot.getAccessType().ordinal());
+                writeHash(output, directorySnapshot.getHash());
+                long lastModified = directoryLastModified(snapshot.getAbsolutePath());
+                output.writeLong(lastModified < unchangedBefore ? lastModified : UNKNOWN_LAST_MODIFIED);
+                output.writeInt(directorySnapshot.getChildren().size());
+                for (FileSystemLocationSnapshot child : directorySnapshot.getChildren()) {
+                    output.writeUTF(child.getName());
+                    writeSnapshot(output, child, unchangedBefore);
+                }
+                break;
+            case Missing:
+                output.writeByte(MISSING);
+                output.writeByte(snapshot.getAccessType().ordinal());
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static FileSystemLocationSnapshot readSnapshot(DataInputStream input, String absolutePath, String name, Validation validation) throws IOException {
+        byte type = input.readByte();
+        AccessType accessType = AccessType.values()[input.readByte()];
+        switch (type) {
+            case REGULAR_FILE:
+                HashCode contentHash = readHash(input);
+                long lastModified = input.readLong();
+                long length = input.readLong();
+                validation.expect(absolutePath, attributes -> attributes != null
+                    && attributes.isRegularFile()
+                    && attributes.lastModifiedTime().toMillis() == lastModified
+                    && attributes.size() == length);
+                return new RegularFileSnapshot(absolutePath, name, contentHash, DefaultFileMetadata.file(lastModified, length, accessType));
+            case DIRECTORY:
+                HashCode merkleHash = readHash(input);
+                long directoryLastModified = input.readLong();
+                validation.expect(absolutePath, attributes -> directoryLastModified != UNKNOWN_LAST_MODIFIED
+                    && attributes != null
+                    && attributes.isDirectory()
+                    && attributes.lastModifiedTime().toMillis() == directoryLastModified);
+                int childCount = input.readInt();
+                List<FileSystemLocationSnapshot> children = new ArrayList<>(childCount);
+                for (int i = 0; i < childCount; i++) {
+                    String childName = input.readUTF();
+                    children.add(readSnapshot(input, childPath(absolutePath, childName), childName, validation));
+                }
+                return new DirectorySnapshot(absolutePath, name, accessType, merkleHash, children);
+            case MISSING:
+                validation.expect(absolutePath, attributes -> attributes == null);
+                return new MissingFileSnapshot(absolutePath, name, accessType);
+            default:
+                throw new IOException("Unknown snapshot type " + type);
+        }
+    }
+
+    private static String childPath(String parentPath, String childName) {
+        return parentPath.endsWith(File.separator)
+            ? parentPath + childName
+            : parentPath + File.separatorChar + childName;
+    }
+
+    private static void writeHash(DataOutputStream output, HashCode hash) throws IOException {
+        byte[] bytes = hash.toByteArray();
+        output.writeByte(bytes.length);
+        output.write(bytes);
+    }
+
+    private static HashCode readHash(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedByte()];
+        input.readFully(bytes);
+        return HashCode.fromBytes(bytes);
+    }
+
+    /**
+     * Returns the modification time of the directory, or {@link #UNKNOWN_LAST_MODIFIED} if it is not a directory anymore.
+     */
+    private static long directoryLastModified(String absolutePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(absolutePath), BasicFileAttributes.class);
+            return attributes.isDirectory() ? attributes.lastModifiedTime().toMillis() : UNKNOWN_LAST_MODIFIED;
+        } catch (IOException e) {
+            return UNKNOWN_LAST_MODIFIED;
+        }
+    }
+
+    private static class PersistedSnapshot {
+        final FileSystemLocationSnapshot snapshot;
+        final Validation validation;
+
+        PersistedSnapshot(FileSystemLocationSnapshot snapshot, Validation validation) {
+            this.snapshot = snapshot;
+            this.validation = validation;
+        }
+    }
+
+    /**
+     * The attributes expected for all the locations of a snapshot.
+     */
+    private static class Validation {
+        private final List<String> paths = new ArrayList<>();
+        private final List<Predicate<BasicFileAttributes>> expectations = new ArrayList<>();
+
+        /**
+         * Expects the attributes of the given location to match, which are {@code null} when nothing exists at the location.
+         */
+        void expect(String absolutePath, Predicate<BasicFileAttributes> expectedAttributes) {
+            paths.add(absolutePath);
+            expectations.add(expectedAttributes);
+        }
+
+        /**
+         * Checks whether all the locations still match the file system.
+         */
+        boolean isUpToDate() {
+            for (int i = 0; i < paths.size(); i++) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(Paths.get(paths.get(i)), BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    attributes = null;
+                } catch (IOException e) {
+                    return false;
+                }
+                if (!expectations.get(i).test(attributes)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
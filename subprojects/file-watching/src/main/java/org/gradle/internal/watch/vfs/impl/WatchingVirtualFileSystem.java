@@ -55,6 +55,7 @@
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem implements BuildLifecycleAwareVirtualFileSystem, FileSystemWatchingInformation, Closeable {
@@ -67,6 +68,8 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild;
     private final WatchableFileSystemDetector watchableFileSystemDetector;
     private final FileChangeListeners fileChangeListeners;
+    @Nullable
+    private final PersistentVirtualFileSystemStore persistentStore;
     private final List<File> unsupportedFileSystems = new ArrayList<>();
     private Logger warningLogger = LOGGER;
 
@@ -85,7 +88,8 @@ public WatchingVirtualFileSystem(
         DaemonDocumentationIndex daemonDocumentationIndex,
         LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
-        FileChangeListeners fileChangeListeners
+        FileChangeListeners fileChangeListeners,
+        @Nullable PersistentVirtualFileSystemStore persistentStore
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -93,6 +97,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.persistentStore = persistentStore;
     }
 
     @Override
@@ -209,13 +214,27 @@ public void registerWatchableHierarchy(File watchableHierarchy) {
                 watchableHierarchiesRegisteredEarly.add(watchableHierarchy);
                 return currentRoot;
             }
-            return withWatcherChangeErrorHandling(
+            SnapshotHierarchy newRoot = withWatcherChangeErrorHandling(
                 currentRoot,
                 () -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot)
             );
+            return restorePersistedSnapshots(watchableHierarchy, newRoot);
         });
     }
 
+    /**
+     * Adds the persisted snapshots within the given watchable hierarchy, which must already be registered.
+     */
+    @CheckReturnValue
+    private SnapshotHierarchy restorePersistedSnapshots(File watchableHierarchy, SnapshotHierarchy currentRoot) {
+        if (persistentStore == null || watchRegistry == null) {
+            return currentRoot;
+        }
+        // The restored snapshots are watched before they are validated, so changes after the validation are picked up by the watchers
+        SnapshotHierarchy restoredRoot = updateNotifyingListeners(diffListener -> persistentStore.restore(watchableHierarchy, currentRoot, diffListener));
+        return updateNotifyingListeners(diffListener -> persistentStore.validate(restoredRoot, diffListener));
+    }
+
     @Override
     public void beforeBuildFinished(
         WatchMode watchMode,
@@ -262,6 +281,9 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                         }
                     }
                     boolean stoppedWatchingDuringTheBuild = watchRegistry == null;
+                    if (persistentStore != null && !stoppedWatchingDuringTheBuild) {
+                        persistentStore.storeInBackground(newRoot);
+                    }
                     context.setResult(new BuildFinishedFileSystemWatchingBuildOperationType.Result() {
                         private final boolean stateInvalidatedAtStartOfBuild = WatchingVirtualFileSystem.this.stateInvalidatedAtStartOfBuild;
 
@@ -314,9 +336,16 @@ private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode
                     new BroadcastingChangeHandler()
                 )));
             SnapshotHierarchy newRoot = watchRegistry.updateVfsOnBuildStarted(currentRoot.empty(), watchMode, unsupportedFileSystems);
+            if (persistentStore != null) {
+                persistentStore.watchingStarted();
+            }
             watchableHierarchiesRegisteredEarly.forEach(watchableHierarchy -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, newRoot));
+            SnapshotHierarchy restoredRoot = newRoot;
+            for (File watchableHierarchy : watchableHierarchiesRegisteredEarly) {
+                restoredRoot = restorePersistedSnapshots(watchableHierarchy, restoredRoot);
+            }
             watchableHierarchiesRegisteredEarly.clear();
-            return newRoot;
+            return restoredRoot;
         } catch (Exception ex) {
             logWatchingError(ex, FILE_WATCHING_ERROR_MESSAGE_DURING_BUILD, null);
             closeUnderLock();
@@ -505,10 +534,23 @@ private boolean hasDroppedStateBecauseOfErrorsReceivedWhileWatching(FileWatcherR
     @Override
     public void close() {
         LOGGER.debug("Closing VFS, dropping state");
+        AtomicReference<SnapshotHierarchy> rootToPersist = new AtomicReference<>();
         updateRootUnderLock(currentRoot -> {
+            if (watchRegistry != null) {
+                rootToPersist.set(currentRoot);
+            }
             closeUnderLock();
             return currentRoot.empty();
         });
+        // Wait for the state to be written without holding the lock
+        if (persistentStore != null) {
+            SnapshotHierarchy root = rootToPersist.get();
+            if (root != null) {
+                persistentStore.storeAndClose(root);
+            } else {
+                persistentStore.close();
+            }
+        }
     }
 
     private void closeUnderLock() {
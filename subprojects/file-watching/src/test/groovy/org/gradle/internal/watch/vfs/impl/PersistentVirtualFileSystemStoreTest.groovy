@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.MissingFileSnapshot
+import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PersistentVirtualFileSystemStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def directorySnapshotter = new DirectorySnapshotter(new TestFileHasher(), new StringInterner(), [], new DirectorySnapshotterStatistics.Collector())
+    def emptyHierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
+    def stateFile = temporaryFolder.file("state/snapshots.bin")
+
+    def "restores snapshots which are still up-to-date"() {
+        def rootDir = temporaryFolder.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        rootDir.file("sub/b.txt").text = "b"
+        def missingFile = temporaryFolder.file("missing")
+        makeUnchangedSinceLongAgo(rootDir, rootDir.file("sub"))
+        def directorySnapshot = snapshot(rootDir)
+
+        when:
+        store(emptyHierarchy
+            .store(rootDir.absolutePath, directorySnapshot, SnapshotHierarchy.NodeDiffListener.NOOP)
+            .store(missingFile.absolutePath, new MissingFileSnapshot(missingFile.absolutePath, missingFile.name, FileMetadata.AccessType.DIRECT), SnapshotHierarchy.NodeDiffListener.NOOP))
+        def restored = restore()
+
+        then:
+        restored.rootSnapshots().count() == 2
+        def restoredDirectory = restored.findSnapshot(rootDir.absolutePath).get()
+        restoredDirectory.hash == directorySnapshot.hash
+        restoredDirectory.absolutePath == directorySnapshot.absolutePath
+        restored.findSnapshot(rootDir.file("sub/b.txt").absolutePath).present
+        restored.findSnapshot(missingFile.absolutePath).get() instanceof MissingFileSnapshot
+    }
+
+    def "drops snapshots which are out-of-date"() {
+        def changedDir = temporaryFolder.createDir("changed")
+        def changedFile = changedDir.file("a.txt")
+        changedFile.text = "a"
+        def unchangedDir = temporaryFolder.createDir("unchanged")
+        unchangedDir.file("b.txt").text = "b"
+        def createdFile = temporaryFolder.file("created")
+        makeUnchangedSinceLongAgo(changedDir, unchangedDir)
+
+        when:
+        store(emptyHierarchy
+            .store(changedDir.absolutePath, snapshot(changedDir), SnapshotHierarchy.NodeDiffListener.NOOP)
+            .store(unchangedDir.absolutePath, snapshot(unchangedDir), SnapshotHierarchy.NodeDiffListener.NOOP)
+            .store(createdFile.absolutePath, new MissingFileSnapshot(createdFile.absolutePath, createdFile.name, FileMetadata.AccessType.DIRECT), SnapshotHierarchy.NodeDiffListener.NOOP))
+        changedFile.text = "changed"
+        createdFile.text = "created"
+        def restored = restore()
+
+        then:
+        restored.rootSnapshots().count() == 1
+        restored.findSnapshot(unchangedDir.absolutePath).present
+        !restored.findSnapshot(changedDir.absolutePath).present
+        !restored.findSnapshot(createdFile.absolutePath).present
+    }
+
+    def "drops directories which changed after watching started"() {
+        def rootDir = temporaryFolder.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        def recentDir = temporaryFolder.createDir("recent")
+        recentDir.file("b.txt").text = "b"
+        makeUnchangedSinceLongAgo(rootDir)
+
+        when:
+        store(emptyHierarchy
+            .store(rootDir.absolutePath, snapshot(rootDir), SnapshotHierarchy.NodeDiffListener.NOOP)
+            .store(recentDir.absolutePath, snapshot(recentDir), SnapshotHierarchy.NodeDiffListener.NOOP))
+        def restored = restore()
+
+        then:
+        restored.rootSnapshots().count() == 1
+        restored.findSnapshot(rootDir.absolutePath).present
+        !restored.findSnapshot(recentDir.absolutePath).present
+    }
+
+    def "only restores snapshots within the registered hierarchy and drops them when they change before validation"() {
+        def hierarchy = temporaryFolder.createDir("hierarchy")
+        def insideDir = hierarchy.createDir("inside")
+        def insideFile = insideDir.file("a.txt")
+        insideFile.text = "inside"
+        def outsideDir = temporaryFolder.createDir("outside")
+        outsideDir.file("b.txt").text = "outside"
+        makeUnchangedSinceLongAgo(insideDir, outsideDir)
+        store(emptyHierarchy
+            .store(insideDir.absolutePath, snapshot(insideDir), SnapshotHierarchy.NodeDiffListener.NOOP)
+            .store(outsideDir.absolutePath, snapshot(outsideDir), SnapshotHierarchy.NodeDiffListener.NOOP))
+        def persistentStore = new PersistentVirtualFileSystemStore(stateFile)
+        persistentStore.watchingStarted()
+
+        when:
+        def restored = persistentStore.restore(hierarchy, emptyHierarchy, SnapshotHierarchy.NodeDiffListener.NOOP)
+
+        then:
+        restored.findSnapshot(insideDir.absolutePath).present
+        !restored.findSnapshot(outsideDir.absolutePath).present
+
+        when:
+        insideFile.text = "changed"
+        def validated = persistentStore.validate(restored, SnapshotHierarchy.NodeDiffListener.NOOP)
+
+        then:
+        !validated.findSnapshot(insideDir.absolutePath).present
+
+        cleanup:
+        persistentStore?.close()
+    }
+
+    def "ignores corrupt state"() {
+        stateFile.parentFile.mkdirs()
+        stateFile.text = "corrupt"
+
+        expect:
+        restore() == emptyHierarchy
+    }
+
+    private FileSystemLocationSnapshot snapshot(File location) {
+        directorySnapshotter.snapshot(location.absolutePath, null, {})
+    }
+
+    private static void makeUnchangedSinceLongAgo(File... directories) {
+        directories.each { assert it.setLastModified(System.currentTimeMillis() - 60_000) }
+    }
+
+    private void store(SnapshotHierarchy hierarchy) {
+        def store = new PersistentVirtualFileSystemStore(stateFile)
+        store.watchingStarted()
+        store.storeAndClose(hierarchy)
+    }
+
+    private SnapshotHierarchy restore() {
+        def store = new PersistentVirtualFileSystemStore(stateFile)
+        try {
+            store.watchingStarted()
+            def restored = store.restore(temporaryFolder.testDirectory, emptyHierarchy, SnapshotHierarchy.NodeDiffListener.NOOP)
+            return store.validate(restored, SnapshotHierarchy.NodeDiffListener.NOOP)
+        } finally {
+            store.close()
+        }
+    }
+}
@@ -49,7 +49,8 @@ class WatchingVirtualFileSystemTest extends Specification {
         daemonDocumentationIndex,
         locationsUpdatedByCurrentBuild,
         watchableFileSystemDetector,
-        fileChangeListeners
+        fileChangeListeners,
+        null
     )
 
     def "invalidates the virtual file system before and after the build when watching is disabled"() {
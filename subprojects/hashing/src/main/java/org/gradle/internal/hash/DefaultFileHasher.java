@@ -21,35 +21,88 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.function.Predicate;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Immutable files of at least this size are hashed via memory mapping instead of being streamed through a heap buffer.
+     */
+    public static final long DEFAULT_MAPPED_HASHING_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final Predicate<File> NO_IMMUTABLE_FILES = file -> false;
+
+    /**
+     * Memory mapped files stay locked on Windows until the mapping is garbage collected,
+     * which would prevent Gradle from deleting or overwriting the hashed files.
+     */
+    private static final boolean MEMORY_MAPPING_SUPPORTED = !System.getProperty("os.name").toLowerCase().contains("windows");
+
     private final StreamHasher streamHasher;
+    private final long mappedHashingThreshold;
+    private final Predicate<File> immutableFiles;
 
+    /**
+     * Creates a hasher which streams the content of all files.
+     */
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, DEFAULT_MAPPED_HASHING_THRESHOLD, NO_IMMUTABLE_FILES);
+    }
+
+    /**
+     * Creates a hasher which memory maps large files that match the given predicate.
+     *
+     * Only files which are never modified while being hashed must match, e.g. files in the global caches.
+     * Truncating a file while its mapping is being read crashes the JVM, and the mapping is only released once it is garbage collected.
+     * All other files are streamed.
+     */
+    public DefaultFileHasher(StreamHasher streamHasher, long mappedHashingThreshold, Predicate<File> immutableFiles) {
         this.streamHasher = streamHasher;
+        this.mappedHashingThreshold = mappedHashingThreshold;
+        this.immutableFiles = immutableFiles;
     }
 
     @Override
     public HashCode hash(File file) {
-        InputStream inputStream;
-        try {
-            inputStream = new FileInputStream(file);
-        } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
-        }
+        FileInputStream inputStream = open(file);
         try {
             return streamHasher.hash(inputStream);
         } finally {
-            try {
-                inputStream.close();
-            } catch (IOException ignored) {
-                // Ignored
-            }
+            closeQuietly(inputStream);
         }
     }
 
     @Override
     public HashCode hash(File file, long length, long lastModified) {
+        if (MEMORY_MAPPING_SUPPORTED && length >= mappedHashingThreshold && immutableFiles.test(file)) {
+            return hashMapped(file);
+        }
         return hash(file);
     }
+
+    private HashCode hashMapped(File file) {
+        FileInputStream inputStream = open(file);
+        try {
+            return streamHasher.hash(inputStream.getChannel());
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'.", file), e);
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private static FileInputStream open(File file) {
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // Ignored
+        }
+    }
 }
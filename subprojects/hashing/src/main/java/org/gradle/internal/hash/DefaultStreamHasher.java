@@ -21,13 +21,20 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class DefaultStreamHasher implements StreamHasher {
     private static final HashCode SIGNATURE = Hashing.signature(DefaultStreamHasher.class);
+    /**
+     * Maximum size of a single mapped region, so we don't need to reserve address space for the whole file at once.
+     */
+    private static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
 
-    private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
+    // Keep enough buffers around so that hashing on all cores concurrently doesn't allocate new ones
+    private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(Math.max(16, 2 * Runtime.getRuntime().availableProcessors()));
 
     @Override
     public HashCode hash(InputStream inputStream) {
@@ -43,6 +50,18 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
         return doHash(inputStream, outputStream);
     }
 
+    @Override
+    public HashCode hash(FileChannel channel) throws IOException {
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putHash(SIGNATURE);
+        long size = channel.size();
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+            hasher.putBytes(region);
+        }
+        return hasher.hash();
+    }
+
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
@@ -22,6 +22,7 @@
 import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.Arrays;
 
 import static org.gradle.internal.hash.HashCode.Usage.CLONE_BYTES_IF_NECESSARY;
 import static org.gradle.internal.hash.HashCode.Usage.SAFE_TO_REUSE_BYTES;
@@ -77,6 +78,22 @@ public static HashCode fromBytes(byte[] bytes) {
         return fromBytes(bytes, CLONE_BYTES_IF_NECESSARY);
     }
 
+    /**
+     * Creates a hash code from the given range of bytes, without keeping a reference to the array.
+     */
+    public static HashCode fromBytes(byte[] bytes, int offset, int length) {
+        if (length < MIN_NUMBER_OF_BYTES || length > MAX_NUMBER_OF_BYTES) {
+            throw new IllegalArgumentException(String.format("Invalid hash code length: %d bytes", length));
+        }
+        if (length == 16) {
+            return new HashCode128(
+                bytesToLong(bytes, offset),
+                bytesToLong(bytes, offset + 8)
+            );
+        }
+        return new ByteArrayBackedHashCode(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
     public static HashCode fromString(String string) {
         int length = string.length();
 
@@ -113,6 +130,16 @@ private static int decode(char ch) {
 
     public abstract byte[] toByteArray();
 
+    /**
+     * Writes the bytes of this hash code to the given array, starting at the given offset.
+     */
+    public abstract void copyTo(byte[] destination, int offset);
+
+    /**
+     * Returns whether this hash code consists of the given range of bytes, without copying them.
+     */
+    public abstract boolean hasBytes(byte[] bytes, int offset, int length);
+
     @Override
     public abstract int hashCode();
 
@@ -173,11 +200,23 @@ byte[] bytes() {
         @Override
         public byte[] toByteArray() {
             byte[] bytes = new byte[16];
-            longToBytes(bits1, bytes, 0);
-            longToBytes(bits2, bytes, 8);
+            copyTo(bytes, 0);
             return bytes;
         }
 
+        @Override
+        public void copyTo(byte[] destination, int offset) {
+            longToBytes(bits1, destination, offset);
+            longToBytes(bits2, destination, offset + 8);
+        }
+
+        @Override
+        public boolean hasBytes(byte[] bytes, int offset, int length) {
+            return length == 16
+                && bits1 == bytesToLong(bytes, offset)
+                && bits2 == bytesToLong(bytes, offset + 8);
+        }
+
         @Override
         void appendToHasher(PrimitiveHasher hasher) {
             hasher.putLong(bits1);
@@ -242,6 +281,24 @@ public byte[] toByteArray() {
             return bytes.clone();
         }
 
+        @Override
+        public void copyTo(byte[] destination, int offset) {
+            System.arraycopy(bytes, 0, destination, offset, bytes.length);
+        }
+
+        @Override
+        public boolean hasBytes(byte[] other, int offset, int length) {
+            if (length != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != other[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         void appendToHasher(PrimitiveHasher hasher) {
             hasher.putBytes(bytes);
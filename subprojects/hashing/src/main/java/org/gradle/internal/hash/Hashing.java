@@ -47,7 +47,33 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
-    private static final HashFunction DEFAULT = MD5;
+    private static final HashFunction MURMUR3 = new Murmur3HashFunction();
+
+    /**
+     * The system property to select the hash scheme used by the default hash function.
+     *
+     * Supported values are {@code md5}, which is the default, and {@code murmur3}, a fast non-cryptographic 128-bit hash.
+     */
+    public static final String HASH_SCHEME_PROPERTY = "org.gradle.internal.hash.scheme";
+
+    /**
+     * The hash scheme used when no other scheme is selected.
+     */
+    public static final String DEFAULT_HASH_SCHEME = "md5";
+
+    private static final String HASH_SCHEME = System.getProperty(HASH_SCHEME_PROPERTY, DEFAULT_HASH_SCHEME);
+
+    private static final HashFunction DEFAULT = functionForScheme(HASH_SCHEME);
+
+    private static HashFunction functionForScheme(String scheme) {
+        if (scheme.equals(DEFAULT_HASH_SCHEME)) {
+            return MD5;
+        }
+        if (scheme.equals("murmur3")) {
+            return MURMUR3;
+        }
+        throw new IllegalArgumentException("Unknown hash scheme '" + scheme + "' set via " + HASH_SCHEME_PROPERTY + ", supported schemes are 'md5' and 'murmur3'.");
+    }
 
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
@@ -115,6 +141,23 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * The hash scheme of the {@link #defaultFunction() default hashing function}.
+     */
+    public static String defaultScheme() {
+        return HASH_SCHEME;
+    }
+
+    /**
+     * Qualifies the name of something that stores or is keyed by hashes of the default function with the hash scheme,
+     * so that hashes created by different schemes are never mixed.
+     *
+     * The name is returned as is for the {@link #DEFAULT_HASH_SCHEME default scheme}.
+     */
+    public static String schemeQualifiedName(String name) {
+        return HASH_SCHEME.equals(DEFAULT_HASH_SCHEME) ? name : name + "-" + HASH_SCHEME;
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -143,35 +186,22 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
-    private static abstract class MessageDigestHashFunction implements HashFunction {
+    /**
+     * Non-cryptographic 128-bit MurmurHash3 (x64 variant) hashing function.
+     *
+     * Much faster than the message digest based functions, but not resistant to deliberate collisions.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
+    private static abstract class PrimitiveHasherHashFunction implements HashFunction {
         private final int hexDigits;
 
-        public MessageDigestHashFunction(int hashBits) {
+        public PrimitiveHasherHashFunction(int hashBits) {
             this.hexDigits = hashBits / 4;
         }
 
-        public static MessageDigestHashFunction of(String algorithm) {
-            MessageDigest prototype;
-            try {
-                prototype = MessageDigest.getInstance(algorithm);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
-            }
-            int hashBits = prototype.getDigestLength() * 8;
-            try {
-                prototype.clone();
-                return new CloningMessageDigestHashFunction(prototype, hashBits);
-            } catch (CloneNotSupportedException e) {
-                return new RegularMessageDigestHashFunction(algorithm, hashBits);
-            }
-        }
-
-        @Override
-        public PrimitiveHasher newPrimitiveHasher() {
-            MessageDigest digest = createDigest();
-            return new MessageDigestHasher(digest);
-        }
-
         @Override
         public Hasher newHasher() {
             return new DefaultHasher(newPrimitiveHasher());
@@ -209,8 +239,6 @@ private HashingOutputStream primitiveStreamHasher() {
             return new HashingOutputStream(this, ByteStreams.nullOutputStream());
         }
 
-        protected abstract MessageDigest createDigest();
-
         @Override
         public int getHexDigits() {
             return hexDigits;
@@ -222,6 +250,52 @@ public String toString() {
         }
     }
 
+    private static abstract class MessageDigestHashFunction extends PrimitiveHasherHashFunction {
+        public MessageDigestHashFunction(int hashBits) {
+            super(hashBits);
+        }
+
+        public static MessageDigestHashFunction of(String algorithm) {
+            MessageDigest prototype;
+            try {
+                prototype = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
+            }
+            int hashBits = prototype.getDigestLength() * 8;
+            try {
+                prototype.clone();
+                return new CloningMessageDigestHashFunction(prototype, hashBits);
+            } catch (CloneNotSupportedException e) {
+                return new RegularMessageDigestHashFunction(algorithm, hashBits);
+            }
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            MessageDigest digest = createDigest();
+            return new MessageDigestHasher(digest);
+        }
+
+        protected abstract MessageDigest createDigest();
+    }
+
+    private static class Murmur3HashFunction extends PrimitiveHasherHashFunction {
+        public Murmur3HashFunction() {
+            super(128);
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "MURMUR3-128";
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new Murmur3Hasher();
+        }
+    }
+
     private static class CloningMessageDigestHashFunction extends MessageDigestHashFunction {
         private final MessageDigest prototype;
 
@@ -298,6 +372,11 @@ public void putBytes(byte[] bytes, int off, int len) {
             getDigest().update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            getDigest().update(buffer);
+        }
+
         private void update(int length) {
             getDigest().update(buffer.array(), 0, length);
             castBuffer(buffer).clear();
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.base.Charsets;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of the 128-bit x64 variant of MurmurHash3 with a seed of zero.
+ *
+ * Primitives are fed in little-endian byte order, the same as for the message digest based hashers.
+ * The resulting hash is the same as produced by Guava's {@code Hashing.murmur3_128()} for the same bytes.
+ */
+final class Murmur3Hasher implements PrimitiveHasher {
+    private static final int BLOCK_SIZE = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] tail = new byte[BLOCK_SIZE];
+    private int tailLength;
+    private long length;
+    private long h1;
+    private long h2;
+    private boolean done;
+
+    @Override
+    public void putBytes(byte[] bytes) {
+        putBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void putBytes(byte[] bytes, int off, int len) {
+        checkNotDone();
+        length += len;
+        if (tailLength > 0) {
+            int copied = Math.min(BLOCK_SIZE - tailLength, len);
+            System.arraycopy(bytes, off, tail, tailLength, copied);
+            tailLength += copied;
+            off += copied;
+            len -= copied;
+            if (tailLength < BLOCK_SIZE) {
+                return;
+            }
+            processBlock(littleEndianLong(tail, 0), littleEndianLong(tail, 8));
+            tailLength = 0;
+        }
+        while (len >= BLOCK_SIZE) {
+            processBlock(littleEndianLong(bytes, off), littleEndianLong(bytes, off + 8));
+            off += BLOCK_SIZE;
+            len -= BLOCK_SIZE;
+        }
+        if (len > 0) {
+            System.arraycopy(bytes, off, tail, 0, len);
+            tailLength = len;
+        }
+    }
+
+    @Override
+    public void putBytes(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            putBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            castBuffer(buffer).position(buffer.limit());
+            return;
+        }
+        checkNotDone();
+        ByteBuffer littleEndian = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (tailLength > 0 && littleEndian.hasRemaining()) {
+            putByte(littleEndian.get());
+        }
+        int blocks = littleEndian.remaining() / BLOCK_SIZE;
+        for (int i = 0; i < blocks; i++) {
+            processBlock(littleEndian.getLong(), littleEndian.getLong());
+        }
+        length += (long) blocks * BLOCK_SIZE;
+        while (littleEndian.hasRemaining()) {
+            putByte(littleEndian.get());
+        }
+        castBuffer(buffer).position(buffer.limit());
+    }
+
+    @Override
+    public void putByte(byte value) {
+        checkNotDone();
+        length++;
+        tail[tailLength++] = value;
+        if (tailLength == BLOCK_SIZE) {
+            processBlock(littleEndianLong(tail, 0), littleEndianLong(tail, 8));
+            tailLength = 0;
+        }
+    }
+
+    @Override
+    public void putInt(int value) {
+        for (int i = 0; i < 4; i++) {
+            putByte((byte) (value >>> (i * 8)));
+        }
+    }
+
+    @Override
+    public void putLong(long value) {
+        for (int i = 0; i < 8; i++) {
+            putByte((byte) (value >>> (i * 8)));
+        }
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        putByte((byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void putString(CharSequence value) {
+        putBytes(value.toString().getBytes(Charsets.UTF_8));
+    }
+
+    @Override
+    public void putHash(HashCode hashCode) {
+        hashCode.appendToHasher(this);
+    }
+
+    @Override
+    public HashCode hash() {
+        checkNotDone();
+        done = true;
+        if (tailLength > 0) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = tailLength - 1; i >= 8; i--) {
+                k2 = (k2 << 8) | (tail[i] & 0xffL);
+            }
+            for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+                k1 = (k1 << 8) | (tail[i] & 0xffL);
+            }
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new HashCode.HashCode128(h1, h2);
+    }
+
+    private void checkNotDone() {
+        if (done) {
+            throw new IllegalStateException("Cannot reuse hasher!");
+        }
+    }
+
+    private void processBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long littleEndianLong(byte[] bytes, int off) {
+        return (bytes[off] & 0xffL)
+            | (bytes[off + 1] & 0xffL) << 8
+            | (bytes[off + 2] & 0xffL) << 16
+            | (bytes[off + 3] & 0xffL) << 24
+            | (bytes[off + 4] & 0xffL) << 32
+            | (bytes[off + 5] & 0xffL) << 40
+            | (bytes[off + 6] & 0xffL) << 48
+            | (bytes[off + 7] & 0xffL) << 56;
+    }
+
+    /**
+     * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
+     * java.lang.NoSuchMethodError: Method position(I)Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
+     */
+    @SuppressWarnings("RedundantCast")
+    private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
+        return (Buffer) byteBuffer;
+    }
+}
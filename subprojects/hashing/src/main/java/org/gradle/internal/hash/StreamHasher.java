@@ -18,6 +18,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public interface StreamHasher {
     /**
@@ -30,4 +31,11 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the whole content of the given file channel by memory mapping it.
+     * The hash is the same as the one returned by {@link #hash(InputStream)} for the same content.
+     * The method will not close the channel.
+     */
+    HashCode hash(FileChannel channel) throws IOException;
 }
@@ -17,8 +17,12 @@
 package org.gradle.internal.hash
 
 import spock.lang.Specification
+import spock.lang.TempDir
 
 class DefaultStreamHasherTest extends Specification {
+    @TempDir
+    File tmpDir
+
     def "can hash input"() {
         def input = new ByteArrayInputStream("hello".bytes)
         when:
@@ -36,4 +40,31 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "hashing a file channel gives the same hash as hashing the stream"() {
+        def file = new File(tmpDir, "input.bin")
+        def content = new byte[size]
+        new Random(1234L).nextBytes(content)
+        file.bytes = content
+
+        when:
+        def channelHash = new FileInputStream(file).withCloseable { new DefaultStreamHasher().hash(it.channel) }
+        def streamHash = new FileInputStream(file).withCloseable { new DefaultStreamHasher().hash(it) }
+
+        then:
+        channelHash == streamHash
+
+        where:
+        size << [0, 1, 8192, 1024 * 1024 + 17]
+    }
+
+    def "file hasher uses the same hash for mapped and streamed files"() {
+        def file = new File(tmpDir, "input.bin")
+        def content = new byte[64 * 1024]
+        new Random(1234L).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        new DefaultFileHasher(new DefaultStreamHasher(), 0, { true }).hash(file, file.length(), file.lastModified()) == new DefaultFileHasher(new DefaultStreamHasher()).hash(file)
+    }
 }
@@ -184,6 +184,23 @@ class HashCodeTest extends Specification {
         Hashing.md5().hashString("").toZeroPaddedString(40) == "00000000d41d8cd98f00b204e9800998ecf8427e"
     }
 
+    def "can copy to and compare with a range of bytes: #hex"() {
+        def hash = HashCode.fromString(hex)
+        def packed = new byte[hash.length() + 4]
+
+        when:
+        hash.copyTo(packed, 2)
+
+        then:
+        hash.hasBytes(packed, 2, hash.length())
+        !hash.hasBytes(packed, 1, hash.length())
+        !hash.hasBytes(packed, 2, hash.length() - 1)
+        HashCode.fromBytes(packed, 2, hash.length()) == hash
+
+        where:
+        hex << ["12345678", "abbaabbaabba", "e5b7d1919156335a9c453a4956bbe775"]
+    }
+
     private static byte[] toBytes(int ... elements) {
         toBytes(elements as List<Integer>)
     }
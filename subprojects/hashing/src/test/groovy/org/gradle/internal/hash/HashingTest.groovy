@@ -18,6 +18,8 @@ package org.gradle.internal.hash
 
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 import static java.lang.Thread.currentThread
 import static java.util.concurrent.CompletableFuture.supplyAsync
 import static java.util.concurrent.Executors.newFixedThreadPool
@@ -109,6 +111,44 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    def 'murmur3 hash is the same as Guava\'s for #length bytes'() {
+        given:
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+
+        expect:
+        Hashing.murmur3().hashBytes(bytes).toByteArray() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).asBytes()
+
+        where:
+        length << [0, 1, 7, 8, 15, 16, 17, 31, 32, 33, 1000]
+    }
+
+    def 'murmur3 hash does not depend on how the input is split'() {
+        given:
+        def bytes = new byte[1000]
+        new Random(1234).nextBytes(bytes)
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+
+        when:
+        hasher.putByte(bytes[0])
+        hasher.putBytes(bytes, 1, 20)
+        def direct = ByteBuffer.allocateDirect(500)
+        direct.put(bytes, 21, 500).flip()
+        hasher.putBytes(direct)
+        hasher.putBytes(ByteBuffer.wrap(bytes, 521, 479))
+
+        then:
+        hasher.hash() == Hashing.murmur3().hashBytes(bytes)
+        !direct.hasRemaining()
+    }
+
+    def 'murmur3 hash fits into a 128-bit hash code'() {
+        expect:
+        def hash = Hashing.murmur3().hashString("abc")
+        hash instanceof HashCode.HashCode128
+        hash.toString().length() == Hashing.murmur3().hexDigits
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
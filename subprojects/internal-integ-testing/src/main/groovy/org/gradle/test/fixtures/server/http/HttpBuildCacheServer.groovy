@@ -109,6 +109,46 @@ class HttpBuildCacheServer extends ExternalResource implements HttpServerFixture
         this
     }
 
+    /**
+     * Delays every request by the given time, simulating the round trip to a remote server.
+     */
+    HttpBuildCacheServer withLatency(long millis) {
+        addResponder { req, res ->
+            Thread.sleep(millis)
+            true
+        }
+    }
+
+    /**
+     * Handles the {@code batch-exists} and {@code batch-load} requests for checking and loading multiple entries at once.
+     */
+    HttpBuildCacheServer withBatchRequests() {
+        addResponder { req, res ->
+            if (req.method != "POST") {
+                return true
+            }
+            def keys = req.inputStream.text.readLines()*.trim().findAll { !it.empty }
+            def existing = keys.collect { cacheDir.file(it) }.findAll { it.file }
+            if (req.requestURI.endsWith("/batch-exists")) {
+                res.contentType = "application/vnd.gradle.build-cache-batch-exists.v1"
+                res.outputStream.withStream { it << existing*.name.join("\n") }
+                return false
+            } else if (req.requestURI.endsWith("/batch-load")) {
+                res.contentType = "application/vnd.gradle.build-cache-batch-load.v1"
+                new DataOutputStream(res.outputStream).withStream { output ->
+                    existing.each { entry ->
+                        output.writeUTF(entry.name)
+                        output.writeLong(entry.length())
+                        output.write(entry.bytes)
+                    }
+                    output.writeUTF("")
+                }
+                return false
+            }
+            true
+        }
+    }
+
     @Override
     void start() {
         cacheDir = provider.testDirectory.createDir('http-cache-dir')
@@ -44,6 +44,7 @@ public class DefaultHttpSettings implements HttpSettings {
     private final int maxRedirects;
     private final int maxConnTotal;
     private final int maxConnPerRoute;
+    private final long idleConnectionKeepAliveMs;
     private final RedirectMethodHandlingStrategy redirectMethodHandlingStrategy;
 
     private HttpProxySettings proxySettings;
@@ -62,7 +63,8 @@ private DefaultHttpSettings(
         RedirectMethodHandlingStrategy redirectMethodHandlingStrategy,
         int maxRedirects,
         int maxConnTotal,
-        int maxConnPerRoute
+        int maxConnPerRoute,
+        long idleConnectionKeepAliveMs
     ) {
         Preconditions.checkArgument(maxRedirects >= 0, "maxRedirects must be positive");
         Preconditions.checkArgument(maxConnTotal > 0, "maxConnTotal must be positive");
@@ -76,6 +78,7 @@ private DefaultHttpSettings(
         this.maxRedirects = maxRedirects;
         this.maxConnTotal = maxConnTotal;
         this.maxConnPerRoute = maxConnPerRoute;
+        this.idleConnectionKeepAliveMs = idleConnectionKeepAliveMs;
         this.authenticationSettings = authenticationSettings;
         this.sslContextFactory = sslContextFactory;
         this.hostnameVerifier = hostnameVerifier;
@@ -122,6 +125,11 @@ public int getMaxConnPerRoute() {
         return maxConnPerRoute;
     }
 
+    @Override
+    public long getIdleConnectionKeepAliveMs() {
+        return idleConnectionKeepAliveMs;
+    }
+
     @Override
     public HttpRedirectVerifier getRedirectVerifier() {
         return redirectVerifier;
@@ -155,6 +163,7 @@ public static class Builder {
         private int maxRedirects = DEFAULT_MAX_REDIRECTS;
         private int maxConnTotal = DEFAULT_MAX_CONNECTIONS;
         private int maxConnPerRoute = DEFAULT_MAX_CONNECTIONS;
+        private long idleConnectionKeepAliveMs = -1;
         private RedirectMethodHandlingStrategy redirectMethodHandlingStrategy = RedirectMethodHandlingStrategy.ALWAYS_FOLLOW_AND_PRESERVE;
 
         public Builder withAuthenticationSettings(Collection<Authentication> authenticationSettings) {
@@ -197,13 +206,18 @@ public Builder maxConnPerRoute(int maxConnPerRoute) {
             return this;
         }
 
+        public Builder idleConnectionKeepAlive(long idleConnectionKeepAliveMs) {
+            this.idleConnectionKeepAliveMs = idleConnectionKeepAliveMs;
+            return this;
+        }
+
         public Builder withRedirectMethodHandlingStrategy(RedirectMethodHandlingStrategy redirectMethodHandlingStrategy) {
             this.redirectMethodHandlingStrategy = redirectMethodHandlingStrategy;
             return this;
         }
 
         public HttpSettings build() {
-            return new DefaultHttpSettings(authenticationSettings, sslContextFactory, hostnameVerifier, redirectVerifier, redirectMethodHandlingStrategy, maxRedirects, maxConnTotal, maxConnPerRoute);
+            return new DefaultHttpSettings(authenticationSettings, sslContextFactory, hostnameVerifier, redirectVerifier, redirectMethodHandlingStrategy, maxRedirects, maxConnTotal, maxConnPerRoute, idleConnectionKeepAliveMs);
         }
     }
 
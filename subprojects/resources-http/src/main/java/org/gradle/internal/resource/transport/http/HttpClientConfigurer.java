@@ -47,6 +47,7 @@
 import org.apache.http.impl.auth.DigestSchemeFactory;
 import org.apache.http.impl.auth.KerberosSchemeFactory;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.SystemDefaultCredentialsProvider;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
@@ -147,6 +148,18 @@ public void configure(HttpClientBuilder builder) {
         builder.setMaxConnTotal(httpSettings.getMaxConnTotal());
         builder.setMaxConnPerRoute(httpSettings.getMaxConnPerRoute());
         builder.setConnectionTimeToLive(httpSettings.getTimeoutSettings().getIdleConnectionTimeoutMs(), TimeUnit.MILLISECONDS);
+        configureKeepAlive(builder, httpSettings.getIdleConnectionKeepAliveMs());
+    }
+
+    private static void configureKeepAlive(HttpClientBuilder builder, long idleConnectionKeepAliveMs) {
+        if (idleConnectionKeepAliveMs <= 0) {
+            return;
+        }
+        builder.setKeepAliveStrategy((response, context) -> {
+            long serverKeepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAliveMs < 0 ? idleConnectionKeepAliveMs : Math.min(serverKeepAliveMs, idleConnectionKeepAliveMs);
+        });
+        builder.evictIdleConnections(idleConnectionKeepAliveMs, TimeUnit.MILLISECONDS);
     }
 
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
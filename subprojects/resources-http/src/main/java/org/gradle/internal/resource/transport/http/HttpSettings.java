@@ -35,6 +35,11 @@ public interface HttpSettings {
 
     int getMaxConnPerRoute();
 
+    /**
+     * The maximum time an idle connection is kept open for reuse, or a value of zero or less to keep it as long as the server allows.
+     */
+    long getIdleConnectionKeepAliveMs();
+
     HttpRedirectVerifier getRedirectVerifier();
 
     RedirectMethodHandlingStrategy getRedirectMethodHandlingStrategy();
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.fingerprint.impl;
+
+import com.google.common.collect.Interner;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from absolute paths to file fingerprints, which packs all entries into a few arrays
+ * instead of keeping a path string, a fingerprint and a hash code object per file.
+ *
+ * <p>
+ * Each absolute path is split into its parent directory, which is interned and shared with other maps, and its file name.
+ * The file names and the normalized paths are concatenated into a single string, and the content hashes into a single byte array.
+ * When the normalized path is a suffix of the absolute path, as for relative and name-only normalization, it is not stored separately.
+ * Fingerprints are created on demand when the entries are accessed, and the entries are iterated in the order they were added.
+ * </p>
+ *
+ * <p>
+ * {@link #hasSameFingerprints(Map)} compares the packed entries with another map without creating any fingerprints.
+ * </p>
+ */
+public class PackedFingerprintMap extends AbstractMap<String, FileSystemLocationFingerprint> {
+    private static final int PARENT = 0;
+    private static final int NAME_START = 1;
+    private static final int NAME_LENGTH = 2;
+    private static final int NORMALIZED_START = 3;
+    private static final int NORMALIZED_LENGTH = 4;
+    private static final int HASH_START = 5;
+    private static final int FIELD_COUNT = 6;
+
+    private static final int NORMALIZED_PATH_IS_SUFFIX = -1;
+    private static final int NORMALIZED_PATH_IGNORED = -2;
+    private static final int DIRECTORY = -1;
+    private static final int MISSING = -2;
+
+    private final String[] parents;
+    private final String text;
+    private final int[] entries;
+    private final byte[] hashes;
+    private final int[] table;
+    private final int size;
+
+    private PackedFingerprintMap(String[] parents, String text, int[] entries, byte[] hashes, int size) {
+        this.parents = parents;
+        this.text = text;
+        this.entries = entries;
+        this.hashes = hashes;
+        this.size = size;
+        // Keep the table at most half full
+        this.table = new int[Integer.highestOneBit(Math.max(1, size * 2 - 1)) << 1];
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread(absolutePathHashCode(entry)) & (table.length - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = entry + 1;
+        }
+    }
+
+    public static PackedFingerprintMap of(Map<String, FileSystemLocationFingerprint> fingerprints, Interner<String> stringInterner) {
+        if (fingerprints instanceof PackedFingerprintMap) {
+            return (PackedFingerprintMap) fingerprints;
+        }
+        Builder builder = builder(fingerprints.size(), stringInterner);
+        fingerprints.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static Builder builder(int expectedSize, Interner<String> stringInterner) {
+        return new Builder(expectedSize, stringInterner);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Nullable
+    @Override
+    public FileSystemLocationFingerprint get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int entry = indexOf((String) key);
+        return entry < 0 ? null : fingerprint(entry);
+    }
+
+    /**
+     * Returns whether the given map has the same fingerprints for the same absolute paths, in the same order.
+     */
+    public boolean hasSameFingerprints(Map<String, FileSystemLocationFingerprint> other) {
+        if (other.size() != size) {
+            return false;
+        }
+        int entry = 0;
+        for (Map.Entry<String, FileSystemLocationFingerprint> otherEntry : other.entrySet()) {
+            if (!hasAbsolutePath(entry, otherEntry.getKey()) || !hasFingerprint(entry, otherEntry.getValue())) {
+                return false;
+            }
+            entry++;
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new EntryIterator<String>() {
+                    @Override
+                    protected String get(int entry) {
+                        return absolutePath(entry);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, FileSystemLocationFingerprint>> entrySet() {
+        return new AbstractSet<Entry<String, FileSystemLocationFingerprint>>() {
+            @Override
+            public Iterator<Entry<String, FileSystemLocationFingerprint>> iterator() {
+                return new EntryIterator<Entry<String, FileSystemLocationFingerprint>>() {
+                    @Override
+                    protected Entry<String, FileSystemLocationFingerprint> get(int entry) {
+                        return new SimpleImmutableEntry<>(absolutePath(entry), fingerprint(entry));
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> other = (Entry<?, ?>) o;
+                if (!(other.getKey() instanceof String) || !(other.getValue() instanceof FileSystemLocationFingerprint)) {
+                    return false;
+                }
+                int entry = indexOf((String) other.getKey());
+                return entry >= 0 && hasFingerprint(entry, (FileSystemLocationFingerprint) other.getValue());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(String absolutePath) {
+        int slot = spread(absolutePath.hashCode()) & (table.length - 1);
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hasAbsolutePath(entry, absolutePath)) {
+                return entry;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private boolean hasAbsolutePath(int entry, String absolutePath) {
+        String parent = parents[field(entry, PARENT)];
+        int nameLength = field(entry, NAME_LENGTH);
+        return absolutePath.length() == parent.length() + nameLength
+            && absolutePath.startsWith(parent)
+            && absolutePath.regionMatches(parent.length(), text, field(entry, NAME_START), nameLength);
+    }
+
+    private boolean hasFingerprint(int entry, FileSystemLocationFingerprint fingerprint) {
+        if (fingerprint.getType() != type(entry)) {
+            return false;
+        }
+        int hashStart = field(entry, HASH_START);
+        if (hashStart >= 0 && !fingerprint.getNormalizedContentHash().hasBytes(hashes, hashStart + 1, hashes[hashStart] & 0xff)) {
+            return false;
+        }
+        int normalizedStart = field(entry, NORMALIZED_START);
+        if (normalizedStart == NORMALIZED_PATH_IGNORED) {
+            return fingerprint instanceof IgnoredPathFileSystemLocationFingerprint;
+        }
+        if (!(fingerprint instanceof DefaultFileSystemLocationFingerprint)) {
+            return false;
+        }
+        String normalizedPath = fingerprint.getNormalizedPath();
+        int normalizedLength = field(entry, NORMALIZED_LENGTH);
+        if (normalizedPath.length() != normalizedLength) {
+            return false;
+        }
+        if (normalizedStart >= 0) {
+            return normalizedPath.regionMatches(0, text, normalizedStart, normalizedLength);
+        }
+        // The normalized path is a suffix of the absolute path, which may start in the parent directory
+        String parent = parents[field(entry, PARENT)];
+        int nameStart = field(entry, NAME_START);
+        int nameLength = field(entry, NAME_LENGTH);
+        int suffixStart = parent.length() + nameLength - normalizedLength;
+        if (suffixStart >= parent.length()) {
+            return normalizedPath.regionMatches(0, text, nameStart + suffixStart - parent.length(), normalizedLength);
+        }
+        int lengthInParent = parent.length() - suffixStart;
+        return normalizedPath.regionMatches(0, parent, suffixStart, lengthInParent)
+            && normalizedPath.regionMatches(lengthInParent, text, nameStart, nameLength);
+    }
+
+    private String absolutePath(int entry) {
+        int nameStart = field(entry, NAME_START);
+        return parents[field(entry, PARENT)].concat(text.substring(nameStart, nameStart + field(entry, NAME_LENGTH)));
+    }
+
+    private int absolutePathHashCode(int entry) {
+        // Same as String.hashCode() of the absolute path
+        String parent = parents[field(entry, PARENT)];
+        int hash = parent.hashCode();
+        int nameStart = field(entry, NAME_START);
+        int nameEnd = nameStart + field(entry, NAME_LENGTH);
+        for (int i = nameStart; i < nameEnd; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    private FileSystemLocationFingerprint fingerprint(int entry) {
+        FileType type = type(entry);
+        int hashStart = field(entry, HASH_START);
+        HashCode contentHash = hashStart >= 0
+            ? HashCode.fromBytes(hashes, hashStart + 1, hashes[hashStart] & 0xff)
+            : type == FileType.Directory ? FileSystemLocationFingerprint.DIR_SIGNATURE : FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE;
+        int normalizedStart = field(entry, NORMALIZED_START);
+        if (normalizedStart == NORMALIZED_PATH_IGNORED) {
+            return IgnoredPathFileSystemLocationFingerprint.create(type, contentHash);
+        }
+        int normalizedLength = field(entry, NORMALIZED_LENGTH);
+        String normalizedPath;
+        if (normalizedStart >= 0) {
+            normalizedPath = text.substring(normalizedStart, normalizedStart + normalizedLength);
+        } else {
+            String absolutePath = absolutePath(entry);
+            normalizedPath = absolutePath.substring(absolutePath.length() - normalizedLength);
+        }
+        return new DefaultFileSystemLocationFingerprint(normalizedPath, type, contentHash);
+    }
+
+    private FileType type(int entry) {
+        switch (field(entry, HASH_START)) {
+            case DIRECTORY:
+                return FileType.Directory;
+            case MISSING:
+                return FileType.Missing;
+            default:
+                return FileType.RegularFile;
+        }
+    }
+
+    private int field(int entry, int field) {
+        return entries[entry * FIELD_COUNT + field];
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private abstract class EntryIterator<T> implements Iterator<T> {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(next++);
+        }
+
+        protected abstract T get(int entry);
+    }
+
+    public static class Builder {
+        private final Interner<String> stringInterner;
+        private final Map<String, Integer> parentIndexes = new HashMap<>();
+        private String[] parents = new String[4];
+        private final StringBuilder text = new StringBuilder();
+        private int[] entries;
+        private byte[] hashes;
+        private int hashesLength;
+        private int size;
+
+        private Builder(int expectedSize, Interner<String> stringInterner) {
+            this.stringInterner = stringInterner;
+            this.entries = new int[Math.max(1, expectedSize) * FIELD_COUNT];
+            this.hashes = new byte[Math.max(1, expectedSize) * 17];
+        }
+
+        public Builder put(String absolutePath, FileSystemLocationFingerprint fingerprint) {
+            if (size * FIELD_COUNT == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            int base = size * FIELD_COUNT;
+
+            int nameStart = absolutePath.lastIndexOf(File.separatorChar) + 1;
+            entries[base + PARENT] = parentIndex(absolutePath.substring(0, nameStart));
+            entries[base + NAME_START] = text.length();
+            entries[base + NAME_LENGTH] = absolutePath.length() - nameStart;
+            text.append(absolutePath, nameStart, absolutePath.length());
+
+            if (fingerprint instanceof IgnoredPathFileSystemLocationFingerprint) {
+                entries[base + NORMALIZED_START] = NORMALIZED_PATH_IGNORED;
+            } else {
+                String normalizedPath = fingerprint.getNormalizedPath();
+                entries[base + NORMALIZED_LENGTH] = normalizedPath.length();
+                if (absolutePath.endsWith(normalizedPath)) {
+                    entries[base + NORMALIZED_START] = NORMALIZED_PATH_IS_SUFFIX;
+                } else {
+                    entries[base + NORMALIZED_START] = text.length();
+                    text.append(normalizedPath);
+                }
+            }
+
+            switch (fingerprint.getType()) {
+                case Directory:
+                    entries[base + HASH_START] = DIRECTORY;
+                    break;
+                case Missing:
+                    entries[base + HASH_START] = MISSING;
+                    break;
+                case RegularFile:
+                    HashCode contentHash = fingerprint.getNormalizedContentHash();
+                    if (hashesLength + 1 + contentHash.length() > hashes.length) {
+                        hashes = Arrays.copyOf(hashes, Math.max(hashes.length * 2, hashesLength + 1 + contentHash.length()));
+                    }
+                    entries[base + HASH_START] = hashesLength;
+                    hashes[hashesLength] = (byte) contentHash.length();
+                    contentHash.copyTo(hashes, hashesLength + 1);
+                    hashesLength += 1 + contentHash.length();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown file type: " + fingerprint.getType());
+            }
+            size++;
+            return this;
+        }
+
+        private int parentIndex(String parent) {
+            Integer index = parentIndexes.get(parent);
+            if (index == null) {
+                index = parentIndexes.size();
+                if (index == parents.length) {
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                }
+                parents[index] = stringInterner.intern(parent);
+                parentIndexes.put(parent, index);
+            }
+            return index;
+        }
+
+        public PackedFingerprintMap build() {
+            return new PackedFingerprintMap(
+                Arrays.copyOf(parents, parentIndexes.size()),
+                text.toString(),
+                Arrays.copyOf(entries, size * FIELD_COUNT),
+                Arrays.copyOf(hashes, hashesLength),
+                size
+            );
+        }
+    }
+}
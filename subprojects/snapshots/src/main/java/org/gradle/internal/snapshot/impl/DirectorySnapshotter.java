@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Iterables;
@@ -28,8 +29,10 @@
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.FileSystemLeafSnapshot;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
 import org.gradle.internal.snapshot.RelativePathTracker;
@@ -40,20 +43,26 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystemLoopException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -62,9 +71,17 @@
 
 /**
  * For creating {@link DirectorySnapshot}s of directories.
+ *
+ * When a parallel {@link DirectorySnapshotterPool} is configured, unfiltered snapshots are taken by walking
+ * sub-directories concurrently on the pool. The resulting snapshot is the same as the one from the sequential walk.
  */
 public class DirectorySnapshotter {
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
+    /**
+     * The number of files and symlinks in a single directory that are snapshot in one parallel task.
+     * Directories with more entries are split into multiple tasks.
+     */
+    private static final int LEAF_BATCH_SIZE = 32;
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
         @Override
@@ -73,8 +90,8 @@ public String remapAbsolutePath(Path path) {
         }
 
         @Override
-        public SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker) {
-            return new DefaultSymbolicLinkMapping(source, target, currentPathTracker.getSegments());
+        public SymbolicLinkMapping withNewMapping(String source, String target, Iterable<String> currentRelativePathSegments) {
+            return new DefaultSymbolicLinkMapping(source, target, currentRelativePathSegments);
         }
 
         @Override
@@ -87,12 +104,18 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    private final DirectorySnapshotterPool pool;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, DirectorySnapshotterPool.sequential());
+    }
+
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, DirectorySnapshotterPool pool) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.pool = pool;
     }
 
     /**
@@ -112,9 +135,17 @@ public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner,
      * @return The (possible filtered) snapshot of the directory.
      */
     public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer) {
+        Path rootPath = Paths.get(absolutePath);
+        ForkJoinPool forkJoinPool = pool.getForkJoinPool();
+        // Filtered walks need to report the unfiltered sub-snapshots in visiting order, so we only parallelize unfiltered walks.
+        if (forkJoinPool != null && predicate == null && isDirectory(rootPath)) {
+            collector.recordVisitHierarchy();
+            FileSystemLocationSnapshot result = forkJoinPool.invoke(new DirectoryTask(rootPath, getInternedFileName(rootPath), AccessType.DIRECT, EMPTY_SYMBOLIC_LINK_MAPPING, null));
+            unfilteredSnapshotConsumer.accept(result);
+            return result;
+        }
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
-            Path rootPath = Paths.get(absolutePath);
             PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
@@ -127,10 +158,266 @@ public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable Snapsh
         }
     }
 
+    private static boolean isDirectory(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isDirectory();
+        } catch (IOException e) {
+            // Let the sequential walk deal with the failure
+            return false;
+        }
+    }
+
+    private String getInternedFileName(Path path) {
+        Path fileName = path.getFileName();
+        return fileName == null ? "" : stringInterner.intern(fileName.toString());
+    }
+
+    /**
+     * Snapshots a directory on the fork/join pool.
+     *
+     * Sub-directories are forked as separate tasks, and the files of large directories are split into batches.
+     * Excludes, symlinks and cycle detection are handled the same way as in {@link PathVisitor}.
+     */
+    private class DirectoryTask extends RecursiveTask<DirectorySnapshot> {
+        private final Path dir;
+        private final String name;
+        private final AccessType accessType;
+        private final SymbolicLinkMapping symbolicLinkMapping;
+        private final ParentDirectories parentDirectories;
+
+        public DirectoryTask(Path dir, String name, AccessType accessType, SymbolicLinkMapping symbolicLinkMapping, @Nullable ParentDirectories parentDirectories) {
+            this.dir = dir;
+            this.name = name;
+            this.accessType = accessType;
+            this.symbolicLinkMapping = symbolicLinkMapping;
+            this.parentDirectories = new ParentDirectories(dir.toString(), parentDirectories);
+        }
+
+        @Override
+        protected DirectorySnapshot compute() {
+            List<DirectoryTask> subDirectoryTasks = new ArrayList<>();
+            List<LeafEntry> leafEntries = new ArrayList<>();
+            try (DirectoryStream<Path> entries = openDirectory()) {
+                collector.recordVisitDirectory();
+                for (Path entry : entries) {
+                    classifyEntry(entry, subDirectoryTasks, leafEntries);
+                }
+            } catch (DirectoryIteratorException e) {
+                throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), e.getCause());
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), e);
+            }
+
+            for (DirectoryTask subDirectoryTask : subDirectoryTasks) {
+                subDirectoryTask.fork();
+            }
+
+            DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            builder.enterDirectory(accessType, intern(symbolicLinkMapping.remapAbsolutePath(dir)), name, INCLUDE_EMPTY_DIRS);
+            for (FileSystemLocationSnapshot leafSnapshot : snapshotLeaves(leafEntries)) {
+                visitChild(builder, leafSnapshot);
+            }
+            for (int i = subDirectoryTasks.size() - 1; i >= 0; i--) {
+                builder.visitDirectory(subDirectoryTasks.get(i).join());
+            }
+            return (DirectorySnapshot) builder.leaveDirectory();
+        }
+
+        private DirectoryStream<Path> openDirectory() {
+            try {
+                return Files.newDirectoryStream(dir);
+            } catch (IOException e) {
+                collector.recordVisitFileFailed();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void classifyEntry(Path entry, List<DirectoryTask> subDirectoryTasks, List<LeafEntry> leafEntries) {
+            String internedFileName = getInternedFileName(entry);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                collector.recordVisitFileFailed();
+                boolean isDirectory = Files.isDirectory(entry);
+                if (isDirectory ? !defaultExcludes.excludeDir(internedFileName) : !defaultExcludes.excludeFile(internedFileName)) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            if (attrs.isDirectory()) {
+                if (defaultExcludes.excludeDir(internedFileName)) {
+                    collector.recordVisitDirectory();
+                } else {
+                    subDirectoryTasks.add(new DirectoryTask(entry, internedFileName, AccessType.DIRECT, symbolicLinkMapping, parentDirectories));
+                }
+            } else {
+                collector.recordVisitFile();
+                leafEntries.add(new LeafEntry(entry, internedFileName, attrs));
+            }
+        }
+
+        private List<FileSystemLocationSnapshot> snapshotLeaves(List<LeafEntry> leafEntries) {
+            if (leafEntries.size() <= LEAF_BATCH_SIZE) {
+                return snapshotLeafBatch(leafEntries);
+            }
+            List<LeafBatchTask> batchTasks = new ArrayList<>();
+            for (int start = LEAF_BATCH_SIZE; start < leafEntries.size(); start += LEAF_BATCH_SIZE) {
+                LeafBatchTask batchTask = new LeafBatchTask(this, leafEntries.subList(start, Math.min(start + LEAF_BATCH_SIZE, leafEntries.size())));
+                batchTask.fork();
+                batchTasks.add(batchTask);
+            }
+            List<FileSystemLocationSnapshot> snapshots = new ArrayList<>(leafEntries.size());
+            snapshots.addAll(snapshotLeafBatch(leafEntries.subList(0, LEAF_BATCH_SIZE)));
+            for (int i = batchTasks.size() - 1; i >= 0; i--) {
+                snapshots.addAll(batchTasks.get(i).join());
+            }
+            return snapshots;
+        }
+
+        private List<FileSystemLocationSnapshot> snapshotLeafBatch(List<LeafEntry> leafEntries) {
+            List<FileSystemLocationSnapshot> snapshots = new ArrayList<>(leafEntries.size());
+            for (LeafEntry leafEntry : leafEntries) {
+                FileSystemLocationSnapshot snapshot = snapshotLeaf(leafEntry);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+            return snapshots;
+        }
+
+        @Nullable
+        private FileSystemLocationSnapshot snapshotLeaf(LeafEntry leafEntry) {
+            Path file = leafEntry.path;
+            if (leafEntry.attrs.isSymbolicLink()) {
+                BasicFileAttributes targetAttributes = readAttributesOfSymlinkTarget(file, leafEntry.attrs);
+                if (targetAttributes.isDirectory()) {
+                    DirectoryTask symlinkTask = followSymlink(file, leafEntry.internedFileName);
+                    return symlinkTask == null ? null : symlinkTask.invoke();
+                }
+                return snapshotResolvedFile(file, targetAttributes, AccessType.VIA_SYMLINK);
+            }
+            return snapshotResolvedFile(file, leafEntry.attrs, AccessType.DIRECT);
+        }
+
+        @Nullable
+        private DirectoryTask followSymlink(Path file, String internedFileName) {
+            try {
+                Path targetDir = file.toRealPath();
+                String targetDirString = targetDir.toString();
+                if (!parentDirectories.contains(targetDirString) && !defaultExcludes.excludeDir(internedFileName)) {
+                    collector.recordVisitHierarchy();
+                    // Relative paths are only needed for filtering, and filtered walks are never parallel
+                    SymbolicLinkMapping newMapping = symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, ImmutableList.of());
+                    return new DirectoryTask(targetDir, internedFileName, AccessType.VIA_SYMLINK, newMapping, null);
+                } else {
+                    return null;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", file), e);
+            }
+        }
+
+        @Nullable
+        private FileSystemLeafSnapshot snapshotResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
+            String internedName = intern(file.getFileName().toString());
+            if (defaultExcludes.excludeFile(internedName)) {
+                return null;
+            }
+            return snapshotFile(hasher, file, internedName, intern(symbolicLinkMapping.remapAbsolutePath(file)), targetAttributes, accessType);
+        }
+
+        private void visitChild(DirectorySnapshotBuilder builder, FileSystemLocationSnapshot snapshot) {
+            if (snapshot instanceof DirectorySnapshot) {
+                builder.visitDirectory((DirectorySnapshot) snapshot);
+            } else {
+                builder.visitLeafElement((FileSystemLeafSnapshot) snapshot);
+            }
+        }
+
+        private String intern(String string) {
+            return stringInterner.intern(string);
+        }
+    }
+
+    private static class LeafBatchTask extends RecursiveTask<List<FileSystemLocationSnapshot>> {
+        private final DirectoryTask directoryTask;
+        private final List<LeafEntry> leafEntries;
+
+        public LeafBatchTask(DirectoryTask directoryTask, List<LeafEntry> leafEntries) {
+            this.directoryTask = directoryTask;
+            this.leafEntries = leafEntries;
+        }
+
+        @Override
+        protected List<FileSystemLocationSnapshot> compute() {
+            return directoryTask.snapshotLeafBatch(leafEntries);
+        }
+    }
+
+    private static class LeafEntry {
+        private final Path path;
+        private final String internedFileName;
+        private final BasicFileAttributes attrs;
+
+        public LeafEntry(Path path, String internedFileName, BasicFileAttributes attrs) {
+            this.path = path;
+            this.internedFileName = internedFileName;
+            this.attrs = attrs;
+        }
+    }
+
+    /**
+     * The physical paths of the directories between the root of the current walk and the directory being visited,
+     * used to detect cycles introduced via symlinks.
+     */
+    private static class ParentDirectories {
+        private final String path;
+        @Nullable
+        private final ParentDirectories parent;
+
+        public ParentDirectories(String path, @Nullable ParentDirectories parent) {
+            this.path = path;
+            this.parent = parent;
+        }
+
+        public boolean contains(String directory) {
+            for (ParentDirectories current = this; current != null; current = current.parent) {
+                if (current.path.equals(directory)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static BasicFileAttributes readAttributesOfSymlinkTarget(Path symlink, BasicFileAttributes symlinkAttributes) {
+        try {
+            return Files.readAttributes(symlink, BasicFileAttributes.class);
+        } catch (IOException ioe) {
+            // We emulate the behavior of `Files.walkFileTree(Path, EnumSet.of(FileVisitOption.FOLLOW_LINKS), PathVisitor)`,
+            // and return the attributes of the symlink if we can't read the attributes of the target of the symlink.
+            return symlinkAttributes;
+        }
+    }
+
+    private static FileSystemLeafSnapshot snapshotFile(FileHasher hasher, Path absoluteFilePath, String internedName, String internedRemappedAbsoluteFilePath, BasicFileAttributes attrs, AccessType accessType) {
+        if (attrs.isSymbolicLink()) {
+            return new MissingFileSnapshot(internedRemappedAbsoluteFilePath, internedName, accessType);
+        } else if (!attrs.isRegularFile()) {
+            throw new UncheckedIOException(new IOException(String.format("Cannot snapshot %s: not a regular file", internedRemappedAbsoluteFilePath)));
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        long fileLength = attrs.size();
+        FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
+        HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+        return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
+    }
+
     private interface SymbolicLinkMapping {
         String remapAbsolutePath(Path path);
         @CheckReturnValue
-        SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker);
+        SymbolicLinkMapping withNewMapping(String source, String target, Iterable<String> currentRelativePathSegments);
         Iterable<String> getRemappedSegments(Iterable<String> segments);
     }
 
@@ -161,8 +448,8 @@ public String remapAbsolutePath(String absolutePath) {
         }
 
         @Override
-        public SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker) {
-            return new DefaultSymbolicLinkMapping(remapAbsolutePath(source), target, getRemappedSegments(currentPathTracker.getSegments()));
+        public SymbolicLinkMapping withNewMapping(String source, String target, Iterable<String> currentRelativePathSegments) {
+            return new DefaultSymbolicLinkMapping(remapAbsolutePath(source), target, getRemappedSegments(currentRelativePathSegments));
         }
 
         @Override
@@ -371,7 +658,7 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         stringInterner,
                         defaultExcludes,
                         collector,
-                        symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
+                        symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker.getSegments()),
                         unfilteredSnapshotConsumer);
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
@@ -402,28 +689,8 @@ private boolean shouldVisitFile(Path file, String internedName) {
             return shouldVisit(file, internedName, false);
         }
 
-        private BasicFileAttributes readAttributesOfSymlinkTarget(Path symlink, BasicFileAttributes symlinkAttributes) {
-            try {
-                return Files.readAttributes(symlink, BasicFileAttributes.class);
-            } catch (IOException ioe) {
-                // We emulate the behavior of `Files.walkFileTree(Path, EnumSet.of(FileVisitOption.FOLLOW_LINKS), PathVisitor)`,
-                // and return the attributes of the symlink if we can't read the attributes of the target of the symlink.
-                return symlinkAttributes;
-            }
-        }
-
         private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
-            String internedRemappedAbsoluteFilePath = intern(symbolicLinkMapping.remapAbsolutePath(absoluteFilePath));
-            if (attrs.isSymbolicLink()) {
-                return new MissingFileSnapshot(internedRemappedAbsoluteFilePath, internedName, accessType);
-            } else if (!attrs.isRegularFile()) {
-                throw new UncheckedIOException(new IOException(String.format("Cannot snapshot %s: not a regular file", internedRemappedAbsoluteFilePath)));
-            }
-            long lastModified = attrs.lastModifiedTime().toMillis();
-            long fileLength = attrs.size();
-            FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-            HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
-            return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
+            return DirectorySnapshotter.snapshotFile(hasher, absoluteFilePath, internedName, intern(symbolicLinkMapping.remapAbsolutePath(absoluteFilePath)), attrs, accessType);
         }
 
         /** unlistable directories (and maybe some locked files) will stop here */
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded work-stealing pool used by the {@link DirectorySnapshotter} to walk large directory hierarchies in parallel.
+ *
+ * A pool with a parallelism of {@code 1} or less doesn't start any threads, and the snapshotter walks the hierarchy on the calling thread.
+ */
+public class DirectorySnapshotterPool implements Closeable {
+    /**
+     * The number of threads to use for snapshotting directories.
+     *
+     * Directories are snapshot sequentially when the property is not set.
+     */
+    public static final String PARALLELISM_PROPERTY = "org.gradle.vfs.snapshot.parallelism";
+
+    @Nullable
+    private final ForkJoinPool pool;
+
+    public static DirectorySnapshotterPool sequential() {
+        return new DirectorySnapshotterPool(1);
+    }
+
+    public static DirectorySnapshotterPool fromSystemProperties() {
+        return new DirectorySnapshotterPool(Integer.getInteger(PARALLELISM_PROPERTY, 1));
+    }
+
+    public DirectorySnapshotterPool(int parallelism) {
+        this.pool = parallelism > 1
+            ? new ForkJoinPool(parallelism, new SnapshotterThreadFactory(), null, false)
+            : null;
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    @Nullable
+    ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static class SnapshotterThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Directory snapshotter thread " + counter.incrementAndGet());
+            return thread;
+        }
+    }
+}
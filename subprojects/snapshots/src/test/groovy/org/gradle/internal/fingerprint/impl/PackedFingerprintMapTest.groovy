@@ -0,0 +1,180 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.fingerprint.impl
+
+import com.google.common.collect.ImmutableMap
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileType
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+import java.lang.reflect.Modifier
+
+class PackedFingerprintMapTest extends Specification {
+    private static final String ROOT = "${File.separator}root${File.separator}project"
+
+    def stringInterner = new StringInterner()
+
+    def "provides the same entries in the same order as the original map"() {
+        def fingerprints = ImmutableMap.<String, FileSystemLocationFingerprint> builder()
+            .put(path("b.txt"), new DefaultFileSystemLocationFingerprint("b.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)))
+            .put(path("a"), new DefaultFileSystemLocationFingerprint("a", FileType.Directory, null))
+            .put(path("a", "c.txt"), new DefaultFileSystemLocationFingerprint("a${File.separator}c.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(2)))
+            .put(path("other", "d.txt"), new DefaultFileSystemLocationFingerprint("renamed.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(3)))
+            .put(path("missing"), new DefaultFileSystemLocationFingerprint("missing", FileType.Missing, null))
+            .put(path("root.txt"), new DefaultFileSystemLocationFingerprint("", FileType.RegularFile, TestHashCodes.hashCodeFrom(4)))
+            .put(path("ignored.txt"), IgnoredPathFileSystemLocationFingerprint.create(FileType.RegularFile, TestHashCodes.hashCodeFrom(5)))
+            .put(path("ignored"), IgnoredPathFileSystemLocationFingerprint.DIRECTORY)
+            .build()
+
+        when:
+        def packed = PackedFingerprintMap.of(fingerprints, stringInterner)
+
+        then:
+        packed.size() == fingerprints.size()
+        packed.keySet() as List == fingerprints.keySet() as List
+        packed.values() as List == fingerprints.values() as List
+        packed == fingerprints
+        fingerprints == packed
+        fingerprints.each { absolutePath, fingerprint ->
+            assert packed.containsKey(absolutePath)
+            assert packed[absolutePath] == fingerprint
+            assert packed.entrySet().contains(new AbstractMap.SimpleImmutableEntry(absolutePath, fingerprint))
+        }
+        packed.hasSameFingerprints(fingerprints)
+        !packed.containsKey(path("unknown"))
+        packed[path("unknown")] == null
+    }
+
+    def "supports hashes of different lengths"() {
+        def fingerprints = [
+            (path("short.txt")): new DefaultFileSystemLocationFingerprint("short.txt", FileType.RegularFile, HashCode.fromString("cafebabe")),
+            (path("long.txt")): new DefaultFileSystemLocationFingerprint("long.txt", FileType.RegularFile, HashCode.fromString("0123456789abcdef0123456789abcdef01234567"))
+        ]
+
+        expect:
+        def packed = PackedFingerprintMap.of(fingerprints, stringInterner)
+        packed == fingerprints
+        packed.hasSameFingerprints(fingerprints)
+    }
+
+    def "detects changed fingerprints without unpacking them"() {
+        def fingerprints = [
+            (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+            (path("b.txt")): new DefaultFileSystemLocationFingerprint("b.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(2))
+        ]
+        def packed = PackedFingerprintMap.of(fingerprints, stringInterner)
+
+        expect:
+        !packed.hasSameFingerprints(changed)
+        packed != changed
+
+        where:
+        changed << [
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+                (path("b.txt")): new DefaultFileSystemLocationFingerprint("b.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(3))
+            ],
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+                (path("b.txt")): new DefaultFileSystemLocationFingerprint("c.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(2))
+            ],
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+                (path("c.txt")): new DefaultFileSystemLocationFingerprint("b.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(2))
+            ],
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+                (path("b.txt")): new DefaultFileSystemLocationFingerprint("b.txt", FileType.Missing, null)
+            ],
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1)),
+                (path("b.txt")): IgnoredPathFileSystemLocationFingerprint.create(FileType.RegularFile, TestHashCodes.hashCodeFrom(2))
+            ],
+            [
+                (path("a.txt")): new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1))
+            ]
+        ]
+    }
+
+    def "detects reordered fingerprints"() {
+        def a = new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(1))
+        def b = new DefaultFileSystemLocationFingerprint("b.txt", FileType.RegularFile, TestHashCodes.hashCodeFrom(2))
+        def packed = PackedFingerprintMap.of([(path("a.txt")): a, (path("b.txt")): b], stringInterner)
+
+        expect:
+        !packed.hasSameFingerprints([(path("b.txt")): b, (path("a.txt")): a])
+    }
+
+    def "retains far fewer objects than an immutable map"() {
+        def builder = ImmutableMap.<String, FileSystemLocationFingerprint> builder()
+        1000.times { i ->
+            def relativePath = "dir${i % 10}${File.separator}file${i}.class"
+            builder.put(path(relativePath), new DefaultFileSystemLocationFingerprint(relativePath, FileType.RegularFile, TestHashCodes.hashCodeFrom(i)))
+        }
+        def fingerprints = builder.build()
+
+        when:
+        def unpackedObjects = countReachableObjects(fingerprints)
+        def packedObjects = countReachableObjects(PackedFingerprintMap.of(fingerprints, stringInterner))
+
+        then:
+        unpackedObjects > 4000
+        packedObjects < 30
+    }
+
+    private static String path(String... segments) {
+        return ([ROOT] + (segments as List)).join(File.separator)
+    }
+
+    /**
+     * Counts the objects reachable from the given object, like a heap histogram restricted to the object graph of a map.
+     * Arrays and Gradle and Guava types are traversed, other JDK types like strings are counted without looking into them.
+     */
+    private static int countReachableObjects(Object root) {
+        def visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>())
+        def queue = new ArrayDeque<Object>([root])
+        while (!queue.isEmpty()) {
+            def object = queue.poll()
+            if (!visited.add(object)) {
+                continue
+            }
+            def type = object.getClass()
+            if (type.isArray()) {
+                if (!type.componentType.isPrimitive()) {
+                    (object as Object[]).findAll { it != null }.each { queue.add(it) }
+                }
+                continue
+            }
+            if (type.name.startsWith("java.") || type.isEnum()) {
+                continue
+            }
+            for (def current = type; current != null; current = current.superclass) {
+                current.declaredFields.findAll { !Modifier.isStatic(it.modifiers) && !it.type.isPrimitive() }.each { field ->
+                    field.accessible = true
+                    def value = field.get(object)
+                    if (value != null) {
+                        queue.add(value)
+                    }
+                }
+            }
+        }
+        return visited.size()
+    }
+}
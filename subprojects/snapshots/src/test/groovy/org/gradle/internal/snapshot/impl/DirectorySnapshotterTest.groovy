@@ -457,6 +457,46 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    @Requires(UnitTestPreconditions.Symlinks)
+    def "parallel snapshot is the same as the sequential snapshot"() {
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dir ->
+            (1..50).each { file ->
+                rootDir.file("dir${dir}/sub${file % 3}/file${file}.txt").text = "content ${dir} ${file}"
+            }
+        }
+        rootDir.file("dir1/.git/config").createFile()
+        rootDir.file("dir2/.gitignore").createFile()
+        rootDir.file("empty").createDir()
+        def linkTarget = tmpDir.createDir("linkTarget")
+        linkTarget.file("sub/text.txt").text = "text"
+        rootDir.file("dir3/linked").createLink(linkTarget)
+        rootDir.file("dir4/cycle").createLink(rootDir.file("dir4"))
+        rootDir.file("brokenSymlink").createLink("missing")
+
+        def pool = new DirectorySnapshotterPool(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector, pool)
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector)
+        List<FileSystemLocationSnapshot> parallelUnfilteredSnapshots = []
+
+        when:
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, null, unfilteredSubSnapshotsCollector)
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, { parallelUnfilteredSnapshots.add(it) })
+
+        then:
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getAbsolutePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getAbsolutePaths(sequentialSnapshot, true)
+        SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getRelativePaths(sequentialSnapshot, true)
+        def linked = parallelSnapshot.children.find { it.name == "dir3" }.children.find { it.name == "linked" } as DirectorySnapshot
+        linked.accessType == AccessType.VIA_SYMLINK
+        linked.absolutePath == new File(rootDir, "dir3/linked").absolutePath
+        parallelUnfilteredSnapshots == [parallelSnapshot]
+        unfilteredSubsnapshots == [sequentialSnapshot]
+
+        cleanup:
+        pool.close()
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes() as List)
 